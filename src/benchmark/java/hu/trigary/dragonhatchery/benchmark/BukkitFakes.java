@@ -0,0 +1,160 @@
+package hu.trigary.dragonhatchery.benchmark;
+
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.boss.DragonBattle;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Lightweight, hand-written fakes of the Bukkit API, used instead of Mockito:
+ * mocks record their invocations, which would distort the measurements.
+ * Only the methods used by the plugin are implemented,
+ * the rest throw an {@link UnsupportedOperationException}.
+ */
+final class BukkitFakes {
+	
+	private BukkitFakes() {}
+	
+	/**
+	 * Creates a fake server.
+	 *
+	 * @param listeners the list to which the listeners registered via the server are added
+	 * @return the newly created fake
+	 */
+	@Contract(value = "_ -> new", pure = true)
+	static @NotNull Server server(@NotNull List<Listener> listeners) {
+		Logger logger = Logger.getLogger("BenchmarkServer");
+		PluginManager pluginManager = create(PluginManager.class, Map.of(
+				"registerEvents", args -> listeners.add((Listener) args[0])));
+		//Like on a real server, the asynchronous tasks (eg. flushes) don't slow down the caller
+		ExecutorService async = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "BenchmarkServer-Async");
+			thread.setDaemon(true);
+			return thread;
+		});
+		BukkitScheduler scheduler = create(BukkitScheduler.class, Map.of(
+				"runTaskAsynchronously", args -> {
+					async.execute((Runnable) args[1]);
+					return null;
+				}));
+		return create(Server.class, Map.of(
+				"getLogger", args -> logger,
+				"getPluginManager", args -> pluginManager,
+				"getScheduler", args -> scheduler,
+				"getWorlds", args -> List.of(),
+				"isPrimaryThread", args -> true,
+				"createBlockData", args -> blockData((Material) args[0], (String) args[1])));
+	}
+	
+	/**
+	 * Creates a fake block data. Cloning it creates a new instance, just like on a real server.
+	 *
+	 * @param material the type of the block
+	 * @param data the extra data of the block
+	 * @return the newly created fake
+	 */
+	@Contract(value = "_, _ -> new", pure = true)
+	static @NotNull BlockData blockData(@NotNull Material material, @NotNull String data) {
+		String asString = material.getKey() + data;
+		return create(BlockData.class, Map.of(
+				"getMaterial", args -> material,
+				"getAsString", args -> asString,
+				"clone", args -> blockData(material, data)));
+	}
+	
+	/**
+	 * Creates a fake block in a fake world.
+	 * Setting its block data or the block data of its neighbours does nothing.
+	 *
+	 * @return the newly created fake
+	 */
+	@Contract(value = "-> new", pure = true)
+	static @NotNull Block block() {
+		UUID worldId = UUID.randomUUID();
+		World world = create(World.class, Map.of("getUID", args -> worldId));
+		Block[] self = new Block[1];
+		self[0] = create(Block.class, Map.of(
+				"getWorld", args -> world,
+				"getRelative", args -> self[0],
+				"setBlockData", args -> null));
+		return self[0];
+	}
+	
+	/**
+	 * Creates a fake block state, which stores the block data set via it.
+	 *
+	 * @param block the block which the state belongs to
+	 * @return the newly created fake
+	 */
+	@Contract(value = "_ -> new", pure = true)
+	static @NotNull BlockState blockState(@NotNull Block block) {
+		BlockData[] blockData = new BlockData[1];
+		return create(BlockState.class, Map.of(
+				"getBlock", args -> block,
+				"getBlockData", args -> blockData[0],
+				"setBlockData", args -> blockData[0] = (BlockData) args[0]));
+	}
+	
+	/**
+	 * Creates a fake dragon battle.
+	 *
+	 * @param previouslyKilled whether the dragon has been previously killed
+	 * @return the newly created fake
+	 */
+	@Contract(value = "_ -> new", pure = true)
+	static @NotNull DragonBattle dragonBattle(boolean previouslyKilled) {
+		return create(DragonBattle.class, Map.of(
+				"hasBeenPreviouslyKilled", args -> previouslyKilled));
+	}
+	
+	/**
+	 * Creates a fake instance of the specified interface.
+	 * The methods are looked up by their names: overloads are not differentiated.
+	 *
+	 * @param type the interface to implement
+	 * @param methods the implementations of the methods, mapped by their names
+	 * @param <T> the type of the fake
+	 * @return the newly created fake
+	 */
+	@Contract(value = "_, _ -> new", pure = true)
+	private static <T> @NotNull T create(@NotNull Class<T> type,
+			@NotNull Map<String, Function<Object[], Object>> methods) {
+		Map<String, Function<Object[], Object>> all = new HashMap<>(methods);
+		all.putIfAbsent("toString", args -> type.getSimpleName() + "Fake");
+		Object fake = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+						case "hashCode":
+							return System.identityHashCode(proxy);
+						case "equals":
+							return proxy == args[0];
+						default:
+							Function<Object[], Object> implementation = all.get(method.getName());
+							if (implementation == null) {
+								throw new UnsupportedOperationException("Not implemented: "
+										+ type.getSimpleName() + "#" + method.getName());
+							}
+							return implementation.apply(args);
+					}
+				});
+		return type.cast(fake);
+	}
+}
@@ -0,0 +1,148 @@
+package hu.trigary.dragonhatchery.benchmark;
+
+import hu.trigary.dragonhatchery.DragonHatcheryPlugin;
+import hu.trigary.dragonhatchery.core.EggScenario;
+import hu.trigary.dragonhatchery.core.ScenarioLogic;
+import io.papermc.paper.event.block.DragonEggFormEvent;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.boss.DragonBattle;
+import org.bukkit.event.EventException;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPluginLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks the handling of the dragon egg spawning:
+ * the individual steps in {@link ScenarioLogic} and the whole event handling
+ * (starting from the {@link EventExecutor} the server would use).
+ * The plugin is loaded using the default configuration and fake Bukkit API instances,
+ * see {@link BukkitFakes}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HatchPipelineBenchmark {
+	@Param({"false", "true"})
+	public boolean previouslyKilled;
+	
+	private Path dataFolder;
+	private DragonHatcheryPlugin plugin;
+	private ScenarioLogic logic;
+	private Listener listener;
+	private EventExecutor executor;
+	private Block block;
+	private BlockState newState;
+	private DragonBattle battle;
+	
+	/**
+	 * Loads the plugin and sets up the fake Bukkit API instances.
+	 *
+	 * @throws IOException if the data folder can't be created
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		dataFolder = Files.createTempDirectory("dragon-hatchery-benchmark");
+		List<Listener> listeners = new ArrayList<>();
+		JavaPluginLoader loader = new JavaPluginLoader(BukkitFakes.server(listeners));
+		PluginDescriptionFile description = new PluginDescriptionFile("DragonHatchery",
+				"benchmark", DragonHatcheryPlugin.class.getName());
+		plugin = new DragonHatcheryPlugin(loader, description,
+				dataFolder.toFile(), new File(dataFolder.toFile(), "plugin.jar")) {};
+		
+		plugin.reload();
+		//The default configuration enables debug logging: measure the usual setup instead
+		plugin.getLogger().setLevel(java.util.logging.Level.INFO);
+		
+		block = BukkitFakes.block();
+		newState = BukkitFakes.blockState(block);
+		battle = BukkitFakes.dragonBattle(previouslyKilled);
+		logic = plugin.getScenarioLogicHolder().getLogicFor(EggScenario.getMatching(battle));
+		
+		listener = listeners.get(0);
+		Method handler = Arrays.stream(listener.getClass().getDeclaredMethods())
+				.filter(method -> method.isAnnotationPresent(EventHandler.class))
+				.filter(method -> method.getParameterTypes()[0] == DragonEggFormEvent.class)
+				.findAny().orElseThrow();
+		executor = EventExecutor.create(handler, DragonEggFormEvent.class);
+	}
+	
+	/**
+	 * Disables the plugin and deletes its data folder.
+	 *
+	 * @throws IOException if the files can't be deleted
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		plugin.onDisable();
+		try (Stream<Path> files = Files.walk(dataFolder)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+	
+	/**
+	 * Measures the roll deciding whether the egg should spawn.
+	 *
+	 * @return the result of the roll
+	 */
+	@Benchmark
+	public boolean shouldAllowEggSpawn() {
+		return logic.shouldAllowEggSpawn();
+	}
+	
+	/**
+	 * Measures the rolling and the setting of the spawned block.
+	 *
+	 * @return the modified block state
+	 */
+	@Benchmark
+	public BlockState handleEggSpawn() {
+		logic.handleEggSpawn(battle, newState);
+		return newState;
+	}
+	
+	/**
+	 * Measures the whole event handling, including the scenario detection and the rolls.
+	 *
+	 * @return the handled event
+	 * @throws EventException if the event handler throws an exception
+	 */
+	@Benchmark
+	public DragonEggFormEvent onEggSpawn() throws EventException {
+		DragonEggFormEvent event = new DragonEggFormEvent(block, newState, battle);
+		executor.execute(listener, event);
+		return event;
+	}
+}
@@ -0,0 +1,121 @@
+package hu.trigary.dragonhatchery.benchmark;
+
+import hu.trigary.dragonhatchery.util.WeightedRandomCollection;
+import org.jetbrains.annotations.Contract;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks the construction and the sampling of {@link WeightedRandomCollection}
+ * across different table sizes, weight distributions and engines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeightedRandomCollectionBenchmark {
+	@Param({"4", "64", "1024"})
+	public int size;
+	
+	@Param({"UNIFORM", "LINEAR", "GEOMETRIC"})
+	public Skew skew;
+	
+	@Param({"ALIAS", "TREE_MAP", "PREFIX_SUM"})
+	public WeightedRandomCollection.Engine engine;
+	
+	private List<Integer> entries;
+	private double[] weights;
+	private WeightedRandomCollection<Integer> collection;
+	
+	/**
+	 * Creates the weights and the collection used by the benchmarks.
+	 */
+	@Setup
+	public void setUp() {
+		entries = IntStream.range(0, size).boxed().collect(Collectors.toList());
+		weights = IntStream.range(0, size).mapToDouble(skew::getWeight).toArray();
+		collection = construct();
+	}
+	
+	/**
+	 * Measures the construction of a collection (including the engine's preprocessing).
+	 *
+	 * @return the constructed collection
+	 */
+	@Benchmark
+	public WeightedRandomCollection<Integer> construct() {
+		return new WeightedRandomCollection<>(entries, Function.identity(),
+				index -> weights[index], engine);
+	}
+	
+	/**
+	 * Measures a single roll.
+	 *
+	 * @return the rolled entry
+	 */
+	@Benchmark
+	public Integer getRandom() {
+		return collection.getRandom();
+	}
+	
+	/**
+	 * The distribution of the weights.
+	 */
+	public enum Skew {
+		/**
+		 * Each entry has the same weight.
+		 */
+		UNIFORM {
+			@Override
+			double getWeight(int index) {
+				return 1;
+			}
+		},
+		
+		/**
+		 * The weights increase linearly.
+		 */
+		LINEAR {
+			@Override
+			double getWeight(int index) {
+				return index + 1;
+			}
+		},
+		
+		/**
+		 * The weights decrease geometrically: a few entries have most of the weight.
+		 */
+		GEOMETRIC {
+			@Override
+			double getWeight(int index) {
+				return Math.pow(0.9, index);
+			}
+		};
+		
+		/**
+		 * Gets the weight of the entry at the specified index.
+		 *
+		 * @param index the index of the entry
+		 * @return the weight of the entry
+		 */
+		@Contract(pure = true)
+		abstract double getWeight(int index);
+	}
+}
@@ -1,18 +1,51 @@
 package hu.trigary.dragonhatchery;
 
 import hu.trigary.dragonhatchery.command.BaseCommandHandler;
+import hu.trigary.dragonhatchery.core.BlockDataCache;
+import hu.trigary.dragonhatchery.core.EggScenario;
 import hu.trigary.dragonhatchery.core.EggFormListener;
+import hu.trigary.dragonhatchery.core.HatchAuditLog;
+import hu.trigary.dragonhatchery.core.HatchStatistics;
+import hu.trigary.dragonhatchery.core.HatchTracer;
+import hu.trigary.dragonhatchery.core.KillCounter;
+import hu.trigary.dragonhatchery.core.KillCounterStore;
+import hu.trigary.dragonhatchery.core.RandomSourceProvider;
+import hu.trigary.dragonhatchery.core.ScenarioCache;
+import hu.trigary.dragonhatchery.core.ScenarioDefinition;
 import hu.trigary.dragonhatchery.core.ScenarioLogicHolder;
+import hu.trigary.dragonhatchery.core.ScenarioRules;
+import hu.trigary.dragonhatchery.core.WorldIndexListener;
+import hu.trigary.dragonhatchery.core.WorldScenarioIndex;
+import hu.trigary.dragonhatchery.jfr.ReloadEvent;
+import hu.trigary.dragonhatchery.util.AsyncLogHandler;
 import hu.trigary.dragonhatchery.util.ConfigHelper;
-import hu.trigary.dragonhatchery.util.DebugLogHandler;
+import hu.trigary.dragonhatchery.util.FileWatcher;
 import hu.trigary.dragonhatchery.util.InvalidConfigException;
+import hu.trigary.dragonhatchery.util.RandomSource;
 import org.apache.commons.lang.Validate;
 import org.bstats.bukkit.Metrics;
+import org.bukkit.World;
 import org.bukkit.command.PluginCommand;
+import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
-import org.bukkit.event.HandlerList;
+import org.bukkit.plugin.PluginDescriptionFile;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 
 /**
@@ -31,13 +64,49 @@ public class DragonHatcheryPlugin extends JavaPlugin {
 		hatchery.onDisable();
 	}
 	
+	private static final int DEFAULT_LOG_CAPACITY = 4096;
+	private static final long DEFAULT_AUTO_RELOAD_DEBOUNCE = 1000;
+	private static final long AUTO_RELOAD_RETRY_TICKS = 20;
 	private final String logPrefix = getClass().getSimpleName() + ": ";
-	private ScenarioLogicHolder scenarioLogicHolder;
+	private final HatchStatistics statistics = new HatchStatistics();
+	private final AtomicBoolean reloading = new AtomicBoolean();
+	private volatile FileConfiguration config;
+	private volatile RandomSourceProvider randomSourceProvider;
+	private volatile AsyncLogHandler logHandler;
+	private volatile FileWatcher configWatcher;
+	private volatile WorldScenarioIndex scenarioIndex;
+	private volatile ScenarioRules scenarioRules;
+	private BlockDataCache blockDataCache;
+	private HatchTracer tracer;
+	private KillCounter killCounter;
+	private HatchAuditLog auditLog;
+	private ScenarioCache scenarioCache;
 	private EggFormListener eggFormListener;
+	private BaseCommandHandler commandHandler;
+	
+	/**
+	 * Constructs a new instance. Called by the server when the plugin is loaded.
+	 */
+	public DragonHatcheryPlugin() {}
+	
+	/**
+	 * Constructs a new instance outside of a server, eg. in benchmarks.
+	 * Must not be used at runtime, see
+	 * {@link JavaPlugin#JavaPlugin(JavaPluginLoader, PluginDescriptionFile, File, File)}.
+	 *
+	 * @param loader the loader to use
+	 * @param description the description of the plugin
+	 * @param dataFolder the folder containing the configuration
+	 * @param file the file the plugin was loaded from
+	 */
+	protected DragonHatcheryPlugin(@NotNull JavaPluginLoader loader,
+			@NotNull PluginDescriptionFile description,
+			@NotNull File dataFolder, @NotNull File file) {
+		super(loader, description, dataFolder, file);
+	}
 	
 	@Override
 	public void onEnable() {
-		DebugLogHandler.attachDebugLogger(this);
 		validateServer();
 		
 		reload();
@@ -45,53 +114,600 @@ public class DragonHatcheryPlugin extends JavaPlugin {
 		PluginCommand baseCommand = getCommand("dragonhatchery");
 		Validate.notNull(baseCommand, "Command must be found");
 		//This also sets the tab completer
-		baseCommand.setExecutor(new BaseCommandHandler(this));
+		commandHandler = new BaseCommandHandler(this);
+		baseCommand.setExecutor(commandHandler);
 		
 		//Constructor has side effects
 		//noinspection ResultOfObjectAllocationIgnored
 		new Metrics(this, 10368); //Hardcoded bStats plugin ID
 	}
 	
+	@Override
+	public void onDisable() {
+		if (commandHandler != null) {
+			commandHandler.close();
+			commandHandler = null;
+		}
+		closeConfigWatcher();
+		if (tracer != null) {
+			tracer.close();
+		}
+		if (killCounter != null) {
+			try {
+				killCounter.close();
+			} catch (IOException e) {
+				getLogger().log(Level.WARNING,
+						logPrefix + "Unable to close the kill counter file", e);
+			}
+			killCounter = null;
+		}
+		closeAuditLog();
+		if (logHandler != null) {
+			//Also flushes the remaining records
+			logHandler.detach();
+			logHandler = null;
+		}
+	}
+	
 	/**
-	 * Gets the current {@link ScenarioLogicHolder} instance.
+	 * Gets the current default {@link ScenarioLogicHolder} instance:
+	 * the one handling the worlds which don't belong to any world table.
 	 * The returned value mustn't be cached: it might chance during runtime.
 	 *
-	 * @return the current {@link ScenarioLogicHolder} instance
+	 * @return the current default {@link ScenarioLogicHolder} instance
+	 * @see #getScenarioIndex()
 	 */
 	public ScenarioLogicHolder getScenarioLogicHolder() {
-		return scenarioLogicHolder;
+		WorldScenarioIndex index = scenarioIndex;
+		return index == null ? null : index.getDefault();
+	}
+	
+	/**
+	 * Gets the current {@link WorldScenarioIndex} instance.
+	 * The returned value mustn't be cached: it might chance during runtime.
+	 *
+	 * @return the current {@link WorldScenarioIndex} instance
+	 */
+	public WorldScenarioIndex getScenarioIndex() {
+		return scenarioIndex;
+	}
+	
+	/**
+	 * Gets the current {@link ScenarioRules} instance.
+	 * The returned value mustn't be cached: it might chance during runtime.
+	 *
+	 * @return the current {@link ScenarioRules} instance
+	 */
+	public ScenarioRules getScenarioRules() {
+		return scenarioRules;
+	}
+	
+	/**
+	 * Gets the current {@link RandomSourceProvider} instance.
+	 * The returned value mustn't be cached: it might chance during runtime.
+	 *
+	 * @return the current {@link RandomSourceProvider} instance
+	 */
+	public RandomSourceProvider getRandomSourceProvider() {
+		return randomSourceProvider;
+	}
+	
+	/**
+	 * Gets the {@link BlockDataCache} instance.
+	 * It's shared between reloads, therefore it doesn't change during runtime.
+	 *
+	 * @return the {@link BlockDataCache} instance
+	 */
+	public BlockDataCache getBlockDataCache() {
+		return blockDataCache;
+	}
+	
+	/**
+	 * Gets the {@link HatchTracer} instance.
+	 * It's shared between reloads, therefore it doesn't change during runtime.
+	 *
+	 * @return the {@link HatchTracer} instance
+	 */
+	public HatchTracer getTracer() {
+		return tracer;
+	}
+	
+	/**
+	 * Gets the {@link KillCounter} instance.
+	 * It's shared between reloads, therefore it doesn't change during runtime.
+	 *
+	 * @return the {@link KillCounter} instance
+	 */
+	public KillCounter getKillCounter() {
+		return killCounter;
+	}
+	
+	/**
+	 * Gets the current {@link HatchAuditLog} instance.
+	 * The returned value mustn't be cached: it might chance during runtime.
+	 * Should only be called from the main thread.
+	 *
+	 * @return the current {@link HatchAuditLog} instance or null, if it's disabled
+	 */
+	public @Nullable HatchAuditLog getAuditLog() {
+		return auditLog;
+	}
+	
+	/**
+	 * Gets the directory the {@link HatchAuditLog} files are stored in.
+	 *
+	 * @return the path of the directory, it might not exist
+	 */
+	public @NotNull Path getAuditDirectory() {
+		return new File(getDataFolder(), "audit").toPath();
+	}
+	
+	/**
+	 * Gets the {@link HatchStatistics} instance.
+	 * It's shared between reloads, therefore it doesn't change during runtime.
+	 *
+	 * @return the {@link HatchStatistics} instance
+	 */
+	public HatchStatistics getStatistics() {
+		return statistics;
+	}
+	
+	/**
+	 * Gets the configuration of this plugin.
+	 * Unlike {@link JavaPlugin#getConfig()}, the returned instance doesn't have default values.
+	 * If the scenarios were loaded from the {@link ScenarioCache} on startup,
+	 * then the {@code scenario} section isn't parsed: it's missing from the returned instance.
+	 * The returned value mustn't be cached: it might chance during runtime.
+	 *
+	 * @return the current configuration
+	 */
+	@Override
+	public @NotNull FileConfiguration getConfig() {
+		FileConfiguration current = config;
+		if (current == null) {
+			reloadConfig();
+			current = config;
+		}
+		return current;
+	}
+	
+	@Override
+	public void reloadConfig() {
+		config = loadConfig();
 	}
 	
 	/**
 	 * Initializes or re-initializes this plugin
-	 * (by eg. also reloading its configuration).
+	 * (by eg. also reloading its configuration), synchronously.
+	 * Should only be called from the main thread.
+	 *
+	 * @see #reloadAsync(Runnable)
 	 */
 	public void reload() {
+		if (tracer == null) {
+			tracer = new HatchTracer(getLogger());
+		}
+		if (killCounter == null) {
+			killCounter = openKillCounter();
+		}
+		if (blockDataCache == null) {
+			blockDataCache = new BlockDataCache(getServer());
+		}
+		if (scenarioCache == null) {
+			scenarioCache = new ScenarioCache(new File(getDataFolder(), "scenario-cache.bin").toPath());
+		}
 		saveDefaultConfig();
-		reloadConfig();
+		ReloadResult result = prepareReload();
+		applyReload(result);
+		//Don't make the startup wait for scenarios that might not be needed for hours
+		getServer().getScheduler().runTaskAsynchronously(this,
+				result.scenarioIndex::prewarm);
+	}
+	
+	/**
+	 * Re-initializes this plugin (by eg. also reloading its configuration) asynchronously:
+	 * the configuration is read and parsed on a background thread,
+	 * then the new state is published on the main thread, without interrupting the egg spawning.
+	 * Should only be called from the main thread, after the plugin has been enabled.
+	 *
+	 * @param callback the action to execute on the main thread after the reload
+	 * @return true if the reload was started, false if another reload was in progress
+	 */
+	public boolean reloadAsync(@NotNull Runnable callback) {
+		if (!reloading.compareAndSet(false, true)) {
+			return false;
+		}
 		
-		//Remove all default values: we don't want the default
-		// configuration to leak values into the actual configuration
-		getConfig().setDefaults(new YamlConfiguration());
+		saveDefaultConfig();
+		BukkitScheduler scheduler = getServer().getScheduler();
+		scheduler.runTaskAsynchronously(this, () -> {
+			ReloadResult result;
+			try {
+				result = prepareReload();
+				result.scenarioIndex.prewarm();
+			} catch (Throwable t) {
+				getLogger().log(Level.SEVERE, logPrefix + "Error reloading the configuration", t);
+				result = null;
+			}
+			
+			ReloadResult finalResult = result;
+			scheduler.runTask(this, () -> {
+				try {
+					if (finalResult != null) {
+						applyReload(finalResult);
+					}
+				} finally {
+					reloading.set(false);
+				}
+				callback.run();
+			});
+		});
+		return true;
+	}
+	
+	/**
+	 * Reads and parses the configuration and builds the new state of this plugin.
+	 * Nothing is applied: the state is only returned, so that a failed reload has no effect.
+	 * May be called from any thread, but only from a single thread at a time.
+	 *
+	 * @return the new state, see {@link #applyReload(ReloadResult)}
+	 */
+	private @NotNull ReloadResult prepareReload() {
+		ReloadEvent jfrEvent = new ReloadEvent();
+		jfrEvent.begin();
+		byte[] rawConfig = readConfigFile();
+		String configFingerprint = ConfigHelper.fingerprint(rawConfig);
+		WorldScenarioIndex previousScenarioIndex = scenarioIndex;
+		ScenarioLogicHolder previousScenarioLogicHolder = previousScenarioIndex == null
+				? null : previousScenarioIndex.getDefault();
+		//The cache is only useful on startup: afterwards the unchanged scenarios are reused
+		ScenarioLogicHolder cachedScenarioLogicHolder = previousScenarioLogicHolder == null
+				? loadCachedScenarios(configFingerprint) : null;
+		//On a cache hit the (possibly huge) scenario section doesn't even have to be parsed
+		byte[] settingsOnly = cachedScenarioLogicHolder == null ? null
+				: ConfigHelper.removeTopLevelSection(rawConfig, "scenario");
+		FileConfiguration newConfig = loadConfig(settingsOnly == null ? rawConfig : settingsOnly);
 		
 		boolean enableDebugLogging;
 		try {
-			enableDebugLogging = ConfigHelper.parseValue(getConfig(),
+			enableDebugLogging = ConfigHelper.parseValue(newConfig,
 					"debug-logging", Boolean::parseBoolean);
 		} catch (InvalidConfigException e) {
 			getLogger().log(Level.SEVERE,
 					logPrefix + "Invalid config, defaulting to debug logging", e);
 			enableDebugLogging = true;
 		}
-		getLogger().setLevel(enableDebugLogging ? Level.ALL : Level.INFO);
 		
-		scenarioLogicHolder = new ScenarioLogicHolder(this);
+		int logCapacity;
+		AsyncLogHandler.FullPolicy logPolicy;
+		try {
+			logCapacity = ConfigHelper.parseValue(newConfig, "async-logging.capacity", raw -> {
+				int v = Integer.parseInt(raw);
+				Validate.isTrue(v >= 1 && v <= 1 << 20, "Capacity must be between 1 and 1048576");
+				return v;
+			}, DEFAULT_LOG_CAPACITY);
+			logPolicy = ConfigHelper.parseValue(newConfig, "async-logging.queue-full-policy",
+					raw -> AsyncLogHandler.FullPolicy.valueOf(raw.toUpperCase(Locale.ROOT)),
+					AsyncLogHandler.FullPolicy.DROP);
+		} catch (InvalidConfigException e) {
+			getLogger().log(Level.SEVERE,
+					logPrefix + "Invalid config, defaulting to the default async logging settings", e);
+			logCapacity = DEFAULT_LOG_CAPACITY;
+			logPolicy = AsyncLogHandler.FullPolicy.DROP;
+		}
+		
+		boolean autoReload;
+		long autoReloadDebounce;
+		try {
+			autoReload = ConfigHelper.parseValue(newConfig, "auto-reload.enabled",
+					Boolean::parseBoolean, false);
+			autoReloadDebounce = ConfigHelper.parseValue(newConfig,
+					"auto-reload.debounce-millis", raw -> {
+						long v = Long.parseLong(raw);
+						Validate.isTrue(v >= 0 && v <= 60_000,
+								"Debounce must be between 0 and 60000");
+						return v;
+					}, DEFAULT_AUTO_RELOAD_DEBOUNCE);
+		} catch (InvalidConfigException e) {
+			getLogger().log(Level.SEVERE,
+					logPrefix + "Invalid config, disabling automatic reloading", e);
+			autoReload = false;
+			autoReloadDebounce = DEFAULT_AUTO_RELOAD_DEBOUNCE;
+		}
+		
+		RandomSourceProvider newRandomSourceProvider;
+		try {
+			newRandomSourceProvider = RandomSourceProvider.fromConfig(newConfig);
+		} catch (InvalidConfigException e) {
+			getLogger().log(Level.SEVERE,
+					logPrefix + "Invalid config, defaulting to the thread-local random", e);
+			newRandomSourceProvider = new RandomSourceProvider(RandomSource.THREAD_LOCAL, null);
+		}
+		
+		ScenarioLogicHolder newScenarioLogicHolder = cachedScenarioLogicHolder;
+		if (newScenarioLogicHolder == null) {
+			newScenarioLogicHolder = new ScenarioLogicHolder(this,
+					newConfig, previousScenarioLogicHolder);
+			saveCachedScenarios(configFingerprint, newScenarioLogicHolder);
+		}
+		//The world tables are small overrides: they aren't cached
+		WorldScenarioIndex newScenarioIndex = new WorldScenarioIndex(this,
+				newConfig, newScenarioLogicHolder, previousScenarioIndex);
+		ScenarioRules newScenarioRules = new ScenarioRules(this, newConfig);
+		
+		HatchAuditLog.Settings newAuditSettings;
+		try {
+			newAuditSettings = HatchAuditLog.Settings.fromConfig(newConfig);
+		} catch (InvalidConfigException e) {
+			getLogger().log(Level.SEVERE,
+					logPrefix + "Invalid config, disabling the audit log", e);
+			newAuditSettings = HatchAuditLog.Settings.DISABLED;
+		}
+		
+		if (jfrEvent.shouldCommit()) {
+			jfrEvent.loadedScenarios = newScenarioLogicHolder.getLoadedCount();
+			jfrEvent.debugLogging = enableDebugLogging;
+			jfrEvent.commit();
+		}
+		return new ReloadResult(newConfig, enableDebugLogging, logCapacity, logPolicy,
+				autoReload, autoReloadDebounce, newRandomSourceProvider,
+				newScenarioIndex, newScenarioRules, newAuditSettings);
+	}
+	
+	/**
+	 * Publishes the new state of this plugin, created by {@link #prepareReload()},
+	 * and applies the new settings (eg. of the logging).
+	 * The listeners are only registered the first time, they are kept registered afterwards.
+	 * Should only be called from the main thread.
+	 *
+	 * @param result the new state
+	 */
+	private void applyReload(@NotNull ReloadResult result) {
+		getLogger().setLevel(result.debugLogging ? Level.ALL : Level.INFO);
+		tracer.setEnabled(result.debugLogging);
+		reloadLogHandler(result.logCapacity, result.logPolicy);
+		reloadConfigWatcher(result.autoReload, result.autoReloadDebounce);
 		
-		if (eggFormListener != null) {
-			HandlerList.unregisterAll(eggFormListener);
+		//Worlds can only be loaded on the main thread: none can be missed between these lines
+		for (World world : getServer().getWorlds()) {
+			result.scenarioIndex.addWorld(world);
+			result.scenarioRules.addWorld(world);
+		}
+		
+		config = result.config;
+		randomSourceProvider = result.randomSourceProvider;
+		scenarioIndex = result.scenarioIndex;
+		scenarioRules = result.scenarioRules;
+		//Swapped on the main thread, so that no records are lost
+		reloadAuditLog(result.auditSettings);
+		
+		if (eggFormListener == null) {
+			eggFormListener = new EggFormListener(this);
+			getServer().getPluginManager().registerEvents(eggFormListener, this);
+			getServer().getPluginManager().registerEvents(new WorldIndexListener(this), this);
+		}
+	}
+	
+	/**
+	 * Reads the configuration file without modifying the state of this plugin.
+	 * The returned instance has no default values: we don't want
+	 * the default configuration to leak values into the actual configuration.
+	 *
+	 * @return the newly read configuration
+	 */
+	private @NotNull FileConfiguration loadConfig() {
+		return loadConfig(readConfigFile());
+	}
+	
+	/**
+	 * Parses the specified content of the configuration file,
+	 * the same way as {@link #loadConfig()} does.
+	 *
+	 * @param raw the content of the configuration file
+	 * @return the parsed configuration
+	 */
+	private @NotNull FileConfiguration loadConfig(byte @NotNull [] raw) {
+		FileConfiguration loaded = YamlConfiguration.loadConfiguration(new InputStreamReader(
+				new ByteArrayInputStream(raw), StandardCharsets.UTF_8));
+		loaded.setDefaults(new YamlConfiguration());
+		return loaded;
+	}
+	
+	/**
+	 * Reads the content of the configuration file.
+	 * The content is read only once per reload, so that the parsed configuration
+	 * and its fingerprint (see {@link ScenarioCache}) surely belong together.
+	 *
+	 * @return the content of the file or an empty array, if it couldn't be read
+	 */
+	private byte @NotNull [] readConfigFile() {
+		try {
+			return Files.readAllBytes(new File(getDataFolder(), "config.yml").toPath());
+		} catch (NoSuchFileException e) {
+			return new byte[0];
+		} catch (IOException e) {
+			getLogger().log(Level.SEVERE, logPrefix + "Unable to read the configuration file", e);
+			return new byte[0];
+		}
+	}
+	
+	/**
+	 * Opens the file storing the kill counts.
+	 * If it can't be opened, the kills are counted in memory instead.
+	 *
+	 * @return the new kill counter
+	 */
+	private @NotNull KillCounter openKillCounter() {
+		try {
+			return new KillCounter(new KillCounterStore(
+					new File(getDataFolder(), "kill-counts.bin").toPath(),
+					task -> getServer().getScheduler().runTaskAsynchronously(this, task)));
+		} catch (IOException e) {
+			getLogger().log(Level.SEVERE, logPrefix + "Unable to open the kill counter file,"
+					+ " the kills are only counted until the server stops", e);
+			return new KillCounter();
+		}
+	}
+	
+	/**
+	 * Creates the scenarios from the {@link ScenarioCache},
+	 * if the cache is up-to-date and all scenarios were cached.
+	 *
+	 * @param configFingerprint the fingerprint of the configuration file
+	 * @return the created instance or null, if the scenarios have to be parsed
+	 */
+	private @Nullable ScenarioLogicHolder loadCachedScenarios(@NotNull String configFingerprint) {
+		Map<EggScenario, ScenarioDefinition> definitions;
+		try {
+			definitions = scenarioCache.read(configFingerprint);
+		} catch (IOException e) {
+			getLogger().log(Level.WARNING,
+					logPrefix + "Unable to read the scenario cache, ignoring it", e);
+			return null;
+		}
+		if (definitions == null || definitions.size() != EggScenario.values().length) {
+			return null;
+		}
+		
+		ScenarioLogicHolder holder = new ScenarioLogicHolder(this, definitions);
+		getLogger().log(Level.FINE, () -> logPrefix + "Loaded the scenarios from the cache");
+		return holder;
+	}
+	
+	/**
+	 * Updates the {@link ScenarioCache}. The scenarios are only cached if all of them
+	 * were loaded successfully, so that the errors are logged on each startup.
+	 *
+	 * @param configFingerprint the fingerprint of the configuration file
+	 * @param holder the instance containing the loaded scenarios
+	 */
+	private void saveCachedScenarios(@NotNull String configFingerprint,
+			@NotNull ScenarioLogicHolder holder) {
+		try {
+			if (holder.getLoadedCount() == EggScenario.values().length) {
+				scenarioCache.write(configFingerprint, holder.getDefinitions());
+			} else {
+				scenarioCache.delete();
+			}
+		} catch (IOException e) {
+			getLogger().log(Level.WARNING, logPrefix + "Unable to update the scenario cache", e);
+		}
+	}
+	
+	/**
+	 * Attaches the {@link AsyncLogHandler} with the specified settings,
+	 * replacing the previous handler if its settings are outdated.
+	 * Should only be called from the main thread.
+	 *
+	 * @param capacity the capacity of the queue
+	 * @param policy what to do with records when the queue is full
+	 */
+	private void reloadLogHandler(int capacity, @NotNull AsyncLogHandler.FullPolicy policy) {
+		if (logHandler != null) {
+			if (logHandler.getCapacity() == capacity && logHandler.getPolicy() == policy) {
+				return;
+			}
+			logHandler.detach();
+		}
+		logHandler = AsyncLogHandler.attach(this, capacity, policy);
+	}
+	
+	/**
+	 * Opens the {@link HatchAuditLog} based on the specified settings,
+	 * replacing the previous instance if its settings are outdated.
+	 * Should only be called from the main thread.
+	 *
+	 * @param settings the settings to use
+	 */
+	private void reloadAuditLog(@NotNull HatchAuditLog.Settings settings) {
+		if (auditLog != null) {
+			if (auditLog.getSettings().equals(settings)) {
+				return;
+			}
+			closeAuditLog();
+		}
+		if (!settings.isEnabled()) {
+			return;
+		}
+		
+		try {
+			auditLog = new HatchAuditLog(getLogger(), getAuditDirectory(), settings);
+		} catch (IOException e) {
+			getLogger().log(Level.SEVERE, logPrefix + "Unable to open the audit log,"
+					+ " the egg spawning decisions won't be recorded", e);
+		}
+	}
+	
+	/**
+	 * Writes the remaining records of the {@link HatchAuditLog} and closes it, if it's open.
+	 */
+	private void closeAuditLog() {
+		if (auditLog != null) {
+			auditLog.close();
+			auditLog = null;
+		}
+	}
+	
+	/**
+	 * Starts or stops watching the configuration file based on the specified settings,
+	 * replacing the previous watcher if its settings are outdated.
+	 * Should only be called from the main thread.
+	 *
+	 * @param enabled whether the configuration file should be watched
+	 * @param debounce how long to wait for further changes before reloading, in milliseconds
+	 */
+	private void reloadConfigWatcher(boolean enabled, long debounce) {
+		if (configWatcher != null) {
+			if (enabled && configWatcher.getDebounceMillis() == debounce) {
+				return;
+			}
+			closeConfigWatcher();
+		}
+		if (!enabled) {
+			return;
+		}
+		
+		try {
+			configWatcher = new FileWatcher(new File(getDataFolder(), "config.yml").toPath(),
+					debounce, () -> getServer().getScheduler().runTask(this, this::autoReload));
+		} catch (IOException e) {
+			getLogger().log(Level.SEVERE,
+					logPrefix + "Unable to watch the configuration file for changes", e);
+		}
+	}
+	
+	/**
+	 * Stops watching the configuration file, if it's being watched.
+	 */
+	private void closeConfigWatcher() {
+		FileWatcher watcher = configWatcher;
+		if (watcher == null) {
+			return;
+		}
+		configWatcher = null;
+		try {
+			watcher.close();
+		} catch (IOException e) {
+			getLogger().log(Level.WARNING,
+					logPrefix + "Unable to stop watching the configuration file", e);
+		}
+	}
+	
+	/**
+	 * Reloads the configuration after the configuration file has changed.
+	 * If another reload is in progress, then this is retried later,
+	 * so that the latest changes are never missed.
+	 * Should only be called from the main thread.
+	 */
+	private void autoReload() {
+		if (configWatcher == null) {
+			return;
+		}
+		boolean started = reloadAsync(() -> getLogger().info(
+				logPrefix + "Configuration file changed, reloaded the configuration"));
+		if (!started) {
+			getServer().getScheduler().runTaskLater(this, this::autoReload, AUTO_RELOAD_RETRY_TICKS);
 		}
-		eggFormListener = new EggFormListener(this);
-		getServer().getPluginManager().registerEvents(eggFormListener, this);
 	}
 	
 	/**
@@ -114,4 +730,53 @@ public class DragonHatcheryPlugin extends JavaPlugin {
 			throw new RuntimeException(loadError);
 		}
 	}
+	
+	/**
+	 * The state of this plugin which is created from the configuration
+	 * and published at once, see {@link #applyReload(ReloadResult)}.
+	 */
+	private static class ReloadResult {
+		private final FileConfiguration config;
+		private final boolean debugLogging;
+		private final int logCapacity;
+		private final AsyncLogHandler.FullPolicy logPolicy;
+		private final boolean autoReload;
+		private final long autoReloadDebounce;
+		private final RandomSourceProvider randomSourceProvider;
+		private final WorldScenarioIndex scenarioIndex;
+		private final ScenarioRules scenarioRules;
+		private final HatchAuditLog.Settings auditSettings;
+		
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param config the configuration the state was created from
+		 * @param debugLogging whether debug logging should be enabled
+		 * @param logCapacity the capacity of the queue of the {@link AsyncLogHandler}
+		 * @param logPolicy what the {@link AsyncLogHandler} should do when its queue is full
+		 * @param autoReload whether the configuration file should be watched for changes
+		 * @param autoReloadDebounce the debounce of the watching, in milliseconds
+		 * @param randomSourceProvider the new random source provider
+		 * @param scenarioIndex the new scenario index, without any worlds added to it yet
+		 * @param scenarioRules the new scenario rules, without any worlds added to them yet
+		 * @param auditSettings the new settings of the audit log
+		 */
+		ReloadResult(@NotNull FileConfiguration config, boolean debugLogging,
+				int logCapacity, @NotNull AsyncLogHandler.FullPolicy logPolicy,
+				boolean autoReload, long autoReloadDebounce,
+				@NotNull RandomSourceProvider randomSourceProvider,
+				@NotNull WorldScenarioIndex scenarioIndex, @NotNull ScenarioRules scenarioRules,
+				@NotNull HatchAuditLog.Settings auditSettings) {
+			this.config = config;
+			this.debugLogging = debugLogging;
+			this.logCapacity = logCapacity;
+			this.logPolicy = logPolicy;
+			this.autoReload = autoReload;
+			this.autoReloadDebounce = autoReloadDebounce;
+			this.randomSourceProvider = randomSourceProvider;
+			this.scenarioIndex = scenarioIndex;
+			this.scenarioRules = scenarioRules;
+			this.auditSettings = auditSettings;
+		}
+	}
 }
@@ -0,0 +1,345 @@
+package hu.trigary.dragonhatchery.cli;
+
+import hu.trigary.dragonhatchery.core.EggScenario;
+import hu.trigary.dragonhatchery.core.HatchAuditLog;
+import hu.trigary.dragonhatchery.core.RandomSourceProvider;
+import hu.trigary.dragonhatchery.core.ScenarioDefinition;
+import hu.trigary.dragonhatchery.core.ScenarioRules;
+import hu.trigary.dragonhatchery.util.ConfigHelper;
+import hu.trigary.dragonhatchery.util.InvalidConfigException;
+import hu.trigary.dragonhatchery.util.RandomSource;
+import hu.trigary.dragonhatchery.util.WeightedRandom;
+import org.apache.commons.lang.Validate;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Offline validator of the configuration file, usable without a server (eg. in CI pipelines).
+ * The scenarios are parsed and validated by the same code the plugin uses,
+ * the load time and the (approximate) memory footprint of the parsed scenarios are reported.
+ * Optionally the throughput of the rolls (the spawn chance and the spawned blocks) is measured.
+ * <br><br>
+ * Usage: {@code <config.yml> [--benchmark <rolls>]}, see {@link Main} for the exit codes.
+ */
+public class ConfigValidator {
+	private static final long MAX_ROLLS = 10_000_000_000L;
+	private static volatile long sink;
+	private final Logger logger = Logger.getLogger(getClass().getSimpleName());
+	private final PrintStream out;
+	private final PrintStream err;
+	
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param out the stream to print the report to
+	 * @param err the stream to print the usage and I/O errors to
+	 */
+	@Contract(pure = true)
+	public ConfigValidator(@NotNull PrintStream out, @NotNull PrintStream err) {
+		this.out = out;
+		this.err = err;
+	}
+	
+	/**
+	 * Validates the configuration file specified by the arguments
+	 * and optionally benchmarks its scenarios.
+	 *
+	 * @param args the command-line arguments: {@code <config.yml> [--benchmark <rolls>]}
+	 * @return the exit code, see {@link Main}
+	 */
+	public int run(@NotNull String @NotNull [] args) {
+		long rolls = 0;
+		if (args.length == 3 && args[1].equals("--benchmark")) {
+			try {
+				rolls = Long.parseLong(args[2]);
+			} catch (NumberFormatException e) {
+				rolls = -1;
+			}
+			if (rolls < 1 || rolls > MAX_ROLLS) {
+				err.println("The roll count must be between 1 and " + MAX_ROLLS);
+				return Main.EXIT_USAGE;
+			}
+		} else if (args.length != 1) {
+			err.println("Usage: <config.yml> [--benchmark <rolls>]");
+			return Main.EXIT_USAGE;
+		}
+		
+		Path file = Paths.get(args[0]);
+		long start = System.nanoTime();
+		byte[] raw;
+		try {
+			raw = Files.readAllBytes(file);
+		} catch (IOException e) {
+			err.println("Unable to read the configuration file: " + e);
+			return Main.EXIT_USAGE;
+		}
+		out.printf(Locale.ROOT, "Read %s (%.1f KiB) in %d ms%n", file,
+				raw.length / 1024.0, elapsedMillis(start));
+		
+		start = System.nanoTime();
+		YamlConfiguration config = new YamlConfiguration();
+		try {
+			config.loadFromString(new String(raw, StandardCharsets.UTF_8));
+		} catch (InvalidConfigurationException e) {
+			out.println("Invalid YAML: " + e.getMessage());
+			return Main.EXIT_INVALID;
+		}
+		out.printf(Locale.ROOT, "Parsed the YAML in %d ms%n", elapsedMillis(start));
+		
+		List<InvalidConfigException> errors = new ArrayList<>();
+		validateSettings(config, errors);
+		long heapBefore = usedHeap();
+		Map<EggScenario, ScenarioDefinition> definitions = validateScenarios(config, errors);
+		validateWorldTables(config, errors);
+		Map<EggScenario, WeightedRandom<String>> tables = new EnumMap<>(EggScenario.class);
+		definitions.forEach((scenario, definition) -> tables.put(scenario,
+				definition.createBlockTable()));
+		out.printf(Locale.ROOT, "Approximate heap usage of the scenarios: %.1f KiB%n",
+				Math.max(0, usedHeap() - heapBefore) / 1024.0);
+		
+		if (rolls > 0) {
+			RandomSource random;
+			try {
+				random = RandomSource.create(ConfigHelper.parseValue(config, "random.algorithm",
+						String::trim, RandomSource.THREAD_LOCAL), System.nanoTime());
+			} catch (IllegalArgumentException e) {
+				//The thread-local algorithm (or an invalid one, which is reported anyway)
+				random = RandomSource.threadLocal();
+			}
+			for (EggScenario scenario : definitions.keySet()) {
+				benchmark(definitions.get(scenario), tables.get(scenario), random, rolls);
+			}
+		}
+		
+		if (errors.isEmpty()) {
+			out.println("The configuration is valid");
+			return Main.EXIT_VALID;
+		}
+		out.println("The configuration is invalid, error count: " + errors.size());
+		for (InvalidConfigException error : errors) {
+			out.println("- " + error.getMessage());
+		}
+		return Main.EXIT_INVALID;
+	}
+	
+	/**
+	 * Validates the settings which are not specific to a scenario.
+	 *
+	 * @param config the configuration to validate
+	 * @param errors the list to add the errors to
+	 */
+	private void validateSettings(@NotNull ConfigurationSection config,
+			@NotNull List<InvalidConfigException> errors) {
+		try {
+			ConfigHelper.parseValue(config, "debug-logging", Boolean::parseBoolean);
+		} catch (InvalidConfigException e) {
+			errors.add(e);
+		}
+		try {
+			RandomSourceProvider.fromConfig(config);
+		} catch (InvalidConfigException e) {
+			errors.add(e);
+		}
+		try {
+			HatchAuditLog.Settings.fromConfig(config);
+		} catch (InvalidConfigException e) {
+			errors.add(e);
+		}
+		new ScenarioRules(config, logger, errors);
+	}
+	
+	/**
+	 * Parses and validates each scenario, reporting the result of each one.
+	 *
+	 * @param config the configuration to validate
+	 * @param errors the list to add the errors to (including the suppressed ones)
+	 * @return the definitions of the valid scenarios
+	 */
+	private @NotNull Map<EggScenario, ScenarioDefinition> validateScenarios(
+			@NotNull ConfigurationSection config, @NotNull List<InvalidConfigException> errors) {
+		Map<EggScenario, ScenarioDefinition> result = new EnumMap<>(EggScenario.class);
+		ConfigurationSection scenarios;
+		try {
+			scenarios = ConfigHelper.getSection(config, "scenario");
+		} catch (InvalidConfigException e) {
+			errors.add(e);
+			return result;
+		}
+		
+		scenarios.getKeys(false).stream()
+				.filter(key -> Arrays.stream(EggScenario.values())
+						.noneMatch(scenario -> scenario.getConfigKey().equals(key)))
+				.forEach(key -> out.println("Warning: ignoring unknown scenario: " + key));
+		
+		for (EggScenario scenario : EggScenario.values()) {
+			String key = scenario.getConfigKey();
+			long start = System.nanoTime();
+			try {
+				ScenarioDefinition definition = ScenarioDefinition.fromConfig(
+						ConfigHelper.getSection(scenarios, key), logger);
+				result.put(scenario, definition);
+				out.printf(Locale.ROOT, "Scenario '%s': valid, %d entries, roll count %d,"
+								+ " parsed in %d ms%n", key, definition.getSize(),
+						definition.getRollCount(), elapsedMillis(start));
+			} catch (InvalidConfigException e) {
+				errors.add(e);
+				for (Throwable suppressed : e.getSuppressed()) {
+					errors.add((InvalidConfigException) suppressed);
+				}
+				out.printf(Locale.ROOT, "Scenario '%s': invalid, error count: %d%n",
+						key, 1 + e.getSuppressed().length);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Validates each world table: its world list and the scenarios it overrides.
+	 * The overridden scenarios are not benchmarked.
+	 *
+	 * @param config the configuration to validate
+	 * @param errors the list to add the errors to (including the suppressed ones)
+	 */
+	private void validateWorldTables(@NotNull ConfigurationSection config,
+			@NotNull List<InvalidConfigException> errors) {
+		if (!config.isSet("world-tables")) {
+			return;
+		}
+		ConfigurationSection tables;
+		try {
+			tables = ConfigHelper.getSection(config, "world-tables");
+		} catch (InvalidConfigException e) {
+			errors.add(e);
+			return;
+		}
+		
+		for (String name : tables.getKeys(false)) {
+			int errorCount = errors.size();
+			try {
+				ConfigurationSection table = ConfigHelper.getSection(tables, name);
+				ConfigHelper.computeValue(table, "worlds", (c, k) -> {
+					List<String> worlds = c.getStringList(k);
+					Validate.notEmpty(worlds, "At least one world must be specified");
+					return worlds;
+				});
+				if (table.isSet("scenario")) {
+					ConfigurationSection scenarios = ConfigHelper.getSection(table, "scenario");
+					for (EggScenario scenario : EggScenario.values()) {
+						if (scenarios.isSet(scenario.getConfigKey())) {
+							validateScenario(scenarios, scenario.getConfigKey(), errors);
+						}
+					}
+				}
+			} catch (InvalidConfigException e) {
+				errors.add(e);
+			}
+			out.printf(Locale.ROOT, "World table '%s': %s%n", name, errors.size() == errorCount
+					? "valid" : "invalid, error count: " + (errors.size() - errorCount));
+		}
+	}
+	
+	/**
+	 * Parses and validates a single scenario, without reporting it.
+	 *
+	 * @param scenarios the section containing the scenarios
+	 * @param key the name of the scenario
+	 * @param errors the list to add the errors to (including the suppressed ones)
+	 */
+	private void validateScenario(@NotNull ConfigurationSection scenarios, @NotNull String key,
+			@NotNull List<InvalidConfigException> errors) {
+		try {
+			ScenarioDefinition.fromConfig(ConfigHelper.getSection(scenarios, key), logger);
+		} catch (InvalidConfigException e) {
+			errors.add(e);
+			for (Throwable suppressed : e.getSuppressed()) {
+				errors.add((InvalidConfigException) suppressed);
+			}
+		}
+	}
+	
+	/**
+	 * Measures the throughput of the rolls of the specified scenario,
+	 * the same way the plugin rolls: spawn chance first, then the (distinct) blocks.
+	 *
+	 * @param definition the definition of the scenario
+	 * @param blocks the table of the scenario's blocks
+	 * @param random the source of randomness
+	 * @param rolls how many times to roll
+	 */
+	private void benchmark(@NotNull ScenarioDefinition definition,
+			@NotNull WeightedRandom<String> blocks, @NotNull RandomSource random, long rolls) {
+		roll(definition, blocks, random, Math.max(1, rolls / 10)); //Warm-up
+		long start = System.nanoTime();
+		roll(definition, blocks, random, rolls);
+		long elapsed = System.nanoTime() - start;
+		out.printf(Locale.ROOT, "Benchmark '%s': %d rolls in %d ms (%.1f ns/roll)%n",
+				definition.getName(), rolls, elapsed / 1_000_000, (double) elapsed / rolls);
+	}
+	
+	/**
+	 * Rolls the specified scenario the specified amount of times.
+	 *
+	 * @param definition the definition of the scenario
+	 * @param blocks the table of the scenario's blocks
+	 * @param random the source of randomness
+	 * @param rolls how many times to roll
+	 */
+	private static void roll(@NotNull ScenarioDefinition definition,
+			@NotNull WeightedRandom<String> blocks, @NotNull RandomSource random, long rolls) {
+		double spawnChance = definition.getSpawnChance();
+		int rollCount = definition.getRollCount();
+		int[] indexes = new int[rollCount];
+		long checksum = 0;
+		for (long i = 0; i < rolls; i++) {
+			if (random.nextDouble() >= spawnChance) {
+				continue;
+			}
+			if (rollCount == 1) {
+				checksum += blocks.getRandomIndex(random);
+			} else {
+				blocks.sampleDistinct(random, rollCount, indexes);
+				checksum += indexes[0];
+			}
+		}
+		sink = checksum; //Prevents dead code elimination
+	}
+	
+	/**
+	 * Gets the currently used heap memory, after requesting a garbage collection.
+	 *
+	 * @return the used heap memory in bytes
+	 */
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+	
+	/**
+	 * Gets the milliseconds elapsed since the specified time.
+	 *
+	 * @param start the start time, see {@link System#nanoTime()}
+	 * @return the elapsed milliseconds
+	 */
+	@Contract(pure = true)
+	private static long elapsedMillis(long start) {
+		return (System.nanoTime() - start) / 1_000_000;
+	}
+}
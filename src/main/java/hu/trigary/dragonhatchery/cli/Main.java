@@ -0,0 +1,46 @@
+package hu.trigary.dragonhatchery.cli;
+
+/**
+ * Command-line entry point of the plugin's jar, see {@link ConfigValidator}.
+ * This class doesn't reference the Bukkit API, therefore it can report
+ * a helpful error message when the API is missing from the class path
+ * (eg. when the jar is executed via {@code java -jar}).
+ */
+public final class Main {
+	
+	/**
+	 * The exit code signalling that the configuration is valid.
+	 */
+	static final int EXIT_VALID = 0;
+	
+	/**
+	 * The exit code signalling that the configuration is invalid.
+	 */
+	static final int EXIT_INVALID = 1;
+	
+	/**
+	 * The exit code signalling that the arguments are invalid
+	 * or that the configuration couldn't be read.
+	 */
+	static final int EXIT_USAGE = 2;
+	
+	private Main() {}
+	
+	/**
+	 * Validates (and optionally benchmarks) a configuration file without a server.
+	 *
+	 * @param args the command-line arguments, see {@link ConfigValidator#run(String[])}
+	 */
+	public static void main(String[] args) {
+		try {
+			Class.forName("org.bukkit.configuration.file.YamlConfiguration");
+		} catch (ClassNotFoundException e) {
+			System.err.println("The Paper API (and its dependencies) must be on the class path,"
+					+ " eg. the patched server jar found in the cache folder of a Paper server:");
+			System.err.println("java -cp DragonHatchery.jar:cache/patched_1.16.5.jar "
+					+ Main.class.getName() + " <config.yml> [--benchmark <rolls>]");
+			System.exit(EXIT_USAGE);
+		}
+		System.exit(new ConfigValidator(System.out, System.err).run(args));
+	}
+}
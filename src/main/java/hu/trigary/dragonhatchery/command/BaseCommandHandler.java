@@ -38,6 +38,10 @@ public class BaseCommandHandler implements TabExecutor {
 		
 		registerSubCommand(new ReloadCommand(plugin));
 		registerSubCommand(new PrintDataCommand(plugin));
+		registerSubCommand(new SimulateCommand(plugin));
+		registerSubCommand(new StatsCommand(plugin));
+		registerSubCommand(new RulesCommand(plugin));
+		registerSubCommand(new HistoryCommand(plugin));
 	}
 	
 	@Override
@@ -76,6 +80,14 @@ public class BaseCommandHandler implements TabExecutor {
 				.collect(Collectors.toList());
 	}
 	
+	/**
+	 * Releases the resources held by the subcommands.
+	 * Should be called when the plugin is disabled.
+	 */
+	public void close() {
+		subCommands.values().forEach(SubCommand::close);
+	}
+	
 	/**
 	 * Sends the specified {@link CommandSender} an informative message
 	 * that should help them when they should be invoking a subcommand, but aren't.
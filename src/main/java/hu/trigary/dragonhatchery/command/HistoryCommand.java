@@ -0,0 +1,275 @@
+package hu.trigary.dragonhatchery.command;
+
+import hu.trigary.dragonhatchery.DragonHatcheryPlugin;
+import hu.trigary.dragonhatchery.core.EggScenario;
+import hu.trigary.dragonhatchery.core.HatchAuditLog;
+import hu.trigary.dragonhatchery.core.HatchHistory;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Subcommand responsible for querying the {@link HatchAuditLog} via a {@link HatchHistory}:
+ * the records can be filtered by world, scenario, time range and block type.
+ * The query runs off the main thread, the results are sent to the sender in pages.
+ */
+public class HistoryCommand extends SubCommand {
+	private static final int PAGE_SIZE = 10;
+	private static final Pattern AGE = Pattern.compile("(\\d{1,9})([smhdw])");
+	private static final List<String> KEYS = List.of("world:", "scenario:",
+			"since:", "until:", "block:", "page:");
+	private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter
+			.ofPattern("yyyy-MM-dd HH:mm:ss", Locale.ROOT).withZone(ZoneId.systemDefault());
+	private final HatchHistory history;
+	
+	/**
+	 * Constructs a new subcommand.
+	 * It needs to be registered manually.
+	 *
+	 * @param plugin the plugin instance
+	 */
+	public HistoryCommand(@NotNull DragonHatcheryPlugin plugin) {
+		super(plugin);
+		history = new HatchHistory(plugin.getAuditDirectory());
+	}
+	
+	@Override
+	public boolean onCommand(@NotNull CommandSender sender,
+			@NotNull List<String> args) {
+		String world = null;
+		EggScenario scenario = null;
+		long now = System.currentTimeMillis();
+		long since = 0;
+		long until = Long.MAX_VALUE;
+		String block = null;
+		int page = 1;
+		for (String arg : args) {
+			int separator = arg.indexOf(':');
+			if (separator <= 0 || separator == arg.length() - 1) {
+				return false;
+			}
+			String value = arg.substring(separator + 1);
+			try {
+				switch (arg.substring(0, separator).toLowerCase(Locale.ROOT)) {
+					case "world":
+						world = value;
+						break;
+					case "scenario":
+						scenario = Arrays.stream(EggScenario.values())
+								.filter(s -> s.getConfigKey().equalsIgnoreCase(value))
+								.findAny().orElse(null);
+						if (scenario == null) {
+							sender.sendMessage(Component.text("Unknown scenario, valid values: "
+									+ getScenarioKeys().collect(Collectors.joining(", ")),
+									NamedTextColor.RED));
+							return true;
+						}
+						break;
+					case "since":
+						since = now - parseAge(value);
+						break;
+					case "until":
+						until = now - parseAge(value);
+						break;
+					case "block":
+						block = value;
+						break;
+					case "page":
+						page = Integer.parseInt(value);
+						if (page < 1) {
+							return false;
+						}
+						break;
+					default:
+						return false;
+				}
+			} catch (IllegalArgumentException e) {
+				return false;
+			}
+		}
+		
+		//Loaded worlds are matched by their identifiers, the others by their recorded names
+		String worldName = world;
+		World loadedWorld = worldName == null ? null : plugin.getServer().getWorlds().stream()
+				.filter(w -> w.getName().equalsIgnoreCase(worldName))
+				.findAny().orElse(null);
+		HatchHistory.Query query = loadedWorld == null
+				? new HatchHistory.Query(null, world, scenario, since, until, block)
+				: new HatchHistory.Query(loadedWorld.getUID(), null, scenario, since, until, block);
+		int finalPage = page;
+		plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+			Component message;
+			try {
+				message = createReport(history.query(query, finalPage, PAGE_SIZE));
+			} catch (Throwable t) {
+				plugin.getLogger().log(Level.SEVERE, logPrefix + "Error querying the history", t);
+				message = Component.text("The query failed, check the console for errors.",
+						NamedTextColor.RED);
+			}
+			Component finalMessage = message;
+			plugin.getServer().getScheduler().runTask(plugin,
+					() -> sender.sendMessage(finalMessage));
+		});
+		return true;
+	}
+	
+	@Override
+	public @NotNull List<String> onTabComplete(@NotNull CommandSender sender,
+			@NotNull List<String> args) {
+		if (args.isEmpty()) {
+			return Collections.emptyList();
+		}
+		
+		String partial = args.get(args.size() - 1).toLowerCase(Locale.ROOT);
+		Stream<String> suggestions;
+		if (partial.startsWith("world:")) {
+			suggestions = plugin.getServer().getWorlds().stream()
+					.filter(world -> world.getEnvironment() == World.Environment.THE_END)
+					.map(world -> "world:" + world.getName());
+		} else if (partial.startsWith("scenario:")) {
+			suggestions = getScenarioKeys().map(key -> "scenario:" + key);
+		} else if (partial.startsWith("since:") || partial.startsWith("until:")) {
+			suggestions = Stream.of("1h", "1d", "7d", "4w")
+					.map(age -> partial.substring(0, partial.indexOf(':') + 1) + age);
+		} else {
+			suggestions = KEYS.stream();
+		}
+		return suggestions.filter(s -> s.toLowerCase(Locale.ROOT).startsWith(partial))
+				.collect(Collectors.toList());
+	}
+	
+	@Override
+	public @NotNull String getName() {
+		return "history";
+	}
+	
+	@Override
+	public @NotNull String getDescription() {
+		return "Query the recorded egg spawning decisions.";
+	}
+	
+	@Override
+	public @NotNull String getUsage() {
+		return getName() + " [world:<name>] [scenario:<name>] [since:<age>] [until:<age>]"
+				+ " [block:<type>] [page:<number>]";
+	}
+	
+	/**
+	 * Parses an age, eg. {@code 30m} or {@code 7d}.
+	 * The valid units are s, m, h, d and w (seconds, minutes, hours, days and weeks).
+	 *
+	 * @param raw the value to parse
+	 * @return the age in milliseconds
+	 * @throws IllegalArgumentException if the value is invalid
+	 */
+	@Contract(pure = true)
+	private static long parseAge(@NotNull String raw) {
+		Matcher matcher = AGE.matcher(raw.toLowerCase(Locale.ROOT));
+		if (!matcher.matches()) {
+			throw new IllegalArgumentException("Invalid age: " + raw);
+		}
+		long amount = Long.parseLong(matcher.group(1));
+		switch (matcher.group(2)) {
+			case "s":
+				return TimeUnit.SECONDS.toMillis(amount);
+			case "m":
+				return TimeUnit.MINUTES.toMillis(amount);
+			case "h":
+				return TimeUnit.HOURS.toMillis(amount);
+			case "d":
+				return TimeUnit.DAYS.toMillis(amount);
+			default:
+				return TimeUnit.DAYS.toMillis(amount * 7);
+		}
+	}
+	
+	/**
+	 * Creates the message describing a page of the query results.
+	 *
+	 * @param page the page to describe
+	 * @return the message to send
+	 */
+	@Contract(pure = true)
+	private @NotNull Component createReport(@NotNull HatchHistory.Page page) {
+		if (page.getRecords().isEmpty()) {
+			return Component.text(page.getNumber() == 1 ? "No matching records were found."
+					: "Page " + page.getNumber() + " is empty.", NamedTextColor.YELLOW);
+		}
+		
+		TextComponent.Builder builder = Component.text()
+				.append(Component.text("Matching records (page " + page.getNumber()
+						+ ", newest first):", NamedTextColor.YELLOW));
+		for (HatchAuditLog.Record record : page.getRecords()) {
+			builder.append(createLine(record));
+		}
+		builder.append(Component.newline())
+				.append(Component.text("Read " + page.getScannedFiles() + " of "
+						+ page.getTotalFiles() + " files."
+						+ (page.hasMore() ? " Use page:" + (page.getNumber() + 1)
+						+ " to see more." : ""), NamedTextColor.GRAY));
+		return builder.build();
+	}
+	
+	/**
+	 * Creates a line of the message describing a record.
+	 *
+	 * @param record the record to describe
+	 * @return the line, starting with a line break
+	 */
+	@Contract(pure = true)
+	private @NotNull Component createLine(@NotNull HatchAuditLog.Record record) {
+		List<String> blocks = new ArrayList<>(record.getEntries().size());
+		for (int i = 0; i < record.getEntries().size(); i++) {
+			blocks.add(record.getBlockTypes().get(i) + record.getBlockData().get(i));
+		}
+		String chosen = String.join(", ", record.getEntries())
+				+ " (" + String.join(", ", blocks) + ")";
+		String outcome = record.isAllowed() ? chosen : record.getEntries().isEmpty()
+				? "cancelled" : "cancelled by another plugin, rolled: " + chosen;
+		List<String> participants = record.getParticipants();
+		int hidden = record.getParticipantCount() - participants.size();
+		return Component.text()
+				.append(Component.newline())
+				.append(Component.text(" - ", NamedTextColor.GRAY))
+				.append(Component.text(TIME_FORMAT.format(Instant.ofEpochMilli(
+						record.getTimestamp())), NamedTextColor.GRAY))
+				.append(Component.text(" " + record.getWorldName() + " #"
+						+ record.getKillNumber(), NamedTextColor.GOLD))
+				.append(Component.text(" " + record.getScenarioName() + ": ", NamedTextColor.GRAY))
+				.append(Component.text(outcome, NamedTextColor.WHITE))
+				.append(Component.text(String.format(Locale.ROOT, " (roll %.4f, players: %s%s)",
+						record.getRoll(), participants.isEmpty() ? "none"
+								: String.join(", ", participants),
+						hidden > 0 ? " +" + hidden : ""), NamedTextColor.GRAY))
+				.build();
+	}
+	
+	/**
+	 * Gets the configuration keys of the scenarios.
+	 *
+	 * @return the keys of all scenarios
+	 */
+	@Contract(pure = true)
+	private static @NotNull Stream<String> getScenarioKeys() {
+		return Arrays.stream(EggScenario.values()).map(EggScenario::getConfigKey);
+	}
+}
@@ -10,7 +10,7 @@ import java.util.Collections;
 import java.util.List;
 
 /**
- * Subcommand responsible for executing {@link DragonHatcheryPlugin#reload()}.
+ * Subcommand responsible for executing {@link DragonHatcheryPlugin#reloadAsync(Runnable)}.
  */
 public class ReloadCommand extends SubCommand {
 	
@@ -27,9 +27,13 @@ public class ReloadCommand extends SubCommand {
 	@Override
 	public boolean onCommand(@NotNull CommandSender sender,
 			@NotNull List<String> args) {
-		plugin.reload();
-		sender.sendMessage(Component.text("The configuration has been reloaded."
-				+ " Check the console for errors.", NamedTextColor.GREEN));
+		boolean started = plugin.reloadAsync(() -> sender.sendMessage(Component.text(
+				"The configuration has been reloaded. Check the console for errors.",
+				NamedTextColor.GREEN)));
+		if (!started) {
+			sender.sendMessage(Component.text("A reload is already in progress,"
+					+ " please wait for it to finish.", NamedTextColor.RED));
+		}
 		return true;
 	}
 	
@@ -0,0 +1,178 @@
+package hu.trigary.dragonhatchery.command;
+
+import hu.trigary.dragonhatchery.DragonHatcheryPlugin;
+import hu.trigary.dragonhatchery.core.ScenarioRules;
+import hu.trigary.dragonhatchery.util.IntervalMaskIndex;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Difficulty;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Subcommand responsible for showing the {@link ScenarioRules} to the sender:
+ * the rules in the order of their priority and the form they were compiled into,
+ * so that the server owners can check which rules match which values.
+ */
+public class RulesCommand extends SubCommand {
+	
+	/**
+	 * Constructs a new subcommand.
+	 * It needs to be registered manually.
+	 *
+	 * @param plugin the plugin instance
+	 */
+	public RulesCommand(@NotNull DragonHatcheryPlugin plugin) {
+		super(plugin);
+	}
+	
+	@Override
+	public boolean onCommand(@NotNull CommandSender sender,
+			@NotNull List<String> args) {
+		if (!args.isEmpty()) {
+			return false;
+		}
+		
+		ScenarioRules rules = plugin.getScenarioRules();
+		List<ScenarioRules.Rule> list = rules.getRules();
+		if (list.isEmpty()) {
+			sender.sendMessage(Component.text("No scenario rules are configured:"
+					+ " the scenarios are decided by the dragon battles.", NamedTextColor.YELLOW));
+			return true;
+		}
+		
+		TextComponent.Builder builder = Component.text()
+				.append(Component.text("Scenario rules (in the order of their priority):",
+						NamedTextColor.YELLOW));
+		for (int i = 0; i < list.size(); i++) {
+			ScenarioRules.Rule rule = list.get(i);
+			String conditions = rule.getConditions().entrySet().stream()
+					.map(entry -> entry.getKey() + " " + entry.getValue())
+					.collect(Collectors.joining(", "));
+			builder.append(createLine("#" + (i + 1) + " " + rule.getName(),
+					rule.getScenario().getConfigKey(),
+					conditions.isEmpty() ? "(always)" : "(" + conditions + ")"));
+		}
+		
+		for (ScenarioRules.Dimension dimension : ScenarioRules.Dimension.values()) {
+			builder.append(Component.newline())
+					.append(Component.text("Compiled " + dimension.getConfigKey() + ":",
+							NamedTextColor.YELLOW));
+			IntervalMaskIndex index = rules.getDimension(dimension);
+			for (int i = 0; i < index.getSegmentCount(); i++) {
+				long start = Math.max(index.getSegmentStart(i), dimension.getMin());
+				long end = Math.min(index.getSegmentEnd(i), dimension.getMax());
+				if (start <= end) {
+					builder.append(createLine(formatRange(start, end, dimension),
+							formatMask(index.getSegmentMask(i)), ""));
+				}
+			}
+		}
+		
+		builder.append(Component.newline())
+				.append(Component.text("Compiled difficulty:", NamedTextColor.YELLOW));
+		for (Difficulty difficulty : Difficulty.values()) {
+			builder.append(createLine(difficulty.name().toLowerCase(Locale.ROOT),
+					formatMask(rules.getDifficultyMask(difficulty)), ""));
+		}
+		
+		builder.append(Component.newline())
+				.append(Component.text("Compiled worlds:", NamedTextColor.YELLOW));
+		for (World world : plugin.getServer().getWorlds()) {
+			if (world.getEnvironment() == World.Environment.THE_END) {
+				builder.append(createLine(world.getName(),
+						formatMask(rules.getWorldMask(world)), ""));
+			}
+		}
+		sender.sendMessage(builder);
+		return true;
+	}
+	
+	@Override
+	public @NotNull List<String> onTabComplete(@NotNull CommandSender sender,
+			@NotNull List<String> args) {
+		return Collections.emptyList();
+	}
+	
+	@Override
+	public @NotNull String getName() {
+		return "rules";
+	}
+	
+	@Override
+	public @NotNull String getDescription() {
+		return "View the scenario rules and their compiled form.";
+	}
+	
+	@Override
+	public @NotNull String getUsage() {
+		return getName();
+	}
+	
+	/**
+	 * Creates a line of the message describing the rules.
+	 *
+	 * @param name the name of the value
+	 * @param value the value
+	 * @param extra additional, less important information
+	 * @return the line, starting with a line break
+	 */
+	@Contract(pure = true)
+	private @NotNull Component createLine(@NotNull String name,
+			@NotNull String value, @NotNull String extra) {
+		return Component.text()
+				.append(Component.newline())
+				.append(Component.text(" - ", NamedTextColor.GRAY))
+				.append(Component.text(name, NamedTextColor.GOLD))
+				.append(Component.text(": ", NamedTextColor.GRAY))
+				.append(Component.text(value, NamedTextColor.WHITE))
+				.append(Component.text(extra.isEmpty() ? "" : " " + extra, NamedTextColor.GRAY))
+				.build();
+	}
+	
+	/**
+	 * Formats the specified range of a dimension in a human readable way.
+	 *
+	 * @param start the inclusive start of the range
+	 * @param end the inclusive end of the range
+	 * @param dimension the dimension of the range
+	 * @return the formatted range, eg. {@code 10..19} or {@code 20..}
+	 */
+	@Contract(pure = true)
+	private static @NotNull String formatRange(long start, long end,
+			@NotNull ScenarioRules.Dimension dimension) {
+		if (start == end) {
+			return String.valueOf(start);
+		}
+		return start + ".." + (end == dimension.getMax() ? "" : String.valueOf(end));
+	}
+	
+	/**
+	 * Formats the specified mask of rules in a human readable way.
+	 *
+	 * @param mask the mask of the rules
+	 * @return the numbers of the rules, eg. {@code #1 #3}, or {@code none}
+	 */
+	@Contract(pure = true)
+	private static @NotNull String formatMask(long mask) {
+		if (mask == 0) {
+			return "none";
+		}
+		StringBuilder builder = new StringBuilder();
+		for (long remaining = mask; remaining != 0; remaining &= remaining - 1) {
+			if (builder.length() != 0) {
+				builder.append(' ');
+			}
+			builder.append('#').append(Long.numberOfTrailingZeros(remaining) + 1);
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,268 @@
+package hu.trigary.dragonhatchery.command;
+
+import hu.trigary.dragonhatchery.DragonHatcheryPlugin;
+import hu.trigary.dragonhatchery.core.EggScenario;
+import hu.trigary.dragonhatchery.core.OddsSimulation;
+import hu.trigary.dragonhatchery.core.ScenarioLogic;
+import hu.trigary.dragonhatchery.util.RandomSource;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+
+/**
+ * Subcommand responsible for running an {@link OddsSimulation} of a scenario
+ * and reporting the observed frequencies (and the configured probabilities) to the sender.
+ * The simulation runs off the main thread, the progress is reported periodically.
+ */
+public class SimulateCommand extends SubCommand {
+	private static final long MAX_ROLLS = 1_000_000_000;
+	private static final long PROGRESS_PERIOD_TICKS = 20;
+	private static final int MAX_REPORTED_BLOCKS = 10;
+	private final AtomicBoolean running = new AtomicBoolean();
+	private ForkJoinPool pool;
+	private OddsSimulation simulation;
+	
+	/**
+	 * Constructs a new subcommand.
+	 * It needs to be registered manually.
+	 *
+	 * @param plugin the plugin instance
+	 */
+	public SimulateCommand(@NotNull DragonHatcheryPlugin plugin) {
+		super(plugin);
+	}
+	
+	@Override
+	public boolean onCommand(@NotNull CommandSender sender,
+			@NotNull List<String> args) {
+		if (args.size() != 2) {
+			return false;
+		}
+		
+		EggScenario scenario = Arrays.stream(EggScenario.values())
+				.filter(s -> s.getConfigKey().equalsIgnoreCase(args.get(0)))
+				.findAny().orElse(null);
+		if (scenario == null) {
+			sender.sendMessage(Component.text("Unknown scenario, valid values: "
+					+ String.join(", ", getScenarioKeys()), NamedTextColor.RED));
+			return true;
+		}
+		
+		long rolls;
+		try {
+			rolls = Long.parseLong(args.get(1));
+		} catch (NumberFormatException e) {
+			return false;
+		}
+		if (rolls < 1 || rolls > MAX_ROLLS) {
+			sender.sendMessage(Component.text("The count of rolls must be between 1 and "
+					+ MAX_ROLLS + ".", NamedTextColor.RED));
+			return true;
+		}
+		
+		ScenarioLogic logic = plugin.getScenarioLogicHolder().getLogicFor(scenario);
+		if (logic == null) {
+			sender.sendMessage(Component.text("The scenario failed to load,"
+					+ " check the console for errors.", NamedTextColor.RED));
+			return true;
+		}
+		
+		if (!running.compareAndSet(false, true)) {
+			sender.sendMessage(Component.text("A simulation is already running,"
+					+ " please wait for it to finish.", NamedTextColor.RED));
+			return true;
+		}
+		
+		OddsSimulation simulation = new OddsSimulation(logic, rolls);
+		this.simulation = simulation;
+		long startTime = System.nanoTime();
+		ForkJoinTask<OddsSimulation.Result> task = simulation.start(getPool(),
+				RandomSource.of(new SplittableRandom()));
+		sender.sendMessage(Component.text("Simulating " + rolls + " rolls of the '"
+				+ scenario.getConfigKey() + "' scenario...", NamedTextColor.GREEN));
+		
+		plugin.getServer().getScheduler().runTaskTimer(plugin, timer -> {
+			if (!task.isDone()) {
+				long percentage = simulation.getCompletedRolls() * 100 / rolls;
+				sender.sendMessage(Component.text("Simulation progress: "
+						+ percentage + "%", NamedTextColor.GRAY));
+				return;
+			}
+			
+			timer.cancel();
+			this.simulation = null;
+			running.set(false);
+			OddsSimulation.Result result;
+			try {
+				result = task.join();
+			} catch (Throwable t) {
+				plugin.getLogger().log(Level.SEVERE, logPrefix + "Error running simulation", t);
+				sender.sendMessage(Component.text("The simulation failed,"
+						+ " check the console for errors.", NamedTextColor.RED));
+				return;
+			}
+			long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+			sender.sendMessage(createReport(logic, result, rolls, elapsed));
+		}, PROGRESS_PERIOD_TICKS, PROGRESS_PERIOD_TICKS);
+		return true;
+	}
+	
+	@Override
+	public @NotNull List<String> onTabComplete(@NotNull CommandSender sender,
+			@NotNull List<String> args) {
+		if (args.size() == 1) {
+			String partial = args.get(0).toLowerCase();
+			return getScenarioKeys().stream()
+					.filter(s -> s.startsWith(partial))
+					.collect(Collectors.toList());
+		} else if (args.size() == 2 && args.get(1).isEmpty()) {
+			return List.of("1000000");
+		} else {
+			return Collections.emptyList();
+		}
+	}
+	
+	@Override
+	public void close() {
+		//The progress reporting tasks are cancelled by the server
+		if (simulation != null) {
+			simulation.cancel();
+			simulation = null;
+		}
+		if (pool != null) {
+			pool.shutdownNow();
+			pool = null;
+		}
+		running.set(false);
+	}
+	
+	@Override
+	public @NotNull String getName() {
+		return "simulate";
+	}
+	
+	@Override
+	public @NotNull String getDescription() {
+		return "Verify a scenario's odds by simulating many rolls.";
+	}
+	
+	@Override
+	public @NotNull String getUsage() {
+		return getName() + " <scenario> <rolls>";
+	}
+	
+	/**
+	 * Gets the pool the simulations are executed on, creating it if necessary.
+	 * The pool leaves a processor for the main thread.
+	 * Its threads are daemon threads and they terminate when they are idle.
+	 * The pool is shut down by {@link #close()}.
+	 *
+	 * @return the pool to use
+	 */
+	private @NotNull ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+		}
+		return pool;
+	}
+	
+	/**
+	 * Creates the message describing the results of a completed simulation.
+	 * Only the blocks whose observed chances deviate the most from their configured chances
+	 * are listed (at most {@value #MAX_REPORTED_BLOCKS}), so that huge tables don't flood the chat.
+	 *
+	 * @param logic the logic that was simulated
+	 * @param result the result of the simulation
+	 * @param rolls the count of rolls that were executed
+	 * @param elapsedMillis how long the simulation took
+	 * @return the message to send
+	 */
+	@Contract(pure = true)
+	private @NotNull TextComponent createReport(@NotNull ScenarioLogic logic,
+			@NotNull OddsSimulation.Result result, long rolls, long elapsedMillis) {
+		TextComponent.Builder builder = Component.text()
+				.append(Component.text("Simulated " + rolls + " rolls in "
+						+ elapsedMillis + " ms, observed (and configured) chances,"
+						+ " most deviating blocks first:",
+						NamedTextColor.YELLOW))
+				.append(createReportLine("no spawning", result.getObservedCancelChance(),
+						result.getExpectedCancelChance()));
+		
+		//Keep the most deviating blocks in a bounded heap, whose head is the least deviating one
+		Comparator<Integer> byDeviation = Comparator.comparingDouble(i ->
+				Math.abs(result.getObservedChance(i) - result.getExpectedChance(i)));
+		PriorityQueue<Integer> deviating = new PriorityQueue<>(byDeviation);
+		int size = logic.getBlocks().size();
+		for (int i = 0; i < size; i++) {
+			deviating.add(i);
+			if (deviating.size() > MAX_REPORTED_BLOCKS) {
+				deviating.poll();
+			}
+		}
+		
+		List<Integer> reported = new ArrayList<>(deviating);
+		reported.sort(byDeviation.reversed());
+		for (int i : reported) {
+			builder.append(createReportLine(logic.getBlocks().get(i),
+					result.getObservedChance(i), result.getExpectedChance(i)));
+		}
+		if (size > reported.size()) {
+			builder.append(Component.newline())
+					.append(Component.text(" ... and " + (size - reported.size())
+							+ " more blocks", NamedTextColor.GRAY));
+		}
+		return builder.build();
+	}
+	
+	/**
+	 * Creates a line of the message describing the results of a simulation.
+	 *
+	 * @param name the name of the outcome
+	 * @param observed the observed chance of the outcome
+	 * @param expected the configured chance of the outcome
+	 * @return the line, starting with a line break
+	 */
+	@Contract(pure = true)
+	private @NotNull Component createReportLine(@NotNull String name,
+			double observed, double expected) {
+		return Component.text()
+				.append(Component.newline())
+				.append(Component.text(" - ", NamedTextColor.GRAY))
+				.append(Component.text(name, NamedTextColor.GOLD))
+				.append(Component.text(": ", NamedTextColor.GRAY))
+				.append(Component.text(String.format("%.4f%%", observed * 100),
+						NamedTextColor.WHITE))
+				.append(Component.text(String.format(" (%.4f%%)", expected * 100),
+						NamedTextColor.GRAY))
+				.build();
+	}
+	
+	/**
+	 * Gets the configuration keys of the scenarios.
+	 *
+	 * @return the keys of all scenarios
+	 */
+	@Contract(pure = true)
+	private @NotNull List<String> getScenarioKeys() {
+		return Arrays.stream(EggScenario.values())
+				.map(EggScenario::getConfigKey)
+				.collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,164 @@
+package hu.trigary.dragonhatchery.command;
+
+import hu.trigary.dragonhatchery.DragonHatcheryPlugin;
+import hu.trigary.dragonhatchery.core.HatchStatistics;
+import hu.trigary.dragonhatchery.util.LatencyHistogram;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Subcommand responsible for reporting the {@link HatchStatistics} to the sender:
+ * how much time the stages of the egg spawning handling took (per scenario),
+ * how many spawns were allowed or cancelled and how often each block was chosen.
+ */
+public class StatsCommand extends SubCommand {
+	private static final String RESET_ARGUMENT = "reset";
+	
+	/**
+	 * Constructs a new subcommand.
+	 * It needs to be registered manually.
+	 *
+	 * @param plugin the plugin instance
+	 */
+	public StatsCommand(@NotNull DragonHatcheryPlugin plugin) {
+		super(plugin);
+	}
+	
+	@Override
+	public boolean onCommand(@NotNull CommandSender sender,
+			@NotNull List<String> args) {
+		if (args.size() == 1 && args.get(0).equalsIgnoreCase(RESET_ARGUMENT)) {
+			plugin.getStatistics().reset();
+			sender.sendMessage(Component.text("The statistics have been reset.",
+					NamedTextColor.GREEN));
+			return true;
+		} else if (!args.isEmpty()) {
+			return false;
+		}
+		
+		Map<String, HatchStatistics.ScenarioStatistics> all = plugin.getStatistics().getAll();
+		all.values().removeIf(statistics -> statistics.getHandledCount() == 0);
+		if (all.isEmpty()) {
+			sender.sendMessage(Component.text("No eggs have spawned since the statistics"
+					+ " were reset (or since the server started).", NamedTextColor.YELLOW));
+			return true;
+		}
+		
+		TextComponent.Builder builder = Component.text();
+		boolean first = true;
+		for (Map.Entry<String, HatchStatistics.ScenarioStatistics> entry : all.entrySet()) {
+			if (!first) {
+				builder.append(Component.newline());
+			}
+			appendScenario(builder, entry.getKey(), entry.getValue());
+			first = false;
+		}
+		sender.sendMessage(builder);
+		return true;
+	}
+	
+	@Override
+	public @NotNull List<String> onTabComplete(@NotNull CommandSender sender,
+			@NotNull List<String> args) {
+		if (args.size() == 1 && RESET_ARGUMENT.startsWith(args.get(0).toLowerCase())) {
+			return List.of(RESET_ARGUMENT);
+		} else {
+			return Collections.emptyList();
+		}
+	}
+	
+	@Override
+	public @NotNull String getName() {
+		return "stats";
+	}
+	
+	@Override
+	public @NotNull String getDescription() {
+		return "View the timings and outcomes of the egg spawns.";
+	}
+	
+	@Override
+	public @NotNull String getUsage() {
+		return getName() + " [" + RESET_ARGUMENT + "]";
+	}
+	
+	/**
+	 * Appends the lines describing the statistics of a scenario to the message.
+	 *
+	 * @param builder the message to append to
+	 * @param name the name of the scenario
+	 * @param statistics the statistics of the scenario
+	 */
+	private void appendScenario(@NotNull TextComponent.Builder builder, @NotNull String name,
+			@NotNull HatchStatistics.ScenarioStatistics statistics) {
+		long allowed = statistics.getAllowedCount();
+		long cancelled = statistics.getCancelledCount();
+		builder.append(Component.text("Scenario '" + name + "': " + (allowed + cancelled)
+				+ " handled (" + allowed + " allowed, " + cancelled + " cancelled)",
+				NamedTextColor.YELLOW));
+		
+		for (HatchStatistics.Stage stage : HatchStatistics.Stage.values()) {
+			LatencyHistogram.Snapshot snapshot = statistics.getStage(stage);
+			if (snapshot.getCount() == 0) {
+				continue;
+			}
+			builder.append(createLine(stage.name().toLowerCase(Locale.ROOT),
+					"p50 " + formatNanos(snapshot.getValueAtPercentile(50))
+							+ ", p99 " + formatNanos(snapshot.getValueAtPercentile(99))
+							+ ", max " + formatNanos(snapshot.getMax()),
+					"(" + snapshot.getCount() + ")"));
+		}
+		
+		Map<String, Long> blocks = statistics.getBlockCounts();
+		long total = blocks.values().stream().mapToLong(Long::longValue).sum();
+		blocks.forEach((block, count) -> builder.append(createLine(block,
+				count.toString(), String.format("(%.2f%%)", count * 100.0 / total))));
+	}
+	
+	/**
+	 * Creates a line of the message describing the statistics.
+	 *
+	 * @param name the name of the value
+	 * @param value the value
+	 * @param extra additional, less important information
+	 * @return the line, starting with a line break
+	 */
+	@Contract(pure = true)
+	private @NotNull Component createLine(@NotNull String name,
+			@NotNull String value, @NotNull String extra) {
+		return Component.text()
+				.append(Component.newline())
+				.append(Component.text(" - ", NamedTextColor.GRAY))
+				.append(Component.text(name, NamedTextColor.GOLD))
+				.append(Component.text(": ", NamedTextColor.GRAY))
+				.append(Component.text(value, NamedTextColor.WHITE))
+				.append(Component.text(" " + extra, NamedTextColor.GRAY))
+				.build();
+	}
+	
+	/**
+	 * Formats the specified duration in a human readable way.
+	 *
+	 * @param nanos the duration in nanoseconds
+	 * @return the formatted duration, eg. {@code 1.25 ms}
+	 */
+	@Contract(pure = true)
+	private static @NotNull String formatNanos(long nanos) {
+		if (nanos < 1_000) {
+			return nanos + " ns";
+		} else if (nanos < 1_000_000) {
+			return String.format("%.1f \u00b5s", nanos / 1e3);
+		} else {
+			return String.format("%.2f ms", nanos / 1e6);
+		}
+	}
+}
@@ -88,6 +88,12 @@ public abstract class SubCommand {
 	@Contract(pure = true)
 	public abstract @NotNull String getUsage();
 	
+	/**
+	 * Releases the resources held by this subcommand, eg. its background threads.
+	 * Called when the plugin is disabled. Does nothing by default.
+	 */
+	public void close() {}
+	
 	
 	/**
 	 * Utility method that has multiple functions that informs non-player
@@ -0,0 +1,97 @@
+package hu.trigary.dragonhatchery.core;
+
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.data.BlockData;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Plugin-wide cache of {@link BlockData} templates, shared between the scenarios and reloads:
+ * identical blocks are only created once.
+ * The templates are keyed by their canonical string ({@link BlockData#getAsString()}),
+ * therefore the same block specified in different ways still results in a single instance.
+ * The templates mustn't be modified, see {@link #prepareForPlacement(BlockData)}.
+ * <br><br>
+ * This class is thread-safe.
+ */
+public class BlockDataCache {
+	private final Map<String, BlockData> templates = new ConcurrentHashMap<>();
+	private final Server server;
+	private final boolean cloneRequired;
+	
+	/**
+	 * Constructs a new, empty instance.
+	 *
+	 * @param server the server used to create the block data instances
+	 */
+	public BlockDataCache(@NotNull Server server) {
+		this.server = server;
+		//CraftBukkit only copies the underlying (immutable) state when setting the block data,
+		// other implementations (eg. mocks) might keep a reference to the instance
+		cloneRequired = !server.getClass().getName().startsWith("org.bukkit.craftbukkit.");
+	}
+	
+	/**
+	 * Gets the template of the specified block, creating it if necessary.
+	 * The returned instance mustn't be modified.
+	 *
+	 * @param material the type of the block
+	 * @param data the extra data of the block, eg. {@code [level=3]}
+	 * @return the template of the block
+	 * @throws IllegalArgumentException if the data is invalid
+	 */
+	public @NotNull BlockData get(@NotNull Material material, @NotNull String data) {
+		String key = material.getKey() + data;
+		BlockData template = templates.get(key);
+		if (template == null) {
+			BlockData created = server.createBlockData(material, data);
+			template = templates.computeIfAbsent(created.getAsString(), k -> created);
+			templates.putIfAbsent(key, template);
+		}
+		return template;
+	}
+	
+	/**
+	 * Checks whether the specified block data is valid, without caching it:
+	 * the template is only cached once it's requested via {@link #get(Material, String)}.
+	 *
+	 * @param material the type of the block
+	 * @param data the extra data of the block, eg. {@code [level=3]}
+	 * @throws IllegalArgumentException if the data is invalid
+	 */
+	public void validate(@NotNull Material material, @NotNull String data) {
+		if (!templates.containsKey(material.getKey() + data)) {
+			server.createBlockData(material, data);
+		}
+	}
+	
+	/**
+	 * Gets the instance to pass to eg. {@link BlockState#setBlockData(BlockData)}
+	 * or {@link Block#setBlockData(BlockData, boolean)}.
+	 * The template is only cloned if the server might keep a reference to the passed instance.
+	 *
+	 * @param template the template returned by {@link #get(Material, String)}
+	 * @return the template itself or its clone
+	 */
+	@Contract(pure = true)
+	public @NotNull BlockData prepareForPlacement(@NotNull BlockData template) {
+		return cloneRequired ? template.clone() : template;
+	}
+	
+	/**
+	 * Gets how many keys are stored in this cache.
+	 * A template may be stored under multiple keys.
+	 *
+	 * @return the count of stored keys
+	 */
+	@Contract(pure = true)
+	public int size() {
+		return templates.size();
+	}
+}
@@ -1,15 +1,22 @@
 package hu.trigary.dragonhatchery.core;
 
 import hu.trigary.dragonhatchery.DragonHatcheryPlugin;
+import hu.trigary.dragonhatchery.jfr.EggFormHandlingEvent;
+import hu.trigary.dragonhatchery.util.RandomSource;
 import io.papermc.paper.event.block.DragonEggFormEvent;
+import org.bukkit.World;
 import org.bukkit.entity.HumanEntity;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.PluginManager;
+import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 
@@ -20,6 +27,7 @@ import java.util.stream.Collectors;
 public class EggFormListener implements Listener {
 	private final String logPrefix = getClass().getSimpleName() + ": ";
 	private final DragonHatcheryPlugin plugin;
+	private PendingSpawn pending;
 	
 	/**
 	 * Constructs a new instance. It needs to be manually registered
@@ -44,17 +52,21 @@ public class EggFormListener implements Listener {
 	 */
 	@EventHandler
 	private void onEggSpawn(@NotNull DragonEggFormEvent event) {
+		pending = null;
 		if (event.isCancelled()) {
-			plugin.getLogger().log(Level.FINE,
-					() -> logPrefix + "Egg spawning was already cancelled, ignoring event");
+			plugin.getTracer().eventAlreadyCancelled();
 			return;
 		}
 		
+		EggFormHandlingEvent jfrEvent = new EggFormHandlingEvent();
+		jfrEvent.begin();
 		try {
-			plugin.getLogger().log(Level.FINE,
-					() -> logPrefix + "Egg spawning was not cancelled, handling it");
-			handleEggSpawn(event);
+			handleEggSpawn(event, jfrEvent);
 		} catch (Throwable t) {
+			pending = null;
+			jfrEvent.failed = true;
+			jfrEvent.allowed = false;
+			jfrEvent.spawnedBlocks = 0;
 			event.setCancelled(true);
 			String players = event.getBlock().getLocation()
 					.getNearbyPlayers(500)
@@ -64,6 +76,43 @@ public class EggFormListener implements Listener {
 			plugin.getLogger().log(Level.SEVERE, logPrefix + "Error handling egg spawning; "
 					+ "cancelling event; nearby players when this happened: " + players, t);
 		}
+		if (jfrEvent.shouldCommit()) {
+			jfrEvent.commit();
+		}
+	}
+	
+	/**
+	 * Finishes the egg spawning handled by {@link #onEggSpawn(DragonEggFormEvent)}:
+	 * records the final outcome in the audit log and places the extra blocks,
+	 * if the scenario rolls multiple blocks.
+	 * We listen on the {@link EventPriority#MONITOR}: the outcome is only final at this point,
+	 * other plugins might have cancelled the event after us.
+	 * The blocks should only be placed if the egg spawning surely happens,
+	 * since they are placed directly into the world, not via the event.
+	 *
+	 * @param event the event being fired
+	 */
+	@EventHandler(priority = EventPriority.MONITOR)
+	private void onEggSpawned(@NotNull DragonEggFormEvent event) {
+		PendingSpawn spawn = pending;
+		pending = null;
+		if (spawn == null || spawn.event != event) {
+			return;
+		}
+		
+		HatchAuditLog auditLog = plugin.getAuditLog();
+		if (auditLog != null) {
+			try {
+				auditLog.record(createAuditRecord(spawn, !event.isCancelled()));
+			} catch (Throwable t) {
+				//The audit log must never change the outcome of the egg spawning
+				plugin.getLogger().log(Level.SEVERE, logPrefix + "Error recording egg spawning"
+						+ " in the audit log; the egg spawning is unaffected", t);
+			}
+		}
+		if (spawn.allowed && !event.isCancelled() && spawn.logic.getRollCount() > 1) {
+			spawn.logic.placeStackedBlocks(event.getBlock());
+		}
 	}
 	
 	/**
@@ -73,23 +122,117 @@ public class EggFormListener implements Listener {
 	 * This method is allowed to throw exceptions and expects them to be gracefully handled.
 	 *
 	 * @param event the event to modify
+	 * @param jfrEvent the flight recorder event whose fields to fill
 	 */
-	private void handleEggSpawn(@NotNull DragonEggFormEvent event) {
-		EggScenario scenario = EggScenario.getMatching(event.getDragonBattle());
-		plugin.getLogger().log(Level.FINE, () -> logPrefix + "Detected scenario: " + scenario);
+	private void handleEggSpawn(@NotNull DragonEggFormEvent event,
+			@NotNull EggFormHandlingEvent jfrEvent) {
+		long start = System.nanoTime();
+		World world = event.getBlock().getWorld();
+		KillCounter killCounter = plugin.getKillCounter();
+		long killNumber = killCounter.getNextKillNumber(world, event.getDragonBattle());
+		EggScenario scenario = plugin.getScenarioRules()
+				.getMatching(world, event.getDragonBattle(), killNumber);
+		plugin.getTracer().scenarioDetected(scenario);
+		long detected = System.nanoTime();
 		
-		ScenarioLogic logic = plugin.getScenarioLogicHolder().getLogicFor(scenario);
+		ScenarioLogic logic = plugin.getScenarioIndex().getHolderFor(world).getLogicFor(scenario);
 		if (logic == null) {
 			throw new IllegalStateException("Logic is null; did the config fail to load?");
 		}
+		killCounter.recordKill(world, killNumber);
+		jfrEvent.scenario = logic.getName();
+		RandomSource random = plugin.getRandomSourceProvider().getFor(event.getBlock());
+		long lookedUp = System.nanoTime();
 		
-		if (logic.shouldAllowEggSpawn()) {
-			logic.handleEggSpawn(event.getDragonBattle(), event.getNewState());
-			plugin.getLogger().log(Level.FINE,
-					() -> logPrefix + "Allowed egg spawning, updated block");
+		boolean allowed = logic.shouldAllowEggSpawn(random);
+		long rolled = System.nanoTime();
+		if (allowed) {
+			logic.handleEggSpawn(event.getDragonBattle(), event.getNewState(), random);
+			plugin.getTracer().spawnHandled(true);
 		} else {
 			event.setCancelled(true);
-			plugin.getLogger().log(Level.FINE, () -> logPrefix + "Cancelled egg spawning");
+			plugin.getTracer().spawnHandled(false);
+		}
+		long updated = System.nanoTime();
+		pending = new PendingSpawn(event, world, scenario, killNumber, logic, allowed);
+		
+		jfrEvent.allowed = allowed;
+		jfrEvent.spawnedBlocks = allowed ? logic.getRollCount() : 0;
+		
+		HatchStatistics.ScenarioStatistics statistics = logic.getStatistics();
+		statistics.recordStage(HatchStatistics.Stage.DETECTION, detected - start);
+		statistics.recordStage(HatchStatistics.Stage.LOOKUP, lookedUp - detected);
+		statistics.recordStage(HatchStatistics.Stage.ROLL, rolled - lookedUp);
+		if (allowed) {
+			statistics.recordStage(HatchStatistics.Stage.UPDATE, updated - rolled);
+		}
+		statistics.recordStage(HatchStatistics.Stage.TOTAL, updated - start);
+		statistics.recordOutcome(allowed);
+	}
+	
+	/**
+	 * Creates the audit record of an already handled egg spawning.
+	 *
+	 * @param spawn the decision made when handling the egg spawning
+	 * @param allowed whether the egg spawning finally happened:
+	 * false if it was cancelled by the logic or by another plugin
+	 * @return the new record
+	 */
+	private @NotNull HatchAuditLog.Record createAuditRecord(@NotNull PendingSpawn spawn,
+			boolean allowed) {
+		ScenarioLogic logic = spawn.logic;
+		int rolled = spawn.allowed ? logic.getRollCount() : 0;
+		List<String> entries = new ArrayList<>(rolled);
+		List<String> blockTypes = new ArrayList<>(rolled);
+		List<String> blockData = new ArrayList<>(rolled);
+		for (int i = 0; i < rolled; i++) {
+			int index = logic.getLastRolledIndex(i);
+			entries.add(logic.getBlocks().get(index));
+			blockTypes.add(logic.getDefinition().getBlockType(index).name()
+					.toLowerCase(Locale.ROOT));
+			blockData.add(logic.getDefinition().getBlockData(index));
+		}
+		List<String> participants = spawn.event.getDragonBattle().getBossBar().getPlayers()
+				.stream()
+				.map(HumanEntity::getName)
+				.collect(Collectors.toList());
+		return new HatchAuditLog.Record(System.currentTimeMillis(), spawn.world.getUID(),
+				spawn.world.getName(), spawn.scenario, logic.getName(), spawn.killNumber,
+				logic.getLastSpawnRoll(), allowed, entries, blockTypes, blockData, participants);
+	}
+	
+	/**
+	 * An egg spawning handled by {@link #onEggSpawn(DragonEggFormEvent)},
+	 * waiting for {@link #onEggSpawned(DragonEggFormEvent)} to finish it.
+	 */
+	private static class PendingSpawn {
+		private final DragonEggFormEvent event;
+		private final World world;
+		private final EggScenario scenario;
+		private final long killNumber;
+		private final ScenarioLogic logic;
+		private final boolean allowed;
+		
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param event the handled event
+		 * @param world the world in which the egg spawned
+		 * @param scenario the scenario of the egg spawning
+		 * @param killNumber the number of the kill in the world
+		 * @param logic the logic that handled the egg spawning
+		 * @param allowed whether the logic allowed the egg spawning
+		 */
+		@Contract(pure = true)
+		PendingSpawn(@NotNull DragonEggFormEvent event, @NotNull World world,
+				@NotNull EggScenario scenario, long killNumber,
+				@NotNull ScenarioLogic logic, boolean allowed) {
+			this.event = event;
+			this.world = world;
+			this.scenario = scenario;
+			this.killNumber = killNumber;
+			this.logic = logic;
+			this.allowed = allowed;
 		}
 	}
 }
@@ -0,0 +1,967 @@
+package hu.trigary.dragonhatchery.core;
+
+import hu.trigary.dragonhatchery.util.ConfigHelper;
+import hu.trigary.dragonhatchery.util.InvalidConfigException;
+import hu.trigary.dragonhatchery.util.MpscArrayQueue;
+import org.apache.commons.lang.Validate;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Durable audit trail of the egg spawning decisions: each decision is stored as a
+ * {@link Record} in an append-only, memory-mapped file.
+ * The records are variable-size, none of their values are truncated.
+ * When the next record doesn't fit in the current file,
+ * a new one is started and the oldest files are deleted.
+ * <br><br>
+ * The main thread only hands the records to a bounded {@link MpscArrayQueue},
+ * a single daemon thread writes them and flushes the file to the disk after each batch.
+ * If the queue is full, the records are dropped (and the count of dropped records is logged).
+ * <br><br>
+ * Each record starts with its length and ends with a CRC32 checksum,
+ * therefore the first invalid record marks the end of a file, even after a crash.
+ * A new instance (eg. after a restart) reopens the newest file and keeps appending to it,
+ * after its last valid record: files are only rotated when they are full.
+ */
+public class HatchAuditLog {
+	private static final int MAGIC = 0x44484131; //"DHA1"
+	private static final int VERSION = 2;
+	/**
+	 * The size of the header of each file: the offset of the first record.
+	 */
+	static final int HEADER_SIZE = 2 * Integer.BYTES;
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+	private static final Pattern FILE_NAME = Pattern.compile("hatch-(\\d+)\\.bin");
+	private final String logPrefix = getClass().getSimpleName() + ": ";
+	private final LongAdder dropped = new LongAdder();
+	private final Object lock = new Object();
+	private final Logger logger;
+	private final Path directory;
+	private final Settings settings;
+	private final MpscArrayQueue<Record> queue;
+	private final Thread writer;
+	private volatile boolean closed;
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	private long sequence;
+	private int position;
+	
+	/**
+	 * Constructs a new instance, reopens its newest file (or creates the first one)
+	 * and starts its background thread.
+	 *
+	 * @param logger the logger to report the errors to
+	 * @param directory the directory to store the files in
+	 * @param settings the settings to use, the audit log must be enabled in them
+	 * @throws IOException if the newest file couldn't be reopened or created
+	 */
+	public HatchAuditLog(@NotNull Logger logger, @NotNull Path directory,
+			@NotNull Settings settings) throws IOException {
+		Validate.isTrue(settings.isEnabled(), "Audit log must be enabled");
+		this.logger = logger;
+		this.directory = directory;
+		this.settings = settings;
+		queue = new MpscArrayQueue<>(settings.getCapacity());
+		
+		Files.createDirectories(directory);
+		List<Path> files = listFiles(directory);
+		sequence = files.isEmpty() ? 0 : getSequence(files.get(files.size() - 1));
+		if (files.isEmpty() || !reopenFile(files.get(files.size() - 1))) {
+			openNextFile();
+		}
+		
+		writer = new Thread(this::runWriter, "DragonHatchery-AuditWriter");
+		writer.setDaemon(true);
+		writer.start();
+	}
+	
+	/**
+	 * Gets the settings this instance was constructed with.
+	 *
+	 * @return the settings of this audit log
+	 */
+	@Contract(pure = true)
+	public @NotNull Settings getSettings() {
+		return settings;
+	}
+	
+	/**
+	 * Gets the count of records that were dropped because the queue was full.
+	 *
+	 * @return the count of dropped records
+	 */
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+	
+	/**
+	 * Hands the specified record to the background thread.
+	 * Never waits for the disk: if the queue is full or if this instance is closed,
+	 * the record is dropped.
+	 * The closed state is checked under the same lock {@link #close()} sets it under,
+	 * therefore each record is either dropped or written before the file is closed.
+	 *
+	 * @param record the record to write
+	 */
+	public void record(@NotNull Record record) {
+		synchronized (lock) {
+			if (closed || !queue.offer(record)) {
+				dropped.increment();
+			}
+		}
+	}
+	
+	/**
+	 * Writes the remaining records, then stops the background thread and closes the file.
+	 * Records handed over afterwards are dropped.
+	 */
+	public void close() {
+		synchronized (lock) {
+			closed = true;
+		}
+		LockSupport.unpark(writer);
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Gets the files of the audit log in the specified directory, the oldest first.
+	 *
+	 * @param directory the directory the files are stored in
+	 * @return the paths of the files, empty if the directory doesn't exist
+	 * @throws IOException if the directory couldn't be listed
+	 */
+	public static @NotNull List<Path> listFiles(@NotNull Path directory) throws IOException {
+		if (!Files.isDirectory(directory)) {
+			return Collections.emptyList();
+		}
+		List<Path> files = new ArrayList<>();
+		try (Stream<Path> stream = Files.list(directory)) {
+			stream.filter(file -> FILE_NAME.matcher(file.getFileName().toString()).matches())
+					.forEach(files::add);
+		}
+		files.sort(Comparator.comparingLong(HatchAuditLog::getSequence));
+		return files;
+	}
+	
+	/**
+	 * Reads the valid records of the specified file, in the order they were written.
+	 * Reading stops at the first invalid record: the records after it were never written.
+	 *
+	 * @param file the file to read
+	 * @param consumer the action to execute for each record
+	 * @throws IOException if the file couldn't be read or if it's not an audit log file
+	 */
+	public static void readFile(@NotNull Path file, @NotNull Consumer<Record> consumer)
+			throws IOException {
+		ByteBuffer buffer = mapFile(file);
+		CRC32 crc = new CRC32();
+		int offset = HEADER_SIZE;
+		Record record;
+		while ((record = readRecord(buffer, offset, crc)) != null) {
+			consumer.accept(record);
+			offset = getNextOffset(buffer, offset);
+		}
+	}
+	
+	/**
+	 * Maps the specified audit log file into memory, read-only.
+	 *
+	 * @param file the file to map
+	 * @return the content of the file
+	 * @throws IOException if the file couldn't be read or if it's not an audit log file
+	 */
+	static @NotNull ByteBuffer mapFile(@NotNull Path file) throws IOException {
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+				throw new IOException("Corrupt audit log file: invalid size: " + size);
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION) {
+			throw new IOException("Corrupt audit log file: invalid header: " + file);
+		}
+		return buffer;
+	}
+	
+	/**
+	 * Reads the record at the specified offset from a mapped file.
+	 *
+	 * @param buffer the content of the file, see {@link #mapFile(Path)}
+	 * @param offset the offset of the record: {@link #HEADER_SIZE} for the first record,
+	 * see {@link #getNextOffset(ByteBuffer, int)} for the others
+	 * @param crc the instance to compute the checksum with
+	 * @return the read record or null, if the record is invalid (eg. it was never written)
+	 */
+	static @Nullable Record readRecord(@NotNull ByteBuffer buffer, int offset,
+			@NotNull CRC32 crc) {
+		return Record.read(buffer, offset, crc);
+	}
+	
+	/**
+	 * Gets the offset of the record following the specified one in a mapped file.
+	 *
+	 * @param buffer the content of the file, see {@link #mapFile(Path)}
+	 * @param offset the offset of a valid record, see {@link #readRecord(ByteBuffer, int, CRC32)}
+	 * @return the offset of the next (possibly invalid) record
+	 */
+	@Contract(pure = true)
+	static int getNextOffset(@NotNull ByteBuffer buffer, int offset) {
+		return offset + buffer.getInt(offset);
+	}
+	
+	/**
+	 * Reads the timestamp of the record at the specified offset from a mapped file,
+	 * without validating the record.
+	 *
+	 * @param buffer the content of the file, see {@link #mapFile(Path)}
+	 * @param offset the offset of a valid record, see {@link #readRecord(ByteBuffer, int, CRC32)}
+	 * @return the timestamp of the record, see {@link Record#getTimestamp()}
+	 */
+	@Contract(pure = true)
+	static long readTimestamp(@NotNull ByteBuffer buffer, int offset) {
+		return buffer.getLong(offset + Integer.BYTES);
+	}
+	
+	/**
+	 * The body of the background thread: writes the records in batches until closed.
+	 */
+	private void runWriter() {
+		CRC32 crc = new CRC32();
+		long reportedDropped = 0;
+		while (true) {
+			boolean wrote = false;
+			Record record;
+			while ((record = queue.poll()) != null) {
+				wrote |= write(record, crc);
+			}
+			if (wrote && buffer != null) {
+				buffer.force();
+			}
+			
+			long currentDropped = dropped.sum();
+			if (currentDropped != reportedDropped) {
+				logger.log(Level.WARNING, logPrefix + "Dropped "
+						+ (currentDropped - reportedDropped) + " audit records");
+				reportedDropped = currentDropped;
+			}
+			
+			if (closed && queue.size() == 0) {
+				break;
+			}
+			LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+		}
+		closeFile();
+	}
+	
+	/**
+	 * Writes a record to the current file, starting a new file if it doesn't fit in the current one.
+	 * If the record doesn't even fit in an empty file, then the names of its participants
+	 * are left out (but their count is kept), see {@link Record#getParticipants()}.
+	 *
+	 * @param record the record to write
+	 * @param crc the instance to compute the checksum with
+	 * @return true if the record was written, false if it was dropped due to an error
+	 */
+	private boolean write(@NotNull Record record, @NotNull CRC32 crc) {
+		ByteBuffer encoded = record.encode(crc);
+		if (HEADER_SIZE + encoded.capacity() > settings.getFileSize()) {
+			encoded = record.withoutParticipants().encode(crc);
+			if (HEADER_SIZE + encoded.capacity() > settings.getFileSize()) {
+				logger.log(Level.SEVERE, logPrefix + "The audit record doesn't fit in a file,"
+						+ " dropping record: " + record);
+				return false;
+			}
+		}
+		
+		if (buffer == null || position + encoded.capacity() > buffer.capacity()) {
+			try {
+				closeFile();
+				openNextFile();
+			} catch (IOException e) {
+				logger.log(Level.SEVERE, logPrefix + "Unable to create a new audit log file,"
+						+ " dropping record: " + record, e);
+				return false;
+			}
+		}
+		buffer.duplicate().position(position).put(encoded);
+		position += encoded.capacity();
+		return true;
+	}
+	
+	/**
+	 * Creates and maps the next file, then deletes the oldest files over the limit.
+	 *
+	 * @throws IOException if the file couldn't be created
+	 */
+	private void openNextFile() throws IOException {
+		sequence++;
+		Path file = directory.resolve(String.format(Locale.ROOT, "hatch-%010d.bin", sequence));
+		channel = FileChannel.open(file, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
+		try {
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, settings.getFileSize());
+		} catch (IOException e) {
+			channel.close();
+			channel = null;
+			throw e;
+		}
+		buffer.putInt(0, MAGIC);
+		buffer.putInt(Integer.BYTES, VERSION);
+		position = HEADER_SIZE;
+		
+		List<Path> files = listFiles(directory);
+		for (int i = 0; i < files.size() - settings.getMaxFiles(); i++) {
+			Files.deleteIfExists(files.get(i));
+		}
+	}
+	
+	/**
+	 * Reopens and maps the specified file, to keep appending to it after its last valid record.
+	 * The bytes after that record (eg. a record torn by a crash) are cleared.
+	 * The size of the file is kept, even if the configured size has changed since.
+	 *
+	 * @param file the newest file
+	 * @return true if the file was reopened, false if it isn't a valid audit log file
+	 * (eg. it was written by a different version)
+	 * @throws IOException if the file couldn't be reopened
+	 */
+	private boolean reopenFile(@NotNull Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			long size = channel.size();
+			if (size >= HEADER_SIZE && size <= Integer.MAX_VALUE) {
+				buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			}
+		} catch (IOException e) {
+			channel.close();
+			channel = null;
+			throw e;
+		}
+		if (buffer == null || buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION) {
+			logger.log(Level.WARNING, logPrefix + "Not appending to the invalid audit log file: "
+					+ file);
+			channel.close();
+			channel = null;
+			buffer = null;
+			return false;
+		}
+		
+		CRC32 crc = new CRC32();
+		position = HEADER_SIZE;
+		while (readRecord(buffer, position, crc) != null) {
+			position = getNextOffset(buffer, position);
+		}
+		for (int i = position; i < buffer.capacity(); i++) {
+			//Only write the dirty bytes: the rest of the file stays untouched
+			if (buffer.get(i) != 0) {
+				buffer.put(i, (byte) 0);
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Flushes and closes the current file, if there is one.
+	 */
+	private void closeFile() {
+		if (channel == null) {
+			return;
+		}
+		try {
+			buffer.force();
+			channel.close();
+		} catch (IOException e) {
+			logger.log(Level.WARNING, logPrefix + "Unable to close the audit log file", e);
+		}
+		channel = null;
+		buffer = null;
+	}
+	
+	/**
+	 * Gets the sequence number of the specified audit log file.
+	 *
+	 * @param file the path of the file
+	 * @return the sequence number in its name
+	 */
+	@Contract(pure = true)
+	private static long getSequence(@NotNull Path file) {
+		Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+		Validate.isTrue(matcher.matches(), "File must be an audit log file");
+		return Long.parseLong(matcher.group(1));
+	}
+	
+	/**
+	 * The settings of the audit log.
+	 */
+	public static class Settings {
+		/**
+		 * The settings which disable the audit log.
+		 */
+		public static final Settings DISABLED = new Settings(false, 4, 1, 1);
+		private final boolean enabled;
+		private final int fileSizeKib;
+		private final int maxFiles;
+		private final int capacity;
+		
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param enabled whether the decisions should be recorded
+		 * @param fileSizeKib the size of each file in KiB
+		 * @param maxFiles the maximum count of files to keep
+		 * @param capacity the maximum count of records waiting to be written
+		 * @throws IllegalArgumentException if a value is out of its range
+		 */
+		@Contract(pure = true)
+		public Settings(boolean enabled, int fileSizeKib, int maxFiles, int capacity) {
+			Validate.isTrue(fileSizeKib >= 4 && fileSizeKib <= 1 << 20,
+					"File size must be between 4 and 1048576");
+			Validate.isTrue(maxFiles >= 1 && maxFiles <= 100_000,
+					"Max files must be between 1 and 100000");
+			Validate.isTrue(capacity >= 1 && capacity <= 1 << 20,
+					"Capacity must be between 1 and 1048576");
+			this.enabled = enabled;
+			this.fileSizeKib = fileSizeKib;
+			this.maxFiles = maxFiles;
+			this.capacity = capacity;
+		}
+		
+		/**
+		 * Constructs a new instance from the specified configuration.
+		 * All values are optional: by default the audit log is disabled.
+		 *
+		 * @param config the configuration that contains the values to use
+		 * @return the newly created instance
+		 * @throws InvalidConfigException if the configuration is invalid
+		 */
+		@Contract(value = "_ -> new", pure = true)
+		public static @NotNull Settings fromConfig(@NotNull ConfigurationSection config)
+				throws InvalidConfigException {
+			boolean enabled = ConfigHelper.parseValue(config, "audit-log.enabled",
+					Boolean::parseBoolean, false);
+			int fileSizeKib = ConfigHelper.parseValue(config, "audit-log.file-size-kib",
+					Integer::parseInt, 1024);
+			int maxFiles = ConfigHelper.parseValue(config, "audit-log.max-files",
+					Integer::parseInt, 16);
+			int capacity = ConfigHelper.parseValue(config, "audit-log.capacity",
+					Integer::parseInt, 1024);
+			return ConfigHelper.computeValue(config, "audit-log",
+					(c, k) -> new Settings(enabled, fileSizeKib, maxFiles, capacity));
+		}
+		
+		/**
+		 * Gets whether the decisions should be recorded.
+		 *
+		 * @return true if the audit log is enabled
+		 */
+		@Contract(pure = true)
+		public boolean isEnabled() {
+			return enabled;
+		}
+		
+		/**
+		 * Gets the size of each file.
+		 *
+		 * @return the size of each file in bytes, the header included
+		 */
+		@Contract(pure = true)
+		public int getFileSize() {
+			return fileSizeKib * 1024;
+		}
+		
+		/**
+		 * Gets the maximum count of files to keep: the oldest files over this limit are deleted.
+		 *
+		 * @return the maximum count of files
+		 */
+		@Contract(pure = true)
+		public int getMaxFiles() {
+			return maxFiles;
+		}
+		
+		/**
+		 * Gets the maximum count of records waiting to be written.
+		 *
+		 * @return the requested capacity of the queue
+		 */
+		@Contract(pure = true)
+		public int getCapacity() {
+			return capacity;
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Settings)) {
+				return false;
+			}
+			Settings other = (Settings) o;
+			return enabled == other.enabled && fileSizeKib == other.fileSizeKib
+					&& maxFiles == other.maxFiles && capacity == other.capacity;
+		}
+		
+		@Override
+		public int hashCode() {
+			return Objects.hash(enabled, fileSizeKib, maxFiles, capacity);
+		}
+	}
+	
+	/**
+	 * A single egg spawning decision.
+	 * The stored size of a record depends on the length of its texts: none of them are truncated.
+	 * The only exception is a record which wouldn't even fit in an empty file:
+	 * the names of its participants are left out.
+	 */
+	public static class Record {
+		//The length, the fixed-size fields, the counts of the texts and lists, the checksum
+		private static final int MIN_SIZE = Integer.BYTES + 5 * Long.BYTES + 2 + Integer.BYTES
+				+ 6 * Integer.BYTES + Integer.BYTES;
+		private static final EggScenario[] SCENARIOS = EggScenario.values();
+		private final long timestamp;
+		private final UUID world;
+		private final String worldName;
+		private final EggScenario scenario;
+		private final String scenarioName;
+		private final long killNumber;
+		private final double roll;
+		private final boolean allowed;
+		private final List<String> entries;
+		private final List<String> blockTypes;
+		private final List<String> blockData;
+		private final int participantCount;
+		private final List<String> participants;
+		
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param timestamp the time of the decision in milliseconds since the epoch
+		 * @param world the identifier of the world
+		 * @param worldName the name of the world
+		 * @param scenario the scenario of the egg spawning
+		 * @param scenarioName the name of the logic that handled the scenario
+		 * @param killNumber the number of the kill in the world
+		 * @param roll the value rolled to decide whether the egg spawning is allowed
+		 * @param allowed whether the egg spawning finally happened
+		 * @param entries the keys of the chosen spawned block entries,
+		 * empty if the logic didn't allow the egg spawning
+		 * @param blockTypes the block types of the chosen entries, eg. {@code dragon_egg}
+		 * @param blockData the block data of the chosen entries,
+		 * see {@link ScenarioDefinition#getBlockData(int)}
+		 * @param participants the names of the players who took part in the battle
+		 * @throws IllegalArgumentException if the lists of the chosen entries differ in size
+		 */
+		@Contract(pure = true)
+		public Record(long timestamp, @NotNull UUID world, @NotNull String worldName,
+				@NotNull EggScenario scenario, @NotNull String scenarioName, long killNumber,
+				double roll, boolean allowed, @NotNull List<String> entries,
+				@NotNull List<String> blockTypes, @NotNull List<String> blockData,
+				@NotNull List<String> participants) {
+			this(timestamp, world, worldName, scenario, scenarioName, killNumber, roll, allowed,
+					entries, blockTypes, blockData, participants.size(), participants);
+		}
+		
+		/**
+		 * Constructs a new instance whose participants may have been left out.
+		 *
+		 * @param timestamp the time of the decision in milliseconds since the epoch
+		 * @param world the identifier of the world
+		 * @param worldName the name of the world
+		 * @param scenario the scenario of the egg spawning
+		 * @param scenarioName the name of the logic that handled the scenario
+		 * @param killNumber the number of the kill in the world
+		 * @param roll the value rolled to decide whether the egg spawning is allowed
+		 * @param allowed whether the egg spawning finally happened
+		 * @param entries the keys of the chosen spawned block entries,
+		 * empty if the logic didn't allow the egg spawning
+		 * @param blockTypes the block types of the chosen entries
+		 * @param blockData the block data of the chosen entries
+		 * @param participantCount the count of players who took part in the battle
+		 * @param participants the names of (some of) the players who took part in the battle
+		 * @throws IllegalArgumentException if the lists of the chosen entries differ in size
+		 */
+		@Contract(pure = true)
+		private Record(long timestamp, @NotNull UUID world, @NotNull String worldName,
+				@NotNull EggScenario scenario, @NotNull String scenarioName, long killNumber,
+				double roll, boolean allowed, @NotNull List<String> entries,
+				@NotNull List<String> blockTypes, @NotNull List<String> blockData,
+				int participantCount, @NotNull List<String> participants) {
+			Validate.isTrue(entries.size() == blockTypes.size()
+					&& entries.size() == blockData.size(), "Entry lists must have the same size");
+			this.timestamp = timestamp;
+			this.world = world;
+			this.worldName = worldName;
+			this.scenario = scenario;
+			this.scenarioName = scenarioName;
+			this.killNumber = killNumber;
+			this.roll = roll;
+			this.allowed = allowed;
+			this.entries = List.copyOf(entries);
+			this.blockTypes = List.copyOf(blockTypes);
+			this.blockData = List.copyOf(blockData);
+			this.participantCount = participantCount;
+			this.participants = List.copyOf(participants);
+		}
+		
+		/**
+		 * Gets the time of the decision.
+		 *
+		 * @return the time in milliseconds since the epoch
+		 */
+		@Contract(pure = true)
+		public long getTimestamp() {
+			return timestamp;
+		}
+		
+		/**
+		 * Gets the identifier of the world in which the egg spawned.
+		 *
+		 * @return the identifier of the world
+		 */
+		@Contract(pure = true)
+		public @NotNull UUID getWorld() {
+			return world;
+		}
+		
+		/**
+		 * Gets the name of the world in which the egg spawned.
+		 *
+		 * @return the name of the world at the time of the decision
+		 */
+		@Contract(pure = true)
+		public @NotNull String getWorldName() {
+			return worldName;
+		}
+		
+		/**
+		 * Gets the scenario of the egg spawning.
+		 *
+		 * @return the scenario
+		 */
+		@Contract(pure = true)
+		public @NotNull EggScenario getScenario() {
+			return scenario;
+		}
+		
+		/**
+		 * Gets the name of the logic that handled the scenario,
+		 * see {@link ScenarioLogic#getName()}.
+		 *
+		 * @return the name of the logic
+		 */
+		@Contract(pure = true)
+		public @NotNull String getScenarioName() {
+			return scenarioName;
+		}
+		
+		/**
+		 * Gets the number of the kill in the world, see {@link KillCounter}.
+		 *
+		 * @return the number of the kill (the first kill is 1)
+		 */
+		@Contract(pure = true)
+		public long getKillNumber() {
+			return killNumber;
+		}
+		
+		/**
+		 * Gets the value rolled to decide whether the egg spawning is allowed.
+		 *
+		 * @return the rolled value, between 0 (inclusive) and 1 (exclusive)
+		 */
+		@Contract(pure = true)
+		public double getRoll() {
+			return roll;
+		}
+		
+		/**
+		 * Gets whether the egg spawning finally happened.
+		 * If it was cancelled by another plugin after the logic allowed it,
+		 * then this is false, but the chosen entries are still recorded.
+		 *
+		 * @return true if the egg spawned, false if it was cancelled
+		 */
+		@Contract(pure = true)
+		public boolean isAllowed() {
+			return allowed;
+		}
+		
+		/**
+		 * Gets the keys of the chosen spawned block entries.
+		 *
+		 * @return the keys of the chosen entries, in the order they were rolled
+		 */
+		@Contract(pure = true)
+		public @NotNull List<String> getEntries() {
+			return entries;
+		}
+		
+		/**
+		 * Gets the block types of the chosen spawned block entries.
+		 *
+		 * @return the block types, in the order of {@link #getEntries()}
+		 */
+		@Contract(pure = true)
+		public @NotNull List<String> getBlockTypes() {
+			return blockTypes;
+		}
+		
+		/**
+		 * Gets the block data of the chosen spawned block entries.
+		 *
+		 * @return the block data (empty or enclosed in square brackets),
+		 * in the order of {@link #getEntries()}
+		 */
+		@Contract(pure = true)
+		public @NotNull List<String> getBlockData() {
+			return blockData;
+		}
+		
+		/**
+		 * Gets the count of players who took part in the battle.
+		 * Unlike {@link #getParticipants()}, this value is always complete.
+		 *
+		 * @return the count of participants
+		 */
+		@Contract(pure = true)
+		public int getParticipantCount() {
+			return participantCount;
+		}
+		
+		/**
+		 * Gets the names of the players who took part in the battle.
+		 * The names are only left out if the record wouldn't fit in an empty file otherwise:
+		 * then this list is empty, while {@link #getParticipantCount()} is positive.
+		 *
+		 * @return the names of the participants
+		 */
+		@Contract(pure = true)
+		public @NotNull List<String> getParticipants() {
+			return participants;
+		}
+		
+		@Override
+		public @NotNull String toString() {
+			return "Record{timestamp=" + timestamp + ", world=" + worldName + ", scenario="
+					+ scenarioName + ", killNumber=" + killNumber + ", roll=" + roll
+					+ ", allowed=" + allowed + ", entries=" + entries
+					+ ", participants=" + participants + "}";
+		}
+		
+		/**
+		 * Creates a copy of this record without the names of its participants.
+		 *
+		 * @return the new record, with the same count of participants
+		 */
+		@Contract(value = "-> new", pure = true)
+		private @NotNull Record withoutParticipants() {
+			return new Record(timestamp, world, worldName, scenario, scenarioName, killNumber,
+					roll, allowed, entries, blockTypes, blockData, participantCount,
+					Collections.emptyList());
+		}
+		
+		/**
+		 * Encodes this record: its length first, its checksum last.
+		 *
+		 * @param crc the instance to compute the checksum with
+		 * @return the encoded record, the size of the buffer is the length of the record
+		 */
+		private @NotNull ByteBuffer encode(@NotNull CRC32 crc) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+			try (DataOutputStream output = new DataOutputStream(bytes)) {
+				output.writeInt(0); //The length is only known at the end
+				output.writeLong(timestamp);
+				output.writeLong(world.getMostSignificantBits());
+				output.writeLong(world.getLeastSignificantBits());
+				output.writeLong(killNumber);
+				output.writeDouble(roll);
+				output.writeByte(scenario.ordinal());
+				output.writeByte(allowed ? 1 : 0);
+				output.writeInt(participantCount);
+				writeString(output, worldName);
+				writeString(output, scenarioName);
+				writeList(output, entries);
+				writeList(output, blockTypes);
+				writeList(output, blockData);
+				writeList(output, participants);
+				output.writeInt(0); //The checksum is computed last
+			} catch (IOException e) {
+				throw new AssertionError("Writing into memory failed", e);
+			}
+			
+			ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+			int length = buffer.capacity();
+			buffer.putInt(0, length);
+			buffer.putInt(length - Integer.BYTES, checksum(buffer, 0, length, crc));
+			return buffer;
+		}
+		
+		/**
+		 * Reads a record from the specified buffer.
+		 *
+		 * @param buffer the buffer to read from
+		 * @param offset the offset of the record in the buffer
+		 * @param crc the instance to compute the checksum with
+		 * @return the read record or null, if the record is invalid (eg. it was never written)
+		 */
+		private static @Nullable Record read(@NotNull ByteBuffer buffer, int offset,
+				@NotNull CRC32 crc) {
+			if (offset < 0 || offset > buffer.limit() - MIN_SIZE) {
+				return null;
+			}
+			int length = buffer.getInt(offset);
+			if (length < MIN_SIZE || length > buffer.limit() - offset
+					|| checksum(buffer, offset, length, crc)
+					!= buffer.getInt(offset + length - Integer.BYTES)) {
+				return null;
+			}
+			
+			ByteBuffer input = buffer.duplicate().position(offset + Integer.BYTES)
+					.limit(offset + length - Integer.BYTES);
+			try {
+				long timestamp = input.getLong();
+				UUID world = new UUID(input.getLong(), input.getLong());
+				long killNumber = input.getLong();
+				double roll = input.getDouble();
+				int scenario = input.get();
+				boolean allowed = input.get() == 1;
+				int participantCount = input.getInt();
+				String worldName = readString(input);
+				String scenarioName = readString(input);
+				List<String> entries = readList(input);
+				List<String> blockTypes = readList(input);
+				List<String> blockData = readList(input);
+				List<String> participants = readList(input);
+				if (scenario < 0 || scenario >= SCENARIOS.length) {
+					return null;
+				}
+				return new Record(timestamp, world, worldName, SCENARIOS[scenario], scenarioName,
+						killNumber, roll, allowed, entries, blockTypes, blockData,
+						participantCount, participants);
+			} catch (BufferUnderflowException | IllegalArgumentException e) {
+				return null; //The checksum matched by chance
+			}
+		}
+		
+		/**
+		 * Computes the checksum of the record at the specified offset.
+		 *
+		 * @param buffer the buffer containing the record
+		 * @param offset the offset of the record in the buffer
+		 * @param length the length of the record, including its checksum
+		 * @param crc the instance to compute the checksum with
+		 * @return the checksum of the record (excluding its stored checksum)
+		 */
+		private static int checksum(@NotNull ByteBuffer buffer, int offset, int length,
+				@NotNull CRC32 crc) {
+			crc.reset();
+			crc.update(buffer.duplicate().position(offset)
+					.limit(offset + length - Integer.BYTES));
+			return (int) crc.getValue();
+		}
+		
+		/**
+		 * Writes a length-prefixed UTF-8 string to the specified output.
+		 *
+		 * @param output the output to write to
+		 * @param value the string to write
+		 * @throws IOException if the writing fails
+		 */
+		private static void writeString(@NotNull DataOutputStream output,
+				@NotNull String value) throws IOException {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			output.writeInt(bytes.length);
+			output.write(bytes);
+		}
+		
+		/**
+		 * Writes a size-prefixed list of strings to the specified output.
+		 *
+		 * @param output the output to write to
+		 * @param values the strings to write
+		 * @throws IOException if the writing fails
+		 */
+		private static void writeList(@NotNull DataOutputStream output,
+				@NotNull List<String> values) throws IOException {
+			output.writeInt(values.size());
+			for (String value : values) {
+				writeString(output, value);
+			}
+		}
+		
+		/**
+		 * Reads a length-prefixed UTF-8 string from the specified buffer.
+		 *
+		 * @param buffer the buffer to read from
+		 * @return the read string
+		 * @throws IllegalArgumentException if the length is invalid
+		 */
+		private static @NotNull String readString(@NotNull ByteBuffer buffer) {
+			int length = buffer.getInt();
+			if (length < 0 || length > buffer.remaining()) {
+				throw new IllegalArgumentException("Invalid string length: " + length);
+			}
+			byte[] bytes = new byte[length];
+			buffer.get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+		
+		/**
+		 * Reads a size-prefixed list of strings from the specified buffer.
+		 *
+		 * @param buffer the buffer to read from
+		 * @return the read strings
+		 * @throws IllegalArgumentException if the size is invalid
+		 */
+		private static @NotNull List<String> readList(@NotNull ByteBuffer buffer) {
+			int size = buffer.getInt();
+			//Each string takes at least the bytes of its length
+			if (size < 0 || size > buffer.remaining() / Integer.BYTES) {
+				throw new IllegalArgumentException("Invalid list size: " + size);
+			}
+			List<String> values = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				values.add(readString(buffer));
+			}
+			return values;
+		}
+	}
+}
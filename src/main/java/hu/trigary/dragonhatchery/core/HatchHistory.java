@@ -0,0 +1,421 @@
+package hu.trigary.dragonhatchery.core;
+
+import org.apache.commons.lang.Validate;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Queries the records of the {@link HatchAuditLog} without loading the whole log into memory:
+ * the files are memory-mapped and only the records of the requested page are kept.
+ * <br><br>
+ * Each file gets a summary: the range of its timestamps, its scenarios, worlds and block types,
+ * which allows skipping the files that surely don't contain matching records.
+ * The summary also contains a sparse index: the offset and the timestamp
+ * of every {@value #INDEX_INTERVAL}th (variable-size) record,
+ * which allows only reading the records in the requested time range:
+ * the records between two indexed ones are found by scanning forward.
+ * The summaries are cached: the summary of the newest file (which might still be written to)
+ * is extended with the records appended since it was last queried.
+ * <br><br>
+ * The records are returned newest first.
+ * This class is thread-safe, but it should not be used on the main thread.
+ */
+public class HatchHistory {
+	private static final int INDEX_INTERVAL = 64;
+	private final Map<Path, FileSummary> summaries = new HashMap<>();
+	private final CRC32 crc = new CRC32();
+	private final int[] blockOffsets = new int[INDEX_INTERVAL];
+	private final Path directory;
+	
+	/**
+	 * Constructs a new instance.
+	 * The directory is not accessed until it's queried.
+	 *
+	 * @param directory the directory the audit log files are stored in
+	 */
+	@Contract(pure = true)
+	public HatchHistory(@NotNull Path directory) {
+		this.directory = directory;
+	}
+	
+	/**
+	 * Gets the specified page of the records matching the specified query.
+	 *
+	 * @param query the conditions the records must match
+	 * @param page the number of the page, the first page is 1
+	 * @param pageSize the maximum count of records per page
+	 * @return the records of the requested page, newest first
+	 * @throws IOException if a file couldn't be read
+	 */
+	public synchronized @NotNull Page query(@NotNull Query query, int page, int pageSize)
+			throws IOException {
+		Validate.isTrue(page >= 1, "Page must be at least 1");
+		Validate.isTrue(pageSize >= 1, "Page size must be at least 1");
+		List<Path> files = HatchAuditLog.listFiles(directory);
+		summaries.keySet().retainAll(files);
+		
+		List<HatchAuditLog.Record> records = new ArrayList<>(pageSize);
+		long skipped = 0;
+		long toSkip = (long) (page - 1) * pageSize;
+		int scannedFiles = 0;
+		boolean hasMore = false;
+		for (int i = files.size() - 1; i >= 0 && !hasMore; i--) {
+			Path file = files.get(i);
+			ByteBuffer buffer;
+			try {
+				buffer = HatchAuditLog.mapFile(file);
+			} catch (NoSuchFileException e) {
+				continue; //The oldest files are deleted while new ones are started
+			}
+			
+			//Records might have been appended to the file since its summary was created
+			FileSummary summary = summaries.get(file);
+			if (summary == null || !summary.extend(buffer)) {
+				summary = new FileSummary();
+				summary.extend(buffer);
+				summaries.put(file, summary);
+			}
+			if (!summary.mayMatch(query)) {
+				continue;
+			}
+			
+			scannedFiles++;
+			int start = summary.findStart(buffer, query.since);
+			int end = summary.findEnd(buffer, query.until);
+			//The records can only be iterated forward: collect the offsets of a block
+			// (the records between two indexed records), then read them backwards
+			for (int block = (end - 1) / INDEX_INTERVAL; end > start
+					&& block >= start / INDEX_INTERVAL && !hasMore; block--) {
+				int first = block * INDEX_INTERVAL;
+				int offset = summary.indexOffsets[block];
+				int offsetCount = 0;
+				for (int index = first; index < Math.min(first + INDEX_INTERVAL, end); index++) {
+					if (index >= start) {
+						blockOffsets[offsetCount++] = offset;
+					}
+					offset = HatchAuditLog.getNextOffset(buffer, offset);
+				}
+				
+				while (offsetCount > 0) {
+					HatchAuditLog.Record record = HatchAuditLog.readRecord(buffer,
+							blockOffsets[--offsetCount], crc);
+					if (record == null || !query.matches(record)) {
+						continue;
+					}
+					if (skipped < toSkip) {
+						skipped++;
+					} else if (records.size() < pageSize) {
+						records.add(record);
+					} else {
+						hasMore = true;
+						break;
+					}
+				}
+			}
+		}
+		return new Page(records, page, hasMore, scannedFiles, files.size());
+	}
+	
+	/**
+	 * The conditions the queried records must match.
+	 */
+	public static class Query {
+		private final UUID world;
+		private final String worldName;
+		private final EggScenario scenario;
+		private final long since;
+		private final long until;
+		private final String blockType;
+		
+		/**
+		 * Constructs a new instance.
+		 * A loaded world should be queried by its identifier, which matches its records
+		 * even if it was renamed; the name should only be used for worlds that aren't loaded.
+		 *
+		 * @param world the identifier of the world or null, to match any world
+		 * @param worldName the name of the world at the time of the decisions (case-insensitive)
+		 * or null, to match any world
+		 * @param scenario the scenario or null, to match any scenario
+		 * @param since the earliest timestamp to match (inclusive), in milliseconds since the epoch
+		 * @param until the latest timestamp to match (inclusive), in milliseconds since the epoch
+		 * @param blockType the block type one of the chosen blocks must have (eg.
+		 * {@code dragon_egg} or {@code minecraft:dragon_egg}, case-insensitive)
+		 * or null, to match any (or no) block
+		 */
+		@Contract(pure = true)
+		public Query(@Nullable UUID world, @Nullable String worldName,
+				@Nullable EggScenario scenario, long since, long until,
+				@Nullable String blockType) {
+			this.world = world;
+			this.worldName = worldName == null ? null : worldName.toLowerCase(Locale.ROOT);
+			this.scenario = scenario;
+			this.since = since;
+			this.until = until;
+			this.blockType = blockType == null ? null : normalizeBlockType(blockType);
+		}
+		
+		/**
+		 * Gets whether the specified record matches this query.
+		 *
+		 * @param record the record to check
+		 * @return true if the record matches all conditions
+		 */
+		@Contract(pure = true)
+		public boolean matches(@NotNull HatchAuditLog.Record record) {
+			return record.getTimestamp() >= since && record.getTimestamp() <= until
+					&& (scenario == null || record.getScenario() == scenario)
+					&& (world == null || record.getWorld().equals(world))
+					&& (worldName == null
+					|| record.getWorldName().toLowerCase(Locale.ROOT).equals(worldName))
+					&& (blockType == null || record.getBlockTypes().contains(blockType));
+		}
+		
+		/**
+		 * Converts a block type to the form the records store it in:
+		 * lower case, without the {@code minecraft:} namespace.
+		 *
+		 * @param blockType the block type to convert
+		 * @return the converted block type
+		 */
+		@Contract(pure = true)
+		private static @NotNull String normalizeBlockType(@NotNull String blockType) {
+			String lowerCase = blockType.toLowerCase(Locale.ROOT);
+			return lowerCase.startsWith("minecraft:")
+					? lowerCase.substring("minecraft:".length()) : lowerCase;
+		}
+	}
+	
+	/**
+	 * A page of the records matching a query.
+	 */
+	public static class Page {
+		private final List<HatchAuditLog.Record> records;
+		private final int number;
+		private final boolean hasMore;
+		private final int scannedFiles;
+		private final int totalFiles;
+		
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param records the records of this page, newest first
+		 * @param number the number of this page, the first page is 1
+		 * @param hasMore whether there are more matching records after this page
+		 * @param scannedFiles the count of files whose records had to be read
+		 * @param totalFiles the count of files
+		 */
+		@Contract(pure = true)
+		Page(@NotNull List<HatchAuditLog.Record> records, int number,
+				boolean hasMore, int scannedFiles, int totalFiles) {
+			this.records = List.copyOf(records);
+			this.number = number;
+			this.hasMore = hasMore;
+			this.scannedFiles = scannedFiles;
+			this.totalFiles = totalFiles;
+		}
+		
+		/**
+		 * Gets the records of this page.
+		 *
+		 * @return the records, newest first
+		 */
+		@Contract(pure = true)
+		public @NotNull List<HatchAuditLog.Record> getRecords() {
+			return records;
+		}
+		
+		/**
+		 * Gets the number of this page.
+		 *
+		 * @return the number of this page, the first page is 1
+		 */
+		@Contract(pure = true)
+		public int getNumber() {
+			return number;
+		}
+		
+		/**
+		 * Gets whether there are more matching records after this page.
+		 *
+		 * @return true if the next page isn't empty
+		 */
+		@Contract(pure = true)
+		public boolean hasMore() {
+			return hasMore;
+		}
+		
+		/**
+		 * Gets the count of files whose records had to be read:
+		 * the other files were skipped based on their summaries.
+		 *
+		 * @return the count of scanned files
+		 */
+		@Contract(pure = true)
+		public int getScannedFiles() {
+			return scannedFiles;
+		}
+		
+		/**
+		 * Gets the count of audit log files.
+		 *
+		 * @return the count of all files
+		 */
+		@Contract(pure = true)
+		public int getTotalFiles() {
+			return totalFiles;
+		}
+	}
+	
+	/**
+	 * The summary of the records of a single file.
+	 */
+	private static class FileSummary {
+		private final Set<UUID> worlds = new HashSet<>();
+		private final Set<String> worldNames = new HashSet<>();
+		private final Set<String> blockTypes = new HashSet<>();
+		private final CRC32 crc = new CRC32();
+		private int[] indexOffsets = new int[16];
+		private long[] indexTimestamps = new long[16];
+		private int count;
+		private int nextOffset = HatchAuditLog.HEADER_SIZE;
+		private int scenarioMask;
+		private long minTimestamp = Long.MAX_VALUE;
+		private long maxTimestamp = Long.MIN_VALUE;
+		private boolean sorted = true;
+		
+		/**
+		 * Extends this summary with the records of the specified file
+		 * which were appended since this summary was last extended.
+		 * A new summary contains no records: this reads all records of the file.
+		 *
+		 * @param buffer the content of the file
+		 * @return false if the file was truncated since this summary was last extended,
+		 * in which case a new summary should be created
+		 */
+		boolean extend(@NotNull ByteBuffer buffer) {
+			if (buffer.limit() < nextOffset) {
+				return false;
+			}
+			
+			HatchAuditLog.Record record;
+			while ((record = HatchAuditLog.readRecord(buffer, nextOffset, crc)) != null) {
+				long timestamp = record.getTimestamp();
+				if (count % INDEX_INTERVAL == 0) {
+					int indexSize = count / INDEX_INTERVAL;
+					if (indexSize == indexOffsets.length) {
+						indexOffsets = Arrays.copyOf(indexOffsets, indexSize * 2);
+						indexTimestamps = Arrays.copyOf(indexTimestamps, indexSize * 2);
+					}
+					indexOffsets[indexSize] = nextOffset;
+					indexTimestamps[indexSize] = timestamp;
+				}
+				//The clock might have been adjusted: then the index can't be used
+				sorted &= count == 0 || timestamp >= maxTimestamp;
+				count++;
+				nextOffset = HatchAuditLog.getNextOffset(buffer, nextOffset);
+				minTimestamp = Math.min(minTimestamp, timestamp);
+				maxTimestamp = Math.max(maxTimestamp, timestamp);
+				scenarioMask |= 1 << record.getScenario().ordinal();
+				worlds.add(record.getWorld());
+				worldNames.add(record.getWorldName().toLowerCase(Locale.ROOT));
+				blockTypes.addAll(record.getBlockTypes());
+			}
+			return true;
+		}
+		
+		/**
+		 * Gets whether the file might contain records matching the specified query.
+		 *
+		 * @param query the query to check
+		 * @return false if the file surely doesn't contain matching records
+		 */
+		@Contract(pure = true)
+		boolean mayMatch(@NotNull Query query) {
+			return count != 0 && minTimestamp <= query.until && maxTimestamp >= query.since
+					&& (query.scenario == null
+					|| (scenarioMask & 1 << query.scenario.ordinal()) != 0)
+					&& (query.world == null || worlds.contains(query.world))
+					&& (query.worldName == null || worldNames.contains(query.worldName))
+					&& (query.blockType == null || blockTypes.contains(query.blockType));
+		}
+		
+		/**
+		 * Finds the first record which might be in the specified time range.
+		 * If the timestamps aren't sorted, then the index can't be used: this is the first record.
+		 *
+		 * @param buffer the content of the file
+		 * @param since the start of the time range (inclusive)
+		 * @return the index of the first record not before the start of the time range
+		 */
+		@Contract(pure = true)
+		int findStart(@NotNull ByteBuffer buffer, long since) {
+			return !sorted || since == Long.MIN_VALUE ? 0 : findFirstAfter(buffer, since - 1);
+		}
+		
+		/**
+		 * Finds the end of the records which might be in the specified time range.
+		 * If the timestamps aren't sorted, then the index can't be used: this is the last record.
+		 *
+		 * @param buffer the content of the file
+		 * @param until the end of the time range (inclusive)
+		 * @return the index of the first record after the end of the time range,
+		 * the count of records if there is none
+		 */
+		@Contract(pure = true)
+		int findEnd(@NotNull ByteBuffer buffer, long until) {
+			return sorted ? findFirstAfter(buffer, until) : count;
+		}
+		
+		/**
+		 * Finds the first record whose timestamp is after the specified one,
+		 * using the sparse index. The timestamps must be sorted.
+		 *
+		 * @param buffer the content of the file
+		 * @param timestamp the timestamp to search for
+		 * @return the index of the first record after the timestamp,
+		 * the count of records if there is none
+		 */
+		@Contract(pure = true)
+		private int findFirstAfter(@NotNull ByteBuffer buffer, long timestamp) {
+			//The count of index entries not after the timestamp
+			int low = 0;
+			int high = (count + INDEX_INTERVAL - 1) / INDEX_INTERVAL;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (indexTimestamps[middle] <= timestamp) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			if (low == 0) {
+				return 0;
+			}
+			
+			int position = (low - 1) * INDEX_INTERVAL;
+			int offset = indexOffsets[low - 1];
+			int end = Math.min(low * INDEX_INTERVAL, count);
+			while (position < end && HatchAuditLog.readTimestamp(buffer, offset) <= timestamp) {
+				position++;
+				offset = HatchAuditLog.getNextOffset(buffer, offset);
+			}
+			return position;
+		}
+	}
+}
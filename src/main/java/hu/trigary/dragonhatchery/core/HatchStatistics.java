@@ -0,0 +1,216 @@
+package hu.trigary.dragonhatchery.core;
+
+import hu.trigary.dragonhatchery.util.LatencyHistogram;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects statistics about the handling of the egg spawning, per scenario
+ * (of each world table, see {@link WorldScenarioIndex}):
+ * how long each {@link Stage} took, how many spawns were allowed or cancelled
+ * and how many times each block was chosen.
+ * The statistics are kept across reloads, until they are {@link #reset()}.
+ * <br><br>
+ * This class is thread-safe, recording doesn't lock.
+ */
+public class HatchStatistics {
+	private final Map<String, ScenarioStatistics> scenarios = new ConcurrentHashMap<>();
+	
+	/**
+	 * Gets the statistics of the specified scenario of the default table, creating them if necessary.
+	 *
+	 * @param scenarioName the name of the scenario, see {@link ScenarioLogic#getName()}
+	 * @return the statistics of the scenario
+	 */
+	public @NotNull ScenarioStatistics getFor(@NotNull String scenarioName) {
+		return getFor(null, scenarioName);
+	}
+	
+	/**
+	 * Gets the statistics of the specified scenario of the specified world table,
+	 * creating them if necessary.
+	 *
+	 * @param table the name of the world table or null, for the default table
+	 * @param scenarioName the name of the scenario, see {@link ScenarioLogic#getName()}
+	 * @return the statistics of the scenario
+	 */
+	public @NotNull ScenarioStatistics getFor(@Nullable String table,
+			@NotNull String scenarioName) {
+		String key = table == null ? scenarioName : table + "/" + scenarioName;
+		ScenarioStatistics statistics = scenarios.get(key);
+		return statistics != null ? statistics
+				: scenarios.computeIfAbsent(key, k -> new ScenarioStatistics());
+	}
+	
+	/**
+	 * Gets the statistics of all scenarios, sorted by their names.
+	 * The statistics are created when the logic of a scenario is created:
+	 * see {@link ScenarioStatistics#getHandledCount()} to check whether they are empty.
+	 *
+	 * @return the statistics, keyed by the names of the scenarios,
+	 * prefixed by the names of their world tables (eg. {@code arena/first})
+	 */
+	@Contract(pure = true)
+	public @NotNull Map<String, ScenarioStatistics> getAll() {
+		return new TreeMap<>(scenarios);
+	}
+	
+	/**
+	 * Clears the statistics of all scenarios.
+	 * Previously returned {@link ScenarioStatistics} instances remain valid.
+	 */
+	public void reset() {
+		scenarios.values().forEach(ScenarioStatistics::reset);
+	}
+	
+	/**
+	 * The stages of the egg spawning handling which are timed.
+	 */
+	public enum Stage {
+		/**
+		 * Detecting the scenario, see {@link EggScenario#getMatching}.
+		 */
+		DETECTION,
+		
+		/**
+		 * Looking up the logic of the scenario and the source of randomness.
+		 */
+		LOOKUP,
+		
+		/**
+		 * Rolling whether the egg spawning is allowed,
+		 * see {@link ScenarioLogic#shouldAllowEggSpawn()}.
+		 */
+		ROLL,
+		
+		/**
+		 * Rolling and updating the spawned blocks,
+		 * see {@link ScenarioLogic#handleEggSpawn}.
+		 */
+		UPDATE,
+		
+		/**
+		 * All of the above.
+		 */
+		TOTAL
+	}
+	
+	/**
+	 * The statistics of a single scenario.
+	 */
+	public static class ScenarioStatistics {
+		private static final Stage[] STAGES = Stage.values();
+		private final LatencyHistogram[] histograms = new LatencyHistogram[STAGES.length];
+		private final LongAdder allowed = new LongAdder();
+		private final LongAdder cancelled = new LongAdder();
+		private final Map<String, LongAdder> blocks = new ConcurrentHashMap<>();
+		
+		/**
+		 * Constructs a new, empty instance.
+		 */
+		private ScenarioStatistics() {
+			for (int i = 0; i < histograms.length; i++) {
+				histograms[i] = new LatencyHistogram();
+			}
+		}
+		
+		/**
+		 * Records how long a stage took.
+		 *
+		 * @param stage the stage that was timed
+		 * @param nanos the duration of the stage in nanoseconds
+		 */
+		public void recordStage(@NotNull Stage stage, long nanos) {
+			histograms[stage.ordinal()].record(nanos);
+		}
+		
+		/**
+		 * Records the outcome of the egg spawning handling.
+		 *
+		 * @param wasAllowed whether the egg spawning was allowed
+		 */
+		public void recordOutcome(boolean wasAllowed) {
+			(wasAllowed ? allowed : cancelled).increment();
+		}
+		
+		/**
+		 * Records that a block was chosen to be spawned.
+		 *
+		 * @param blockName the configuration key of the block
+		 */
+		public void recordBlock(@NotNull String blockName) {
+			LongAdder counter = blocks.get(blockName);
+			if (counter == null) {
+				counter = blocks.computeIfAbsent(blockName, k -> new LongAdder());
+			}
+			counter.increment();
+		}
+		
+		/**
+		 * Gets the recorded durations of the specified stage, in nanoseconds.
+		 *
+		 * @param stage the stage whose durations to get
+		 * @return the copy of the recorded durations
+		 */
+		public @NotNull LatencyHistogram.Snapshot getStage(@NotNull Stage stage) {
+			return histograms[stage.ordinal()].snapshot();
+		}
+		
+		/**
+		 * Gets how many times the egg spawning was allowed.
+		 *
+		 * @return the count of allowed spawns
+		 */
+		public long getAllowedCount() {
+			return allowed.sum();
+		}
+		
+		/**
+		 * Gets how many times the egg spawning was cancelled.
+		 *
+		 * @return the count of cancelled spawns
+		 */
+		public long getCancelledCount() {
+			return cancelled.sum();
+		}
+		
+		/**
+		 * Gets how many times the egg spawning was handled.
+		 *
+		 * @return the count of allowed and cancelled spawns
+		 */
+		public long getHandledCount() {
+			return allowed.sum() + cancelled.sum();
+		}
+		
+		/**
+		 * Gets how many times each block was chosen, sorted by the names of the blocks.
+		 *
+		 * @return the counts, keyed by the configuration keys of the blocks
+		 */
+		@Contract(pure = true)
+		public @NotNull Map<String, Long> getBlockCounts() {
+			Map<String, Long> result = new TreeMap<>();
+			blocks.forEach((name, counter) -> result.put(name, counter.sum()));
+			return result;
+		}
+		
+		/**
+		 * Clears the statistics of this scenario.
+		 */
+		private void reset() {
+			for (LatencyHistogram histogram : histograms) {
+				histogram.reset();
+			}
+			allowed.reset();
+			cancelled.reset();
+			blocks.clear();
+		}
+	}
+}
@@ -0,0 +1,201 @@
+package hu.trigary.dragonhatchery.core;
+
+import hu.trigary.dragonhatchery.util.TraceBuffer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records the debug trace of the egg spawning handling without allocating on the main thread:
+ * the events are stored in a {@link TraceBuffer}, then a background thread formats
+ * and logs them (on the {@link Level#FINE} level).
+ * Recording does nothing while tracing is disabled.
+ * <br><br>
+ * The recording methods should only be called from the main thread.
+ */
+public class HatchTracer {
+	private static final int CAPACITY = 1024;
+	private static final long DRAIN_PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+	private static final Kind[] KINDS = Kind.values();
+	private final String logPrefix = getClass().getSimpleName() + ": ";
+	private final TraceBuffer buffer = new TraceBuffer(CAPACITY);
+	private final Logger logger;
+	private volatile boolean enabled;
+	private volatile boolean closed;
+	private Thread drainer;
+	private long reportedDropped;
+	
+	/**
+	 * Constructs a new, disabled instance.
+	 *
+	 * @param logger the logger to log the formatted events to
+	 */
+	public HatchTracer(@NotNull Logger logger) {
+		this.logger = logger;
+	}
+	
+	/**
+	 * Enables or disables the tracing.
+	 * The background thread is started when the tracing is first enabled.
+	 *
+	 * @param enabled whether events should be recorded
+	 */
+	public synchronized void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		if (enabled && drainer == null && !closed) {
+			drainer = new Thread(this::runDrainer, "DragonHatchery-TraceDrainer");
+			drainer.setDaemon(true);
+			drainer.start();
+		}
+	}
+	
+	/**
+	 * Disables the tracing, stops the background thread
+	 * and logs the events that were not yet logged.
+	 */
+	public synchronized void close() {
+		enabled = false;
+		closed = true;
+		if (drainer != null) {
+			LockSupport.unpark(drainer);
+			try {
+				drainer.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			drainer = null;
+		}
+	}
+	
+	/**
+	 * Records that the egg spawning was cancelled before this plugin could handle it.
+	 */
+	public void eventAlreadyCancelled() {
+		if (enabled) {
+			buffer.record(Kind.ALREADY_CANCELLED.ordinal(), null, 0, 0);
+		}
+	}
+	
+	/**
+	 * Records which scenario was detected.
+	 *
+	 * @param scenario the detected scenario
+	 */
+	public void scenarioDetected(@NotNull EggScenario scenario) {
+		if (enabled) {
+			buffer.record(Kind.SCENARIO_DETECTED.ordinal(), scenario, 0, 0);
+		}
+	}
+	
+	/**
+	 * Records the value rolled to decide whether the egg spawning is allowed.
+	 *
+	 * @param logic the logic that rolled the value
+	 * @param value the rolled value
+	 */
+	public void spawnRolled(@NotNull ScenarioLogic logic, double value) {
+		if (enabled) {
+			buffer.record(Kind.SPAWN_ROLLED.ordinal(), logic, 0, value);
+		}
+	}
+	
+	/**
+	 * Records which block was rolled.
+	 *
+	 * @param logic the logic that rolled the block
+	 * @param height the height of the block, 0 for the block replacing the dragon egg
+	 * @param index the index of the block, see {@link ScenarioLogic#getBlocks()}
+	 */
+	public void blockRolled(@NotNull ScenarioLogic logic, int height, int index) {
+		if (enabled) {
+			buffer.record(Kind.BLOCK_ROLLED.ordinal(), logic,
+					((long) height << 32) | index, 0);
+		}
+	}
+	
+	/**
+	 * Records the outcome of the egg spawning handling.
+	 *
+	 * @param allowed whether the egg spawning was allowed
+	 */
+	public void spawnHandled(boolean allowed) {
+		if (enabled) {
+			buffer.record(Kind.SPAWN_HANDLED.ordinal(), null, allowed ? 1 : 0, 0);
+		}
+	}
+	
+	/**
+	 * The body of the background thread: periodically drains the buffer until closed.
+	 */
+	private void runDrainer() {
+		while (!closed) {
+			drain();
+			LockSupport.parkNanos(this, DRAIN_PERIOD_NANOS);
+		}
+		drain();
+	}
+	
+	/**
+	 * Logs the events which were recorded since the last call.
+	 */
+	private void drain() {
+		buffer.drain(this::log);
+		long dropped = buffer.getDroppedCount();
+		if (dropped != reportedDropped) {
+			logger.log(Level.FINE, logPrefix + "Dropped " + (dropped - reportedDropped)
+					+ " trace events, the logging can't keep up");
+			reportedDropped = dropped;
+		}
+	}
+	
+	/**
+	 * Formats and logs an event.
+	 *
+	 * @param kind the ordinal of the event's {@link Kind}
+	 * @param subject the object the event is about
+	 * @param longValue an integral value of the event
+	 * @param doubleValue a floating point value of the event
+	 */
+	private void log(int kind, @Nullable Object subject, long longValue, double doubleValue) {
+		String message;
+		switch (KINDS[kind]) {
+			case ALREADY_CANCELLED:
+				message = "EggFormListener: Egg spawning was already cancelled, ignoring event";
+				break;
+			case SCENARIO_DETECTED:
+				message = "EggFormListener: Detected scenario: " + subject;
+				break;
+			case SPAWN_ROLLED:
+				message = "ScenarioLogic#" + ((ScenarioLogic) subject).getName()
+						+ ": Rolled should-spawn value: " + doubleValue;
+				break;
+			case BLOCK_ROLLED:
+				ScenarioLogic logic = (ScenarioLogic) subject;
+				message = "ScenarioLogic#" + logic.getName() + ": Rolled block (height "
+						+ (longValue >>> 32) + "): " + logic.getBlocks().get((int) longValue);
+				break;
+			case SPAWN_HANDLED:
+				message = longValue == 1 ? "EggFormListener: Allowed egg spawning, updated block"
+						: "EggFormListener: Cancelled egg spawning";
+				break;
+			default:
+				throw new AssertionError("Unknown kind: " + kind);
+		}
+		logger.log(Level.FINE, message);
+	}
+	
+	/**
+	 * The types of the recorded events.
+	 */
+	private enum Kind {
+		ALREADY_CANCELLED,
+		SCENARIO_DETECTED,
+		SPAWN_ROLLED,
+		BLOCK_ROLLED,
+		SPAWN_HANDLED
+	}
+}
@@ -0,0 +1,110 @@
+package hu.trigary.dragonhatchery.core;
+
+import org.bukkit.World;
+import org.bukkit.boss.DragonBattle;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+
+/**
+ * Counts the ender dragon kills of each world,
+ * since {@link DragonBattle} only tells whether the dragon has been killed before.
+ * A kill is counted when its egg spawning is handled by this plugin,
+ * the events cancelled by other plugins are not counted.
+ * <br><br>
+ * The counts are kept in a {@link KillCounterStore}: they survive restarts
+ * if the store is backed by a file.
+ * Instances are shared between reloads. Should only be used from the main thread.
+ */
+public class KillCounter implements Closeable {
+	private final KillCounterStore store;
+	
+	/**
+	 * Constructs a new instance whose counts are kept in memory only.
+	 */
+	@Contract(pure = true)
+	public KillCounter() {
+		this(new KillCounterStore());
+	}
+	
+	/**
+	 * Constructs a new instance whose counts are kept in the specified store.
+	 *
+	 * @param store the store of the counts
+	 */
+	@Contract(pure = true)
+	public KillCounter(@NotNull KillCounterStore store) {
+		this.store = store;
+	}
+	
+	/**
+	 * Records a kill in the specified world.
+	 * If the dragon of the battle hasn't been killed before,
+	 * then the count of the world restarts from 1.
+	 *
+	 * @param world the world in which the dragon was killed
+	 * @param battle the battle in which the dragon was killed
+	 * @return the number of this kill in the world (the first kill is 1)
+	 * @throws UncheckedIOException if the store couldn't be extended to store a new world
+	 */
+	public long recordKill(@NotNull World world, @NotNull DragonBattle battle) {
+		long number = getNextKillNumber(world, battle);
+		recordKill(world, number);
+		return number;
+	}
+	
+	/**
+	 * Gets the number the next kill in the specified world would get, without recording it.
+	 * If the dragon of the battle hasn't been killed before, then this is 1.
+	 *
+	 * @param world the world in which the dragon was killed
+	 * @param battle the battle in which the dragon was killed
+	 * @return the number of the next kill in the world (the first kill is 1)
+	 * @see #recordKill(World, long)
+	 */
+	@Contract(pure = true)
+	public long getNextKillNumber(@NotNull World world, @NotNull DragonBattle battle) {
+		return battle.hasBeenPreviouslyKilled() ? getKills(world.getUID()) + 1 : 1;
+	}
+	
+	/**
+	 * Records a kill in the specified world,
+	 * whose number was computed by {@link #getNextKillNumber(World, DragonBattle)}.
+	 *
+	 * @param world the world in which the dragon was killed
+	 * @param number the number of this kill in the world
+	 * @throws UncheckedIOException if the store couldn't be extended to store a new world
+	 */
+	public void recordKill(@NotNull World world, long number) {
+		try {
+			store.set(world.getUID(), number);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * Gets the count of kills recorded in the specified world.
+	 *
+	 * @param world the identifier of the world
+	 * @return the count of recorded kills, 0 if there are none
+	 */
+	@Contract(pure = true)
+	public long getKills(@NotNull UUID world) {
+		return store.get(world);
+	}
+	
+	/**
+	 * Closes the underlying store, flushing the counts to the disk.
+	 *
+	 * @throws IOException if the store couldn't be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		store.close();
+	}
+}
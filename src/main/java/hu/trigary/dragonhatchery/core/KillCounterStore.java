@@ -0,0 +1,298 @@
+package hu.trigary.dragonhatchery.core;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * Durable storage of a counter per world, in a memory-mapped file of fixed-size slots.
+ * Reading and writing a counter is a hash lookup (by the {@link UUID} of the world)
+ * and a few memory accesses, the changes are flushed to the disk on a background thread.
+ * <br><br>
+ * Each slot contains two copies of its counter, each with a generation and a CRC32 checksum.
+ * Writes always overwrite the older copy (the checksum last), therefore a write interrupted
+ * by a crash leaves the previous value intact: on load, the valid copy with the newer
+ * generation is used.
+ * <br><br>
+ * Instances can also be kept in memory only, without a file.
+ * The counters should only be accessed from a single thread (the main thread),
+ * flushing is thread-safe.
+ */
+public class KillCounterStore implements Closeable {
+	private static final int MAGIC = 0x44484b43; //"DHKC"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 64;
+	private static final int COPY_SIZE = 32;
+	private static final int SLOT_SIZE = 2 * COPY_SIZE;
+	private static final int CHECKSUMMED_SIZE = COPY_SIZE - Integer.BYTES;
+	private static final int INITIAL_SLOTS = 64;
+	private final Map<UUID, Slot> slots = new HashMap<>();
+	private final Deque<Integer> freeSlots = new ArrayDeque<>();
+	private final AtomicBoolean flushScheduled = new AtomicBoolean();
+	private final CRC32 crc = new CRC32();
+	private final FileChannel channel;
+	private final Executor flusher;
+	private volatile ByteBuffer buffer;
+	private volatile boolean closed;
+	
+	/**
+	 * Constructs a new instance which is kept in memory only.
+	 */
+	@Contract(pure = true)
+	public KillCounterStore() {
+		channel = null;
+		flusher = Runnable::run;
+		buffer = ByteBuffer.allocate(HEADER_SIZE + INITIAL_SLOTS * SLOT_SIZE);
+		initialize(true);
+	}
+	
+	/**
+	 * Constructs a new instance backed by the specified file,
+	 * loading the counters stored in it (or creating it, if it doesn't exist).
+	 *
+	 * @param file the file to store the counters in
+	 * @param flusher the executor used to flush the changes to the disk,
+	 * it should execute the tasks on a background thread
+	 * @throws IOException if the file couldn't be opened or if it's corrupt
+	 */
+	public KillCounterStore(@NotNull Path file, @NotNull Executor flusher) throws IOException {
+		Path directory = file.toAbsolutePath().getParent();
+		if (directory != null) {
+			Files.createDirectories(directory);
+		}
+		channel = FileChannel.open(file, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+		this.flusher = flusher;
+		try {
+			long size = channel.size();
+			if (size != 0 && (size < HEADER_SIZE || (size - HEADER_SIZE) % SLOT_SIZE != 0
+					|| size > Integer.MAX_VALUE)) {
+				throw new IOException("Corrupt kill counter file: invalid size: " + size);
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+					size == 0 ? HEADER_SIZE + INITIAL_SLOTS * SLOT_SIZE : size);
+			//A zeroed header means the file was created, but the header was never flushed
+			boolean empty = buffer.getInt(0) == 0 && buffer.getInt(Integer.BYTES) == 0;
+			if (!empty && (buffer.getInt(0) != MAGIC
+					|| buffer.getInt(Integer.BYTES) != VERSION)) {
+				throw new IOException("Corrupt kill counter file: invalid header: " + file);
+			}
+			initialize(empty);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Gets the counter of the specified world.
+	 *
+	 * @param world the identifier of the world
+	 * @return the value of the counter, 0 if it was never set
+	 */
+	@Contract(pure = true)
+	public long get(@NotNull UUID world) {
+		Slot slot = slots.get(world);
+		return slot == null ? 0 : slot.value;
+	}
+	
+	/**
+	 * Sets the counter of the specified world and schedules a flush.
+	 *
+	 * @param world the identifier of the world
+	 * @param value the new value of the counter
+	 * @throws IOException if the file couldn't be extended to store a new world
+	 */
+	public void set(@NotNull UUID world, long value) throws IOException {
+		Slot slot = slots.get(world);
+		if (slot == null) {
+			if (freeSlots.isEmpty()) {
+				grow();
+			}
+			slot = new Slot(freeSlots.poll(), world);
+			slots.put(world, slot);
+		}
+		
+		slot.value = value;
+		slot.generation++;
+		slot.current ^= 1;
+		writeCopy(slot.index, slot.current, world, value, slot.generation);
+		
+		if (channel != null && flushScheduled.compareAndSet(false, true)) {
+			flusher.execute(() -> {
+				//Cleared before flushing: the writes made during the flush schedule another one
+				flushScheduled.set(false);
+				flush();
+			});
+		}
+	}
+	
+	/**
+	 * Flushes the changes to the disk, blocking until they are written.
+	 * May be called from any thread. Does nothing if this instance is closed.
+	 */
+	public void flush() {
+		ByteBuffer current = buffer;
+		if (!closed && current instanceof MappedByteBuffer) {
+			((MappedByteBuffer) current).force();
+		}
+	}
+	
+	/**
+	 * Flushes the changes to the disk and closes the file.
+	 * The counters mustn't be accessed afterwards.
+	 *
+	 * @throws IOException if the file couldn't be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		flush();
+		closed = true;
+		if (channel != null) {
+			channel.close();
+		}
+	}
+	
+	/**
+	 * Writes the header (if the storage is new) and loads the slots.
+	 *
+	 * @param empty whether the storage has just been created
+	 */
+	private void initialize(boolean empty) {
+		if (empty) {
+			buffer.putInt(0, MAGIC);
+			buffer.putInt(Integer.BYTES, VERSION);
+		}
+		int capacity = (buffer.capacity() - HEADER_SIZE) / SLOT_SIZE;
+		for (int index = 0; index < capacity; index++) {
+			Slot slot = readSlot(index);
+			if (slot == null) {
+				freeSlots.add(index);
+			} else {
+				slots.put(slot.world, slot);
+			}
+		}
+	}
+	
+	/**
+	 * Doubles the count of slots, extending the file (if there is one).
+	 *
+	 * @throws IOException if the file couldn't be extended
+	 */
+	private void grow() throws IOException {
+		int oldCapacity = (buffer.capacity() - HEADER_SIZE) / SLOT_SIZE;
+		long newSize = HEADER_SIZE + 2L * oldCapacity * SLOT_SIZE;
+		if (newSize > Integer.MAX_VALUE) {
+			throw new IOException("Kill counter file is full");
+		}
+		
+		if (channel == null) {
+			ByteBuffer grown = ByteBuffer.allocate((int) newSize);
+			grown.put(buffer.duplicate().clear());
+			buffer = grown;
+		} else {
+			//The previous mapping stays valid until it's garbage collected
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+		}
+		for (int index = oldCapacity; index < 2 * oldCapacity; index++) {
+			freeSlots.add(index);
+		}
+	}
+	
+	/**
+	 * Reads the newer valid copy of the specified slot.
+	 *
+	 * @param index the index of the slot
+	 * @return the loaded slot or null, if neither copy is valid (the slot is free)
+	 */
+	private @Nullable Slot readSlot(int index) {
+		Slot result = null;
+		for (int copy = 0; copy < 2; copy++) {
+			int offset = HEADER_SIZE + index * SLOT_SIZE + copy * COPY_SIZE;
+			if (checksum(offset) != buffer.getInt(offset + CHECKSUMMED_SIZE)) {
+				continue;
+			}
+			int generation = buffer.getInt(offset + 3 * Long.BYTES);
+			//The generations of the copies differ by one: compare them overflow-safely
+			if (result == null || generation - result.generation > 0) {
+				UUID world = new UUID(buffer.getLong(offset), buffer.getLong(offset + Long.BYTES));
+				result = new Slot(index, world);
+				result.value = buffer.getLong(offset + 2 * Long.BYTES);
+				result.generation = generation;
+				result.current = copy;
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Writes a copy of a slot, the checksum last.
+	 *
+	 * @param index the index of the slot
+	 * @param copy the index of the copy: 0 or 1
+	 * @param world the identifier of the world
+	 * @param value the value of the counter
+	 * @param generation the generation of the copy
+	 */
+	private void writeCopy(int index, int copy, @NotNull UUID world, long value, int generation) {
+		int offset = HEADER_SIZE + index * SLOT_SIZE + copy * COPY_SIZE;
+		buffer.putLong(offset, world.getMostSignificantBits());
+		buffer.putLong(offset + Long.BYTES, world.getLeastSignificantBits());
+		buffer.putLong(offset + 2 * Long.BYTES, value);
+		buffer.putInt(offset + 3 * Long.BYTES, generation);
+		buffer.putInt(offset + CHECKSUMMED_SIZE, checksum(offset));
+	}
+	
+	/**
+	 * Computes the checksum of the copy at the specified offset.
+	 *
+	 * @param offset the offset of the copy
+	 * @return the checksum of the copy (excluding its stored checksum)
+	 */
+	private int checksum(int offset) {
+		crc.reset();
+		crc.update(buffer.duplicate().position(offset).limit(offset + CHECKSUMMED_SIZE));
+		return (int) crc.getValue();
+	}
+	
+	/**
+	 * The location and the current state of a world's counter.
+	 */
+	private static class Slot {
+		private final int index;
+		private final UUID world;
+		private long value;
+		private int generation;
+		private int current = 1;
+		
+		/**
+		 * Constructs a new instance.
+		 * A new slot has no valid copies: the first write goes to the first copy.
+		 *
+		 * @param index the index of the slot
+		 * @param world the identifier of the world
+		 */
+		@Contract(pure = true)
+		Slot(int index, @NotNull UUID world) {
+			this.index = index;
+			this.world = world;
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package hu.trigary.dragonhatchery.core;
+
+import hu.trigary.dragonhatchery.util.RandomSource;
+import hu.trigary.dragonhatchery.util.WeightedRandom;
+import org.apache.commons.lang.Validate;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monte-Carlo simulation of a {@link ScenarioLogic}: rolls the spawn chance
+ * and the spawned block many times and counts the outcomes,
+ * so that the observed frequencies can be compared to the configured probabilities.
+ * Only the first rolled block (the one replacing the dragon egg) is simulated,
+ * its probability is what the weights directly describe.
+ * <br><br>
+ * The rolls are split into chunks which are executed in parallel on a {@link ForkJoinPool},
+ * each chunk using its own, split {@link RandomSource}.
+ * The progress can be queried from any thread while the simulation is running
+ * and the simulation can be cancelled from any thread.
+ */
+public class OddsSimulation {
+	private static final long CHUNK_SIZE = 1 << 16;
+	private final LongAdder completedRolls = new LongAdder();
+	private final double spawnChance;
+	private final WeightedRandom<?> blocks;
+	private final double weightSum;
+	private final long rolls;
+	private volatile boolean cancelled;
+	
+	/**
+	 * Constructs a new instance. The simulation must be started manually.
+	 *
+	 * @param logic the logic whose configuration to simulate
+	 * @param rolls how many times to roll, must be positive
+	 */
+	@Contract(pure = true)
+	public OddsSimulation(@NotNull ScenarioLogic logic, long rolls) {
+		Validate.isTrue(rolls > 0, "Rolls must be positive");
+		spawnChance = logic.getSpawnChance();
+		blocks = logic.getBlocks();
+		double sum = 0;
+		for (int i = 0; i < blocks.size(); i++) {
+			sum += blocks.getWeight(i);
+		}
+		weightSum = sum;
+		this.rolls = rolls;
+	}
+	
+	/**
+	 * Starts the simulation on the specified pool.
+	 * The returned task completes when all rolls have been executed.
+	 *
+	 * @param pool the pool to execute the simulation on
+	 * @param random the source of randomness, it's split for each chunk
+	 * @return the task that computes the result of the simulation
+	 */
+	public @NotNull ForkJoinTask<Result> start(@NotNull ForkJoinPool pool,
+			@NotNull RandomSource random) {
+		RollTask root = new RollTask(0, rolls, random);
+		return pool.submit(ForkJoinTask.adapt(() -> new Result(root.invoke())));
+	}
+	
+	/**
+	 * Cancels the simulation: the chunks which haven't started yet are skipped
+	 * and the task returned by {@link #start(ForkJoinPool, RandomSource)}
+	 * completes exceptionally, with a {@link CancellationException}.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+	
+	/**
+	 * Gets how many rolls to execute in total.
+	 *
+	 * @return the total count of rolls
+	 */
+	@Contract(pure = true)
+	public long getRolls() {
+		return rolls;
+	}
+	
+	/**
+	 * Gets how many rolls have been executed so far.
+	 * Only completed chunks are counted, therefore this value increases in steps.
+	 *
+	 * @return the count of executed rolls
+	 */
+	public long getCompletedRolls() {
+		return completedRolls.sum();
+	}
+	
+	/**
+	 * Executes a range of rolls, splitting it in half while it's larger than a chunk.
+	 * The result contains the count of each rolled block;
+	 * the last element contains how many times the spawning was cancelled.
+	 */
+	private class RollTask extends RecursiveTask<long[]> {
+		private final long from;
+		private final long to;
+		private final RandomSource random;
+		
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param from the start of the range (inclusive)
+		 * @param to the end of the range (exclusive)
+		 * @param random the source of randomness, only used by this task
+		 */
+		RollTask(long from, long to, @NotNull RandomSource random) {
+			this.from = from;
+			this.to = to;
+			this.random = random;
+		}
+		
+		@Override
+		protected long[] compute() {
+			if (cancelled) {
+				throw new CancellationException("The simulation was cancelled");
+			}
+			if (to - from > CHUNK_SIZE) {
+				long middle = (from + to) >>> 1;
+				RollTask left = new RollTask(from, middle, random.split());
+				left.fork();
+				long[] counts = new RollTask(middle, to, random).compute();
+				long[] leftCounts = left.join();
+				for (int i = 0; i < counts.length; i++) {
+					counts[i] += leftCounts[i];
+				}
+				return counts;
+			}
+			
+			long[] counts = new long[blocks.size() + 1];
+			for (long i = from; i < to; i++) {
+				if (random.nextDouble() < spawnChance) {
+					counts[blocks.getIndex(random.nextDouble())]++;
+				} else {
+					counts[blocks.size()]++;
+				}
+			}
+			completedRolls.add(to - from);
+			return counts;
+		}
+	}
+	
+	/**
+	 * The result of a completed simulation.
+	 */
+	public class Result {
+		private final long[] counts;
+		
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param counts the counts of each block, followed by the count of cancellations
+		 */
+		private Result(long @NotNull [] counts) {
+			this.counts = counts;
+		}
+		
+		/**
+		 * Gets how many times the block at the specified index was rolled.
+		 *
+		 * @param index the index of the block, see {@link ScenarioLogic#getBlocks()}
+		 * @return the count of rolls of the block
+		 */
+		@Contract(pure = true)
+		public long getCount(int index) {
+			return counts[index];
+		}
+		
+		/**
+		 * Gets how many times the egg spawning was cancelled.
+		 *
+		 * @return the count of cancellations
+		 */
+		@Contract(pure = true)
+		public long getCancelledCount() {
+			return counts[blocks.size()];
+		}
+		
+		/**
+		 * Gets the observed probability of the block at the specified index being spawned.
+		 *
+		 * @param index the index of the block, see {@link ScenarioLogic#getBlocks()}
+		 * @return the observed probability, between 0 and 1
+		 */
+		@Contract(pure = true)
+		public double getObservedChance(int index) {
+			return (double) getCount(index) / rolls;
+		}
+		
+		/**
+		 * Gets the configured probability of the block at the specified index being spawned.
+		 *
+		 * @param index the index of the block, see {@link ScenarioLogic#getBlocks()}
+		 * @return the expected probability, between 0 and 1
+		 */
+		@Contract(pure = true)
+		public double getExpectedChance(int index) {
+			return spawnChance * blocks.getWeight(index) / weightSum;
+		}
+		
+		/**
+		 * Gets the observed probability of the egg spawning being cancelled.
+		 *
+		 * @return the observed probability, between 0 and 1
+		 */
+		@Contract(pure = true)
+		public double getObservedCancelChance() {
+			return (double) getCancelledCount() / rolls;
+		}
+		
+		/**
+		 * Gets the configured probability of the egg spawning being cancelled.
+		 *
+		 * @return the expected probability, between 0 and 1
+		 */
+		@Contract(pure = true)
+		public double getExpectedCancelChance() {
+			return 1 - spawnChance;
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package hu.trigary.dragonhatchery.core;
+
+import hu.trigary.dragonhatchery.util.ConfigHelper;
+import hu.trigary.dragonhatchery.util.InvalidConfigException;
+import hu.trigary.dragonhatchery.util.RandomSource;
+import org.bukkit.block.Block;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Provides the {@link RandomSource} instances used when handling egg spawning.
+ * If a seed is configured, each world gets its own generator, which is seeded
+ * from the configured seed and the world's {@link UUID}:
+ * this makes the rolls of each world's battles reproducible.
+ * <br><br>
+ * This class is not thread-safe: it should only be accessed from the main thread.
+ */
+public class RandomSourceProvider {
+	private final String algorithm;
+	private final Long seed;
+	private final RandomSource shared;
+	private final Map<UUID, RandomSource> perWorld = new HashMap<>();
+	
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param algorithm the name of the algorithm to use, see {@link RandomSource#create(String, long)}
+	 * @param seed the seed to use or null, if the values shouldn't be reproducible
+	 * @throws IllegalArgumentException if the algorithm is not supported
+	 */
+	public RandomSourceProvider(@NotNull String algorithm, @Nullable Long seed) {
+		this.algorithm = algorithm;
+		this.seed = seed;
+		if (seed != null) {
+			shared = null;
+			//Fail-fast: validate the algorithm
+			RandomSource.create(algorithm, seed);
+		} else if (algorithm.equalsIgnoreCase(RandomSource.THREAD_LOCAL)) {
+			shared = RandomSource.threadLocal();
+		} else {
+			shared = RandomSource.create(algorithm, System.nanoTime());
+		}
+	}
+	
+	/**
+	 * Constructs a new instance from the specified configuration.
+	 * Both values are optional: by default {@link RandomSource#threadLocal()} is used.
+	 *
+	 * @param config the configuration that contains the values to use
+	 * @return the newly created instance
+	 * @throws InvalidConfigException if the configuration is invalid
+	 */
+	@Contract(value = "_ -> new", pure = true)
+	public static @NotNull RandomSourceProvider fromConfig(@NotNull ConfigurationSection config)
+			throws InvalidConfigException {
+		Optional<Long> seed = ConfigHelper.parseValue(config, "random.seed", raw -> raw.isBlank()
+				? Optional.empty() : Optional.of(Long.parseLong(raw.trim())), Optional.empty());
+		String algorithm = ConfigHelper.parseValue(config, "random.algorithm",
+				String::trim, RandomSource.THREAD_LOCAL);
+		return ConfigHelper.computeValue(config, "random.algorithm",
+				(c, k) -> new RandomSourceProvider(algorithm, seed.orElse(null)));
+	}
+	
+	/**
+	 * Gets the generator to use for the egg spawning at the specified block.
+	 * The world of the block is only queried if a seed is configured.
+	 *
+	 * @param eggBlock the block at which the dragon egg is spawning
+	 * @return the generator to use
+	 */
+	public @NotNull RandomSource getFor(@NotNull Block eggBlock) {
+		if (shared != null) {
+			return shared;
+		}
+		return perWorld.computeIfAbsent(eggBlock.getWorld().getUID(), id -> RandomSource
+				.create(algorithm, mix(seed, id)));
+	}
+	
+	/**
+	 * Combines the specified seed and world identifier into a new seed.
+	 *
+	 * @param seed the configured seed
+	 * @param worldId the identifier of the world
+	 * @return the seed to use for the specified world
+	 */
+	@Contract(pure = true)
+	private static long mix(long seed, @NotNull UUID worldId) {
+		long value = seed;
+		value = value * 31 + worldId.getMostSignificantBits();
+		value = value * 31 + worldId.getLeastSignificantBits();
+		return value;
+	}
+}
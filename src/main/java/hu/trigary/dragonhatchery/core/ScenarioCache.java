@@ -0,0 +1,231 @@
+package hu.trigary.dragonhatchery.core;
+
+import org.bukkit.Material;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binary cache of the parsed and validated {@link ScenarioDefinition} instances,
+ * so that the spawned block tables don't have to be parsed (and validated)
+ * again on startup if the configuration hasn't changed.
+ * <br><br>
+ * The cache is keyed by the fingerprint of the configuration file:
+ * it's only used if the configuration file is exactly the same
+ * as the one the cache was created from.
+ * The file is read via memory-mapped I/O. Materials are stored by name,
+ * therefore the cache stays valid even if the server is updated.
+ */
+public class ScenarioCache {
+	private static final int MAGIC = 0x44484331; //"DHC1"
+	private static final int VERSION = 1;
+	private final Path file;
+	
+	/**
+	 * Constructs a new instance.
+	 * The file is not accessed until it's read or written.
+	 *
+	 * @param file the file to store the cache in
+	 */
+	@Contract(pure = true)
+	public ScenarioCache(@NotNull Path file) {
+		this.file = file;
+	}
+	
+	/**
+	 * Reads the cache, if it exists and if it was created from the specified configuration.
+	 *
+	 * @param configFingerprint the fingerprint of the current configuration file
+	 * @return the cached definitions or null, if there is no (up-to-date) cache
+	 * @throws IOException if the cache couldn't be read or if it's corrupt
+	 */
+	public @Nullable Map<EggScenario, ScenarioDefinition> read(@NotNull String configFingerprint)
+			throws IOException {
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("Corrupt cache file: too large: " + size);
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+		
+		try {
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+					|| !readString(buffer).equals(configFingerprint)) {
+				return null;
+			}
+			
+			Map<EggScenario, ScenarioDefinition> result = new EnumMap<>(EggScenario.class);
+			Map<String, Material> materials = new HashMap<>();
+			int scenarioCount = buffer.getInt();
+			for (int i = 0; i < scenarioCount; i++) {
+				String configKey = readString(buffer);
+				EggScenario scenario = Arrays.stream(EggScenario.values())
+						.filter(s -> s.getConfigKey().equals(configKey))
+						.findAny().orElseThrow(() -> new IllegalArgumentException(
+								"Unknown scenario: " + configKey));
+				result.put(scenario, readDefinition(buffer, materials));
+			}
+			if (buffer.hasRemaining()) {
+				throw new IllegalArgumentException("Trailing data");
+			}
+			return result;
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			throw new IOException("Corrupt cache file: " + file, e);
+		}
+	}
+	
+	/**
+	 * Writes the cache, replacing the previous one (atomically, if possible).
+	 *
+	 * @param configFingerprint the fingerprint of the configuration file
+	 * the definitions were parsed from
+	 * @param definitions the definitions to store
+	 * @throws IOException if the cache couldn't be written
+	 */
+	public void write(@NotNull String configFingerprint,
+			@NotNull Map<EggScenario, ScenarioDefinition> definitions) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream output = new DataOutputStream(bytes)) {
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			writeString(output, configFingerprint);
+			output.writeInt(definitions.size());
+			for (Map.Entry<EggScenario, ScenarioDefinition> entry : definitions.entrySet()) {
+				writeString(output, entry.getKey().getConfigKey());
+				writeDefinition(output, entry.getValue());
+			}
+		}
+		
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		Files.write(temporary, bytes.toByteArray());
+		try {
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+	
+	/**
+	 * Deletes the cache, if it exists.
+	 *
+	 * @throws IOException if the cache couldn't be deleted
+	 */
+	public void delete() throws IOException {
+		Files.deleteIfExists(file);
+	}
+	
+	/**
+	 * Reads a single definition from the specified buffer.
+	 *
+	 * @param buffer the buffer to read from
+	 * @param materials the materials looked up so far, by name
+	 * @return the read definition
+	 * @throws IllegalArgumentException if the data is invalid
+	 */
+	private static @NotNull ScenarioDefinition readDefinition(@NotNull ByteBuffer buffer,
+			@NotNull Map<String, Material> materials) {
+		String name = readString(buffer);
+		String fingerprint = readString(buffer);
+		double spawnChance = buffer.getDouble();
+		int rollCount = buffer.getInt();
+		int size = buffer.getInt();
+		if (size < 0 || size > buffer.remaining()) {
+			throw new IllegalArgumentException("Invalid size: " + size);
+		}
+		
+		String[] keys = new String[size];
+		Material[] blockTypes = new Material[size];
+		String[] blockDatas = new String[size];
+		double[] weights = new double[size];
+		for (int i = 0; i < size; i++) {
+			keys[i] = readString(buffer);
+			blockTypes[i] = materials.computeIfAbsent(readString(buffer), materialName -> {
+				Material material = Material.getMaterial(materialName);
+				if (material == null) {
+					throw new IllegalArgumentException("Unknown material: " + materialName);
+				}
+				return material;
+			});
+			blockDatas[i] = readString(buffer);
+			weights[i] = buffer.getDouble();
+		}
+		
+		return new ScenarioDefinition(name, fingerprint, spawnChance,
+				rollCount, keys, blockTypes, blockDatas, weights);
+	}
+	
+	/**
+	 * Writes a single definition to the specified output.
+	 *
+	 * @param output the output to write to
+	 * @param definition the definition to write
+	 * @throws IOException if the writing fails
+	 */
+	private static void writeDefinition(@NotNull DataOutputStream output,
+			@NotNull ScenarioDefinition definition) throws IOException {
+		writeString(output, definition.getName());
+		writeString(output, definition.getFingerprint());
+		output.writeDouble(definition.getSpawnChance());
+		output.writeInt(definition.getRollCount());
+		output.writeInt(definition.getSize());
+		for (int i = 0; i < definition.getSize(); i++) {
+			writeString(output, definition.getKey(i));
+			writeString(output, definition.getBlockType(i).name());
+			writeString(output, definition.getBlockData(i));
+			output.writeDouble(definition.getWeight(i));
+		}
+	}
+	
+	/**
+	 * Reads a length-prefixed UTF-8 string from the specified buffer.
+	 *
+	 * @param buffer the buffer to read from
+	 * @return the read string
+	 * @throws IllegalArgumentException if the length is invalid
+	 */
+	private static @NotNull String readString(@NotNull ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0 || length > buffer.remaining()) {
+			throw new IllegalArgumentException("Invalid string length: " + length);
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Writes a length-prefixed UTF-8 string to the specified output.
+	 *
+	 * @param output the output to write to
+	 * @param value the string to write
+	 * @throws IOException if the writing fails
+	 */
+	private static void writeString(@NotNull DataOutputStream output,
+			@NotNull String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+}
@@ -0,0 +1,416 @@
+package hu.trigary.dragonhatchery.core;
+
+import hu.trigary.dragonhatchery.util.ConfigHelper;
+import hu.trigary.dragonhatchery.util.InvalidConfigException;
+import hu.trigary.dragonhatchery.util.WeightedRandom;
+import hu.trigary.dragonhatchery.util.WeightedRandomCollection;
+import org.apache.commons.lang.Validate;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+/**
+ * The parsed and validated configuration of a {@link ScenarioLogic}.
+ * Unlike {@link ScenarioLogic}, this class has no runtime state,
+ * therefore it can be stored in (and loaded from) the {@link ScenarioCache}.
+ * <br><br>
+ * The spawned blocks are stored compactly (material ordinal, deduplicated data string,
+ * weight in primitive arrays).
+ * The block data is only validated syntactically when parsing,
+ * its values are validated by {@link #validateBlockData(BlockDataCache)}.
+ */
+public class ScenarioDefinition {
+	private static final Material[] MATERIALS = Material.values();
+	private static final int PARALLEL_THRESHOLD = 512;
+	private final String name;
+	private final String fingerprint;
+	private final double spawnChance;
+	private final int rollCount;
+	private final String[] keys;
+	private final short[] blockMaterials;
+	private final String[] blockDatas;
+	private final double[] weights;
+	
+	/**
+	 * Constructs a new instance from already parsed values.
+	 * Fails in case of invalid values.
+	 * The arrays are copied, they must all have the same length.
+	 *
+	 * @param name the name of the scenario's configuration section
+	 * @param fingerprint the fingerprint of the configuration section,
+	 * see {@link ConfigHelper#fingerprint(ConfigurationSection)}
+	 * @param spawnChance the chance of the egg spawning being allowed
+	 * @param rollCount how many distinct blocks are rolled
+	 * @param keys the configuration keys of the spawned blocks
+	 * @param blockTypes the types of the spawned blocks
+	 * @param blockDatas the block data strings of the spawned blocks
+	 * @param weights the weights of the spawned blocks
+	 * @throws IllegalArgumentException if a value is invalid
+	 */
+	@Contract(pure = true)
+	public ScenarioDefinition(@NotNull String name, @NotNull String fingerprint,
+			double spawnChance, int rollCount, @NotNull String @NotNull [] keys,
+			@NotNull Material @NotNull [] blockTypes,
+			@NotNull String @NotNull [] blockDatas, double @NotNull [] weights) {
+		Validate.isTrue(spawnChance >= 0 && spawnChance <= 1,
+				"Chance must be between 0 and 1 (both inclusive)");
+		Validate.isTrue(keys.length >= 1, "There must be at least 1 entry");
+		Validate.isTrue(blockTypes.length == keys.length && blockDatas.length == keys.length
+				&& weights.length == keys.length, "Arrays must have the same length");
+		Validate.isTrue(rollCount >= 1 && rollCount <= keys.length,
+				"Roll count must be between 1 and the count of spawned blocks");
+		
+		this.name = name;
+		this.fingerprint = fingerprint;
+		this.spawnChance = spawnChance;
+		this.rollCount = rollCount;
+		this.keys = keys.clone();
+		this.weights = weights.clone();
+		this.blockMaterials = new short[keys.length];
+		this.blockDatas = new String[keys.length];
+		Map<String, String> distinctDatas = new HashMap<>();
+		
+		for (int i = 0; i < keys.length; i++) {
+			Validate.notNull(keys[i], "Key mustn't be null");
+			Validate.notNull(blockDatas[i], "Block data mustn't be null");
+			Validate.isTrue(blockTypes[i].isBlock(), "Material must be a block");
+			Validate.isTrue(isValidBlockData(blockDatas[i]),
+					"Block data must be empty or enclosed in square brackets");
+			Validate.isTrue(weights[i] > 0, "Weight must be positive");
+			this.blockMaterials[i] = (short) blockTypes[i].ordinal();
+			this.blockDatas[i] = distinctDatas.computeIfAbsent(blockDatas[i], Function.identity());
+		}
+	}
+	
+	/**
+	 * Parses the specified configuration section.
+	 * Fails in case of an invalid configuration.
+	 * All errors are collected (instead of stopping at the first one):
+	 * the thrown exception is the first error, the rest are added to it
+	 * as suppressed exceptions, so that they can all be fixed at once.
+	 * <br><br>
+	 * The entries of huge spawned block lists are parsed in parallel,
+	 * on the common {@link java.util.concurrent.ForkJoinPool}.
+	 * This is safe, because the configuration is only read.
+	 *
+	 * @param config the configuration that contains the values to use
+	 * @param logger the logger to log the parsed values to
+	 * @return the parsed definition
+	 * @throws InvalidConfigException if the configuration is invalid
+	 */
+	@Contract(pure = true)
+	public static @NotNull ScenarioDefinition fromConfig(@NotNull ConfigurationSection config,
+			@NotNull Logger logger) {
+		String name = config.getName();
+		String logPrefix = ScenarioDefinition.class.getSimpleName() + "#" + name + ": ";
+		List<InvalidConfigException> errors = new ArrayList<>();
+		
+		Double spawnChance = tryParse(errors, () -> ConfigHelper.parseValue(config,
+				"spawn-chance", raw -> {
+					double v = Double.parseDouble(raw);
+					Validate.isTrue(v >= 0 && v <= 1,
+							"Chance must be between 0 and 1 (both inclusive)");
+					return v;
+				}));
+		if (spawnChance != null) {
+			logger.log(Level.FINE, () -> logPrefix + "Spawn chance = " + spawnChance);
+		}
+		
+		//If any entry in the list is invalid: invalidate the entire instance.
+		//Why? Because we have proper fallback logic; no need to use improper weights.
+		
+		ConfigurationSection spawnedBlocksSection = tryParse(errors, () -> ConfigHelper
+				.computeValue(config, "spawned-block", (c, k) -> {
+					ConfigurationSection section = c.getConfigurationSection(k);
+					Validate.notNull(section, "Missing section");
+					Validate.notEmpty(section.getKeys(false),
+							"There must be at least 1 entry");
+					return section;
+				}));
+		
+		String[] keys = spawnedBlocksSection == null ? new String[0]
+				: spawnedBlocksSection.getKeys(false).toArray(new String[0]);
+		Material[] blockTypes = new Material[keys.length];
+		String[] blockDatas = new String[keys.length];
+		double[] weights = new double[keys.length];
+		AtomicReferenceArray<List<InvalidConfigException>> entryErrors
+				= new AtomicReferenceArray<>(keys.length);
+		
+		IntStream indexes = IntStream.range(0, keys.length);
+		if (keys.length >= PARALLEL_THRESHOLD) {
+			indexes = indexes.parallel();
+		}
+		indexes.forEach(index -> {
+			List<InvalidConfigException> errorsOfEntry = new ArrayList<>(0);
+			ConfigurationSection section = tryParse(errorsOfEntry,
+					() -> ConfigHelper.getSection(spawnedBlocksSection, keys[index]));
+			if (section != null) {
+				parseEntry(section, index, blockTypes, blockDatas, weights,
+						errorsOfEntry, logger, logPrefix);
+			}
+			if (!errorsOfEntry.isEmpty()) {
+				entryErrors.set(index, errorsOfEntry);
+			}
+		});
+		
+		//Collected in order, so that the reported errors don't depend on the scheduling
+		for (int i = 0; i < keys.length; i++) {
+			List<InvalidConfigException> errorsOfEntry = entryErrors.get(i);
+			if (errorsOfEntry != null) {
+				errors.addAll(errorsOfEntry);
+			}
+		}
+		
+		Integer rollCount = tryParse(errors, () -> ConfigHelper.parseValue(config,
+				"roll-count", raw -> {
+					int v = Integer.parseInt(raw);
+					Validate.isTrue(v >= 1 && v <= keys.length,
+							"Roll count must be between 1 and the count of spawned blocks");
+					return v;
+				}, 1));
+		if (rollCount != null) {
+			logger.log(Level.FINE, () -> logPrefix + "Roll count = " + rollCount);
+		}
+		
+		if (!errors.isEmpty()) {
+			InvalidConfigException first = errors.get(0);
+			for (int i = 1; i < errors.size(); i++) {
+				first.addSuppressed(errors.get(i));
+			}
+			throw first;
+		}
+		
+		return new ScenarioDefinition(name, ConfigHelper.fingerprint(config),
+				spawnChance, rollCount, keys, blockTypes, blockDatas, weights);
+	}
+	
+	/**
+	 * Gets the name of this scenario's configuration section.
+	 *
+	 * @return the name of this scenario
+	 */
+	@Contract(pure = true)
+	public @NotNull String getName() {
+		return name;
+	}
+	
+	/**
+	 * Gets the fingerprint of the configuration section this instance was parsed from,
+	 * see {@link ConfigHelper#fingerprint(ConfigurationSection)}.
+	 *
+	 * @return the fingerprint of the configuration section
+	 */
+	@Contract(pure = true)
+	public @NotNull String getFingerprint() {
+		return fingerprint;
+	}
+	
+	/**
+	 * Gets the chance of the egg spawning being allowed.
+	 *
+	 * @return the chance, between 0 and 1 (both inclusive)
+	 */
+	@Contract(pure = true)
+	public double getSpawnChance() {
+		return spawnChance;
+	}
+	
+	/**
+	 * Gets how many distinct blocks are rolled when the egg spawning is allowed.
+	 *
+	 * @return the roll count, between 1 and {@link #getSize()}
+	 */
+	@Contract(pure = true)
+	public int getRollCount() {
+		return rollCount;
+	}
+	
+	/**
+	 * Gets the count of blocks from which the spawned blocks are rolled.
+	 *
+	 * @return the count of spawned block entries, at least 1
+	 */
+	@Contract(pure = true)
+	public int getSize() {
+		return keys.length;
+	}
+	
+	/**
+	 * Gets the configuration key of the block at the specified index.
+	 *
+	 * @param index the index of the block
+	 * @return the key of the block
+	 */
+	@Contract(pure = true)
+	public @NotNull String getKey(int index) {
+		return keys[index];
+	}
+	
+	/**
+	 * Gets the type of the block at the specified index.
+	 *
+	 * @param index the index of the block
+	 * @return the type of the block
+	 */
+	@Contract(pure = true)
+	public @NotNull Material getBlockType(int index) {
+		return MATERIALS[blockMaterials[index]];
+	}
+	
+	/**
+	 * Gets the block data string of the block at the specified index.
+	 *
+	 * @param index the index of the block
+	 * @return the block data, empty or enclosed in square brackets
+	 */
+	@Contract(pure = true)
+	public @NotNull String getBlockData(int index) {
+		return blockDatas[index];
+	}
+	
+	/**
+	 * Gets the weight of the block at the specified index.
+	 *
+	 * @param index the index of the block
+	 * @return the weight of the block, positive
+	 */
+	@Contract(pure = true)
+	public double getWeight(int index) {
+		return weights[index];
+	}
+	
+	/**
+	 * Validates the block data of each distinct block via the specified cache,
+	 * so that invalid values (eg. a property the block doesn't have)
+	 * are detected when loading, instead of when the block is first rolled.
+	 * The created instances aren't kept: they are only cached when the block is first rolled.
+	 *
+	 * @param cache the cache to validate the block data with
+	 * @throws IllegalArgumentException if the block data of a block is invalid
+	 */
+	public void validateBlockData(@NotNull BlockDataCache cache) {
+		Set<String> validated = new HashSet<>();
+		for (int i = 0; i < keys.length; i++) {
+			Material material = getBlockType(i);
+			if (!validated.add(material.name() + blockDatas[i])) {
+				continue;
+			}
+			try {
+				cache.validate(material, blockDatas[i]);
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Invalid block data of spawned block: "
+						+ keys[i], e);
+			}
+		}
+	}
+	
+	/**
+	 * Creates the weighted collection of the keys of the blocks,
+	 * from which the spawned blocks are rolled.
+	 * The indexes are the same as the ones accepted by the getters of this class.
+	 *
+	 * @return the newly created collection
+	 */
+	@Contract(value = "-> new", pure = true)
+	public @NotNull WeightedRandom<String> createBlockTable() {
+		return WeightedRandomCollection.fromArrays(keys, weights);
+	}
+	
+	/**
+	 * Parses a single entry of the spawned block list into the specified arrays.
+	 * May be called concurrently for different indexes.
+	 *
+	 * @param section the configuration of the entry
+	 * @param index the index of the entry
+	 * @param blockTypes the array to store the type of the block in
+	 * @param blockDatas the array to store the block data in
+	 * @param weights the array to store the weight in
+	 * @param errors the list to add the errors to
+	 * @param logger the logger to log the parsed values to
+	 * @param logPrefix the prefix of the logged messages
+	 */
+	private static void parseEntry(@NotNull ConfigurationSection section, int index,
+			@NotNull Material @NotNull [] blockTypes, @NotNull String @NotNull [] blockDatas,
+			double @NotNull [] weights, @NotNull List<InvalidConfigException> errors,
+			@NotNull Logger logger, @NotNull String logPrefix) {
+		Material blockType = tryParse(errors, () -> ConfigHelper
+				.parseValue(section, "block-type", raw -> {
+					Material v = Material.matchMaterial(raw.toUpperCase());
+					Validate.notNull(v, "Material not found");
+					Validate.isTrue(v.isBlock(), "Material must be a block");
+					return v;
+				}));
+		if (blockType != null) {
+			logger.log(Level.FINE, () -> logPrefix + "Block type = " + blockType);
+		}
+		
+		String blockData = tryParse(errors, () -> ConfigHelper
+				.parseValue(section, "block-data", raw -> {
+					Validate.isTrue(isValidBlockData(raw),
+							"Block data must be empty or enclosed in square brackets");
+					return raw;
+				}));
+		if (blockData != null) {
+			logger.log(Level.FINE, () -> logPrefix + "Block data = " + blockData);
+		}
+		
+		Double weight = tryParse(errors, () -> ConfigHelper
+				.parseValue(section, "weight", raw -> {
+					double v = Double.parseDouble(raw);
+					Validate.isTrue(v > 0, "Weight must be positive");
+					return v;
+				}));
+		if (weight != null) {
+			logger.log(Level.FINE, () -> logPrefix + "Weight = " + weight);
+		}
+		
+		blockTypes[index] = blockType;
+		blockDatas[index] = blockData;
+		weights[index] = weight == null ? 0 : weight;
+	}
+	
+	/**
+	 * Executes the specified parser, collecting its error (if any)
+	 * instead of letting it propagate.
+	 *
+	 * @param errors the list to add the error to
+	 * @param parser the parser to execute
+	 * @param <T> the type of the parsed value
+	 * @return the parsed value or null, if parsing failed
+	 */
+	private static <T> @Nullable T tryParse(@NotNull List<InvalidConfigException> errors,
+			@NotNull Supplier<T> parser) {
+		try {
+			return parser.get();
+		} catch (InvalidConfigException e) {
+			errors.add(e);
+			return null;
+		}
+	}
+	
+	/**
+	 * Validates the syntax of the specified block data string.
+	 *
+	 * @param blockData the value to validate
+	 * @return true if the value is empty or enclosed in square brackets
+	 */
+	@Contract(pure = true)
+	private static boolean isValidBlockData(@NotNull String blockData) {
+		return blockData.isEmpty() || (blockData.startsWith("[") && blockData.endsWith("]"));
+	}
+}
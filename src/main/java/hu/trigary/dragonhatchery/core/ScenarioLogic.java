@@ -1,32 +1,42 @@
 package hu.trigary.dragonhatchery.core;
 
 import hu.trigary.dragonhatchery.DragonHatcheryPlugin;
-import hu.trigary.dragonhatchery.util.ConfigHelper;
-import hu.trigary.dragonhatchery.util.WeightedRandomCollection;
-import org.apache.commons.lang.Validate;
+import hu.trigary.dragonhatchery.util.RandomSource;
+import hu.trigary.dragonhatchery.util.WeightedRandom;
 import org.bukkit.Material;
-import org.bukkit.Server;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
 import org.bukkit.block.BlockState;
 import org.bukkit.block.data.BlockData;
 import org.bukkit.boss.DragonBattle;
 import org.bukkit.configuration.ConfigurationSection;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
-
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ThreadLocalRandom;
-import java.util.logging.Level;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Defines what should happen in case of a specific {@link EggScenario}.
+ * <br><br>
+ * The spawned blocks are stored compactly by the {@link ScenarioDefinition}:
+ * the {@link BlockData} instances are only created
+ * when the block is first rolled (via the plugin-wide {@link BlockDataCache})
+ * and then they are cached.
+ * This keeps the memory usage of huge tables low.
+ * The values of the block data are validated (without being cached)
+ * when the scenario is loaded by the {@link ScenarioLogicHolder}.
  */
 public class ScenarioLogic {
-	private final String logPrefix;
-	private final DragonHatcheryPlugin plugin;
+	private final ScenarioDefinition definition;
+	private final String name;
+	private final HatchTracer tracer;
+	private final HatchStatistics.ScenarioStatistics statistics;
+	private final BlockDataCache blockDataCache;
 	private final double spawnChance;
-	private final WeightedRandomCollection<BlockData> blocks;
+	private final int rollCount;
+	private final WeightedRandom<String> blocks;
+	private final BlockData[] blockTemplates;
+	private final int[] rolledIndexes;
+	private double lastSpawnRoll;
 	
 	/**
 	 * Constructs a new instance.
@@ -35,89 +45,256 @@ public class ScenarioLogic {
 	 *
 	 * @param plugin the plugin instance
 	 * @param config the configuration that contains the values to use
+	 * @see ScenarioDefinition#fromConfig(ConfigurationSection, java.util.logging.Logger)
 	 */
 	@Contract(pure = true)
 	public ScenarioLogic(@NotNull DragonHatcheryPlugin plugin,
 			@NotNull ConfigurationSection config) {
-		logPrefix = getClass().getSimpleName() + "#" + config.getName() + ": ";
-		this.plugin = plugin;
-		Server server = plugin.getServer(); //Don't use the Bukkit class: hard to test (mock)
-		
-		spawnChance = ConfigHelper.parseValue(config, "spawn-chance", raw -> {
-			double v = Double.parseDouble(raw);
-			Validate.isTrue(v >= 0 && v <= 1, "Chance must be between 0 and 1 (both inclusive)");
-			return v;
-		});
-		plugin.getLogger().log(Level.FINE, () -> logPrefix + "Spawn chance = " + spawnChance);
-		
-		//If any entry in the list is invalid: invalidate the entire instance.
-		//Why? Because we have proper fallback logic; no need to use improper weights.
-		
-		ConfigurationSection spawnedBlocksSection = ConfigHelper
-				.computeValue(config, "spawned-block", (c, k) -> {
-					ConfigurationSection section = c.getConfigurationSection(k);
-					Validate.notNull(section, "Missing section");
-					Validate.notEmpty(section.getKeys(false),
-							"There must be at least 1 entry");
-					return section;
-				});
-		
-		List<Map.Entry<BlockData, Double>> rawBlocks = new ArrayList<>();
+		this(plugin, ScenarioDefinition.fromConfig(config, plugin.getLogger()));
+	}
+	
+	/**
+	 * Constructs a new instance from an already parsed configuration,
+	 * eg. one loaded from the {@link ScenarioCache}.
+	 *
+	 * @param plugin the plugin instance
+	 * @param definition the parsed configuration
+	 */
+	@Contract(pure = true)
+	public ScenarioLogic(@NotNull DragonHatcheryPlugin plugin,
+			@NotNull ScenarioDefinition definition) {
+		this(plugin, definition, null);
+	}
+	
+	/**
+	 * Constructs a new instance of a world table from an already parsed configuration.
+	 *
+	 * @param plugin the plugin instance
+	 * @param definition the parsed configuration
+	 * @param table the name of the world table whose statistics to record into
+	 * or null, for the default table
+	 */
+	@Contract(pure = true)
+	public ScenarioLogic(@NotNull DragonHatcheryPlugin plugin,
+			@NotNull ScenarioDefinition definition, @Nullable String table) {
+		this.definition = definition;
+		name = definition.getName();
+		tracer = plugin.getTracer();
+		statistics = plugin.getStatistics().getFor(table, name);
+		blockDataCache = plugin.getBlockDataCache();
+		spawnChance = definition.getSpawnChance();
+		rollCount = definition.getRollCount();
 		
-		for (String spawnedBlockKey : spawnedBlocksSection.getKeys(false)) {
-			ConfigurationSection section = ConfigHelper
-					.getSection(spawnedBlocksSection, spawnedBlockKey);
-			
-			Material blockType = ConfigHelper.parseValue(section, "block-type", raw -> {
-				Material v = Material.matchMaterial(raw.toUpperCase());
-				Validate.notNull(v, "Material not found");
-				return v;
-			});
-			plugin.getLogger().log(Level.FINE, () -> logPrefix + "Block type = " + blockType);
-			
-			BlockData blockData = ConfigHelper.parseValue(section,
-					"block-data", data -> server.createBlockData(blockType, data));
-			plugin.getLogger().log(Level.FINE,
-					() -> logPrefix + "Block data = " + blockData.getAsString(true));
-			
-			double weight = ConfigHelper.parseValue(section, "weight", raw -> {
-				double v = Double.parseDouble(raw);
-				Validate.isTrue(v > 0, "Weight must be positive");
-				return v;
-			});
-			plugin.getLogger().log(Level.FINE, () -> logPrefix + "Weight = " + weight);
-			
-			rawBlocks.add(Map.entry(blockData, weight));
+		blocks = definition.createBlockTable();
+		blockTemplates = new BlockData[definition.getSize()];
+		rolledIndexes = new int[rollCount];
+	}
+	
+	/**
+	 * Gets the parsed configuration this instance was created from.
+	 *
+	 * @return the definition of this scenario
+	 */
+	@Contract(pure = true)
+	public @NotNull ScenarioDefinition getDefinition() {
+		return definition;
+	}
+	
+	/**
+	 * Gets the name of this scenario's configuration section.
+	 *
+	 * @return the name of this scenario
+	 */
+	@Contract(pure = true)
+	public @NotNull String getName() {
+		return name;
+	}
+	
+	/**
+	 * Gets the statistics of this scenario, see {@link HatchStatistics#getFor(String, String)}.
+	 *
+	 * @return the statistics of this scenario
+	 */
+	@Contract(pure = true)
+	public @NotNull HatchStatistics.ScenarioStatistics getStatistics() {
+		return statistics;
+	}
+	
+	/**
+	 * Gets the chance of the egg spawning being allowed.
+	 *
+	 * @return the chance, between 0 and 1 (both inclusive)
+	 */
+	@Contract(pure = true)
+	public double getSpawnChance() {
+		return spawnChance;
+	}
+	
+	/**
+	 * Gets the configuration keys of the blocks from which the spawned blocks are rolled.
+	 * The indexes are the same as the ones accepted by {@link #getBlockData(int)}.
+	 *
+	 * @return the keys of the blocks and their weights
+	 */
+	@Contract(pure = true)
+	public @NotNull WeightedRandom<String> getBlocks() {
+		return blocks;
+	}
+	
+	/**
+	 * Gets the block data of the block at the specified index.
+	 * The instance is retrieved from the {@link BlockDataCache} on the first call,
+	 * then it's cached. The returned instance mustn't be modified,
+	 * see {@link BlockDataCache#prepareForPlacement(BlockData)}.
+	 * This method should only be called from the main thread.
+	 *
+	 * @param index the index of the block, see {@link #getBlocks()}
+	 * @return the block data of the block
+	 * @throws IllegalStateException if the block data is invalid
+	 */
+	public @NotNull BlockData getBlockData(int index) {
+		BlockData blockData = blockTemplates[index];
+		if (blockData == null) {
+			Material material = definition.getBlockType(index);
+			try {
+				blockData = blockDataCache.get(material, definition.getBlockData(index));
+			} catch (IllegalArgumentException e) {
+				throw new IllegalStateException("Invalid block data of spawned block: "
+						+ blocks.get(index), e);
+			}
+			blockTemplates[index] = blockData;
 		}
-		
-		blocks = new WeightedRandomCollection<>(rawBlocks,
-				Map.Entry::getKey, Map.Entry::getValue);
+		return blockData;
+	}
+	
+	/**
+	 * Gets how many distinct blocks are rolled when the egg spawning is allowed.
+	 *
+	 * @return the roll count, at least 1
+	 */
+	@Contract(pure = true)
+	public int getRollCount() {
+		return rollCount;
+	}
+	
+	/**
+	 * Gets the value rolled by the last {@link #shouldAllowEggSpawn(RandomSource)} call.
+	 * This method should only be called from the main thread.
+	 *
+	 * @return the last rolled value, between 0 (inclusive) and 1 (exclusive)
+	 */
+	@Contract(pure = true)
+	public double getLastSpawnRoll() {
+		return lastSpawnRoll;
+	}
+	
+	/**
+	 * Gets the index of a block rolled by the last
+	 * {@link #handleEggSpawn(DragonBattle, BlockState, RandomSource)} call.
+	 * This method should only be called from the main thread.
+	 *
+	 * @param height the height of the block, 0 for the block replacing the dragon egg,
+	 * less than {@link #getRollCount()}
+	 * @return the index of the block, see {@link #getBlocks()}
+	 */
+	@Contract(pure = true)
+	public int getLastRolledIndex(int height) {
+		return rolledIndexes[height];
 	}
 	
 	/**
 	 * Returns whether or not the egg spawning should be cancelled.
 	 * Cancelling means that no blocks will appear.
+	 * {@link RandomSource#threadLocal()} is used as the source of randomness.
 	 *
 	 * @return true if the egg spawning should get cancelled, false otherwise
 	 */
 	public boolean shouldAllowEggSpawn() {
-		double random = ThreadLocalRandom.current().nextDouble();
-		plugin.getLogger().log(Level.FINE,
-				() -> logPrefix + "Rolled should-spawn value: " + random);
+		return shouldAllowEggSpawn(RandomSource.threadLocal());
+	}
+	
+	/**
+	 * Returns whether or not the egg spawning should be cancelled.
+	 * Cancelling means that no blocks will appear.
+	 *
+	 * @param randomSource the source of randomness
+	 * @return true if the egg spawning should get cancelled, false otherwise
+	 */
+	public boolean shouldAllowEggSpawn(@NotNull RandomSource randomSource) {
+		double random = randomSource.nextDouble();
+		lastSpawnRoll = random;
+		tracer.spawnRolled(this, random);
 		return random < spawnChance;
 	}
 	
 	/**
 	 * Handles the egg spawning, potentially modifying the resulting block
 	 * and potentially other values as well.
+	 * If the roll count is greater than 1, then distinct blocks are rolled
+	 * (without replacement): the first one replaces the resulting block,
+	 * the rest are only placed by {@link #placeStackedBlocks(Block)},
+	 * once it's known that the egg spawning wasn't cancelled.
+	 * This method should only be called from the main thread.
+	 * {@link RandomSource#threadLocal()} is used as the source of randomness.
 	 *
 	 * @param battle the battle that caused the egg spawning
 	 * @param newBlock the block that will get spawned, mutable
 	 */
 	public void handleEggSpawn(@NotNull DragonBattle battle, @NotNull BlockState newBlock) {
-		BlockData random = blocks.getRandom();
-		plugin.getLogger().log(Level.FINE,
-				() -> logPrefix + "Rolled block: " + random.getAsString(true));
-		newBlock.setBlockData(random.clone());
+		handleEggSpawn(battle, newBlock, RandomSource.threadLocal());
+	}
+	
+	/**
+	 * Handles the egg spawning, potentially modifying the resulting block
+	 * and potentially other values as well.
+	 * See {@link #handleEggSpawn(DragonBattle, BlockState)} for more information.
+	 *
+	 * @param battle the battle that caused the egg spawning
+	 * @param newBlock the block that will get spawned, mutable
+	 * @param randomSource the source of randomness
+	 */
+	public void handleEggSpawn(@NotNull DragonBattle battle, @NotNull BlockState newBlock,
+			@NotNull RandomSource randomSource) {
+		if (rollCount == 1) {
+			int index = blocks.getRandomIndex(randomSource);
+			rolledIndexes[0] = index;
+			tracer.blockRolled(this, 0, index);
+			statistics.recordBlock(blocks.get(index));
+			newBlock.setBlockData(blockDataCache.prepareForPlacement(getBlockData(index)));
+			return;
+		}
+		
+		blocks.sampleDistinct(randomSource, rollCount, rolledIndexes);
+		for (int i = 0; i < rollCount; i++) {
+			BlockData random = getBlockData(rolledIndexes[i]);
+			tracer.blockRolled(this, i, rolledIndexes[i]);
+			statistics.recordBlock(blocks.get(rolledIndexes[i]));
+			if (i == 0) {
+				newBlock.setBlockData(blockDataCache.prepareForPlacement(random));
+			}
+		}
+	}
+	
+	/**
+	 * Places the blocks rolled by the last
+	 * {@link #handleEggSpawn(DragonBattle, BlockState, RandomSource)} call
+	 * (except for the first one, which replaced the resulting block)
+	 * on top of each other, above the specified block.
+	 * Only air is replaced: the stack ends at the first block which isn't empty.
+	 * This method should only be called from the main thread.
+	 *
+	 * @param base the block replacing the dragon egg
+	 * @return the count of placed blocks
+	 */
+	public int placeStackedBlocks(@NotNull Block base) {
+		for (int i = 1; i < rollCount; i++) {
+			Block above = base.getRelative(BlockFace.UP, i);
+			if (!above.isEmpty()) {
+				return i - 1;
+			}
+			above.setBlockData(blockDataCache.prepareForPlacement(
+					getBlockData(rolledIndexes[i])), false);
+		}
+		return rollCount - 1;
 	}
 }
@@ -1,6 +1,7 @@
 package hu.trigary.dragonhatchery.core;
 
 import hu.trigary.dragonhatchery.DragonHatcheryPlugin;
+import hu.trigary.dragonhatchery.jfr.ScenarioParsingEvent;
 import hu.trigary.dragonhatchery.util.ConfigHelper;
 import hu.trigary.dragonhatchery.util.InvalidConfigException;
 import org.bukkit.configuration.ConfigurationSection;
@@ -17,10 +18,16 @@ import java.util.logging.Level;
 /**
  * Container of {@link ScenarioLogic} instances.
  * This class is also responsible for creating them (from the configuration).
+ * <br><br>
+ * The configuration of each scenario is parsed and validated when this instance is constructed
+ * (including the values of the block data, see {@link ScenarioDefinition#validateBlockData}),
+ * but the {@link ScenarioLogic} instances are only created when they are first requested
+ * (or when they are pre-warmed, see {@link #prewarm()}):
+ * the tables of rarely used scenarios don't slow down the startup.
  */
 public class ScenarioLogicHolder {
 	private final String logPrefix = getClass().getSimpleName() + ": ";
-	private final Map<EggScenario, ScenarioLogic> logics = new EnumMap<>(EggScenario.class);
+	private final Map<EggScenario, LazyLogic> logics = new EnumMap<>(EggScenario.class);
 	private final DragonHatcheryPlugin plugin;
 	
 	/**
@@ -31,52 +38,218 @@ public class ScenarioLogicHolder {
 	 */
 	@Contract(pure = true)
 	public ScenarioLogicHolder(@NotNull DragonHatcheryPlugin plugin) {
+		this(plugin, plugin.getConfig());
+	}
+	
+	/**
+	 * Constructs a new instance from the specified configuration,
+	 * but doesn't fail if it's invalid.
+	 * The instance is immutable, therefore it can be constructed on any thread
+	 * and it can be safely published to other threads.
+	 *
+	 * @param plugin the plugin instance
+	 * @param pluginConfig the configuration of the plugin
+	 */
+	@Contract(pure = true)
+	public ScenarioLogicHolder(@NotNull DragonHatcheryPlugin plugin,
+			@NotNull ConfigurationSection pluginConfig) {
+		this(plugin, pluginConfig, null);
+	}
+	
+	/**
+	 * Constructs a new instance from the specified configuration,
+	 * but doesn't fail if it's invalid.
+	 * The logic of each scenario whose configuration section hasn't changed
+	 * since the previous instance was constructed is reused instead of being parsed again.
+	 * The instance is immutable, therefore it can be constructed on any thread
+	 * and it can be safely published to other threads.
+	 *
+	 * @param plugin the plugin instance
+	 * @param pluginConfig the configuration of the plugin
+	 * @param previous the instance whose unchanged logics to reuse or null, to parse everything
+	 */
+	@Contract(pure = true)
+	public ScenarioLogicHolder(@NotNull DragonHatcheryPlugin plugin,
+			@NotNull ConfigurationSection pluginConfig, @Nullable ScenarioLogicHolder previous) {
+		this(plugin, pluginConfig, previous, null, null);
+	}
+	
+	/**
+	 * Constructs a new instance from the specified configuration,
+	 * but doesn't fail if it's invalid.
+	 * The logic of each scenario whose configuration section hasn't changed
+	 * since the previous instance was constructed is reused instead of being parsed again.
+	 * If a fallback instance is specified, then the scenarios that are missing
+	 * from the configuration are inherited from the fallback instance
+	 * (this is used by the tables of {@link WorldScenarioIndex}).
+	 * The instance is immutable, therefore it can be constructed on any thread
+	 * and it can be safely published to other threads.
+	 *
+	 * @param plugin the plugin instance
+	 * @param pluginConfig the configuration of the plugin (or of a world table)
+	 * @param previous the instance whose unchanged logics to reuse or null, to parse everything
+	 * @param fallback the instance to inherit the missing scenarios from or null, to not inherit
+	 * @param table the name of the world table, which keeps the statistics of its scenarios
+	 * separate (see {@link HatchStatistics#getFor(String, String)}) or null, for the default table
+	 */
+	@Contract(pure = true)
+	public ScenarioLogicHolder(@NotNull DragonHatcheryPlugin plugin,
+			@NotNull ConfigurationSection pluginConfig, @Nullable ScenarioLogicHolder previous,
+			@Nullable ScenarioLogicHolder fallback, @Nullable String table) {
 		this.plugin = plugin;
 		
 		ConfigurationSection config;
-		try {
-			config = ConfigHelper.getSection(plugin.getConfig(), "scenario");
-		} catch (InvalidConfigException e) {
-			plugin.getLogger().log(Level.SEVERE,
-					logPrefix + "Invalid config, unable to load scenarios", e);
-			return;
+		if (fallback != null && !pluginConfig.isSet("scenario")) {
+			config = null; //Everything is inherited
+		} else {
+			try {
+				config = ConfigHelper.getSection(pluginConfig, "scenario");
+			} catch (InvalidConfigException e) {
+				plugin.getLogger().log(Level.SEVERE,
+						logPrefix + "Invalid config, unable to load scenarios", e);
+				return;
+			}
+			
+			config.getKeys(false).stream()
+					.filter(key -> parseScenario(key) == null)
+					.forEach(key -> plugin.getLogger().log(Level.WARNING,
+							logPrefix + "Ignoring unknown scenario: " + key));
 		}
 		
-		config.getKeys(false).stream()
-				.filter(key -> parseScenario(key) == null)
-				.forEach(key -> plugin.getLogger().log(Level.WARNING,
-						logPrefix + "Ignoring unknown scenario: " + key));
-		
 		for (EggScenario scenario : EggScenario.values()) {
 			String key = scenario.getConfigKey();
+			if (fallback != null && (config == null || !config.isSet(key))) {
+				LazyLogic inherited = fallback.logics.get(scenario);
+				if (inherited != null) {
+					logics.put(scenario, inherited);
+				}
+				continue;
+			}
 			
-			ScenarioLogic logic;
+			ConfigurationSection section = config.getConfigurationSection(key);
+			LazyLogic previousLogic = previous == null ? null : previous.logics.get(scenario);
+			if (previousLogic != null && section != null && previousLogic.definition
+					.getFingerprint().equals(ConfigHelper.fingerprint(section))) {
+				logics.put(scenario, previousLogic);
+				plugin.getLogger().log(Level.FINE,
+						() -> logPrefix + "Reused unchanged logic for scenario: " + scenario);
+				continue;
+			}
+			
+			ScenarioParsingEvent jfrEvent = new ScenarioParsingEvent();
+			jfrEvent.begin();
+			ScenarioDefinition definition;
 			try {
-				logic = new ScenarioLogic(plugin, ConfigHelper.getSection(config, key));
+				definition = ScenarioDefinition.fromConfig(
+						ConfigHelper.getSection(config, key), plugin.getLogger());
+				definition.validateBlockData(plugin.getBlockDataCache());
 			} catch (Throwable t) {
+				commitParsingEvent(jfrEvent, key, null);
 				plugin.getLogger().log(Level.SEVERE,
 						logPrefix + "Error parsing scenario: " + key, t);
 				continue;
 			}
+			commitParsingEvent(jfrEvent, key, definition);
 			
-			logics.put(scenario, logic);
+			logics.put(scenario, new LazyLogic(plugin, definition, table));
 			plugin.getLogger().log(Level.FINE,
 					() -> logPrefix + "Registered logic for scenario: " + scenario);
 		}
 	}
 	
+	/**
+	 * Constructs a new instance from already parsed definitions,
+	 * eg. ones loaded from the {@link ScenarioCache}.
+	 * The instance is immutable, therefore it can be constructed on any thread
+	 * and it can be safely published to other threads.
+	 *
+	 * @param plugin the plugin instance
+	 * @param definitions the definitions of the scenarios
+	 */
+	@Contract(pure = true)
+	public ScenarioLogicHolder(@NotNull DragonHatcheryPlugin plugin,
+			@NotNull Map<EggScenario, ScenarioDefinition> definitions) {
+		this.plugin = plugin;
+		definitions.forEach((scenario, definition) -> {
+			try {
+				definition.validateBlockData(plugin.getBlockDataCache());
+			} catch (IllegalArgumentException e) {
+				plugin.getLogger().log(Level.SEVERE,
+						logPrefix + "Error loading cached scenario: " + scenario, e);
+				return;
+			}
+			logics.put(scenario, new LazyLogic(plugin, definition, null));
+			plugin.getLogger().log(Level.FINE,
+					() -> logPrefix + "Registered cached logic for scenario: " + scenario);
+		});
+	}
+	
 	/**
 	 * Gets the stored logic for the specified scenario.
 	 * Null is returned in case there is no stored scenario,
 	 * because the loading of the scenario has failed.
+	 * The logic is created on the first call (unless it has been pre-warmed);
+	 * this method can be safely called from any thread.
 	 *
 	 * @param scenario the scenario whose associated logic to get
 	 * @return the logic associated with the scenario
 	 * or null, if there's no valid one stored in this instance
 	 */
-	@Contract(pure = true)
 	public @Nullable ScenarioLogic getLogicFor(@NotNull EggScenario scenario) {
-		return logics.get(scenario);
+		LazyLogic logic = logics.get(scenario);
+		return logic == null ? null : logic.get();
+	}
+	
+	/**
+	 * Creates the logic of each scenario which hasn't been created yet,
+	 * so that the first egg spawning doesn't have to wait for it.
+	 * Should be called from a background thread.
+	 */
+	public void prewarm() {
+		for (LazyLogic logic : logics.values()) {
+			logic.get();
+		}
+	}
+	
+	/**
+	 * Gets the count of scenarios which were loaded successfully.
+	 *
+	 * @return the count of stored logics
+	 */
+	@Contract(pure = true)
+	public int getLoadedCount() {
+		return logics.size();
+	}
+	
+	/**
+	 * Gets the definitions of the scenarios which were loaded successfully.
+	 *
+	 * @return a new map containing the definitions of the stored logics
+	 */
+	@Contract(pure = true)
+	public @NotNull Map<EggScenario, ScenarioDefinition> getDefinitions() {
+		Map<EggScenario, ScenarioDefinition> result = new EnumMap<>(EggScenario.class);
+		logics.forEach((scenario, logic) -> result.put(scenario, logic.definition));
+		return result;
+	}
+	
+	/**
+	 * Commits the specified event (if it's being recorded),
+	 * after filling its fields based on the result of the parsing.
+	 *
+	 * @param jfrEvent the event to commit, which has already begun
+	 * @param key the name of the scenario
+	 * @param definition the parsed definition or null, if the parsing failed
+	 */
+	private static void commitParsingEvent(@NotNull ScenarioParsingEvent jfrEvent,
+			@NotNull String key, @Nullable ScenarioDefinition definition) {
+		if (jfrEvent.shouldCommit()) {
+			jfrEvent.scenario = key;
+			jfrEvent.success = definition != null;
+			jfrEvent.tableSize = definition == null ? 0 : definition.getSize();
+			jfrEvent.rollCount = definition == null ? 0 : definition.getRollCount();
+			jfrEvent.commit();
+		}
 	}
 	
 	/**
@@ -93,4 +266,58 @@ public class ScenarioLogicHolder {
 				.filter(scenario -> scenario.getConfigKey().equals(raw))
 				.findAny().orElse(null);
 	}
+	
+	/**
+	 * A {@link ScenarioLogic} which is created (at most once) when it's first requested.
+	 * Instances are shared between {@link ScenarioLogicHolder} instances
+	 * when the configuration of the scenario doesn't change.
+	 */
+	private static class LazyLogic {
+		private final DragonHatcheryPlugin plugin;
+		private final ScenarioDefinition definition;
+		private final String table;
+		private volatile ScenarioLogic logic;
+		private volatile boolean failed;
+		
+		/**
+		 * Constructs a new instance, without creating the logic.
+		 *
+		 * @param plugin the plugin instance
+		 * @param definition the definition to create the logic from
+		 * @param table the name of the world table of the logic or null, for the default table
+		 */
+		@Contract(pure = true)
+		LazyLogic(@NotNull DragonHatcheryPlugin plugin, @NotNull ScenarioDefinition definition,
+				@Nullable String table) {
+			this.plugin = plugin;
+			this.definition = definition;
+			this.table = table;
+		}
+		
+		/**
+		 * Gets the logic, creating it if this is the first call.
+		 * Returns null if the creation failed (the error is only logged once).
+		 *
+		 * @return the logic or null, if it couldn't be created
+		 */
+		@Nullable ScenarioLogic get() {
+			ScenarioLogic result = logic;
+			if (result != null || failed) {
+				return result;
+			}
+			
+			synchronized (this) {
+				if (logic == null && !failed) {
+					try {
+						logic = new ScenarioLogic(plugin, definition, table);
+					} catch (Throwable t) {
+						failed = true;
+						plugin.getLogger().log(Level.SEVERE, ScenarioLogicHolder.class.getSimpleName()
+								+ ": Error creating scenario: " + definition.getName(), t);
+					}
+				}
+				return logic;
+			}
+		}
+	}
 }
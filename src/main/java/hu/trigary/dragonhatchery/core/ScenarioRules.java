@@ -0,0 +1,521 @@
+package hu.trigary.dragonhatchery.core;
+
+import hu.trigary.dragonhatchery.DragonHatcheryPlugin;
+import hu.trigary.dragonhatchery.util.ConfigHelper;
+import hu.trigary.dragonhatchery.util.IntervalMaskIndex;
+import hu.trigary.dragonhatchery.util.InvalidConfigException;
+import org.apache.commons.lang.Validate;
+import org.bukkit.Difficulty;
+import org.bukkit.World;
+import org.bukkit.boss.DragonBattle;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Prioritized rules which decide the {@link EggScenario} of the egg spawning,
+ * instead of {@link EggScenario#getMatching(DragonBattle)}.
+ * The first matching rule (in the order of the configuration) decides the scenario,
+ * if no rules match, then {@link EggScenario#getMatching(DragonBattle)} is used.
+ * <br><br>
+ * Each rule is a bit of a {@code long} mask, therefore at most {@value #MAX_RULES} rules
+ * are supported. The conditions are compiled per dimension when the rules are loaded:
+ * the numeric ones into an {@link IntervalMaskIndex}, the difficulty into a lookup table
+ * and the world names into a mask per world (computed when the world is added,
+ * see {@link #addWorld(World)}).
+ * Matching an event is a few lookups and bitwise ANDs, regardless of the count of rules.
+ */
+public class ScenarioRules {
+	/**
+	 * The maximum count of rules.
+	 */
+	public static final int MAX_RULES = Long.SIZE;
+	private final String logPrefix = getClass().getSimpleName() + ": ";
+	private final List<Rule> rules = new ArrayList<>();
+	private final Map<Dimension, IntervalMaskIndex> dimensions = new EnumMap<>(Dimension.class);
+	private final long[] difficultyMasks = new long[Difficulty.values().length];
+	private final List<WorldPattern> worldPatterns = new ArrayList<>();
+	private final Map<UUID, Long> worldMasks = new HashMap<>();
+	private long anyWorldMask;
+	private long playersMask;
+	
+	/**
+	 * Constructs a new instance without any rules:
+	 * {@link EggScenario#getMatching(DragonBattle)} decides the scenario of each event.
+	 */
+	@Contract(pure = true)
+	public ScenarioRules() {
+		for (Dimension dimension : Dimension.values()) {
+			dimensions.put(dimension, new IntervalMaskIndex(List.of()));
+		}
+	}
+	
+	/**
+	 * Constructs a new instance from the rules of the specified configuration,
+	 * but doesn't fail if they are invalid: the invalid rules are skipped.
+	 * The instance contains no worlds, they have to be added via {@link #addWorld(World)}.
+	 *
+	 * @param plugin the plugin instance
+	 * @param pluginConfig the configuration of the plugin
+	 */
+	@Contract(pure = true)
+	public ScenarioRules(@NotNull DragonHatcheryPlugin plugin,
+			@NotNull ConfigurationSection pluginConfig) {
+		this(pluginConfig, plugin.getLogger(), null);
+	}
+	
+	/**
+	 * Constructs a new instance from the rules of the specified configuration,
+	 * but doesn't fail if they are invalid: the invalid rules are skipped.
+	 * The errors are either logged or collected, eg. by the offline validator.
+	 * The instance contains no worlds, they have to be added via {@link #addWorld(World)}.
+	 *
+	 * @param pluginConfig the configuration of the plugin
+	 * @param logger the logger to log the loaded rules (and the errors, if not collected) to
+	 * @param errors the list to add the errors to or null, to log them instead
+	 */
+	@Contract(pure = true)
+	public ScenarioRules(@NotNull ConfigurationSection pluginConfig, @NotNull Logger logger,
+			@Nullable List<InvalidConfigException> errors) {
+		Map<Dimension, List<IntervalMaskIndex.Interval>> intervals = new EnumMap<>(Dimension.class);
+		for (Dimension dimension : Dimension.values()) {
+			intervals.put(dimension, new ArrayList<>());
+		}
+		
+		ConfigurationSection config = null;
+		if (pluginConfig.isSet("scenario-rules")) {
+			try {
+				config = ConfigHelper.getSection(pluginConfig, "scenario-rules");
+			} catch (InvalidConfigException e) {
+				reportError(logger, errors, "Invalid config, unable to load scenario rules", e);
+			}
+		}
+		
+		Set<String> names = config == null ? Collections.emptySet() : config.getKeys(false);
+		for (String name : names) {
+			if (rules.size() == MAX_RULES) {
+				reportError(logger, errors, "Too many scenario rules, skipping rule: " + name,
+						new InvalidConfigException(config, name,
+								"Too many scenario rules (the limit is " + MAX_RULES + ")"));
+				continue;
+			}
+			try {
+				parseRule(ConfigHelper.getSection(config, name), name, intervals);
+			} catch (InvalidConfigException e) {
+				reportError(logger, errors, "Invalid config, skipping scenario rule: " + name, e);
+				continue;
+			}
+			logger.log(Level.FINE,
+					() -> logPrefix + "Registered scenario rule: " + name);
+		}
+		
+		intervals.forEach((dimension, list) ->
+				dimensions.put(dimension, new IntervalMaskIndex(list)));
+	}
+	
+	/**
+	 * Gets the scenario of an egg spawning: the scenario of the first matching rule
+	 * or {@link EggScenario#getMatching(DragonBattle)}, if none match.
+	 * Should only be called from the main thread.
+	 *
+	 * @param world the world in which the dragon was killed
+	 * @param battle the battle in which the dragon was killed
+	 * @param killNumber the number of the kill in the world, see {@link KillCounter}
+	 * @return the scenario of the egg spawning
+	 */
+	@Contract(pure = true)
+	public @NotNull EggScenario getMatching(@NotNull World world,
+			@NotNull DragonBattle battle, long killNumber) {
+		if (rules.isEmpty()) {
+			return EggScenario.getMatching(battle);
+		}
+		
+		Long worldMask = worldMasks.get(world.getUID());
+		long mask = (worldMask == null ? anyWorldMask : worldMask)
+				& difficultyMasks[world.getDifficulty().ordinal()]
+				& dimensions.get(Dimension.KILLS).get(killNumber)
+				& dimensions.get(Dimension.TIME).get(world.getTime());
+		if ((mask & playersMask) != 0) {
+			//Only query the players if a still matching rule depends on them:
+			//the other rules match any count of players
+			mask &= dimensions.get(Dimension.PLAYERS)
+					.get(battle.getBossBar().getPlayers().size());
+		}
+		return mask == 0 ? EggScenario.getMatching(battle)
+				: rules.get(Long.numberOfTrailingZeros(mask)).scenario;
+	}
+	
+	/**
+	 * Matches the name of the specified world against the world conditions of the rules
+	 * and stores the result, so that the matching doesn't have to do it again.
+	 * Should only be called from the main thread.
+	 *
+	 * @param world the world which was loaded
+	 */
+	public void addWorld(@NotNull World world) {
+		long mask = anyWorldMask;
+		for (WorldPattern pattern : worldPatterns) {
+			if (pattern.pattern.matcher(world.getName()).matches()) {
+				mask |= 1L << pattern.bit;
+			}
+		}
+		if (mask == anyWorldMask) {
+			worldMasks.remove(world.getUID());
+		} else {
+			worldMasks.put(world.getUID(), mask);
+		}
+	}
+	
+	/**
+	 * Forgets the specified world.
+	 * Should only be called from the main thread.
+	 *
+	 * @param world the world which was unloaded
+	 */
+	public void removeWorld(@NotNull World world) {
+		worldMasks.remove(world.getUID());
+	}
+	
+	/**
+	 * Gets the rules in the order of their priority: the index of a rule is its bit in the masks.
+	 *
+	 * @return the unmodifiable list of the loaded rules
+	 */
+	@Contract(pure = true)
+	public @NotNull List<Rule> getRules() {
+		return Collections.unmodifiableList(rules);
+	}
+	
+	/**
+	 * Gets the compiled conditions of the specified dimension.
+	 *
+	 * @param dimension the dimension whose conditions to get
+	 * @return the index of the dimension
+	 */
+	@Contract(pure = true)
+	public @NotNull IntervalMaskIndex getDimension(@NotNull Dimension dimension) {
+		return dimensions.get(dimension);
+	}
+	
+	/**
+	 * Gets the mask of the rules which allow the specified difficulty.
+	 *
+	 * @param difficulty the difficulty of the world
+	 * @return the mask of the matching rules
+	 */
+	@Contract(pure = true)
+	public long getDifficultyMask(@NotNull Difficulty difficulty) {
+		return difficultyMasks[difficulty.ordinal()];
+	}
+	
+	/**
+	 * Gets the mask of the rules which allow the specified world.
+	 * Should only be called from the main thread.
+	 *
+	 * @param world the world whose mask to get
+	 * @return the mask of the matching rules
+	 */
+	@Contract(pure = true)
+	public long getWorldMask(@NotNull World world) {
+		Long mask = worldMasks.get(world.getUID());
+		return mask == null ? anyWorldMask : mask;
+	}
+	
+	/**
+	 * Logs the specified error or adds it to the specified list, if the list isn't null.
+	 *
+	 * @param logger the logger to log the error to
+	 * @param errors the list to add the error to or null, to log it instead
+	 * @param message the message to log the error with
+	 * @param error the error to report
+	 */
+	private void reportError(@NotNull Logger logger, @Nullable List<InvalidConfigException> errors,
+			@NotNull String message, @NotNull InvalidConfigException error) {
+		if (errors != null) {
+			errors.add(error);
+		} else {
+			logger.log(Level.SEVERE, logPrefix + message, error);
+		}
+	}
+	
+	/**
+	 * Parses a rule and registers its conditions.
+	 * Nothing is registered if the rule is invalid.
+	 *
+	 * @param section the section of the rule
+	 * @param name the name of the rule
+	 * @param intervals the intervals of each dimension to add the intervals of the rule to
+	 * @throws InvalidConfigException if the rule is invalid
+	 */
+	private void parseRule(@NotNull ConfigurationSection section, @NotNull String name,
+			@NotNull Map<Dimension, List<IntervalMaskIndex.Interval>> intervals)
+			throws InvalidConfigException {
+		int bit = rules.size();
+		Map<String, String> conditions = new LinkedHashMap<>();
+		EggScenario scenario = ConfigHelper.parseValue(section, "scenario",
+				raw -> Arrays.stream(EggScenario.values())
+						.filter(s -> s.getConfigKey().equals(raw))
+						.findAny()
+						.orElseThrow(() -> new IllegalArgumentException(
+								"Unknown scenario: " + raw)));
+		
+		Map<Dimension, long[]> ranges = new EnumMap<>(Dimension.class);
+		for (Dimension dimension : Dimension.values()) {
+			if (section.isSet(dimension.getConfigKey())) {
+				long[] range = ConfigHelper.parseValue(section, dimension.getConfigKey(),
+						dimension::parseRange);
+				ranges.put(dimension, range);
+				conditions.put(dimension.getConfigKey(), range[0] + ".." + range[1]);
+			}
+		}
+		
+		long difficulties = -1;
+		if (section.isSet("difficulty")) {
+			List<Difficulty> list = ConfigHelper.computeValue(section, "difficulty", (c, k) -> {
+				List<String> raw = c.getStringList(k);
+				Validate.notEmpty(raw, "At least one difficulty must be specified");
+				List<Difficulty> result = new ArrayList<>();
+				for (String value : raw) {
+					result.add(Difficulty.valueOf(value.trim().toUpperCase(Locale.ROOT)));
+				}
+				return result;
+			});
+			difficulties = 0;
+			for (Difficulty difficulty : list) {
+				difficulties |= 1L << difficulty.ordinal();
+			}
+			conditions.put("difficulty", list.toString().toLowerCase(Locale.ROOT));
+		}
+		
+		List<String> worlds = null;
+		if (section.isSet("worlds")) {
+			worlds = ConfigHelper.computeValue(section, "worlds", (c, k) -> {
+				List<String> list = c.getStringList(k);
+				Validate.notEmpty(list, "At least one world must be specified");
+				Validate.noNullElements(list, "World names must not be null");
+				return list;
+			});
+			conditions.put("worlds", worlds.toString());
+		}
+		
+		//Everything is valid: register the rule
+		rules.add(new Rule(name, scenario, conditions));
+		if (ranges.containsKey(Dimension.PLAYERS)) {
+			playersMask |= 1L << bit;
+		}
+		for (Dimension dimension : Dimension.values()) {
+			long[] range = ranges.getOrDefault(dimension, new long[]{dimension.min, dimension.max});
+			List<IntervalMaskIndex.Interval> list = intervals.get(dimension);
+			if (range[0] <= range[1]) {
+				list.add(new IntervalMaskIndex.Interval(range[0], range[1], bit));
+			} else {
+				list.add(new IntervalMaskIndex.Interval(range[0], dimension.max, bit));
+				list.add(new IntervalMaskIndex.Interval(dimension.min, range[1], bit));
+			}
+		}
+		for (Difficulty difficulty : Difficulty.values()) {
+			if ((difficulties & (1L << difficulty.ordinal())) != 0) {
+				difficultyMasks[difficulty.ordinal()] |= 1L << bit;
+			}
+		}
+		if (worlds == null) {
+			anyWorldMask |= 1L << bit;
+		} else {
+			for (String world : worlds) {
+				worldPatterns.add(new WorldPattern(WorldScenarioIndex.compilePattern(world), bit));
+			}
+		}
+	}
+	
+	/**
+	 * The numeric conditions of the rules.
+	 */
+	public enum Dimension {
+		
+		/**
+		 * The number of the kill in the world (the first kill is 1), see {@link KillCounter}.
+		 */
+		KILLS(1, Long.MAX_VALUE, false),
+		
+		/**
+		 * The count of players taking part in the battle (seeing its boss bar).
+		 */
+		PLAYERS(0, Integer.MAX_VALUE, false),
+		
+		/**
+		 * The time of the day in the world, in ticks. Ranges may wrap around midnight,
+		 * eg. {@code 13000..1000} matches the night.
+		 */
+		TIME(0, 23_999, true);
+		
+		private final long min;
+		private final long max;
+		private final boolean wrapping;
+		
+		/**
+		 * Constructs a new constant.
+		 *
+		 * @param min the smallest valid value
+		 * @param max the largest valid value
+		 * @param wrapping whether ranges whose minimum is greater than their maximum are valid
+		 */
+		Dimension(long min, long max, boolean wrapping) {
+			this.min = min;
+			this.max = max;
+			this.wrapping = wrapping;
+		}
+		
+		/**
+		 * Gets the smallest valid value of this dimension.
+		 *
+		 * @return the smallest valid value
+		 */
+		@Contract(pure = true)
+		public long getMin() {
+			return min;
+		}
+		
+		/**
+		 * Gets the largest valid value of this dimension.
+		 *
+		 * @return the largest valid value
+		 */
+		@Contract(pure = true)
+		public long getMax() {
+			return max;
+		}
+		
+		/**
+		 * Gets the identifier of this enum constant
+		 * used inside {@link ConfigurationSection}.
+		 *
+		 * @return this constant's identifier to use in configs
+		 */
+		@Contract(pure = true)
+		public @NotNull String getConfigKey() {
+			return name().toLowerCase(Locale.ROOT);
+		}
+		
+		/**
+		 * Parses a range of this dimension: {@code min..max}, {@code min..},
+		 * {@code ..max} or a single value. Missing bounds default to the bounds of this dimension.
+		 *
+		 * @param raw the value to parse
+		 * @return the inclusive minimum and maximum of the range
+		 * @throws IllegalArgumentException if the value is invalid
+		 */
+		@Contract(pure = true)
+		long @NotNull [] parseRange(@NotNull String raw) {
+			String value = raw.trim();
+			Validate.isTrue(!value.isEmpty(), "Range must not be empty");
+			int separator = value.indexOf("..");
+			long from;
+			long to;
+			if (separator < 0) {
+				from = Long.parseLong(value);
+				to = from;
+			} else {
+				String first = value.substring(0, separator).trim();
+				String second = value.substring(separator + 2).trim();
+				from = first.isEmpty() ? min : Long.parseLong(first);
+				to = second.isEmpty() ? max : Long.parseLong(second);
+			}
+			Validate.isTrue(from >= min && from <= max && to >= min && to <= max,
+					"Range must be within " + min + ".." + max);
+			Validate.isTrue(wrapping || from <= to,
+					"Range minimum must not be greater than its maximum");
+			return new long[]{from, to};
+		}
+	}
+	
+	/**
+	 * A loaded rule: the scenario it selects and its conditions.
+	 */
+	public static class Rule {
+		private final String name;
+		private final EggScenario scenario;
+		private final Map<String, String> conditions;
+		
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param name the name of the rule
+		 * @param scenario the scenario the rule selects
+		 * @param conditions the human readable form of the conditions
+		 */
+		@Contract(pure = true)
+		Rule(@NotNull String name, @NotNull EggScenario scenario,
+				@NotNull Map<String, String> conditions) {
+			this.name = name;
+			this.scenario = scenario;
+			this.conditions = Collections.unmodifiableMap(conditions);
+		}
+		
+		/**
+		 * Gets the name of this rule.
+		 *
+		 * @return the name of this rule
+		 */
+		@Contract(pure = true)
+		public @NotNull String getName() {
+			return name;
+		}
+		
+		/**
+		 * Gets the scenario this rule selects.
+		 *
+		 * @return the scenario of this rule
+		 */
+		@Contract(pure = true)
+		public @NotNull EggScenario getScenario() {
+			return scenario;
+		}
+		
+		/**
+		 * Gets the conditions of this rule (by their config keys) in human readable form.
+		 * The missing conditions match everything.
+		 *
+		 * @return the unmodifiable map of the conditions
+		 */
+		@Contract(pure = true)
+		public @NotNull Map<String, String> getConditions() {
+			return conditions;
+		}
+	}
+	
+	/**
+	 * A world name pattern of a rule.
+	 */
+	private static class WorldPattern {
+		private final Pattern pattern;
+		private final int bit;
+		
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param pattern the compiled pattern
+		 * @param bit the bit of the rule
+		 */
+		@Contract(pure = true)
+		WorldPattern(@NotNull Pattern pattern, int bit) {
+			this.pattern = pattern;
+			this.bit = bit;
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package hu.trigary.dragonhatchery.core;
+
+import hu.trigary.dragonhatchery.DragonHatcheryPlugin;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Listener keeping the current {@link WorldScenarioIndex} and {@link ScenarioRules}
+ * up-to-date as worlds get loaded and unloaded.
+ */
+public class WorldIndexListener implements Listener {
+	private final DragonHatcheryPlugin plugin;
+	
+	/**
+	 * Constructs a new instance. It needs to be manually registered
+	 * via {@link PluginManager#registerEvents(Listener, Plugin)}.
+	 *
+	 * @param plugin the plugin instance
+	 */
+	public WorldIndexListener(@NotNull DragonHatcheryPlugin plugin) {
+		this.plugin = plugin;
+	}
+	
+	/**
+	 * Adds the newly loaded world to the index and the rules.
+	 *
+	 * @param event the event being fired
+	 */
+	@EventHandler(priority = EventPriority.MONITOR)
+	private void onWorldLoad(@NotNull WorldLoadEvent event) {
+		plugin.getScenarioIndex().addWorld(event.getWorld());
+		plugin.getScenarioRules().addWorld(event.getWorld());
+	}
+	
+	/**
+	 * Removes the unloaded world from the index and the rules.
+	 * We listen on the {@link EventPriority#MONITOR}:
+	 * the world is only removed if no other plugin has cancelled the unloading.
+	 *
+	 * @param event the event being fired
+	 */
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	private void onWorldUnload(@NotNull WorldUnloadEvent event) {
+		plugin.getScenarioIndex().removeWorld(event.getWorld());
+		plugin.getScenarioRules().removeWorld(event.getWorld());
+	}
+}
@@ -0,0 +1,272 @@
+package hu.trigary.dragonhatchery.core;
+
+import hu.trigary.dragonhatchery.DragonHatcheryPlugin;
+import hu.trigary.dragonhatchery.util.ConfigHelper;
+import hu.trigary.dragonhatchery.util.InvalidConfigException;
+import org.apache.commons.lang.Validate;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.regex.Pattern;
+
+/**
+ * Routes the worlds to the {@link ScenarioLogicHolder} instances
+ * which should handle the egg spawning in them.
+ * Each world table of the configuration has its own {@link ScenarioLogicHolder},
+ * the worlds that don't belong to any table use the default one.
+ * <br><br>
+ * The world names are only matched against the tables when the world is added
+ * (see {@link #addWorld(World)}): looking up the table of a world
+ * is a single hash lookup by its {@link UUID}, see {@link #getHolderFor(World)}.
+ * Exact world names take precedence over wildcard patterns,
+ * the patterns are matched in the order they appear in the configuration.
+ */
+public class WorldScenarioIndex {
+	private final String logPrefix = getClass().getSimpleName() + ": ";
+	private final Map<String, ScenarioLogicHolder> tables = new LinkedHashMap<>();
+	private final Map<String, ScenarioLogicHolder> exactNames = new HashMap<>();
+	private final List<WildcardRoute> wildcards = new ArrayList<>();
+	private final Map<UUID, ScenarioLogicHolder> byWorld = new HashMap<>();
+	private final ScenarioLogicHolder defaultHolder;
+	
+	/**
+	 * Constructs a new instance without any world tables:
+	 * each world is handled by the specified instance.
+	 *
+	 * @param defaultHolder the instance handling all worlds
+	 */
+	@Contract(pure = true)
+	public WorldScenarioIndex(@NotNull ScenarioLogicHolder defaultHolder) {
+		this.defaultHolder = defaultHolder;
+	}
+	
+	/**
+	 * Constructs a new instance from the world tables of the specified configuration,
+	 * but doesn't fail if they are invalid: the invalid tables are skipped.
+	 * The scenarios missing from a table are inherited from the default instance.
+	 * The tables of the previous instance are reused (by name) the same way
+	 * as {@link ScenarioLogicHolder#ScenarioLogicHolder(DragonHatcheryPlugin,
+	 * ConfigurationSection, ScenarioLogicHolder)} reuses the unchanged scenarios.
+	 * The instance contains no worlds, they have to be added via {@link #addWorld(World)}.
+	 *
+	 * @param plugin the plugin instance
+	 * @param pluginConfig the configuration of the plugin
+	 * @param defaultHolder the instance handling the worlds which don't belong to any table
+	 * @param previous the instance whose unchanged tables to reuse or null, to parse everything
+	 */
+	@Contract(pure = true)
+	public WorldScenarioIndex(@NotNull DragonHatcheryPlugin plugin,
+			@NotNull ConfigurationSection pluginConfig, @NotNull ScenarioLogicHolder defaultHolder,
+			@Nullable WorldScenarioIndex previous) {
+		this.defaultHolder = defaultHolder;
+		if (!pluginConfig.isSet("world-tables")) {
+			return;
+		}
+		
+		ConfigurationSection config;
+		try {
+			config = ConfigHelper.getSection(pluginConfig, "world-tables");
+		} catch (InvalidConfigException e) {
+			plugin.getLogger().log(Level.SEVERE,
+					logPrefix + "Invalid config, unable to load world tables", e);
+			return;
+		}
+		
+		for (String name : config.getKeys(false)) {
+			List<String> worlds;
+			ConfigurationSection section;
+			try {
+				section = ConfigHelper.getSection(config, name);
+				worlds = ConfigHelper.computeValue(section, "worlds", (c, k) -> {
+					List<String> list = c.getStringList(k);
+					Validate.notEmpty(list, "At least one world must be specified");
+					Validate.noNullElements(list, "World names must not be null");
+					return list;
+				});
+			} catch (InvalidConfigException e) {
+				plugin.getLogger().log(Level.SEVERE,
+						logPrefix + "Invalid config, skipping world table: " + name, e);
+				continue;
+			}
+			
+			ScenarioLogicHolder previousHolder = previous == null
+					? null : previous.tables.get(name);
+			ScenarioLogicHolder holder = new ScenarioLogicHolder(plugin,
+					section, previousHolder, defaultHolder, name);
+			tables.put(name, holder);
+			for (String world : worlds) {
+				addRoute(plugin, name, world, holder);
+			}
+			plugin.getLogger().log(Level.FINE,
+					() -> logPrefix + "Registered world table: " + name);
+		}
+	}
+	
+	/**
+	 * Gets the instance which handles the egg spawning in the specified world.
+	 * Worlds which haven't been added (or don't belong to any table) use the default instance.
+	 * Should only be called from the main thread.
+	 *
+	 * @param world the world whose instance to get
+	 * @return the instance handling the world
+	 */
+	@Contract(pure = true)
+	public @NotNull ScenarioLogicHolder getHolderFor(@NotNull World world) {
+		return byWorld.getOrDefault(world.getUID(), defaultHolder);
+	}
+	
+	/**
+	 * Gets the instance which handles the worlds that don't belong to any table.
+	 *
+	 * @return the default instance
+	 */
+	@Contract(pure = true)
+	public @NotNull ScenarioLogicHolder getDefault() {
+		return defaultHolder;
+	}
+	
+	/**
+	 * Gets the count of world tables which were loaded successfully.
+	 *
+	 * @return the count of tables, not counting the default one
+	 */
+	@Contract(pure = true)
+	public int getTableCount() {
+		return tables.size();
+	}
+	
+	/**
+	 * Matches the name of the specified world against the tables
+	 * and stores the result, so that the lookups don't have to match it again.
+	 * Should only be called from the main thread.
+	 *
+	 * @param world the world which was loaded
+	 */
+	public void addWorld(@NotNull World world) {
+		ScenarioLogicHolder holder = resolve(world.getName());
+		if (holder == defaultHolder) {
+			byWorld.remove(world.getUID());
+		} else {
+			byWorld.put(world.getUID(), holder);
+		}
+	}
+	
+	/**
+	 * Forgets the specified world.
+	 * Should only be called from the main thread.
+	 *
+	 * @param world the world which was unloaded
+	 */
+	public void removeWorld(@NotNull World world) {
+		byWorld.remove(world.getUID());
+	}
+	
+	/**
+	 * Pre-warms the default instance and the instance of each table,
+	 * see {@link ScenarioLogicHolder#prewarm()}.
+	 * Should be called from a background thread.
+	 */
+	public void prewarm() {
+		defaultHolder.prewarm();
+		tables.values().forEach(ScenarioLogicHolder::prewarm);
+	}
+	
+	/**
+	 * Gets the instance which should handle the world with the specified name.
+	 *
+	 * @param worldName the name of the world
+	 * @return the instance of the matching table or the default instance, if none match
+	 */
+	@Contract(pure = true)
+	private @NotNull ScenarioLogicHolder resolve(@NotNull String worldName) {
+		ScenarioLogicHolder holder = exactNames.get(worldName);
+		if (holder != null) {
+			return holder;
+		}
+		for (WildcardRoute route : wildcards) {
+			if (route.pattern.matcher(worldName).matches()) {
+				return route.holder;
+			}
+		}
+		return defaultHolder;
+	}
+	
+	/**
+	 * Registers a world name or wildcard pattern of a table.
+	 * If an exact world name is listed in multiple tables, the first table wins.
+	 *
+	 * @param plugin the plugin instance
+	 * @param table the name of the table
+	 * @param world the world name or pattern ('*' and '?' are wildcards)
+	 * @param holder the instance of the table
+	 */
+	private void addRoute(@NotNull DragonHatcheryPlugin plugin, @NotNull String table,
+			@NotNull String world, @NotNull ScenarioLogicHolder holder) {
+		if (world.indexOf('*') < 0 && world.indexOf('?') < 0) {
+			if (exactNames.putIfAbsent(world, holder) != null) {
+				plugin.getLogger().log(Level.WARNING, logPrefix + "World " + world
+						+ " is listed in multiple tables, ignoring it in table: " + table);
+			}
+		} else {
+			wildcards.add(new WildcardRoute(compilePattern(world), holder));
+		}
+	}
+	
+	/**
+	 * Converts the specified wildcard pattern to a regular expression:
+	 * '*' matches any count of characters, '?' matches a single character,
+	 * everything else matches itself.
+	 *
+	 * @param wildcard the pattern to convert
+	 * @return the compiled regular expression
+	 */
+	@Contract(pure = true)
+	static @NotNull Pattern compilePattern(@NotNull String wildcard) {
+		StringBuilder regex = new StringBuilder();
+		int literalStart = 0;
+		for (int i = 0; i < wildcard.length(); i++) {
+			char c = wildcard.charAt(i);
+			if (c == '*' || c == '?') {
+				if (literalStart < i) {
+					regex.append(Pattern.quote(wildcard.substring(literalStart, i)));
+				}
+				regex.append(c == '*' ? ".*" : ".");
+				literalStart = i + 1;
+			}
+		}
+		if (literalStart < wildcard.length()) {
+			regex.append(Pattern.quote(wildcard.substring(literalStart)));
+		}
+		return Pattern.compile(regex.toString(), Pattern.DOTALL);
+	}
+	
+	/**
+	 * A wildcard pattern and the table whose worlds it matches.
+	 */
+	private static class WildcardRoute {
+		private final Pattern pattern;
+		private final ScenarioLogicHolder holder;
+		
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param pattern the compiled pattern
+		 * @param holder the instance of the table
+		 */
+		@Contract(pure = true)
+		WildcardRoute(@NotNull Pattern pattern, @NotNull ScenarioLogicHolder holder) {
+			this.pattern = pattern;
+			this.holder = holder;
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package hu.trigary.dragonhatchery.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event: the handling of a dragon egg spawning.
+ * The duration of the event is the time the plugin spent handling the spawning.
+ * <br><br>
+ * Usage: {@link #begin()} before the handling, then set the fields and {@link #commit()}
+ * only if {@link #shouldCommit()} returns true, so that nothing is done when not recording.
+ */
+@Name("hu.trigary.dragonhatchery.EggFormHandling")
+@Label("Egg Form Handling")
+@Category("DragonHatchery")
+@Description("The handling of a dragon egg spawning")
+@StackTrace(false)
+public class EggFormHandlingEvent extends Event {
+	
+	/**
+	 * The name of the detected scenario or null, if the handling failed before detecting it.
+	 */
+	@Label("Scenario")
+	public String scenario;
+	
+	/**
+	 * Whether the egg spawning was allowed.
+	 */
+	@Label("Allowed")
+	public boolean allowed;
+	
+	/**
+	 * The count of spawned blocks, 0 if the egg spawning was cancelled.
+	 */
+	@Label("Spawned Blocks")
+	public int spawnedBlocks;
+	
+	/**
+	 * Whether the handling failed with an exception (in which case the spawning was cancelled).
+	 */
+	@Label("Failed")
+	public boolean failed;
+}
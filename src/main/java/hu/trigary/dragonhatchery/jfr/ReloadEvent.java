@@ -0,0 +1,34 @@
+package hu.trigary.dragonhatchery.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event: the (re-)initialization of the plugin,
+ * including the reloading of its configuration.
+ * <br><br>
+ * Usage: see {@link EggFormHandlingEvent}.
+ */
+@Name("hu.trigary.dragonhatchery.Reload")
+@Label("Reload")
+@Category("DragonHatchery")
+@Description("The reloading of the configuration of the plugin")
+@StackTrace(false)
+public class ReloadEvent extends Event {
+	
+	/**
+	 * The count of scenarios which were loaded successfully.
+	 */
+	@Label("Loaded Scenarios")
+	public int loadedScenarios;
+	
+	/**
+	 * Whether debug logging is enabled.
+	 */
+	@Label("Debug Logging")
+	public boolean debugLogging;
+}
@@ -0,0 +1,45 @@
+package hu.trigary.dragonhatchery.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event: the parsing of a scenario from the configuration.
+ * <br><br>
+ * Usage: see {@link EggFormHandlingEvent}.
+ */
+@Name("hu.trigary.dragonhatchery.ScenarioParsing")
+@Label("Scenario Parsing")
+@Category("DragonHatchery")
+@Description("The parsing of a scenario from the configuration")
+@StackTrace(false)
+public class ScenarioParsingEvent extends Event {
+	
+	/**
+	 * The name of the scenario.
+	 */
+	@Label("Scenario")
+	public String scenario;
+	
+	/**
+	 * Whether the scenario was parsed successfully.
+	 */
+	@Label("Success")
+	public boolean success;
+	
+	/**
+	 * The count of blocks the spawned blocks are rolled from, 0 if the parsing failed.
+	 */
+	@Label("Table Size")
+	public int tableSize;
+	
+	/**
+	 * The count of blocks rolled per spawning, 0 if the parsing failed.
+	 */
+	@Label("Roll Count")
+	public int rollCount;
+}
@@ -0,0 +1,40 @@
+package hu.trigary.dragonhatchery.jfr;
+
+import hu.trigary.dragonhatchery.util.WeightedRandomCollection;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event: the construction of a {@link WeightedRandomCollection}.
+ * <br><br>
+ * Usage: see {@link EggFormHandlingEvent}.
+ */
+@Name("hu.trigary.dragonhatchery.WeightedTableBuild")
+@Label("Weighted Table Build")
+@Category("DragonHatchery")
+@Description("The construction of a weighted random collection")
+@StackTrace(false)
+public class WeightedTableBuildEvent extends Event {
+	
+	/**
+	 * The count of entries in the collection.
+	 */
+	@Label("Size")
+	public int size;
+	
+	/**
+	 * The name of the used {@link WeightedRandomCollection.Engine}.
+	 */
+	@Label("Engine")
+	public String engine;
+	
+	/**
+	 * The sum of the weights of the entries.
+	 */
+	@Label("Weight Sum")
+	public double weightSum;
+}
@@ -0,0 +1,76 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * {@link IndexSampler} implementation based on Vose's alias method.
+ * Construction takes linear time, sampling takes constant time and doesn't allocate.
+ * <br><br>
+ * Each index owns a column of equal height, which is split between the index
+ * itself ({@link #probabilities}) and at most one other index ({@link #aliases}).
+ */
+final class AliasIndexSampler implements IndexSampler {
+	private final double[] probabilities;
+	private final int[] aliases;
+	
+	/**
+	 * Constructs a new sampler from the specified weights.
+	 *
+	 * @param weights the positive weights of the entries
+	 * @param weightSum the sum of the weights
+	 */
+	AliasIndexSampler(double @NotNull [] weights, double weightSum) {
+		int count = weights.length;
+		probabilities = new double[count];
+		aliases = new int[count];
+		
+		double[] scaled = new double[count];
+		int[] small = new int[count];
+		int[] large = new int[count];
+		int smallSize = 0;
+		int largeSize = 0;
+		for (int i = 0; i < count; i++) {
+			scaled[i] = weights[i] * count / weightSum;
+			if (scaled[i] < 1) {
+				small[smallSize++] = i;
+			} else {
+				large[largeSize++] = i;
+			}
+		}
+		
+		while (smallSize > 0 && largeSize > 0) {
+			int less = small[--smallSize];
+			int more = large[--largeSize];
+			probabilities[less] = scaled[less];
+			aliases[less] = more;
+			scaled[more] = (scaled[more] + scaled[less]) - 1;
+			if (scaled[more] < 1) {
+				small[smallSize++] = more;
+			} else {
+				large[largeSize++] = more;
+			}
+		}
+		
+		//The leftover columns are full (only differ from 1 due to rounding errors)
+		while (largeSize > 0) {
+			int index = large[--largeSize];
+			probabilities[index] = 1;
+			aliases[index] = index;
+		}
+		while (smallSize > 0) {
+			int index = small[--smallSize];
+			probabilities[index] = 1;
+			aliases[index] = index;
+		}
+	}
+	
+	@Override
+	@Contract(pure = true)
+	public int getIndex(double roll) {
+		//The integer part selects the column, the fractional part selects within the column
+		double scaled = roll * probabilities.length;
+		int column = Math.min((int) scaled, probabilities.length - 1);
+		return scaled - column < probabilities[column] ? column : aliases[column];
+	}
+}
@@ -0,0 +1,264 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.apache.commons.lang.Validate;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * A logger handler which hands the records to a bounded {@link MpscArrayQueue},
+ * which is consumed by a single daemon thread: the threads that log (eg. the main thread)
+ * never wait for the formatting of the records or for the console.
+ * What happens when the queue is full is decided by the {@link FullPolicy}.
+ * <br><br>
+ * Use {@link #attach(Plugin, int, FullPolicy)} to make a plugin's logging asynchronous.
+ */
+public class AsyncLogHandler extends Handler {
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+	private final String logPrefix = getClass().getSimpleName() + ": ";
+	private final AtomicLong accepted = new AtomicLong();
+	private final LongAdder dropped = new LongAdder();
+	private final MpscArrayQueue<LogRecord> queue;
+	private final int capacity;
+	private final FullPolicy policy;
+	private final Consumer<LogRecord> sink;
+	private final Thread consumer;
+	private volatile long processed;
+	private volatile boolean closed;
+	private Logger attachedTo;
+	
+	/**
+	 * Constructs a new instance and starts its background thread.
+	 *
+	 * @param capacity the maximum count of records waiting to be processed
+	 * @param policy what to do with records when the queue is full
+	 * @param sink the action which processes the records on the background thread
+	 */
+	public AsyncLogHandler(int capacity, @NotNull FullPolicy policy,
+			@NotNull Consumer<LogRecord> sink) {
+		queue = new MpscArrayQueue<>(capacity);
+		this.capacity = capacity;
+		this.policy = policy;
+		this.sink = sink;
+		consumer = new Thread(this::runConsumer, "DragonHatchery-AsyncLog");
+		consumer.setDaemon(true);
+		consumer.start();
+	}
+	
+	/**
+	 * Makes the logging of the specified plugin asynchronous: the records logged via
+	 * {@link Plugin#getLogger()} are forwarded to its parent logger on a background thread.
+	 * Also handles the debug records, see {@link DebugLogHandler}
+	 * (which shouldn't be attached separately).
+	 *
+	 * @param plugin the plugin whose logging to make asynchronous
+	 * @param capacity the maximum count of records waiting to be processed
+	 * @param policy what to do with records when the queue is full
+	 * @return the newly created and attached handler
+	 */
+	public static @NotNull AsyncLogHandler attach(@NotNull Plugin plugin, int capacity,
+			@NotNull FullPolicy policy) {
+		Logger logger = plugin.getLogger();
+		Logger parent = logger.getParent();
+		Validate.notNull(parent, "Logger must have a parent");
+		Handler debugHandler = new DebugLogHandler(plugin);
+		AsyncLogHandler handler = new AsyncLogHandler(capacity, policy, record -> {
+			debugHandler.publish(record);
+			parent.log(record);
+		});
+		
+		handler.attachedTo = logger;
+		logger.addHandler(handler);
+		logger.setUseParentHandlers(false);
+		return handler;
+	}
+	
+	/**
+	 * Undoes {@link #attach(Plugin, int, FullPolicy)}: processes the remaining records,
+	 * then closes this handler and restores the logger's synchronous behaviour.
+	 */
+	public void detach() {
+		Validate.notNull(attachedTo, "Handler must be attached");
+		attachedTo.removeHandler(this);
+		attachedTo.setUseParentHandlers(true);
+		close();
+	}
+	
+	/**
+	 * Gets the capacity this handler was constructed with.
+	 * The actual capacity of the queue may be larger, see {@link MpscArrayQueue}.
+	 *
+	 * @return the requested capacity of the queue
+	 */
+	@Contract(pure = true)
+	public int getCapacity() {
+		return capacity;
+	}
+	
+	/**
+	 * Gets what happens with records when the queue is full.
+	 *
+	 * @return the policy of this handler
+	 */
+	@Contract(pure = true)
+	public @NotNull FullPolicy getPolicy() {
+		return policy;
+	}
+	
+	/**
+	 * Gets the count of records that were added to the queue.
+	 * Each of them is processed, unless the background thread is interrupted.
+	 *
+	 * @return the count of accepted records
+	 */
+	public long getAcceptedCount() {
+		return accepted.get();
+	}
+	
+	/**
+	 * Gets the count of records that were dropped because the queue was full.
+	 *
+	 * @return the count of dropped records
+	 */
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+	
+	@Override
+	public void publish(@NotNull LogRecord record) {
+		if (closed || !isLoggable(record)) {
+			return;
+		}
+		
+		//The source is inferred lazily from the stack of the calling thread:
+		//it must be done before the record is handed to the background thread
+		record.getSourceClassName();
+		while (!queue.offer(record)) {
+			if (policy == FullPolicy.DROP || closed) {
+				dropped.increment();
+				return;
+			}
+			LockSupport.unpark(consumer);
+			Thread.yield();
+		}
+		accepted.incrementAndGet();
+		if (closed) {
+			//The handler was closed concurrently: the background thread might have stopped
+			drainAfterClose();
+		}
+	}
+	
+	/**
+	 * Waits until the records published before this call have been processed.
+	 */
+	@Override
+	public void flush() {
+		long target = accepted.get();
+		while (processed < target && consumer.isAlive()) {
+			LockSupport.unpark(consumer);
+			LockSupport.parkNanos(this, TimeUnit.MICROSECONDS.toNanos(100));
+		}
+	}
+	
+	/**
+	 * Processes the remaining records, then stops the background thread.
+	 * Records published afterwards are ignored,
+	 * except for the ones whose publishing was already in progress:
+	 * those are processed by the publishing thread.
+	 */
+	@Override
+	public void close() {
+		flush();
+		closed = true;
+		LockSupport.unpark(consumer);
+		try {
+			consumer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		drainAfterClose();
+	}
+	
+	/**
+	 * Processes the records which were added to the queue after the background thread stopped.
+	 * Does nothing while the background thread is still running: it processes them itself.
+	 * Synchronized, because the queue only supports a single consumer at a time.
+	 */
+	private synchronized void drainAfterClose() {
+		if (consumer.isAlive()) {
+			return;
+		}
+		LogRecord record;
+		while ((record = queue.poll()) != null) {
+			process(record);
+		}
+	}
+	
+	/**
+	 * The body of the background thread: processes the records until closed.
+	 */
+	private void runConsumer() {
+		long reportedDropped = 0;
+		while (true) {
+			LogRecord record = queue.poll();
+			if (record != null) {
+				process(record);
+				continue;
+			}
+			
+			long currentDropped = dropped.sum();
+			if (currentDropped != reportedDropped) {
+				process(new LogRecord(Level.WARNING, logPrefix + "Dropped "
+						+ (currentDropped - reportedDropped) + " log records, the queue was full"));
+				reportedDropped = currentDropped;
+			}
+			
+			if (closed && queue.size() == 0) {
+				return;
+			}
+			LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+		}
+	}
+	
+	/**
+	 * Passes the specified record to the sink, reporting (but otherwise ignoring) exceptions.
+	 *
+	 * @param record the record to process
+	 */
+	private void process(@NotNull LogRecord record) {
+		try {
+			sink.accept(record);
+		} catch (Exception e) {
+			reportError("Failed to process record", e, ErrorManager.GENERIC_FAILURE);
+		}
+		//noinspection NonAtomicOperationOnVolatileField: only a single thread writes it at a time
+		processed++;
+	}
+	
+	/**
+	 * What to do with new records when the queue is full.
+	 */
+	public enum FullPolicy {
+		/**
+		 * The record is dropped (and counted): the logging thread never waits.
+		 */
+		DROP,
+		
+		/**
+		 * The logging thread waits until the record can be added to the queue:
+		 * no records are lost.
+		 */
+		BLOCK
+	}
+}
@@ -4,9 +4,15 @@ import org.apache.commons.lang.Validate;
 import org.bukkit.configuration.ConfigurationSection;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.regex.Pattern;
 
 /**
  * Helper around {@link ConfigurationSection} based configurations.
@@ -67,6 +73,27 @@ public final class ConfigHelper {
 		}
 	}
 	
+	/**
+	 * Parses the value at the specified location, the same way as
+	 * {@link #parseValue(ConfigurationSection, String, Function)} does,
+	 * except that the default value is returned if the value doesn't exist.
+	 * The default value is not validated by the parser.
+	 *
+	 * @param config the config in which to search
+	 * @param key the identifier of the value
+	 * @param parser the function that parses the raw {@link String} value
+	 * @param defaultValue the value to return if the value doesn't exist
+	 * @param <T> the type of the parsed value
+	 * @return the parsed value or the default value
+	 * @throws InvalidConfigException if parsing failed
+	 */
+	@Contract(pure = true)
+	public static <T> @NotNull T parseValue(@NotNull ConfigurationSection config,
+			@NotNull String key, @NotNull Function<String, T> parser, @NotNull T defaultValue)
+			throws InvalidConfigException {
+		return config.isSet(key) ? parseValue(config, key, parser) : defaultValue;
+	}
+	
 	/**
 	 * Gets the value at the specified location: the specified parsing function
 	 * is responsible for getting and parsing the value from the config.
@@ -94,4 +121,125 @@ public final class ConfigHelper {
 					"Compute error: invalid value", t);
 		}
 	}
+	
+	/**
+	 * Computes a fingerprint of the content of the specified section:
+	 * the SHA-256 hash of all of its (nested) keys and values, in order.
+	 * Two sections with the same content have the same fingerprint,
+	 * regardless of their location, therefore the fingerprint can be used
+	 * to detect whether a section has changed since a previous load.
+	 *
+	 * @param config the section whose fingerprint to compute
+	 * @return the fingerprint of the section, in hexadecimal form
+	 */
+	@Contract(pure = true)
+	public static @NotNull String fingerprint(@NotNull ConfigurationSection config) {
+		MessageDigest digest = newDigest();
+		for (Map.Entry<String, Object> entry : config.getValues(true).entrySet()) {
+			Object value = entry.getValue();
+			if (!(value instanceof ConfigurationSection)) {
+				String line = entry.getKey() + '=' + value + '\n';
+				digest.update(line.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		return toHex(digest.digest());
+	}
+	
+	/**
+	 * Computes a fingerprint of the raw content of a configuration file:
+	 * the SHA-256 hash of the bytes.
+	 * Unlike {@link #fingerprint(ConfigurationSection)}, this changes
+	 * even if only the formatting (or the comments) of the file change.
+	 *
+	 * @param raw the content of the file
+	 * @return the fingerprint of the file, in hexadecimal form
+	 */
+	@Contract(pure = true)
+	public static @NotNull String fingerprint(byte @NotNull [] raw) {
+		return toHex(newDigest().digest(raw));
+	}
+	
+	/**
+	 * Removes a top-level section from the raw content of a YAML configuration file,
+	 * so that the rest of the file can be parsed without paying for that section.
+	 * The section must be in block style: its lines are the ones following its key
+	 * which are indented, empty or comments.
+	 * Null is returned if the section can't be removed safely: if it's missing,
+	 * if it's present multiple times, if it isn't in block style
+	 * or if it might define an anchor (which the rest of the file might refer to).
+	 *
+	 * @param raw the content of the file, encoded in UTF-8
+	 * @param key the key of the top-level section to remove
+	 * @return the content without the section or null, if the section couldn't be removed
+	 */
+	@Contract(pure = true)
+	public static byte @Nullable [] removeTopLevelSection(byte @NotNull [] raw,
+			@NotNull String key) {
+		Pattern start = Pattern.compile(Pattern.quote(key) + "[ \\t]*:[ \\t]*(#.*)?\\r?");
+		String[] lines = new String(raw, StandardCharsets.UTF_8).split("\n", -1);
+		StringBuilder result = new StringBuilder(raw.length);
+		boolean found = false;
+		boolean inSection = false;
+		for (String line : lines) {
+			if (inSection) {
+				if (line.isBlank() || line.startsWith(" ") || line.startsWith("#")
+						|| (line.startsWith("-") && !line.startsWith("---"))) {
+					if (line.indexOf('&') != -1) {
+						return null;
+					}
+					continue;
+				}
+				inSection = false;
+			}
+			
+			if (start.matcher(line).matches()) {
+				if (found) {
+					return null;
+				}
+				found = true;
+				inSection = true;
+			} else {
+				result.append(line).append('\n');
+			}
+		}
+		if (!found) {
+			return null;
+		}
+		
+		//The last line wasn't followed by a line break (if the section wasn't the last line)
+		if (result.length() > 0) {
+			result.setLength(result.length() - 1);
+		}
+		return result.toString().getBytes(StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Creates a new SHA-256 digest.
+	 *
+	 * @return the new digest
+	 */
+	@Contract(pure = true)
+	private static @NotNull MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 must be supported", e);
+		}
+	}
+	
+	/**
+	 * Converts the specified bytes to their hexadecimal form.
+	 *
+	 * @param bytes the bytes to convert
+	 * @return the bytes in hexadecimal form, two characters per byte
+	 */
+	@Contract(pure = true)
+	private static @NotNull String toHex(byte @NotNull [] bytes) {
+		StringBuilder builder = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			builder.append(Character.forDigit((b >> 4) & 0xF, 16))
+					.append(Character.forDigit(b & 0xF, 16));
+		}
+		return builder.toString();
+	}
 }
@@ -52,7 +52,7 @@ public class DebugLogHandler extends Handler {
 	private final Plugin plugin;
 	
 	@Contract(pure = true)
-	private DebugLogHandler(@NotNull Plugin plugin) {
+	DebugLogHandler(@NotNull Plugin plugin) {
 		this.plugin = plugin;
 	}
 	
@@ -0,0 +1,186 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.apache.commons.lang.Validate;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A mutable collection which can retrieve random entries
+ * from its pool of entry-weight pairs.
+ * Weights are stored in a {@link FenwickTree}, therefore sampling,
+ * adding, removing entries and changing weights all take logarithmic time
+ * (adding is amortized: the tree is rebuilt when it runs out of capacity).
+ * <br><br>
+ * The entries can be null and the same entry can be present multiple times.
+ * The weights must be positive (non-zero and non-negative) values.
+ * The collection must not be empty when sampling from it.
+ * <br><br>
+ * This class is not thread-safe: it should only be accessed from a single thread,
+ * eg. the main thread.
+ *
+ * @param <E> the type of the entry
+ */
+public class DynamicWeightedRandomCollection<E> implements WeightedRandom<E> {
+	private static final int DEFAULT_CAPACITY = 16;
+	private Object[] entries;
+	private double[] weights;
+	private FenwickTree tree;
+	private int size;
+	
+	/**
+	 * Constructs a new, empty collection.
+	 */
+	public DynamicWeightedRandomCollection() {
+		entries = new Object[DEFAULT_CAPACITY];
+		weights = new double[DEFAULT_CAPACITY];
+		tree = new FenwickTree(DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Constructs a new collection from the specified source.
+	 * The source may be empty.
+	 *
+	 * @param source the source of the entries and weights
+	 * @param entryExtractor the function which gets an entry from a source element
+	 * @param weightExtractor the function which gets a weight from a source element
+	 * @param <T> the type of the source elements
+	 */
+	public <T> DynamicWeightedRandomCollection(@NotNull Collection<T> source,
+			@NotNull Function<T, E> entryExtractor,
+			@NotNull ToDoubleFunction<T> weightExtractor) {
+		int capacity = Math.max(DEFAULT_CAPACITY, source.size());
+		entries = new Object[capacity];
+		weights = new double[capacity];
+		for (T value : source) {
+			double weight = weightExtractor.applyAsDouble(value);
+			Validate.isTrue(weight > 0, "Weights must be positive values");
+			entries[size] = entryExtractor.apply(value);
+			weights[size++] = weight;
+		}
+		tree = new FenwickTree(weights, size, capacity);
+	}
+	
+	@Override
+	@Contract(pure = true)
+	public int size() {
+		return size;
+	}
+	
+	@Override
+	@Contract(pure = true)
+	public E get(int index) {
+		checkIndex(index);
+		//Only entries of type E are stored in the array: the cast is safe
+		//noinspection unchecked
+		return (E) entries[index];
+	}
+	
+	@Override
+	@Contract(pure = true)
+	public double getWeight(int index) {
+		checkIndex(index);
+		return weights[index];
+	}
+	
+	@Override
+	@Contract(pure = true)
+	public int getIndex(double roll) {
+		Validate.isTrue(size > 0, "Collection must not be empty");
+		//Rounding errors might cause the search to overshoot: clamp the result
+		return Math.min(tree.find(roll * tree.prefixSum(size)), size - 1);
+	}
+	
+	@Override
+	public int sampleDistinct(@NotNull RandomSource random, int count,
+			int @NotNull [] outIndices) {
+		Validate.isTrue(count >= 0 && count <= outIndices.length,
+				"Count must be between 0 and the length of the array");
+		int selected = Math.min(count, size);
+		tree.sampleDistinct(random, weights, size, selected, outIndices);
+		return selected;
+	}
+	
+	@Override
+	@Unmodifiable
+	@Contract(pure = true)
+	public @NotNull Collection<E> getEntries() {
+		//Only entries of type E are stored in the array: the cast is safe
+		//noinspection unchecked
+		return Collections.unmodifiableList(Arrays.asList((E[]) entries).subList(0, size));
+	}
+	
+	/**
+	 * Changes the weight of the entry at the specified index.
+	 *
+	 * @param index the index of the entry
+	 * @param weight the new, positive weight of the entry
+	 */
+	public void setWeight(int index, double weight) {
+		checkIndex(index);
+		Validate.isTrue(weight > 0, "Weights must be positive values");
+		tree.add(index, weight - weights[index]);
+		weights[index] = weight;
+	}
+	
+	/**
+	 * Adds a new entry to the end of this collection.
+	 *
+	 * @param entry the entry to add
+	 * @param weight the positive weight of the entry
+	 * @return the index of the newly added entry
+	 */
+	public int add(E entry, double weight) {
+		Validate.isTrue(weight > 0, "Weights must be positive values");
+		if (size == entries.length) {
+			int capacity = entries.length * 2;
+			entries = Arrays.copyOf(entries, capacity);
+			weights = Arrays.copyOf(weights, capacity);
+			tree = new FenwickTree(weights, size, capacity);
+		}
+		entries[size] = entry;
+		weights[size] = weight;
+		tree.add(size, weight);
+		return size++;
+	}
+	
+	/**
+	 * Removes the entry at the specified index.
+	 * The last entry is moved into the place of the removed entry:
+	 * its index changes to the specified index.
+	 *
+	 * @param index the index of the entry to remove
+	 * @return the removed entry
+	 */
+	public E remove(int index) {
+		E removed = get(index);
+		int last = size - 1;
+		if (index != last) {
+			tree.add(index, weights[last] - weights[index]);
+			entries[index] = entries[last];
+			weights[index] = weights[last];
+		}
+		tree.add(last, -weights[last]);
+		entries[last] = null;
+		weights[last] = 0;
+		size--;
+		return removed;
+	}
+	
+	/**
+	 * Asserts that the specified index points to an entry in this collection.
+	 *
+	 * @param index the index to check
+	 */
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+		}
+	}
+}
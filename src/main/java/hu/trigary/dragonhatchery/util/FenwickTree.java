@@ -0,0 +1,215 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A Fenwick tree (binary indexed tree) of {@code double} values
+ * with a fixed capacity.
+ * Point updates, prefix sums and prefix sum searches all take logarithmic time.
+ * Indexes are 0-based in the API, the backing array is 1-based.
+ * This class is not thread-safe.
+ */
+final class FenwickTree {
+	private final double[] tree;
+	private int[] available;
+	private int[] undoIndexes;
+	private double[] undoValues;
+	
+	/**
+	 * Constructs a new tree in which all values are 0.
+	 *
+	 * @param capacity the count of values this tree can store
+	 */
+	FenwickTree(int capacity) {
+		tree = new double[capacity + 1];
+	}
+	
+	/**
+	 * Constructs a new tree from the specified values in linear time.
+	 *
+	 * @param values the values to store, the rest of the tree is filled with 0
+	 * @param count how many of the values to store
+	 * @param capacity the count of values this tree can store
+	 */
+	FenwickTree(double @NotNull [] values, int count, int capacity) {
+		this(capacity);
+		System.arraycopy(values, 0, tree, 1, count);
+		for (int i = 1; i < tree.length; i++) {
+			int parent = i + (i & -i);
+			if (parent < tree.length) {
+				tree[parent] += tree[i];
+			}
+		}
+	}
+	
+	/**
+	 * Gets the count of values this tree can store.
+	 *
+	 * @return the capacity of this tree
+	 */
+	@Contract(pure = true)
+	int capacity() {
+		return tree.length - 1;
+	}
+	
+	/**
+	 * Adds the specified value to the value at the specified index.
+	 *
+	 * @param index the index of the value to modify
+	 * @param delta the value to add
+	 */
+	void add(int index, double delta) {
+		for (int i = index + 1; i < tree.length; i += i & -i) {
+			tree[i] += delta;
+		}
+	}
+	
+	/**
+	 * Gets the sum of the values whose indexes are less than the specified count.
+	 *
+	 * @param count the count of values to sum, starting from the first value
+	 * @return the sum of the first {@code count} values
+	 */
+	@Contract(pure = true)
+	double prefixSum(int count) {
+		double sum = 0;
+		for (int i = count; i > 0; i -= i & -i) {
+			sum += tree[i];
+		}
+		return sum;
+	}
+	
+	/**
+	 * Gets the smallest index at which the prefix sum (including the value
+	 * at that index) is greater than the specified target.
+	 * Returns {@link #capacity()} if there is no such index.
+	 *
+	 * @param target the value the prefix sum has to exceed
+	 * @return the index of the first value at which the prefix sum exceeds the target
+	 */
+	@Contract(pure = true)
+	int find(double target) {
+		int position = 0;
+		for (int step = Integer.highestOneBit(capacity()); step > 0; step >>>= 1) {
+			int next = position + step;
+			if (next < tree.length && tree[next] <= target) {
+				position = next;
+				target -= tree[next];
+			}
+		}
+		return position;
+	}
+	
+	/**
+	 * Samples distinct indexes without replacement, with the probability of each
+	 * index being proportional to its value (weight), among the not yet selected indexes.
+	 * The weight of each selected index is subtracted from the tree,
+	 * so the subsequent searches don't have to care about the already selected indexes,
+	 * then the tree is restored to its exact previous state before this method returns:
+	 * selecting {@code k} values takes {@code O(k * log n)} time.
+	 * No allocation is done, except for the first time this method is called
+	 * (or when {@code count} is greater than it has ever been).
+	 * <br><br>
+	 * This method modifies the tree while it runs:
+	 * concurrent callers must synchronize on the instance.
+	 *
+	 * @param random the source of randomness
+	 * @param weights the values stored in this tree, all of them positive
+	 * @param size the count of values stored in this tree
+	 * @param count the count of indexes to select, at most {@code size}
+	 * @param outIndices the array in which the first {@code count} values get overwritten
+	 */
+	void sampleDistinct(@NotNull RandomSource random, double @NotNull [] weights,
+			int size, int count, int @NotNull [] outIndices) {
+		prepareSampling(count);
+		int undoCount = 0;
+		for (int selected = 0; selected < count; selected++) {
+			int index = Math.min(find(random.nextDouble() * prefixSum(size)), size - 1);
+			if (availableCount(index + 1) == availableCount(index)) {
+				//Rounding errors in the subtracted weights might cause the search to overshoot
+				// or to land on an already selected index: take the first available one instead
+				index = findAvailable();
+			}
+			outIndices[selected] = index;
+			
+			for (int i = index + 1; i < tree.length; i += i & -i) {
+				undoIndexes[undoCount] = i;
+				undoValues[undoCount++] = tree[i];
+				tree[i] -= weights[index];
+			}
+			for (int i = index + 1; i < available.length; i += i & -i) {
+				available[i]--;
+			}
+		}
+		
+		//Restore the previous values instead of adding the weights back,
+		// so that rounding errors can't accumulate over many calls
+		while (undoCount > 0) {
+			undoCount--;
+			tree[undoIndexes[undoCount]] = undoValues[undoCount];
+		}
+		for (int selected = 0; selected < count; selected++) {
+			for (int i = outIndices[selected] + 1; i < available.length; i += i & -i) {
+				available[i]++;
+			}
+		}
+	}
+	
+	/**
+	 * Allocates the helper arrays of {@link #sampleDistinct(RandomSource, double[], int, int, int[])}
+	 * if they haven't been allocated yet or if they are too small.
+	 *
+	 * @param count the count of indexes to select
+	 */
+	private void prepareSampling(int count) {
+		if (available == null) {
+			//Each value is available: a node contains the count of values it covers
+			available = new int[tree.length];
+			for (int i = 1; i < available.length; i++) {
+				available[i] = i & -i;
+			}
+		}
+		
+		//Subtracting a value modifies at most one node per level
+		int undoSize = count * (Integer.numberOfTrailingZeros(Integer.highestOneBit(capacity())) + 1);
+		if (undoIndexes == null || undoIndexes.length < undoSize) {
+			undoIndexes = new int[undoSize];
+			undoValues = new double[undoSize];
+		}
+	}
+	
+	/**
+	 * Gets the count of not yet selected indexes which are less than the specified count,
+	 * while {@link #sampleDistinct(RandomSource, double[], int, int, int[])} is running.
+	 *
+	 * @param count the count of indexes to check, starting from the first index
+	 * @return the count of available indexes among the first {@code count} indexes
+	 */
+	@Contract(pure = true)
+	private int availableCount(int count) {
+		int sum = 0;
+		for (int i = count; i > 0; i -= i & -i) {
+			sum += available[i];
+		}
+		return sum;
+	}
+	
+	/**
+	 * Gets the smallest not yet selected index,
+	 * while {@link #sampleDistinct(RandomSource, double[], int, int, int[])} is running.
+	 *
+	 * @return the first available index
+	 */
+	@Contract(pure = true)
+	private int findAvailable() {
+		int position = 0;
+		for (int step = Integer.highestOneBit(capacity()); step > 0; step >>>= 1) {
+			int next = position + step;
+			if (next < available.length && available[next] == 0) {
+				position = next;
+			}
+		}
+		return position;
+	}
+}
@@ -0,0 +1,141 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.apache.commons.lang.Validate;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a single file for changes (via a {@link WatchService}) on a daemon thread
+ * and executes a callback when the file has changed.
+ * The changes are debounced: the callback is only executed once the file
+ * hasn't changed for the specified duration, therefore editors saving the file
+ * in multiple steps only cause a single execution.
+ * <br><br>
+ * The callback is executed on the watcher thread.
+ */
+public class FileWatcher implements Closeable {
+	private final Path fileName;
+	private final long debounceNanos;
+	private final Runnable callback;
+	private final WatchService watchService;
+	private final Thread thread;
+	
+	/**
+	 * Constructs a new instance and starts watching the file.
+	 * The file doesn't have to exist, but its directory does.
+	 *
+	 * @param file the file to watch
+	 * @param debounceMillis how long the file must stay unchanged before executing the callback
+	 * @param callback the action to execute after the file has changed
+	 * @throws IOException if the directory of the file couldn't be watched
+	 */
+	public FileWatcher(@NotNull Path file, long debounceMillis,
+			@NotNull Runnable callback) throws IOException {
+		Validate.isTrue(debounceMillis >= 0, "Debounce duration must not be negative");
+		Path directory = file.toAbsolutePath().getParent();
+		Validate.notNull(directory, "File must have a parent directory");
+		fileName = file.getFileName();
+		debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+		this.callback = callback;
+		watchService = directory.getFileSystem().newWatchService();
+		try {
+			directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_MODIFY);
+		} catch (IOException | RuntimeException e) {
+			watchService.close();
+			throw e;
+		}
+		
+		thread = new Thread(this::run, "DragonHatchery-FileWatcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	/**
+	 * Gets how long the file must stay unchanged before executing the callback.
+	 *
+	 * @return the debounce duration in milliseconds
+	 */
+	@Contract(pure = true)
+	public long getDebounceMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(debounceNanos);
+	}
+	
+	/**
+	 * Stops watching the file and waits for the watcher thread to stop.
+	 * The callback may still be executing when this method is called.
+	 *
+	 * @throws IOException if the underlying {@link WatchService} couldn't be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		watchService.close();
+		if (Thread.currentThread() != thread) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
+	/**
+	 * The body of the watcher thread: waits for changes, debounces them
+	 * and executes the callback, until closed.
+	 */
+	private void run() {
+		try {
+			while (true) {
+				if (!processEvents(watchService.take())) {
+					continue;
+				}
+				
+				long deadline = System.nanoTime() + debounceNanos;
+				long remaining;
+				while ((remaining = deadline - System.nanoTime()) > 0) {
+					WatchKey key = watchService.poll(remaining, TimeUnit.NANOSECONDS);
+					if (key != null && processEvents(key)) {
+						deadline = System.nanoTime() + debounceNanos;
+					}
+				}
+				
+				try {
+					callback.run();
+				} catch (RuntimeException e) {
+					Thread.currentThread().getUncaughtExceptionHandler()
+							.uncaughtException(Thread.currentThread(), e);
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException ignored) {
+			//Closed: stop watching
+		}
+	}
+	
+	/**
+	 * Consumes the events of the specified key and resets the key.
+	 *
+	 * @param key the key whose events to consume
+	 * @return true if the watched file might have changed, false otherwise
+	 */
+	private boolean processEvents(@NotNull WatchKey key) {
+		boolean changed = false;
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW
+					|| fileName.equals(event.context())) {
+				changed = true;
+			}
+		}
+		key.reset();
+		return changed;
+	}
+}
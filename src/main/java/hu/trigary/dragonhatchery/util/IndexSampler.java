@@ -0,0 +1,22 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.jetbrains.annotations.Contract;
+
+/**
+ * The sampling logic behind {@link WeightedRandomCollection}:
+ * converts uniformly distributed random values into indexes of weighted entries.
+ * Implementations must be immutable and therefore thread-safe.
+ */
+interface IndexSampler {
+	
+	/**
+	 * Gets the index of the entry which the specified roll selects.
+	 * The probability of an index being returned for a uniformly distributed roll
+	 * is proportional to the weight of that index.
+	 *
+	 * @param roll a value between 0 (inclusive) and 1 (exclusive)
+	 * @return the index of the selected entry
+	 */
+	@Contract(pure = true)
+	int getIndex(double roll);
+}
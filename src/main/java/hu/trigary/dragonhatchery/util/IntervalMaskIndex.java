@@ -0,0 +1,144 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.apache.commons.lang.Validate;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.TreeSet;
+
+/**
+ * Maps {@code long} values to bitmasks: each bit has a set of (inclusive) intervals
+ * and the mask of a value contains the bits whose intervals contain the value.
+ * The intervals are compiled into disjoint segments when this instance is constructed,
+ * therefore a lookup is a single binary search over the segment boundaries,
+ * regardless of how many intervals were specified.
+ * <br><br>
+ * The values not contained by any interval map to 0,
+ * the bits without any intervals are never set.
+ * Instances are immutable.
+ */
+public final class IntervalMaskIndex {
+	private final long[] starts;
+	private final long[] masks;
+	
+	/**
+	 * Constructs a new instance from the specified intervals.
+	 * Overlapping intervals are allowed, even if they belong to the same bit.
+	 *
+	 * @param intervals the intervals of the bits
+	 */
+	@Contract(pure = true)
+	public IntervalMaskIndex(@NotNull Collection<Interval> intervals) {
+		TreeSet<Long> boundaries = new TreeSet<>();
+		boundaries.add(Long.MIN_VALUE);
+		for (Interval interval : intervals) {
+			boundaries.add(interval.min);
+			if (interval.max != Long.MAX_VALUE) {
+				boundaries.add(interval.max + 1);
+			}
+		}
+		
+		long[] allStarts = new long[boundaries.size()];
+		long[] allMasks = new long[boundaries.size()];
+		int count = 0;
+		for (long start : boundaries) {
+			long mask = 0;
+			for (Interval interval : intervals) {
+				if (interval.min <= start && start <= interval.max) {
+					mask |= 1L << interval.bit;
+				}
+			}
+			//Merge the neighbouring segments with the same mask
+			if (count == 0 || allMasks[count - 1] != mask) {
+				allStarts[count] = start;
+				allMasks[count] = mask;
+				count++;
+			}
+		}
+		starts = Arrays.copyOf(allStarts, count);
+		masks = Arrays.copyOf(allMasks, count);
+	}
+	
+	/**
+	 * Gets the bits whose intervals contain the specified value.
+	 *
+	 * @param value the value to look up
+	 * @return the mask of the matching bits
+	 */
+	@Contract(pure = true)
+	public long get(long value) {
+		int index = Arrays.binarySearch(starts, value);
+		return masks[index >= 0 ? index : -index - 2];
+	}
+	
+	/**
+	 * Gets the count of disjoint segments the intervals were compiled into.
+	 * The segments cover all {@code long} values, there is always at least one.
+	 *
+	 * @return the count of segments
+	 */
+	@Contract(pure = true)
+	public int getSegmentCount() {
+		return starts.length;
+	}
+	
+	/**
+	 * Gets the smallest value of the specified segment.
+	 *
+	 * @param segment the index of the segment
+	 * @return the inclusive start of the segment
+	 */
+	@Contract(pure = true)
+	public long getSegmentStart(int segment) {
+		return starts[segment];
+	}
+	
+	/**
+	 * Gets the largest value of the specified segment.
+	 *
+	 * @param segment the index of the segment
+	 * @return the inclusive end of the segment
+	 */
+	@Contract(pure = true)
+	public long getSegmentEnd(int segment) {
+		return segment + 1 == starts.length ? Long.MAX_VALUE : starts[segment + 1] - 1;
+	}
+	
+	/**
+	 * Gets the mask of the values of the specified segment.
+	 *
+	 * @param segment the index of the segment
+	 * @return the mask of the segment
+	 */
+	@Contract(pure = true)
+	public long getSegmentMask(int segment) {
+		return masks[segment];
+	}
+	
+	/**
+	 * An inclusive interval of values belonging to a bit.
+	 */
+	public static final class Interval {
+		private final long min;
+		private final long max;
+		private final int bit;
+		
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param min the smallest value of the interval
+		 * @param max the largest value of the interval, must not be less than the smallest
+		 * @param bit the index of the bit, between 0 and 63
+		 */
+		@Contract(pure = true)
+		public Interval(long min, long max, int bit) {
+			Validate.isTrue(min <= max, "Min must not be greater than max");
+			Validate.isTrue(bit >= 0 && bit < Long.SIZE, "Bit must be between 0 and 63");
+			this.min = min;
+			this.max = max;
+			this.bit = bit;
+		}
+	}
+}
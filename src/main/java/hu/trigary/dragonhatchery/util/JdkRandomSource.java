@@ -0,0 +1,106 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * {@link RandomSource} implementation which delegates to a
+ * {@code java.util.random.RandomGenerator}, which is only available on Java 17 and above.
+ * The plugin targets Java 11, therefore the API is accessed via {@link MethodHandle} instances,
+ * which (unlike regular reflection) the JIT compiler can optimize well.
+ */
+final class JdkRandomSource implements RandomSource {
+	private final Object factory;
+	private final MethodHandle nextDouble;
+	private final MethodHandle nextLong;
+	
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param factory the {@code RandomGeneratorFactory} which created the generator
+	 * @param generator the {@code RandomGenerator} to delegate to
+	 * @throws ReflectiveOperationException if the API can't be accessed
+	 */
+	private JdkRandomSource(@NotNull Object factory, @NotNull Object generator)
+			throws ReflectiveOperationException {
+		this.factory = factory;
+		Class<?> generatorClass = Class.forName("java.util.random.RandomGenerator");
+		MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+		nextDouble = lookup.findVirtual(generatorClass, "nextDouble",
+				MethodType.methodType(double.class)).bindTo(generator);
+		nextLong = lookup.findVirtual(generatorClass, "nextLong",
+				MethodType.methodType(long.class)).bindTo(generator);
+	}
+	
+	/**
+	 * Creates a new, seeded instance which uses the specified algorithm.
+	 *
+	 * @param algorithm the name of the {@code RandomGeneratorFactory} algorithm
+	 * @param seed the initial seed
+	 * @return the newly created random source
+	 * @throws IllegalArgumentException if the algorithm or the API is not available
+	 */
+	@Contract(value = "_, _ -> new", pure = true)
+	static @NotNull JdkRandomSource create(@NotNull String algorithm, long seed) {
+		Class<?> factoryClass;
+		try {
+			factoryClass = Class.forName("java.util.random.RandomGeneratorFactory");
+		} catch (ClassNotFoundException e) {
+			throw new IllegalArgumentException("Unknown algorithm: " + algorithm
+					+ " (Java 17 or above is required for the java.util.random algorithms)", e);
+		}
+		
+		Object factory;
+		try {
+			factory = factoryClass.getMethod("of", String.class).invoke(null, algorithm);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalArgumentException("Unknown algorithm: " + algorithm, e);
+		}
+		return create(factory, seed);
+	}
+	
+	/**
+	 * Creates a new, seeded instance using the specified factory.
+	 *
+	 * @param factory the {@code RandomGeneratorFactory} to use
+	 * @param seed the initial seed
+	 * @return the newly created random source
+	 */
+	@Contract(value = "_, _ -> new", pure = true)
+	private static @NotNull JdkRandomSource create(@NotNull Object factory, long seed) {
+		try {
+			Object generator = factory.getClass().getMethod("create", long.class)
+					.invoke(factory, seed);
+			return new JdkRandomSource(factory, generator);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalArgumentException("Unable to create generator", e);
+		}
+	}
+	
+	@Override
+	public double nextDouble() {
+		try {
+			return (double) nextDouble.invokeExact();
+		} catch (Throwable t) {
+			throw new IllegalStateException(t);
+		}
+	}
+	
+	@Override
+	public long nextLong() {
+		try {
+			return (long) nextLong.invokeExact();
+		} catch (Throwable t) {
+			throw new IllegalStateException(t);
+		}
+	}
+	
+	@Override
+	public @NotNull RandomSource split() {
+		return create(factory, nextLong());
+	}
+}
@@ -0,0 +1,161 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.apache.commons.lang.Validate;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of non-negative values (eg. durations in nanoseconds),
+ * with a fixed memory footprint and a bounded relative error (in the style of HdrHistogram).
+ * The buckets are log-linear: each power of two range is split into
+ * {@value #SUB_BUCKET_COUNT} equally sized buckets,
+ * therefore the reported values are within ~3% of the recorded values.
+ * Recording is a single atomic increment (and rarely a max update), it doesn't allocate.
+ * <br><br>
+ * This class is thread-safe. Use {@link #snapshot()} to query the recorded values.
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKET_COUNT = bucketIndex(Long.MAX_VALUE) + 1;
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	private final AtomicLong max = new AtomicLong();
+	
+	/**
+	 * Records a value.
+	 *
+	 * @param value the value to record, negative values are recorded as 0
+	 */
+	public void record(long value) {
+		value = Math.max(0, value);
+		counts.incrementAndGet(bucketIndex(value));
+		long currentMax = max.get();
+		while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+			currentMax = max.get();
+		}
+	}
+	
+	/**
+	 * Removes all recorded values.
+	 * Values recorded concurrently may or may not be kept.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts.set(i, 0);
+		}
+		max.set(0);
+	}
+	
+	/**
+	 * Creates an immutable copy of the currently recorded values.
+	 *
+	 * @return the copy of the recorded values
+	 */
+	public @NotNull Snapshot snapshot() {
+		long[] copy = new long[BUCKET_COUNT];
+		long count = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			copy[i] = counts.get(i);
+			count += copy[i];
+		}
+		return new Snapshot(copy, count, max.get());
+	}
+	
+	/**
+	 * Gets the index of the bucket the specified value belongs to.
+	 *
+	 * @param value the non-negative value
+	 * @return the index of the value's bucket
+	 */
+	@Contract(pure = true)
+	private static int bucketIndex(long value) {
+		if (value < 2 * SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKET_COUNT + (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+	}
+	
+	/**
+	 * Gets the largest value that belongs to the specified bucket.
+	 *
+	 * @param index the index of the bucket
+	 * @return the upper bound (inclusive) of the bucket
+	 */
+	@Contract(pure = true)
+	private static long bucketUpperBound(int index) {
+		if (index < 2 * SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = index / SUB_BUCKET_COUNT - 1;
+		long lowerBound = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+		return lowerBound + (1L << shift) - 1;
+	}
+	
+	/**
+	 * An immutable copy of the values recorded by a {@link LatencyHistogram}.
+	 */
+	public static class Snapshot {
+		private final long[] counts;
+		private final long count;
+		private final long max;
+		
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param counts the count of values per bucket
+		 * @param count the sum of the counts
+		 * @param max the largest recorded value
+		 */
+		private Snapshot(long @NotNull [] counts, long count, long max) {
+			this.counts = counts;
+			this.count = count;
+			this.max = max;
+		}
+		
+		/**
+		 * Gets the count of recorded values.
+		 *
+		 * @return the count of values
+		 */
+		@Contract(pure = true)
+		public long getCount() {
+			return count;
+		}
+		
+		/**
+		 * Gets the largest recorded value.
+		 *
+		 * @return the largest value or 0, if no values were recorded
+		 */
+		@Contract(pure = true)
+		public long getMax() {
+			return max;
+		}
+		
+		/**
+		 * Gets the value below which (or at which) the specified percentage
+		 * of the recorded values are. The returned value is never larger than {@link #getMax()}.
+		 *
+		 * @param percentile the percentage, between 0 and 100 (both inclusive)
+		 * @return the value at the percentile or 0, if no values were recorded
+		 */
+		@Contract(pure = true)
+		public long getValueAtPercentile(double percentile) {
+			Validate.isTrue(percentile >= 0 && percentile <= 100,
+					"Percentile must be between 0 and 100 (both inclusive)");
+			long target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+			long seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= target) {
+					return Math.min(bucketUpperBound(i), max);
+				}
+			}
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.apache.commons.lang.Validate;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free, multi-producer single-consumer FIFO queue backed by an array.
+ * Producers claim a slot by incrementing the producer index (via CAS),
+ * then publish the element into the claimed slot;
+ * the consumer frees the slot before advancing the consumer index.
+ * <br><br>
+ * {@link #offer(Object)} may be called from any thread,
+ * {@link #poll()} may only be called from a single thread at a time.
+ *
+ * @param <E> the type of the elements
+ */
+public class MpscArrayQueue<E> {
+	private final AtomicReferenceArray<E> elements;
+	private final int mask;
+	private final AtomicLong producerIndex = new AtomicLong();
+	private final AtomicLong consumerIndex = new AtomicLong();
+	
+	/**
+	 * Constructs a new, empty instance.
+	 *
+	 * @param capacity the maximum count of elements, it's rounded up to a power of two
+	 */
+	public MpscArrayQueue(int capacity) {
+		Validate.isTrue(capacity > 0 && capacity <= 1 << 30, "Capacity must be between 1 and 2^30");
+		int actualCapacity = Integer.highestOneBit(capacity);
+		if (actualCapacity != capacity) {
+			actualCapacity <<= 1;
+		}
+		elements = new AtomicReferenceArray<>(actualCapacity);
+		mask = actualCapacity - 1;
+	}
+	
+	/**
+	 * Gets the maximum count of elements this queue can store.
+	 *
+	 * @return the capacity of this queue
+	 */
+	@Contract(pure = true)
+	public int capacity() {
+		return mask + 1;
+	}
+	
+	/**
+	 * Inserts the specified element at the tail of this queue, if it's not full.
+	 *
+	 * @param element the element to insert
+	 * @return true if the element was inserted, false if the queue was full
+	 */
+	public boolean offer(@NotNull E element) {
+		long index;
+		do {
+			index = producerIndex.get();
+			if (index - consumerIndex.get() >= capacity()) {
+				return false;
+			}
+		} while (!producerIndex.compareAndSet(index, index + 1));
+		elements.lazySet((int) index & mask, element);
+		return true;
+	}
+	
+	/**
+	 * Removes and returns the element at the head of this queue.
+	 * Returns null if the queue is empty or if the producer
+	 * of the head element hasn't finished inserting it yet.
+	 *
+	 * @return the removed element or null, if no element is available
+	 */
+	public @Nullable E poll() {
+		long index = consumerIndex.get();
+		int slot = (int) index & mask;
+		E element = elements.get(slot);
+		if (element == null) {
+			return null;
+		}
+		elements.lazySet(slot, null);
+		consumerIndex.lazySet(index + 1);
+		return element;
+	}
+	
+	/**
+	 * Gets the count of elements in this queue.
+	 * The value is only an estimate if the queue is being modified concurrently.
+	 *
+	 * @return the count of elements
+	 */
+	public int size() {
+		long size = producerIndex.get() - consumerIndex.get();
+		return (int) Math.max(0, Math.min(size, capacity()));
+	}
+}
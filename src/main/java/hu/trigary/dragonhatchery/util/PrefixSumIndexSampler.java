@@ -0,0 +1,45 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * {@link IndexSampler} implementation that stores the cumulative weights
+ * in a flat array and searches it via binary search.
+ * Sampling takes logarithmic time, but uses only 8 bytes per entry and doesn't allocate.
+ */
+final class PrefixSumIndexSampler implements IndexSampler {
+	private final double[] cumulativeWeights;
+	
+	/**
+	 * Constructs a new sampler from the specified weights.
+	 *
+	 * @param weights the positive weights of the entries
+	 */
+	PrefixSumIndexSampler(double @NotNull [] weights) {
+		cumulativeWeights = new double[weights.length];
+		double sum = 0;
+		for (int i = 0; i < weights.length; i++) {
+			sum += weights[i];
+			cumulativeWeights[i] = sum;
+		}
+	}
+	
+	@Override
+	@Contract(pure = true)
+	public int getIndex(double roll) {
+		double target = roll * cumulativeWeights[cumulativeWeights.length - 1];
+		
+		//Searches for the first cumulative weight that is greater than the target.
+		//The loop always runs the same amount of iterations for the same length
+		// and its body can be compiled to a conditional move instead of a branch.
+		int base = 0;
+		int length = cumulativeWeights.length;
+		while (length > 1) {
+			int half = length >>> 1;
+			base = cumulativeWeights[base + half - 1] <= target ? base + half : base;
+			length -= half;
+		}
+		return base;
+	}
+}
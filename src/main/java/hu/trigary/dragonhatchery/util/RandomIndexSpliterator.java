@@ -0,0 +1,79 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * {@link Spliterator} of a fixed count of random indexes
+ * sampled from a {@link WeightedRandom}.
+ * Splitting also splits the {@link RandomSource},
+ * so the halves can be consumed in parallel without contention.
+ */
+final class RandomIndexSpliterator implements Spliterator.OfInt {
+	private final WeightedRandom<?> collection;
+	private final RandomSource random;
+	private long index;
+	private final long fence;
+	
+	/**
+	 * Constructs a new spliterator that will supply {@code fence - index} values.
+	 *
+	 * @param collection the collection to sample
+	 * @param random the source of randomness
+	 * @param index the index of the first value to supply
+	 * @param fence the index after the last value to supply
+	 */
+	RandomIndexSpliterator(@NotNull WeightedRandom<?> collection,
+			@NotNull RandomSource random, long index, long fence) {
+		this.collection = collection;
+		this.random = random;
+		this.index = index;
+		this.fence = fence;
+	}
+	
+	@Override
+	public @Nullable RandomIndexSpliterator trySplit() {
+		long middle = (index + fence) >>> 1;
+		if (middle <= index) {
+			return null;
+		}
+		RandomIndexSpliterator prefix = new RandomIndexSpliterator(collection,
+				random.split(), index, middle);
+		index = middle;
+		return prefix;
+	}
+	
+	@Override
+	public boolean tryAdvance(@NotNull IntConsumer action) {
+		if (index >= fence) {
+			return false;
+		}
+		action.accept(collection.getIndex(random.nextDouble()));
+		index++;
+		return true;
+	}
+	
+	@Override
+	public void forEachRemaining(@NotNull IntConsumer action) {
+		for (long i = index; i < fence; i++) {
+			action.accept(collection.getIndex(random.nextDouble()));
+		}
+		index = fence;
+	}
+	
+	@Override
+	@Contract(pure = true)
+	public long estimateSize() {
+		return fence - index;
+	}
+	
+	@Override
+	@Contract(pure = true)
+	public int characteristics() {
+		return SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+	}
+}
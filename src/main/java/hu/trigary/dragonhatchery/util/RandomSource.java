@@ -0,0 +1,119 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * A source of uniformly distributed random values.
+ * Implementations are not required to be thread-safe,
+ * {@link #split()} should be used to get an instance for another thread.
+ * <br><br>
+ * Use {@link #create(String, long)} to create an instance by its algorithm's name.
+ */
+public interface RandomSource {
+	
+	/**
+	 * The name of the algorithm of {@link #threadLocal()}.
+	 */
+	String THREAD_LOCAL = "thread-local";
+	
+	/**
+	 * The name of the algorithm of {@link #of(SplittableRandom)}.
+	 */
+	String SPLITTABLE = "splittable";
+	
+	/**
+	 * The name of the algorithm of {@link XoroshiroRandomSource}.
+	 */
+	String XOROSHIRO = "xoroshiro";
+	
+	/**
+	 * Gets the next random value, which is uniformly distributed
+	 * between 0 (inclusive) and 1 (exclusive).
+	 *
+	 * @return the next random value
+	 */
+	double nextDouble();
+	
+	/**
+	 * Gets the next random value, which is uniformly distributed
+	 * among all possible {@code long} values.
+	 *
+	 * @return the next random value
+	 */
+	long nextLong();
+	
+	/**
+	 * Creates a new instance whose values are (statistically) independent
+	 * from the values of this instance.
+	 * This method also advances the state of this instance.
+	 * The new instance can be passed to and used by another thread.
+	 *
+	 * @return the newly created instance
+	 */
+	@NotNull RandomSource split();
+	
+	/**
+	 * Gets the instance which delegates to {@link java.util.concurrent.ThreadLocalRandom}.
+	 * It is thread-safe, but it can't be seeded.
+	 *
+	 * @return the thread-local random source
+	 */
+	@Contract(pure = true)
+	static @NotNull RandomSource threadLocal() {
+		return ThreadLocalRandomSource.INSTANCE;
+	}
+	
+	/**
+	 * Creates a new instance which delegates to the specified {@link SplittableRandom}.
+	 *
+	 * @param random the generator to delegate to
+	 * @return the newly created random source
+	 */
+	@Contract(value = "_ -> new", pure = true)
+	static @NotNull RandomSource of(@NotNull SplittableRandom random) {
+		return new SplittableRandomSource(random);
+	}
+	
+	/**
+	 * Creates a new, seeded instance which uses the specified algorithm.
+	 * Supported algorithms: {@link #SPLITTABLE}, {@link #XOROSHIRO}
+	 * and, when running on Java 17 or above, the names of the
+	 * {@code java.util.random.RandomGeneratorFactory} algorithms (eg. {@code L64X128MixRandom}).
+	 * {@link #THREAD_LOCAL} is not supported, because it can't be seeded.
+	 *
+	 * @param algorithm the name of the algorithm to use
+	 * @param seed the initial seed
+	 * @return the newly created random source
+	 * @throws IllegalArgumentException if the algorithm is not supported
+	 */
+	@Contract(value = "_, _ -> new", pure = true)
+	static @NotNull RandomSource create(@NotNull String algorithm, long seed) {
+		switch (algorithm.toLowerCase(Locale.ROOT)) {
+			case THREAD_LOCAL:
+				throw new IllegalArgumentException("The thread-local algorithm can't be seeded");
+			case SPLITTABLE:
+				return of(new SplittableRandom(seed));
+			case XOROSHIRO:
+				return new XoroshiroRandomSource(seed);
+			default:
+				return JdkRandomSource.create(algorithm, seed);
+		}
+	}
+	
+	/**
+	 * Converts the specified random bits into a double value the same way
+	 * {@link SplittableRandom#nextDouble()} does: the returned value is uniformly distributed
+	 * between 0 (inclusive) and 1 (exclusive).
+	 *
+	 * @param bits uniformly distributed random bits
+	 * @return the random value
+	 */
+	@Contract(pure = true)
+	static double toDouble(long bits) {
+		return (bits >>> 11) * 0x1.0p-53;
+	}
+}
@@ -0,0 +1,36 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.SplittableRandom;
+
+/**
+ * {@link RandomSource} implementation which delegates to a {@link SplittableRandom}.
+ */
+final class SplittableRandomSource implements RandomSource {
+	private final SplittableRandom random;
+	
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param random the generator to delegate to
+	 */
+	SplittableRandomSource(@NotNull SplittableRandom random) {
+		this.random = random;
+	}
+	
+	@Override
+	public double nextDouble() {
+		return random.nextDouble();
+	}
+	
+	@Override
+	public long nextLong() {
+		return random.nextLong();
+	}
+	
+	@Override
+	public @NotNull RandomSource split() {
+		return new SplittableRandomSource(random.split());
+	}
+}
@@ -0,0 +1,33 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link RandomSource} implementation which delegates to {@link ThreadLocalRandom}.
+ * It is stateless and thread-safe, therefore it's a singleton.
+ */
+final class ThreadLocalRandomSource implements RandomSource {
+	static final ThreadLocalRandomSource INSTANCE = new ThreadLocalRandomSource();
+	
+	private ThreadLocalRandomSource() {}
+	
+	@Override
+	public double nextDouble() {
+		return ThreadLocalRandom.current().nextDouble();
+	}
+	
+	@Override
+	public long nextLong() {
+		return ThreadLocalRandom.current().nextLong();
+	}
+	
+	@Override
+	@Contract(pure = true)
+	public @NotNull RandomSource split() {
+		//Each thread already has its own generator
+		return this;
+	}
+}
@@ -0,0 +1,151 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.apache.commons.lang.Validate;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A preallocated ring buffer of fixed-shape trace events:
+ * recording an event doesn't allocate, it only writes primitive (and reference) values
+ * into arrays. The events are meant to be consumed (eg. formatted) on another thread,
+ * see {@link #drain(Handler)}.
+ * If the consumer falls behind, the oldest events are overwritten (and counted as dropped).
+ * <br><br>
+ * Only a single thread may record events at a time
+ * and only a single thread may drain events at a time (they may be different threads).
+ */
+public class TraceBuffer {
+	private static final VarHandle SEQUENCES = MethodHandles.arrayElementVarHandle(long[].class);
+	private static final long WRITING = -1;
+	private final int mask;
+	private final long[] sequences;
+	private final int[] kinds;
+	private final Object[] subjects;
+	private final long[] longValues;
+	private final double[] doubleValues;
+	private volatile long head;
+	private long tail;
+	private long dropped;
+	
+	/**
+	 * Constructs a new, empty instance.
+	 *
+	 * @param capacity the count of events that can be stored, must be a power of two
+	 */
+	public TraceBuffer(int capacity) {
+		Validate.isTrue(capacity > 0 && Integer.bitCount(capacity) == 1,
+				"Capacity must be a power of two");
+		mask = capacity - 1;
+		sequences = new long[capacity];
+		kinds = new int[capacity];
+		subjects = new Object[capacity];
+		longValues = new long[capacity];
+		doubleValues = new double[capacity];
+		for (int i = 0; i < capacity; i++) {
+			sequences[i] = WRITING;
+		}
+	}
+	
+	/**
+	 * Gets the count of events that can be stored.
+	 *
+	 * @return the capacity of this instance
+	 */
+	@Contract(pure = true)
+	public int capacity() {
+		return mask + 1;
+	}
+	
+	/**
+	 * Records an event, overwriting the oldest event if the buffer is full.
+	 * The meaning of the values is defined by the caller.
+	 *
+	 * @param kind the type of the event
+	 * @param subject the object the event is about, must not be modified afterwards
+	 * @param longValue an integral value of the event
+	 * @param doubleValue a floating point value of the event
+	 */
+	public void record(int kind, @Nullable Object subject, long longValue, double doubleValue) {
+		long sequence = head;
+		int slot = (int) sequence & mask;
+		SEQUENCES.setOpaque(sequences, slot, WRITING);
+		VarHandle.storeStoreFence(); //Mark the slot as being written before writing it
+		kinds[slot] = kind;
+		subjects[slot] = subject;
+		longValues[slot] = longValue;
+		doubleValues[slot] = doubleValue;
+		SEQUENCES.setRelease(sequences, slot, sequence);
+		head = sequence + 1;
+	}
+	
+	/**
+	 * Passes the recorded, not yet drained events to the specified handler, in order.
+	 * Events that were overwritten before they could be drained are skipped
+	 * and counted as dropped, see {@link #getDroppedCount()}.
+	 *
+	 * @param handler the handler of the events
+	 * @return the count of handled events
+	 */
+	public int drain(@NotNull Handler handler) {
+		long currentHead = head;
+		if (currentHead - tail > capacity()) {
+			dropped += currentHead - capacity() - tail;
+			tail = currentHead - capacity();
+		}
+		
+		int handled = 0;
+		for (; tail < currentHead; tail++) {
+			int slot = (int) tail & mask;
+			if ((long) SEQUENCES.getAcquire(sequences, slot) != tail) {
+				dropped++;
+				continue;
+			}
+			
+			int kind = kinds[slot];
+			Object subject = subjects[slot];
+			long longValue = longValues[slot];
+			double doubleValue = doubleValues[slot];
+			VarHandle.loadLoadFence(); //Read the slot before checking whether it was overwritten
+			if ((long) SEQUENCES.getOpaque(sequences, slot) != tail) {
+				dropped++;
+				continue;
+			}
+			
+			handler.handle(kind, subject, longValue, doubleValue);
+			handled++;
+		}
+		return handled;
+	}
+	
+	/**
+	 * Gets the count of events that were overwritten before they could be drained.
+	 * Should only be called by the thread that drains the events.
+	 *
+	 * @return the count of dropped events
+	 */
+	@Contract(pure = true)
+	public long getDroppedCount() {
+		return dropped;
+	}
+	
+	/**
+	 * Handler of the drained events.
+	 */
+	@FunctionalInterface
+	public interface Handler {
+		
+		/**
+		 * Handles an event.
+		 *
+		 * @param kind the type of the event
+		 * @param subject the object the event is about
+		 * @param longValue an integral value of the event
+		 * @param doubleValue a floating point value of the event
+		 */
+		void handle(int kind, @Nullable Object subject, long longValue, double doubleValue);
+	}
+}
@@ -0,0 +1,38 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * {@link IndexSampler} implementation that stores the cumulative weights
+ * as the keys of a {@link NavigableMap}.
+ * Sampling takes logarithmic time.
+ */
+final class TreeMapIndexSampler implements IndexSampler {
+	private final NavigableMap<Double, Integer> indexes = new TreeMap<>();
+	private final double weightSum;
+	
+	/**
+	 * Constructs a new sampler from the specified weights.
+	 *
+	 * @param weights the positive weights of the entries
+	 * @param weightSum the sum of the weights
+	 */
+	TreeMapIndexSampler(double @NotNull [] weights, double weightSum) {
+		double sum = 0;
+		for (int i = 0; i < weights.length; i++) {
+			indexes.put(sum, i);
+			sum += weights[i];
+		}
+		this.weightSum = weightSum;
+	}
+	
+	@Override
+	@Contract(pure = true)
+	public int getIndex(double roll) {
+		return indexes.floorEntry(roll * weightSum).getValue();
+	}
+}
@@ -0,0 +1,203 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.apache.commons.lang.Validate;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.util.Collection;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A collection which can retrieve random entries
+ * from its pool of entry-weight pairs.
+ * Entries are identified by their indexes, which range from 0 (inclusive)
+ * to {@link #size()} (exclusive).
+ * The weights are positive (non-zero and non-negative) values.
+ *
+ * @param <E> the type of the entry
+ * @see WeightedRandomCollection
+ * @see DynamicWeightedRandomCollection
+ */
+public interface WeightedRandom<E> {
+	
+	/**
+	 * Gets the count of entries in this collection.
+	 *
+	 * @return the count of entries
+	 */
+	@Contract(pure = true)
+	int size();
+	
+	/**
+	 * Gets the entry at the specified index.
+	 *
+	 * @param index the index of the entry
+	 * @return the entry at the specified index
+	 */
+	@Contract(pure = true)
+	E get(int index);
+	
+	/**
+	 * Gets the weight of the entry at the specified index.
+	 *
+	 * @param index the index of the entry
+	 * @return the weight of the entry at the specified index
+	 */
+	@Contract(pure = true)
+	double getWeight(int index);
+	
+	/**
+	 * Gets the index of the entry which the specified roll selects.
+	 * The probability of an index being returned for a uniformly distributed roll
+	 * is proportional to the weight of the entry at that index.
+	 *
+	 * @param roll a value between 0 (inclusive) and 1 (exclusive)
+	 * @return the index of the selected entry
+	 */
+	@Contract(pure = true)
+	int getIndex(double roll);
+	
+	/**
+	 * Gets the index of a random entry, while taking the weights into consideration.
+	 * {@link RandomSource#threadLocal()} is used as the source of randomness.
+	 *
+	 * @return the index of the randomly selected entry
+	 */
+	@Contract(pure = true)
+	default int getRandomIndex() {
+		return getRandomIndex(RandomSource.threadLocal());
+	}
+	
+	/**
+	 * Gets the index of a random entry, while taking the weights into consideration.
+	 *
+	 * @param random the source of randomness
+	 * @return the index of the randomly selected entry
+	 */
+	default int getRandomIndex(@NotNull RandomSource random) {
+		return getIndex(random.nextDouble());
+	}
+	
+	/**
+	 * Gets a random entry from this collection, while taking the weights into consideration.
+	 * {@link RandomSource#threadLocal()} is used as the source of randomness.
+	 *
+	 * @return the randomly selected entry
+	 */
+	@Contract(pure = true)
+	default E getRandom() {
+		return get(getRandomIndex());
+	}
+	
+	/**
+	 * Gets a random entry from this collection, while taking the weights into consideration.
+	 *
+	 * @param random the source of randomness
+	 * @return the randomly selected entry
+	 */
+	default E getRandom(@NotNull RandomSource random) {
+		return get(getRandomIndex(random));
+	}
+	
+	/**
+	 * Fills the beginning of the specified array with the indexes of random entries,
+	 * while taking the weights into consideration.
+	 * {@link RandomSource#threadLocal()} is used as the source of randomness.
+	 * No allocation is done per sample.
+	 *
+	 * @param count the count of samples to take
+	 * @param outIndices the array in which the first {@code count} values get overwritten
+	 */
+	default void sample(int count, int @NotNull [] outIndices) {
+		sample(RandomSource.threadLocal(), count, outIndices);
+	}
+	
+	/**
+	 * Fills the beginning of the specified array with the indexes of random entries,
+	 * while taking the weights into consideration.
+	 * No allocation is done per sample.
+	 *
+	 * @param random the source of randomness
+	 * @param count the count of samples to take
+	 * @param outIndices the array in which the first {@code count} values get overwritten
+	 */
+	default void sample(@NotNull RandomSource random, int count, int @NotNull [] outIndices) {
+		Validate.isTrue(count >= 0 && count <= outIndices.length,
+				"Count must be between 0 and the length of the array");
+		for (int i = 0; i < count; i++) {
+			outIndices[i] = getIndex(random.nextDouble());
+		}
+	}
+	
+	/**
+	 * Fills the beginning of the specified array with the indexes of distinct random entries
+	 * (sampling without replacement), while taking the weights into consideration:
+	 * each subsequent index is selected from the remaining entries,
+	 * proportionally to their weights.
+	 * If {@code count} is greater than {@link #size()}, then all indexes get selected.
+	 * {@link RandomSource#threadLocal()} is used as the source of randomness.
+	 *
+	 * @param count the count of distinct indexes to select
+	 * @param outIndices the array in which the first {@code count} values get overwritten
+	 * @return the count of selected indexes: the smaller of {@code count} and {@link #size()}
+	 */
+	default int sampleDistinct(int count, int @NotNull [] outIndices) {
+		return sampleDistinct(RandomSource.threadLocal(), count, outIndices);
+	}
+	
+	/**
+	 * Fills the beginning of the specified array with the indexes of distinct random entries
+	 * (sampling without replacement), while taking the weights into consideration.
+	 * See {@link #sampleDistinct(int, int[])} for more information.
+	 *
+	 * @param random the source of randomness
+	 * @param count the count of distinct indexes to select
+	 * @param outIndices the array in which the first {@code count} values get overwritten
+	 * @return the count of selected indexes: the smaller of {@code count} and {@link #size()}
+	 */
+	int sampleDistinct(@NotNull RandomSource random, int count, int @NotNull [] outIndices);
+	
+	/**
+	 * Creates a stream of the indexes of random entries,
+	 * while taking the weights into consideration.
+	 * The stream can be efficiently consumed in parallel:
+	 * the {@link RandomSource} gets split along with the stream.
+	 * This collection mustn't be modified while the stream is being consumed.
+	 *
+	 * @param count the count of samples in the stream
+	 * @param random the source of randomness, it mustn't be used elsewhere afterwards
+	 * @return a sequential stream which can be made parallel
+	 */
+	@Contract(pure = true)
+	default @NotNull IntStream indexStream(long count, @NotNull RandomSource random) {
+		Validate.isTrue(count >= 0, "Count must not be negative");
+		return StreamSupport.intStream(new RandomIndexSpliterator(this,
+				random, 0, count), false);
+	}
+	
+	/**
+	 * Creates a stream of random entries, while taking the weights into consideration.
+	 * See {@link #indexStream(long, RandomSource)} for more information.
+	 *
+	 * @param count the count of samples in the stream
+	 * @param random the source of randomness, it mustn't be used elsewhere afterwards
+	 * @return a sequential stream which can be made parallel
+	 */
+	@Contract(pure = true)
+	default @NotNull Stream<E> stream(long count, @NotNull RandomSource random) {
+		return indexStream(count, random).mapToObj(this::get);
+	}
+	
+	/**
+	 * Gets an unmodifiable collection containing all stored entries,
+	 * ordered by their indexes.
+	 *
+	 * @return the unmodifiable collection of entries
+	 */
+	@Unmodifiable
+	@Contract(pure = true)
+	@NotNull Collection<E> getEntries();
+}
@@ -1,16 +1,16 @@
 package hu.trigary.dragonhatchery.util;
 
+import hu.trigary.dragonhatchery.jfr.WeightedTableBuildEvent;
 import org.apache.commons.lang.Validate;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Unmodifiable;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.NavigableMap;
-import java.util.TreeMap;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 
 /**
  * An immutable collection which can retrieve random entries
@@ -18,16 +18,22 @@ import java.util.function.Function;
  * <br><br>
  * The source must not be an empty collection.
  * The entries can be null and the same entry can be present multiple times in the source.
- * The weights must be non-null positive (non-zero and non-negative) values.
+ * The weights must be positive (non-zero and non-negative) values.
+ * <br><br>
+ * The algorithm used for the random selection is determined by the {@link Engine}.
  *
  * @param <E> the type of the entry
  */
-public class WeightedRandomCollection<E> {
-	private final NavigableMap<Double, E> entries = new TreeMap<>();
+public class WeightedRandomCollection<E> implements WeightedRandom<E> {
+	private final Object[] entries;
+	private final double[] weights;
 	private final double weightSum;
+	private final IndexSampler sampler;
+	private volatile FenwickTree distinctSampler;
 	
 	/**
-	 * Constructs a new collection from the specified source.
+	 * Constructs a new collection from the specified source,
+	 * using the default {@link Engine#ALIAS} engine.
 	 * All weights are guaranteed to be acquired (via the {@code weightExtractor}),
 	 * but not all entries:
 	 * {@code entryExtractor} might not be called for each element of {@code source}.
@@ -39,37 +45,202 @@ public class WeightedRandomCollection<E> {
 	 */
 	public <T> WeightedRandomCollection(@NotNull Collection<T> source,
 			@NotNull Function<T, E> entryExtractor,
-			@NotNull Function<T, Double> weightExtractor) {
-		Validate.isTrue(!source.isEmpty(), "Source must not be empty");
+			@NotNull ToDoubleFunction<T> weightExtractor) {
+		this(source, entryExtractor, weightExtractor, Engine.ALIAS);
+	}
+	
+	/**
+	 * Constructs a new collection from the specified source,
+	 * using the specified engine.
+	 * All weights are guaranteed to be acquired (via the {@code weightExtractor}),
+	 * but not all entries:
+	 * {@code entryExtractor} might not be called for each element of {@code source}.
+	 *
+	 * @param source the source of the entries and weights
+	 * @param entryExtractor the function which gets an entry from a source element
+	 * @param weightExtractor the function which gets a weight from a source element
+	 * @param engine the algorithm to use for the random selection
+	 * @param <T> the type of the source elements
+	 */
+	public <T> WeightedRandomCollection(@NotNull Collection<T> source,
+			@NotNull Function<T, E> entryExtractor,
+			@NotNull ToDoubleFunction<T> weightExtractor,
+			@NotNull Engine engine) {
+		this(source.stream().map(entryExtractor).toArray(),
+				source.stream().mapToDouble(weightExtractor).toArray(), engine);
+	}
+	
+	/**
+	 * Constructs a new collection from the specified arrays, which are not copied.
+	 *
+	 * @param entries the entries
+	 * @param weights the weights of the entries, at the same indexes
+	 * @param engine the algorithm to use for the random selection
+	 */
+	private WeightedRandomCollection(@NotNull Object @NotNull [] entries,
+			double @NotNull [] weights, @NotNull Engine engine) {
+		WeightedTableBuildEvent jfrEvent = new WeightedTableBuildEvent();
+		jfrEvent.begin();
+		Validate.isTrue(entries.length != 0, "Source must not be empty");
+		Validate.isTrue(entries.length == weights.length,
+				"The count of entries and weights must be the same");
+		this.entries = entries;
+		this.weights = weights;
 		double sum = 0;
-		for (T value : source) {
-			entries.put(sum, entryExtractor.apply(value));
-			Double weight = weightExtractor.apply(value);
-			Validate.isTrue(weight != null && weight > 0,
-					"Weights must be non-null positive values");
+		for (double weight : weights) {
+			Validate.isTrue(weight > 0, "Weights must be positive values");
 			sum += weight;
 		}
 		weightSum = sum;
+		sampler = engine.createSampler(weights, sum);
+		
+		if (jfrEvent.shouldCommit()) {
+			jfrEvent.size = entries.length;
+			jfrEvent.engine = engine.name();
+			jfrEvent.weightSum = sum;
+			jfrEvent.commit();
+		}
 	}
 	
 	/**
-	 * Gets a random entry from this collection, while taking the weights into consideration.
+	 * Creates a new collection from the specified arrays,
+	 * using the default {@link Engine#ALIAS} engine.
+	 * Unlike the constructors, this doesn't box the indexes or call any extractor functions:
+	 * the arrays are only copied.
 	 *
-	 * @return the randomly selected entry
+	 * @param entries the entries
+	 * @param weights the weights of the entries, at the same indexes
+	 * @param <E> the type of the entry
+	 * @return the newly created collection
 	 */
-	@Contract(pure = true)
-	public E getRandom() {
-		return entries.floorEntry(ThreadLocalRandom.current().nextDouble(weightSum)).getValue();
+	@Contract(value = "_, _ -> new", pure = true)
+	public static <E> @NotNull WeightedRandomCollection<E> fromArrays(E @NotNull [] entries,
+			double @NotNull [] weights) {
+		return fromArrays(entries, weights, Engine.ALIAS);
 	}
 	
 	/**
-	 * Gets an unmodifiable collection containing all stored entries.
+	 * Creates a new collection from the specified arrays, using the specified engine.
+	 * Unlike the constructors, this doesn't box the indexes or call any extractor functions:
+	 * the arrays are only copied.
 	 *
-	 * @return the immutable collection of entries
+	 * @param entries the entries
+	 * @param weights the weights of the entries, at the same indexes
+	 * @param engine the algorithm to use for the random selection
+	 * @param <E> the type of the entry
+	 * @return the newly created collection
 	 */
+	@Contract(value = "_, _, _ -> new", pure = true)
+	public static <E> @NotNull WeightedRandomCollection<E> fromArrays(E @NotNull [] entries,
+			double @NotNull [] weights, @NotNull Engine engine) {
+		return new WeightedRandomCollection<>(Arrays.copyOf(entries,
+				entries.length, Object[].class), weights.clone(), engine);
+	}
+	
+	@Override
+	@Contract(pure = true)
+	public int size() {
+		return entries.length;
+	}
+	
+	@Override
+	@Contract(pure = true)
+	public E get(int index) {
+		//Only the entries of the source are stored in the array: the cast is safe
+		//noinspection unchecked
+		return (E) entries[index];
+	}
+	
+	@Override
+	@Contract(pure = true)
+	public double getWeight(int index) {
+		return weights[index];
+	}
+	
+	@Override
+	@Contract(pure = true)
+	public int getIndex(double roll) {
+		return sampler.getIndex(roll);
+	}
+	
+	@Override
+	public int sampleDistinct(@NotNull RandomSource random, int count,
+			int @NotNull [] outIndices) {
+		Validate.isTrue(count >= 0 && count <= outIndices.length,
+				"Count must be between 0 and the length of the array");
+		//The tree is only needed by this method: create it lazily.
+		//Racing threads might create multiple instances, but that's harmless.
+		FenwickTree tree = distinctSampler;
+		if (tree == null) {
+			tree = new FenwickTree(weights, weights.length, weights.length);
+			distinctSampler = tree;
+		}
+		int selected = Math.min(count, weights.length);
+		//The tree is modified during the sampling: the collection is shared between threads
+		synchronized (tree) {
+			tree.sampleDistinct(random, weights, weights.length, selected, outIndices);
+		}
+		return selected;
+	}
+	
+	@Override
 	@Unmodifiable
 	@Contract(pure = true)
 	public @NotNull Collection<E> getEntries() {
-		return Collections.unmodifiableCollection(entries.values());
+		//Only the entries of the source are stored in the array: the cast is safe
+		//noinspection unchecked
+		return Collections.unmodifiableList(Arrays.asList((E[]) entries));
+	}
+	
+	
+	/**
+	 * The algorithms that can be used to select the random entries.
+	 */
+	public enum Engine {
+		
+		/**
+		 * Vose's alias method: selection takes constant time and doesn't allocate.
+		 * This is the default engine.
+		 */
+		ALIAS {
+			@Override
+			@NotNull IndexSampler createSampler(double @NotNull [] weights, double weightSum) {
+				return new AliasIndexSampler(weights, weightSum);
+			}
+		},
+		
+		/**
+		 * Cumulative weights stored as {@link java.util.TreeMap} keys:
+		 * selection takes logarithmic time and boxes the rolled value.
+		 * Mostly kept around for comparison purposes.
+		 */
+		TREE_MAP {
+			@Override
+			@NotNull IndexSampler createSampler(double @NotNull [] weights, double weightSum) {
+				return new TreeMapIndexSampler(weights, weightSum);
+			}
+		},
+		
+		/**
+		 * Cumulative weights stored in a flat {@code double[]}:
+		 * selection takes logarithmic time, but the memory footprint is minimal.
+		 */
+		PREFIX_SUM {
+			@Override
+			@NotNull IndexSampler createSampler(double @NotNull [] weights, double weightSum) {
+				return new PrefixSumIndexSampler(weights);
+			}
+		};
+		
+		/**
+		 * Creates the sampler which implements this engine's algorithm.
+		 *
+		 * @param weights the positive weights of the entries
+		 * @param weightSum the sum of the weights
+		 * @return the newly created sampler
+		 */
+		@Contract(pure = true)
+		abstract @NotNull IndexSampler createSampler(double @NotNull [] weights,
+				double weightSum);
 	}
 }
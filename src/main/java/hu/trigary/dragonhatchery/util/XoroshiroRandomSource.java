@@ -0,0 +1,66 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * {@link RandomSource} implementation of the xoroshiro128++ algorithm:
+ * a small (128 bits of state), fast, high quality, non-cryptographic generator.
+ * The state is initialized from the seed via SplitMix64, as recommended by the authors.
+ *
+ * @see <a href="https://prng.di.unimi.it/">xoshiro / xoroshiro generators</a>
+ */
+final class XoroshiroRandomSource implements RandomSource {
+	private long state0;
+	private long state1;
+	
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param seed the initial seed
+	 */
+	XoroshiroRandomSource(long seed) {
+		seed += 0x9E3779B97F4A7C15L;
+		state0 = mix(seed);
+		seed += 0x9E3779B97F4A7C15L;
+		state1 = mix(seed);
+		if ((state0 | state1) == 0) {
+			state1 = 1; //The all-zero state is invalid
+		}
+	}
+	
+	@Override
+	public double nextDouble() {
+		return RandomSource.toDouble(nextLong());
+	}
+	
+	@Override
+	public long nextLong() {
+		long s0 = state0;
+		long s1 = state1;
+		long result = Long.rotateLeft(s0 + s1, 17) + s0;
+		s1 ^= s0;
+		state0 = Long.rotateLeft(s0, 49) ^ s1 ^ (s1 << 21);
+		state1 = Long.rotateLeft(s1, 28);
+		return result;
+	}
+	
+	@Override
+	public @NotNull RandomSource split() {
+		return new XoroshiroRandomSource(nextLong());
+	}
+	
+	/**
+	 * The finalizer of the SplitMix64 algorithm:
+	 * scrambles the bits of the input.
+	 *
+	 * @param value the value to scramble
+	 * @return the scrambled value
+	 */
+	@Contract(pure = true)
+	static long mix(long value) {
+		value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+		value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+		return value ^ (value >>> 31);
+	}
+}
@@ -1,5 +1,11 @@
 package hu.trigary.dragonhatchery;
 
+import hu.trigary.dragonhatchery.core.BlockDataCache;
+import hu.trigary.dragonhatchery.core.HatchStatistics;
+import hu.trigary.dragonhatchery.core.HatchTracer;
+import hu.trigary.dragonhatchery.core.KillCounter;
+import hu.trigary.dragonhatchery.core.RandomSourceProvider;
+import hu.trigary.dragonhatchery.util.RandomSource;
 import org.bukkit.Material;
 import org.bukkit.Server;
 import org.bukkit.block.data.BlockData;
@@ -62,6 +68,12 @@ public abstract class BukkitTestBase {
 		Mockito.when(plugin.isEnabled()).thenReturn(true);
 		Mockito.when(plugin.getServer()).thenReturn(server);
 		Mockito.when(plugin.getLogger()).thenReturn(serverLogger);
+		Mockito.when(plugin.getRandomSourceProvider())
+				.thenReturn(new RandomSourceProvider(RandomSource.THREAD_LOCAL, null));
+		Mockito.when(plugin.getBlockDataCache()).thenReturn(new BlockDataCache(server));
+		Mockito.when(plugin.getTracer()).thenReturn(new HatchTracer(serverLogger));
+		Mockito.when(plugin.getStatistics()).thenReturn(new HatchStatistics());
+		Mockito.when(plugin.getKillCounter()).thenReturn(new KillCounter());
 	}
 	
 	/**
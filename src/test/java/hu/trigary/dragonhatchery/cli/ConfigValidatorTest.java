@@ -0,0 +1,110 @@
+package hu.trigary.dragonhatchery.cli;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Tests the {@link ConfigValidator} class.
+ */
+public class ConfigValidatorTest {
+	private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+	private final ConfigValidator validator = new ConfigValidator(
+			new PrintStream(output, true), new PrintStream(output, true));
+	
+	/**
+	 * Tests that the default configuration is valid and that it can be benchmarked.
+	 */
+	@Test
+	void testDefaultConfig(@TempDir Path directory) throws IOException {
+		Path file = copyDefaultConfig(directory);
+		Assertions.assertEquals(Main.EXIT_VALID, validator.run(new String[]{file.toString()}));
+		Assertions.assertEquals(Main.EXIT_VALID, validator.run(new String[]{
+				file.toString(), "--benchmark", "1000"}));
+		Assertions.assertTrue(getOutput().contains("Benchmark 'subsequent'"));
+	}
+	
+	/**
+	 * Tests that all errors of an invalid configuration are reported.
+	 */
+	@Test
+	void testInvalidConfig(@TempDir Path directory) throws IOException {
+		Path file = copyDefaultConfig(directory);
+		String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8)
+				.replace("spawn-chance: 0.75", "spawn-chance: 2")
+				.replace("weight: 35", "weight: -35");
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		
+		Assertions.assertEquals(Main.EXIT_INVALID, validator.run(new String[]{file.toString()}));
+		Assertions.assertTrue(getOutput().contains("error count: 2"));
+		Assertions.assertTrue(getOutput().contains("scenario.subsequent.spawn-chance"));
+		Assertions.assertTrue(getOutput().contains(
+				"scenario.subsequent.spawned-block.rare-loot-box.weight"));
+	}
+	
+	/**
+	 * Tests that the errors of the scenario rules are reported.
+	 */
+	@Test
+	void testInvalidScenarioRules(@TempDir Path directory) throws IOException {
+		Path file = copyDefaultConfig(directory);
+		String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8)
+				.replace("scenario-rules: {}", "scenario-rules:\n"
+						+ "  unknown:\n    scenario: third\n"
+						+ "  reversed:\n    scenario: first\n    kills: \"x..y\"\n"
+						+ "  valid:\n    scenario: first\n    players: \"3..\"");
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		
+		Assertions.assertEquals(Main.EXIT_INVALID, validator.run(new String[]{file.toString()}));
+		Assertions.assertTrue(getOutput().contains("error count: 2"));
+		Assertions.assertTrue(getOutput().contains("scenario-rules.unknown.scenario"));
+		Assertions.assertTrue(getOutput().contains("scenario-rules.reversed.kills"));
+	}
+	
+	/**
+	 * Tests that invalid arguments and missing files are reported.
+	 */
+	@Test
+	void testInvalidUsage(@TempDir Path directory) {
+		Assertions.assertEquals(Main.EXIT_USAGE, validator.run(new String[0]));
+		Assertions.assertEquals(Main.EXIT_USAGE, validator.run(new String[]{
+				"config.yml", "--benchmark", "zero"}));
+		Assertions.assertEquals(Main.EXIT_USAGE, validator.run(new String[]{
+				directory.resolve("missing.yml").toString()}));
+	}
+	
+	/**
+	 * Copies the default configuration into the specified directory.
+	 *
+	 * @param directory the directory to copy the configuration to
+	 * @return the path of the copied configuration
+	 * @throws IOException if the copying fails
+	 */
+	@NotNull
+	private static Path copyDefaultConfig(@NotNull Path directory) throws IOException {
+		Path file = directory.resolve("config.yml");
+		try (InputStream stream = ConfigValidator.class.getResourceAsStream("/config.yml")) {
+			Files.copy(stream, file);
+		}
+		return file;
+	}
+	
+	/**
+	 * Gets everything printed by the validator so far.
+	 *
+	 * @return the printed text
+	 */
+	@NotNull
+	private String getOutput() {
+		return output.toString(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,72 @@
+package hu.trigary.dragonhatchery.core;
+
+import hu.trigary.dragonhatchery.BukkitTestBase;
+import org.bukkit.Material;
+import org.bukkit.block.data.BlockData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+/**
+ * Tests the {@link BlockDataCache} class.
+ */
+public class BlockDataCacheTest extends BukkitTestBase {
+	
+	/**
+	 * Tests that identical blocks are only created once and different blocks are kept apart.
+	 */
+	@Test
+	void testInterning() {
+		BlockDataCache cache = new BlockDataCache(getServer());
+		Mockito.clearInvocations(getServer());
+		
+		BlockData first = cache.get(Material.CAULDRON, "[level=3]");
+		Assertions.assertSame(first, cache.get(Material.CAULDRON, "[level=3]"));
+		Assertions.assertNotSame(first, cache.get(Material.CAULDRON, ""));
+		Assertions.assertNotSame(first, cache.get(Material.STONE, "[level=3]"));
+		Mockito.verify(getServer(), Mockito.times(3))
+				.createBlockData(Mockito.any(), Mockito.anyString());
+	}
+	
+	/**
+	 * Tests that invalid blocks are rejected and not cached.
+	 */
+	@Test
+	void testInvalid() {
+		BlockDataCache cache = new BlockDataCache(getServer());
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> cache.get(Material.STONE, "invalid"));
+		Assertions.assertEquals(0, cache.size());
+	}
+	
+	/**
+	 * Tests that validating blocks doesn't cache them and that invalid blocks are rejected.
+	 */
+	@Test
+	void testValidate() {
+		BlockDataCache cache = new BlockDataCache(getServer());
+		cache.validate(Material.CAULDRON, "[level=3]");
+		Assertions.assertEquals(0, cache.size());
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> cache.validate(Material.STONE, "invalid"));
+		
+		BlockData template = cache.get(Material.CAULDRON, "[level=3]");
+		Mockito.clearInvocations(getServer());
+		cache.validate(Material.CAULDRON, "[level=3]");
+		Mockito.verify(getServer(), Mockito.never())
+				.createBlockData(Mockito.any(), Mockito.anyString());
+		Assertions.assertSame(template, cache.get(Material.CAULDRON, "[level=3]"));
+	}
+	
+	/**
+	 * Tests that the templates are cloned before placement on non-CraftBukkit servers.
+	 */
+	@Test
+	void testPrepareForPlacement() {
+		BlockDataCache cache = new BlockDataCache(getServer());
+		BlockData template = cache.get(Material.STONE, "");
+		BlockData placed = cache.prepareForPlacement(template);
+		Assertions.assertNotSame(template, placed);
+		Assertions.assertEquals(template.getAsString(), placed.getAsString());
+	}
+}
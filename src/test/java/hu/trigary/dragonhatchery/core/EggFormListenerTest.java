@@ -3,9 +3,11 @@ package hu.trigary.dragonhatchery.core;
 import hu.trigary.dragonhatchery.BukkitTestBase;
 import io.papermc.paper.event.block.DragonEggFormEvent;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockState;
 import org.bukkit.block.data.BlockData;
+import org.bukkit.boss.BossBar;
 import org.bukkit.boss.DragonBattle;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
@@ -24,6 +26,7 @@ import java.io.InputStreamReader;
 import java.lang.reflect.Method;
 import java.util.Collections;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Supplier;
 
 /**
@@ -62,6 +65,7 @@ public class EggFormListenerTest extends BukkitTestBase {
 		Mockito.when(location.getNearbyPlayers(Mockito.anyDouble()))
 				.thenReturn(Collections.emptyList());
 		Block block = Mockito.mock(Block.class);
+		Mockito.when(block.getWorld()).thenReturn(createWorld());
 		Mockito.when(block.getLocation()).thenReturn(location);
 		
 		BlockState blockState = Mockito.mock(BlockState.class);
@@ -89,6 +93,7 @@ public class EggFormListenerTest extends BukkitTestBase {
 		Mockito.doNothing().when(blockState).setBlockData(captor.capture());
 		
 		Block block = Mockito.mock(Block.class);
+		Mockito.when(block.getWorld()).thenReturn(createWorld());
 		DragonBattle battle = Mockito.mock(DragonBattle.class);
 		DragonEggFormEvent event = new DragonEggFormEvent(block, blockState, battle);
 		
@@ -111,6 +116,7 @@ public class EggFormListenerTest extends BukkitTestBase {
 		
 		BlockState blockState = Mockito.mock(BlockState.class);
 		Block block = Mockito.mock(Block.class);
+		Mockito.when(block.getWorld()).thenReturn(createWorld());
 		DragonBattle battle = Mockito.mock(DragonBattle.class);
 		DragonEggFormEvent event = new DragonEggFormEvent(block, blockState, battle);
 		
@@ -118,6 +124,72 @@ public class EggFormListenerTest extends BukkitTestBase {
 		Assertions.assertTrue(event.isCancelled());
 	}
 	
+	/**
+	 * Tests that an error in the audit log doesn't affect the egg spawning.
+	 */
+	@Test
+	void testAuditFailureKeepsSpawn() {
+		ConfigurationSection config = loadConfig("always-spawn.yml");
+		EggFormListener listener = createListener(Map.of(
+				EggScenario.FIRST, () -> config,
+				EggScenario.SUBSEQUENT, () -> config
+		));
+		HatchAuditLog auditLog = Mockito.mock(HatchAuditLog.class);
+		Mockito.doThrow(IllegalStateException.class).when(auditLog).record(Mockito.any());
+		Mockito.when(getPlugin().getAuditLog()).thenReturn(auditLog);
+		
+		try {
+			BlockState blockState = Mockito.mock(BlockState.class);
+			Block block = Mockito.mock(Block.class);
+			Mockito.when(block.getWorld()).thenReturn(createWorld());
+			DragonEggFormEvent event = new DragonEggFormEvent(block, blockState,
+					createBattle());
+			
+			callEvent(listener, event, "onEggSpawn");
+			callEvent(listener, event, "onEggSpawned");
+			Mockito.verify(auditLog).record(Mockito.any());
+			Mockito.verify(blockState).setBlockData(Mockito.any());
+			Assertions.assertFalse(event.isCancelled());
+		} finally {
+			Mockito.when(getPlugin().getAuditLog()).thenReturn(null);
+		}
+	}
+	
+	/**
+	 * Tests that an egg spawning cancelled by another plugin after the logic allowed it
+	 * is recorded as cancelled, but with the rolled entries.
+	 */
+	@Test
+	void testAuditRecordsFinalState() {
+		ConfigurationSection config = loadConfig("always-spawn.yml");
+		EggFormListener listener = createListener(Map.of(
+				EggScenario.FIRST, () -> config,
+				EggScenario.SUBSEQUENT, () -> config
+		));
+		HatchAuditLog auditLog = Mockito.mock(HatchAuditLog.class);
+		ArgumentCaptor<HatchAuditLog.Record> captor
+				= ArgumentCaptor.forClass(HatchAuditLog.Record.class);
+		Mockito.doNothing().when(auditLog).record(captor.capture());
+		Mockito.when(getPlugin().getAuditLog()).thenReturn(auditLog);
+		
+		try {
+			Block block = Mockito.mock(Block.class);
+			Mockito.when(block.getWorld()).thenReturn(createWorld());
+			DragonEggFormEvent event = new DragonEggFormEvent(block,
+					Mockito.mock(BlockState.class), createBattle());
+			
+			callEvent(listener, event, "onEggSpawn");
+			Assertions.assertTrue(captor.getAllValues().isEmpty());
+			event.setCancelled(true);
+			callEvent(listener, event, "onEggSpawned");
+			HatchAuditLog.Record record = captor.getValue();
+			Assertions.assertFalse(record.isAllowed());
+			Assertions.assertFalse(record.getEntries().isEmpty());
+		} finally {
+			Mockito.when(getPlugin().getAuditLog()).thenReturn(null);
+		}
+	}
+	
 	/**
 	 * Creates a {@link EggFormListener} instance whose {@link ScenarioLogic}
 	 * instances are initialized with the specified configurations.
@@ -133,10 +205,38 @@ public class EggFormListenerTest extends BukkitTestBase {
 				pluginConfig.set("scenario." + scenario.getConfigKey(), supplier.get()));
 		Mockito.when(getPlugin().getConfig()).thenReturn(pluginConfig);
 		ScenarioLogicHolder holder = new ScenarioLogicHolder(getPlugin());
-		Mockito.when(getPlugin().getScenarioLogicHolder()).thenReturn(holder);
+		Mockito.when(getPlugin().getScenarioIndex()).thenReturn(new WorldScenarioIndex(holder));
+		Mockito.when(getPlugin().getScenarioRules()).thenReturn(new ScenarioRules());
 		return new EggFormListener(getPlugin());
 	}
 	
+	/**
+	 * Creates a mocked world with a random {@link UUID}.
+	 *
+	 * @return the mocked world
+	 */
+	@Contract("-> new")
+	private @NotNull World createWorld() {
+		World world = Mockito.mock(World.class);
+		UUID id = UUID.randomUUID();
+		Mockito.when(world.getUID()).thenReturn(id);
+		return world;
+	}
+	
+	/**
+	 * Creates a mocked battle without any players.
+	 *
+	 * @return the mocked battle
+	 */
+	@Contract("-> new")
+	private @NotNull DragonBattle createBattle() {
+		BossBar bossBar = Mockito.mock(BossBar.class);
+		Mockito.when(bossBar.getPlayers()).thenReturn(Collections.emptyList());
+		DragonBattle battle = Mockito.mock(DragonBattle.class);
+		Mockito.when(battle.getBossBar()).thenReturn(bossBar);
+		return battle;
+	}
+	
 	/**
 	 * Loads a {@link ScenarioLogic} configuration and returns it.
 	 *
@@ -154,7 +254,7 @@ public class EggFormListenerTest extends BukkitTestBase {
 	}
 	
 	/**
-	 * Calls the (private) event listener method in the specified instance
+	 * Calls the main (private) event listener method in the specified instance
 	 * with the specified event as the parameter.
 	 *
 	 * @param listener the listener whose method should be invoked
@@ -162,9 +262,22 @@ public class EggFormListenerTest extends BukkitTestBase {
 	 */
 	private void callEvent(@NotNull EggFormListener listener,
 			@NotNull DragonEggFormEvent event) {
+		callEvent(listener, event, "onEggSpawn");
+	}
+	
+	/**
+	 * Calls the specified (private) event listener method in the specified instance
+	 * with the specified event as the parameter.
+	 *
+	 * @param listener the listener whose method should be invoked
+	 * @param event the event that the listener should receive
+	 * @param methodName the name of the listener method
+	 */
+	private void callEvent(@NotNull EggFormListener listener,
+			@NotNull DragonEggFormEvent event, @NotNull String methodName) {
 		try {
 			Method method = ReflectionUtils.findMethod(listener.getClass(),
-					"onEggSpawn", DragonEggFormEvent.class).orElseThrow();
+					methodName, DragonEggFormEvent.class).orElseThrow();
 			//use DragonEggFormEvent.class instead of event.getClass():
 			//  the class instance might be a mocked instance or something
 			method.setAccessible(true);
@@ -0,0 +1,241 @@
+package hu.trigary.dragonhatchery.core;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Logger;
+
+/**
+ * Tests the {@link HatchAuditLog} class.
+ */
+public class HatchAuditLogTest {
+	private final Logger logger = Logger.getLogger(getClass().getSimpleName());
+	private final UUID world = UUID.randomUUID();
+	
+	/**
+	 * Tests that the records are written and read back,
+	 * that full files are rotated and that the oldest files are deleted.
+	 *
+	 * @param directory the temporary directory to store the files in
+	 * @throws IOException if the files couldn't be used
+	 */
+	@Test
+	void testRotation(@TempDir Path directory) throws IOException {
+		//Each file can store a few dozen records
+		HatchAuditLog.Settings settings = new HatchAuditLog.Settings(true, 4, 2, 256);
+		Assertions.assertEquals(4096, settings.getFileSize());
+		HatchAuditLog log = new HatchAuditLog(logger, directory, settings);
+		for (int i = 0; i < 200; i++) {
+			log.record(createRecord(i, List.of("steve", "alex")));
+		}
+		log.close();
+		Assertions.assertEquals(0, log.getDroppedCount());
+		
+		//Only the newest records of the deleted files are kept
+		List<Path> files = HatchAuditLog.listFiles(directory);
+		Assertions.assertEquals(2, files.size());
+		List<HatchAuditLog.Record> records = readAll(files);
+		Assertions.assertTrue(records.size() > 40 && records.size() < 200);
+		int first = 200 - records.size();
+		for (int i = 0; i < records.size(); i++) {
+			HatchAuditLog.Record record = records.get(i);
+			Assertions.assertEquals(first + i, record.getTimestamp());
+			Assertions.assertEquals(world, record.getWorld());
+			Assertions.assertEquals("world_the_end", record.getWorldName());
+			Assertions.assertEquals(EggScenario.SUBSEQUENT, record.getScenario());
+			Assertions.assertEquals("subsequent", record.getScenarioName());
+			Assertions.assertEquals(first + i, record.getKillNumber());
+			Assertions.assertEquals(0.25, record.getRoll());
+			Assertions.assertTrue(record.isAllowed());
+			Assertions.assertEquals(List.of("rare-loot-box"), record.getEntries());
+			Assertions.assertEquals(List.of("cauldron"), record.getBlockTypes());
+			Assertions.assertEquals(List.of("[level=3]"), record.getBlockData());
+			Assertions.assertEquals(2, record.getParticipantCount());
+			Assertions.assertEquals(List.of("steve", "alex"), record.getParticipants());
+		}
+	}
+	
+	/**
+	 * Tests that a restarted log keeps appending to its newest file
+	 * instead of starting a new one (and deleting an old one) each time.
+	 *
+	 * @param directory the temporary directory to store the files in
+	 * @throws IOException if the files couldn't be used
+	 */
+	@Test
+	void testReopen(@TempDir Path directory) throws IOException {
+		HatchAuditLog.Settings settings = new HatchAuditLog.Settings(true, 4, 2, 16);
+		for (int i = 0; i < 20; i++) {
+			HatchAuditLog log = new HatchAuditLog(logger, directory, settings);
+			log.record(createRecord(i, Collections.emptyList()));
+			log.close();
+		}
+		List<Path> files = HatchAuditLog.listFiles(directory);
+		Assertions.assertEquals(1, files.size());
+		List<HatchAuditLog.Record> records = readAll(files);
+		Assertions.assertEquals(20, records.size());
+		for (int i = 0; i < records.size(); i++) {
+			Assertions.assertEquals(i, records.get(i).getTimestamp());
+		}
+	}
+	
+	/**
+	 * Tests that long and multi-byte texts are stored without truncation
+	 * and that only the names of the participants are left out
+	 * of a record which wouldn't fit in an empty file.
+	 *
+	 * @param directory the temporary directory to store the files in
+	 * @throws IOException if the files couldn't be used
+	 */
+	@Test
+	void testCompleteness(@TempDir Path directory) throws IOException {
+		String worldName = "\u00e9".repeat(100) + "_the_end";
+		String scenarioName = "scenario-".repeat(20);
+		List<String> entries = List.of("first-".repeat(20), "second-".repeat(20));
+		List<String> blockTypes = List.of("light_blue_glazed_terracotta", "cauldron");
+		List<String> blockData = List.of("[facing=north]", "[level=3]");
+		List<String> participants = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			participants.add("\u00e9player" + i);
+		}
+		List<String> crowd = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			crowd.add("player" + i);
+		}
+		HatchAuditLog log = new HatchAuditLog(logger, directory,
+				new HatchAuditLog.Settings(true, 4, 1, 16));
+		log.record(new HatchAuditLog.Record(1, world, worldName, EggScenario.FIRST, scenarioName,
+				1, 0.5, true, entries, blockTypes, blockData, participants));
+		log.record(createRecord(2, crowd));
+		log.close();
+		
+		List<HatchAuditLog.Record> records = readAll(HatchAuditLog.listFiles(directory));
+		Assertions.assertEquals(2, records.size());
+		HatchAuditLog.Record record = records.get(0);
+		Assertions.assertEquals(worldName, record.getWorldName());
+		Assertions.assertEquals(scenarioName, record.getScenarioName());
+		Assertions.assertEquals(entries, record.getEntries());
+		Assertions.assertEquals(blockTypes, record.getBlockTypes());
+		Assertions.assertEquals(blockData, record.getBlockData());
+		Assertions.assertEquals(20, record.getParticipantCount());
+		Assertions.assertEquals(participants, record.getParticipants());
+		
+		record = records.get(1);
+		Assertions.assertEquals(1000, record.getParticipantCount());
+		Assertions.assertEquals(Collections.emptyList(), record.getParticipants());
+		Assertions.assertEquals(List.of("rare-loot-box"), record.getEntries());
+	}
+	
+	/**
+	 * Tests that reading stops at a record which was only partially written
+	 * and that a restarted log continues the file from that record.
+	 *
+	 * @param directory the temporary directory to store the files in
+	 * @throws IOException if the files couldn't be used
+	 */
+	@Test
+	void testTornRecord(@TempDir Path directory) throws IOException {
+		HatchAuditLog log = new HatchAuditLog(logger, directory,
+				new HatchAuditLog.Settings(true, 4, 1, 16));
+		for (int i = 0; i < 3; i++) {
+			log.record(createRecord(i, List.of("steve")));
+		}
+		log.close();
+		
+		//Corrupt the timestamp of the second record
+		Path file = HatchAuditLog.listFiles(directory).get(0);
+		int second = HatchAuditLog.getNextOffset(HatchAuditLog.mapFile(file),
+				HatchAuditLog.HEADER_SIZE);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), second + Integer.BYTES);
+		}
+		List<HatchAuditLog.Record> records = readAll(List.of(file));
+		Assertions.assertEquals(1, records.size());
+		Assertions.assertEquals(0, records.get(0).getTimestamp());
+		
+		//A restarted log overwrites the torn record
+		log = new HatchAuditLog(logger, directory, new HatchAuditLog.Settings(true, 4, 1, 16));
+		log.record(createRecord(10, Collections.emptyList()));
+		log.close();
+		records = readAll(HatchAuditLog.listFiles(directory));
+		Assertions.assertEquals(2, records.size());
+		Assertions.assertEquals(0, records.get(0).getTimestamp());
+		Assertions.assertEquals(10, records.get(1).getTimestamp());
+	}
+	
+	/**
+	 * Tests that a record handed over while the log is being closed
+	 * is either written or counted as dropped, but never lost silently.
+	 *
+	 * @param directory the temporary directory to store the files in
+	 * @throws IOException if the files couldn't be used
+	 * @throws InterruptedException if the test was interrupted
+	 */
+	@Test
+	void testRecordDuringClose(@TempDir Path directory) throws IOException, InterruptedException {
+		for (int attempt = 0; attempt < 20; attempt++) {
+			Path attemptDirectory = directory.resolve(String.valueOf(attempt));
+			HatchAuditLog log = new HatchAuditLog(logger, attemptDirectory,
+					new HatchAuditLog.Settings(true, 4, 1, 16));
+			CountDownLatch start = new CountDownLatch(1);
+			Thread recorder = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				log.record(createRecord(1, List.of("steve")));
+			});
+			recorder.start();
+			start.countDown();
+			log.close();
+			recorder.join();
+			Assertions.assertEquals(1, readAll(HatchAuditLog.listFiles(attemptDirectory)).size()
+					+ log.getDroppedCount());
+		}
+	}
+	
+	/**
+	 * Creates a record of an allowed egg spawning.
+	 *
+	 * @param number the timestamp and the kill number of the record
+	 * @param participants the names of the participants
+	 * @return the new record
+	 */
+	@Contract("_, _ -> new")
+	private @NotNull HatchAuditLog.Record createRecord(long number,
+			@NotNull List<String> participants) {
+		return new HatchAuditLog.Record(number, world, "world_the_end", EggScenario.SUBSEQUENT,
+				"subsequent", number, 0.25, true, List.of("rare-loot-box"), List.of("cauldron"),
+				List.of("[level=3]"), participants);
+	}
+	
+	/**
+	 * Reads the records of the specified files.
+	 *
+	 * @param files the files to read
+	 * @return the records, in the order they were written
+	 * @throws IOException if a file couldn't be read
+	 */
+	private static @NotNull List<HatchAuditLog.Record> readAll(@NotNull List<Path> files)
+			throws IOException {
+		List<HatchAuditLog.Record> records = new ArrayList<>();
+		for (Path file : files) {
+			HatchAuditLog.readFile(file, records::add);
+		}
+		return records;
+	}
+}
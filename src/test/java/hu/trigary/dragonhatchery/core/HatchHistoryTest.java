@@ -0,0 +1,224 @@
+package hu.trigary.dragonhatchery.core;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Tests the {@link HatchHistory} class.
+ */
+public class HatchHistoryTest {
+	private final Logger logger = Logger.getLogger(getClass().getSimpleName());
+	
+	/**
+	 * Tests the filtering, the paging and the skipping of the files based on their summaries.
+	 *
+	 * @param directory the temporary directory to store the files in
+	 * @throws IOException if the files couldn't be used
+	 */
+	@Test
+	void testQuery(@TempDir Path directory) throws IOException {
+		//Each file can store more than 100 records: multiple index blocks per file
+		HatchAuditLog log = new HatchAuditLog(logger, directory,
+				new HatchAuditLog.Settings(true, 16, 100, 1024));
+		for (int i = 0; i < 300; i++) {
+			log.record(createRecord(i * 10L, i < 150 ? "world_the_end" : "team_red_end",
+					i % 3 == 0 ? EggScenario.FIRST : EggScenario.SUBSEQUENT,
+					i % 2 == 0 ? "dragon_egg" : "diamond_block"));
+		}
+		log.close();
+		List<Path> files = HatchAuditLog.listFiles(directory);
+		Assertions.assertEquals(3, files.size());
+		long boundary = getFirstTimestamp(files.get(1));
+		Assertions.assertTrue(boundary > 1000 && boundary < 1500);
+		
+		HatchHistory history = new HatchHistory(directory);
+		HatchHistory.Page page = history.query(new HatchHistory.Query(null, null, null,
+				0, Long.MAX_VALUE, null), 1, 10);
+		Assertions.assertEquals(List.of(2990L, 2980L, 2970L, 2960L, 2950L,
+				2940L, 2930L, 2920L, 2910L, 2900L), getTimestamps(page));
+		Assertions.assertTrue(page.hasMore());
+		Assertions.assertEquals(1, page.getScannedFiles());
+		
+		page = history.query(new HatchHistory.Query(null, "WORLD_THE_END", EggScenario.FIRST,
+				1000, 1200, "dragon_egg"), 1, 10);
+		Assertions.assertEquals(List.of(1200L, 1140L, 1080L, 1020L), getTimestamps(page));
+		Assertions.assertFalse(page.hasMore());
+		Assertions.assertEquals(1, page.getScannedFiles());
+		
+		//The time range spans the first two files
+		HatchHistory.Query spanning = new HatchHistory.Query(null, null, null,
+				boundary - 20, boundary + 10, null);
+		page = history.query(spanning, 1, 2);
+		Assertions.assertEquals(List.of(boundary + 10, boundary), getTimestamps(page));
+		Assertions.assertTrue(page.hasMore());
+		page = history.query(spanning, 2, 2);
+		Assertions.assertEquals(List.of(boundary - 10, boundary - 20), getTimestamps(page));
+		Assertions.assertFalse(page.hasMore());
+		Assertions.assertEquals(2, page.getScannedFiles());
+		
+		page = history.query(new HatchHistory.Query(null, "team_red_end", null,
+				0, 1000, null), 1, 10);
+		Assertions.assertTrue(page.getRecords().isEmpty());
+		Assertions.assertEquals(0, page.getScannedFiles());
+		page = history.query(new HatchHistory.Query(null, null, null,
+				0, Long.MAX_VALUE, "cauldron"), 1, 10);
+		Assertions.assertTrue(page.getRecords().isEmpty());
+		Assertions.assertEquals(0, page.getScannedFiles());
+	}
+	
+	/**
+	 * Tests that the records are found even if the clock was adjusted backwards.
+	 *
+	 * @param directory the temporary directory to store the files in
+	 * @throws IOException if the files couldn't be used
+	 */
+	@Test
+	void testUnsortedTimestamps(@TempDir Path directory) throws IOException {
+		HatchAuditLog log = new HatchAuditLog(logger, directory,
+				new HatchAuditLog.Settings(true, 64, 1, 1024));
+		for (int i = 0; i < 200; i++) {
+			log.record(createRecord(i == 150 ? 5 : i * 10L, "world_the_end",
+					EggScenario.FIRST, "dragon_egg"));
+		}
+		log.close();
+		
+		HatchHistory history = new HatchHistory(directory);
+		HatchHistory.Page page = history.query(new HatchHistory.Query(null, null, null,
+				0, 10, null), 1, 10);
+		Assertions.assertEquals(List.of(5L, 10L, 0L), getTimestamps(page));
+	}
+	
+	/**
+	 * Tests that the records appended to the newest file after it was queried are found.
+	 *
+	 * @param directory the temporary directory to store the files in
+	 * @throws IOException if the files couldn't be used
+	 */
+	@Test
+	void testAppendedRecords(@TempDir Path directory) throws IOException {
+		HatchAuditLog.Settings settings = new HatchAuditLog.Settings(true, 64, 1, 1024);
+		HatchAuditLog log = new HatchAuditLog(logger, directory, settings);
+		for (int i = 0; i < 100; i++) {
+			log.record(createRecord(i * 10L, "world_the_end", EggScenario.FIRST, "dragon_egg"));
+		}
+		log.close();
+		
+		HatchHistory history = new HatchHistory(directory);
+		HatchHistory.Query all = new HatchHistory.Query(null, null, null, 0, Long.MAX_VALUE, null);
+		Assertions.assertEquals(100, history.query(all, 1, 1000).getRecords().size());
+		
+		log = new HatchAuditLog(logger, directory, settings);
+		for (int i = 100; i < 200; i++) {
+			log.record(createRecord(i * 10L, "team_red_end", EggScenario.FIRST, "dragon_egg"));
+		}
+		log.close();
+		Assertions.assertEquals(1, HatchAuditLog.listFiles(directory).size());
+		
+		Assertions.assertEquals(200, history.query(all, 1, 1000).getRecords().size());
+		Assertions.assertEquals(List.of(1990L, 1980L), getTimestamps(history.query(
+				new HatchHistory.Query(null, "team_red_end", null, 0, Long.MAX_VALUE, null), 1, 2)));
+		Assertions.assertEquals(List.of(1010L, 1000L, 990L), getTimestamps(history.query(
+				new HatchHistory.Query(null, null, null, 990, 1010, null), 1, 10)));
+	}
+	
+	/**
+	 * Tests that long world names and block types are matched completely
+	 * and that the worlds are matched by their identifiers.
+	 *
+	 * @param directory the temporary directory to store the files in
+	 * @throws IOException if the files couldn't be used
+	 */
+	@Test
+	void testLongNames(@TempDir Path directory) throws IOException {
+		String longWorld = "tournament_season_seven_finals_the_end";
+		String longBlock = "light_blue_glazed_terracotta";
+		HatchAuditLog log = new HatchAuditLog(logger, directory,
+				new HatchAuditLog.Settings(true, 64, 1, 1024));
+		for (int i = 0; i < 10; i++) {
+			log.record(createRecord(i, i % 2 == 0 ? longWorld : "world_the_end",
+					EggScenario.SUBSEQUENT, i < 5 ? longBlock : "light_blue_glazed_terracotta_x"));
+		}
+		log.close();
+		
+		HatchHistory history = new HatchHistory(directory);
+		Assertions.assertEquals(List.of(8L, 6L, 4L, 2L, 0L), getTimestamps(history.query(
+				new HatchHistory.Query(getWorld(longWorld), null, null, 0, 100, null), 1, 10)));
+		Assertions.assertEquals(List.of(8L, 6L, 4L, 2L, 0L), getTimestamps(history.query(
+				new HatchHistory.Query(null, longWorld.toUpperCase(Locale.ROOT), null,
+						0, 100, null), 1, 10)));
+		Assertions.assertEquals(List.of(4L, 2L, 0L), getTimestamps(history.query(
+				new HatchHistory.Query(getWorld(longWorld), null, null,
+						0, 100, "minecraft:" + longBlock.toUpperCase(Locale.ROOT)), 1, 10)));
+		
+		HatchHistory.Page page = history.query(new HatchHistory.Query(
+				getWorld("team_red_end"), null, null, 0, 100, null), 1, 10);
+		Assertions.assertTrue(page.getRecords().isEmpty());
+		Assertions.assertEquals(0, page.getScannedFiles());
+	}
+	
+	/**
+	 * Creates a record of an allowed egg spawning.
+	 *
+	 * @param timestamp the timestamp of the record
+	 * @param worldName the name of the world
+	 * @param scenario the scenario of the record
+	 * @param blockType the type of the chosen block
+	 * @return the new record
+	 */
+	@Contract("_, _, _, _ -> new")
+	private static @NotNull HatchAuditLog.Record createRecord(long timestamp,
+			@NotNull String worldName, @NotNull EggScenario scenario,
+			@NotNull String blockType) {
+		return new HatchAuditLog.Record(timestamp, getWorld(worldName), worldName, scenario,
+				scenario.getConfigKey(), 1, 0.5, true, List.of("entry"), List.of(blockType),
+				List.of(""), Collections.emptyList());
+	}
+	
+	/**
+	 * Gets the identifier of the world with the specified name.
+	 *
+	 * @param worldName the name of the world
+	 * @return the identifier, the same for each call with the same name
+	 */
+	@Contract(pure = true)
+	private static @NotNull UUID getWorld(@NotNull String worldName) {
+		return UUID.nameUUIDFromBytes(worldName.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * Gets the timestamp of the first record of the specified file.
+	 *
+	 * @param file the file to read
+	 * @return the timestamp of its first record
+	 * @throws IOException if the file couldn't be read
+	 */
+	private static long getFirstTimestamp(@NotNull Path file) throws IOException {
+		return HatchAuditLog.readTimestamp(HatchAuditLog.mapFile(file), HatchAuditLog.HEADER_SIZE);
+	}
+	
+	/**
+	 * Gets the timestamps of the records of the specified page.
+	 *
+	 * @param page the page to get the timestamps of
+	 * @return the timestamps, in the order of the records
+	 */
+	@Contract(pure = true)
+	private static @NotNull List<Long> getTimestamps(@NotNull HatchHistory.Page page) {
+		return page.getRecords().stream()
+				.map(HatchAuditLog.Record::getTimestamp)
+				.collect(Collectors.toList());
+	}
+}
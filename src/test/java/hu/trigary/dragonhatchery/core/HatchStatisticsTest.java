@@ -0,0 +1,68 @@
+package hu.trigary.dragonhatchery.core;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests the {@link HatchStatistics} class.
+ */
+public class HatchStatisticsTest {
+	
+	/**
+	 * Tests that the recorded values are reported per scenario.
+	 */
+	@Test
+	void testRecording() {
+		HatchStatistics statistics = new HatchStatistics();
+		HatchStatistics.ScenarioStatistics first = statistics.getFor("first");
+		Assertions.assertSame(first, statistics.getFor("first"));
+		
+		first.recordStage(HatchStatistics.Stage.ROLL, 100);
+		first.recordStage(HatchStatistics.Stage.ROLL, 200);
+		first.recordOutcome(true);
+		first.recordOutcome(true);
+		first.recordOutcome(false);
+		first.recordBlock("egg");
+		first.recordBlock("egg");
+		first.recordBlock("air");
+		statistics.getFor("subsequent").recordOutcome(false);
+		statistics.getFor("arena", "first").recordOutcome(false);
+		Assertions.assertSame(first, statistics.getFor(null, "first"));
+		Assertions.assertNotSame(first, statistics.getFor("arena", "first"));
+		
+		Assertions.assertEquals(List.of("arena/first", "first", "subsequent"),
+				List.copyOf(statistics.getAll().keySet()));
+		Assertions.assertEquals(3, first.getHandledCount());
+		Assertions.assertEquals(1, statistics.getFor("arena", "first").getHandledCount());
+		Assertions.assertEquals(2, first.getStage(HatchStatistics.Stage.ROLL).getCount());
+		Assertions.assertEquals(200, first.getStage(HatchStatistics.Stage.ROLL).getMax());
+		Assertions.assertEquals(0, first.getStage(HatchStatistics.Stage.UPDATE).getCount());
+		Assertions.assertEquals(2, first.getAllowedCount());
+		Assertions.assertEquals(1, first.getCancelledCount());
+		Assertions.assertEquals(Map.of("air", 1L, "egg", 2L), first.getBlockCounts());
+	}
+	
+	/**
+	 * Tests that resetting clears the values,
+	 * but the previously returned instances remain usable.
+	 */
+	@Test
+	void testReset() {
+		HatchStatistics statistics = new HatchStatistics();
+		HatchStatistics.ScenarioStatistics first = statistics.getFor("first");
+		first.recordStage(HatchStatistics.Stage.TOTAL, 100);
+		first.recordOutcome(true);
+		first.recordBlock("egg");
+		
+		statistics.reset();
+		Assertions.assertEquals(0, first.getStage(HatchStatistics.Stage.TOTAL).getCount());
+		Assertions.assertEquals(0, first.getAllowedCount());
+		Assertions.assertTrue(first.getBlockCounts().isEmpty());
+		
+		first.recordOutcome(false);
+		Assertions.assertEquals(1, statistics.getFor("first").getCancelledCount());
+	}
+}
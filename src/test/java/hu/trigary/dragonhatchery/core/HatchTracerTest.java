@@ -0,0 +1,52 @@
+package hu.trigary.dragonhatchery.core;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Tests the {@link HatchTracer} class.
+ */
+public class HatchTracerTest {
+	
+	/**
+	 * Tests that the events are only logged while the tracing is enabled
+	 * and that closing logs the events that weren't logged yet.
+	 */
+	@Test
+	void testTracing() {
+		Logger logger = Logger.getLogger("HatchTracerTest#" + hashCode());
+		logger.setUseParentHandlers(false);
+		logger.setLevel(Level.ALL);
+		List<String> messages = new CopyOnWriteArrayList<>();
+		logger.addHandler(new Handler() {
+			@Override
+			public void publish(LogRecord record) {
+				messages.add(record.getMessage());
+			}
+			
+			@Override
+			public void flush() {}
+			
+			@Override
+			public void close() {}
+		});
+		
+		HatchTracer tracer = new HatchTracer(logger);
+		tracer.scenarioDetected(EggScenario.FIRST);
+		tracer.setEnabled(true);
+		tracer.scenarioDetected(EggScenario.SUBSEQUENT);
+		tracer.spawnHandled(false);
+		tracer.close();
+		tracer.scenarioDetected(EggScenario.FIRST);
+		
+		Assertions.assertEquals(List.of("EggFormListener: Detected scenario: SUBSEQUENT",
+				"EggFormListener: Cancelled egg spawning"), messages);
+	}
+}
@@ -0,0 +1,120 @@
+package hu.trigary.dragonhatchery.core;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Tests the {@link KillCounterStore} class.
+ */
+public class KillCounterStoreTest {
+	
+	/**
+	 * Tests that the counters are kept when the store is kept in memory only.
+	 *
+	 * @throws IOException if the store couldn't be written to
+	 */
+	@Test
+	void testInMemory() throws IOException {
+		UUID world = UUID.randomUUID();
+		KillCounterStore store = new KillCounterStore();
+		Assertions.assertEquals(0, store.get(world));
+		store.set(world, 5);
+		store.set(world, 6);
+		Assertions.assertEquals(6, store.get(world));
+		store.close();
+	}
+	
+	/**
+	 * Tests that the counters survive reopening the file,
+	 * even if the file had to be extended.
+	 *
+	 * @param directory the temporary directory to create the file in
+	 * @throws IOException if the file couldn't be used
+	 */
+	@Test
+	void testPersistence(@TempDir Path directory) throws IOException {
+		Path file = directory.resolve("data").resolve("kill-counts.bin");
+		List<UUID> worlds = new ArrayList<>();
+		try (KillCounterStore store = new KillCounterStore(file, Runnable::run)) {
+			for (int i = 0; i < 200; i++) {
+				UUID world = UUID.randomUUID();
+				worlds.add(world);
+				store.set(world, i);
+				store.set(world, i + 1);
+			}
+		}
+		
+		try (KillCounterStore store = new KillCounterStore(file, Runnable::run)) {
+			for (int i = 0; i < worlds.size(); i++) {
+				Assertions.assertEquals(i + 1, store.get(worlds.get(i)));
+			}
+			store.set(worlds.get(0), 100);
+		}
+		
+		try (KillCounterStore store = new KillCounterStore(file, Runnable::run)) {
+			Assertions.assertEquals(100, store.get(worlds.get(0)));
+			Assertions.assertEquals(0, store.get(UUID.randomUUID()));
+		}
+	}
+	
+	/**
+	 * Tests that the previous value is loaded if the latest write was torn.
+	 *
+	 * @param directory the temporary directory to create the file in
+	 * @throws IOException if the file couldn't be used
+	 */
+	@Test
+	void testTornWrite(@TempDir Path directory) throws IOException {
+		Path file = directory.resolve("kill-counts.bin");
+		UUID world = UUID.randomUUID();
+		try (KillCounterStore store = new KillCounterStore(file, Runnable::run)) {
+			store.set(world, 1);
+			store.set(world, 2);
+		}
+		
+		//The first write went to the first copy, the second one to the second copy
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), 64 + 32 + 16);
+		}
+		
+		try (KillCounterStore store = new KillCounterStore(file, Runnable::run)) {
+			Assertions.assertEquals(1, store.get(world));
+			store.set(world, 3);
+		}
+		try (KillCounterStore store = new KillCounterStore(file, Runnable::run)) {
+			Assertions.assertEquals(3, store.get(world));
+		}
+	}
+	
+	/**
+	 * Tests that corrupt files are rejected.
+	 *
+	 * @param directory the temporary directory to create the files in
+	 * @throws IOException if the files couldn't be created
+	 */
+	@Test
+	void testCorruptFile(@TempDir Path directory) throws IOException {
+		Path invalidSize = directory.resolve("invalid-size.bin");
+		Files.write(invalidSize, new byte[100]);
+		Assertions.assertThrows(IOException.class,
+				() -> new KillCounterStore(invalidSize, Runnable::run));
+		
+		Path invalidHeader = directory.resolve("invalid-header.bin");
+		byte[] content = new byte[64 + 64];
+		content[0] = 1;
+		Files.write(invalidHeader, content);
+		Assertions.assertThrows(IOException.class,
+				() -> new KillCounterStore(invalidHeader, Runnable::run));
+	}
+}
@@ -0,0 +1,46 @@
+package hu.trigary.dragonhatchery.core;
+
+import org.bukkit.World;
+import org.bukkit.boss.DragonBattle;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.UUID;
+
+/**
+ * Tests the {@link KillCounter} class.
+ */
+public class KillCounterTest {
+	
+	/**
+	 * Tests that the kills are counted per world
+	 * and that the count restarts when the dragon hasn't been killed before.
+	 */
+	@Test
+	void testCounting() {
+		World world = Mockito.mock(World.class);
+		World otherWorld = Mockito.mock(World.class);
+		Mockito.when(world.getUID()).thenReturn(UUID.randomUUID());
+		Mockito.when(otherWorld.getUID()).thenReturn(UUID.randomUUID());
+		DragonBattle first = Mockito.mock(DragonBattle.class);
+		DragonBattle subsequent = Mockito.mock(DragonBattle.class);
+		Mockito.when(subsequent.hasBeenPreviouslyKilled()).thenReturn(true);
+		
+		KillCounter counter = new KillCounter();
+		Assertions.assertEquals(0, counter.getKills(world.getUID()));
+		Assertions.assertEquals(1, counter.recordKill(world, first));
+		Assertions.assertEquals(2, counter.recordKill(world, subsequent));
+		Assertions.assertEquals(3, counter.recordKill(world, subsequent));
+		Assertions.assertEquals(1, counter.recordKill(otherWorld, subsequent));
+		Assertions.assertEquals(3, counter.getKills(world.getUID()));
+		
+		Assertions.assertEquals(1, counter.recordKill(world, first));
+		Assertions.assertEquals(1, counter.getKills(world.getUID()));
+		
+		Assertions.assertEquals(2, counter.getNextKillNumber(world, subsequent));
+		Assertions.assertEquals(1, counter.getKills(world.getUID()));
+		counter.recordKill(world, 2);
+		Assertions.assertEquals(2, counter.getKills(world.getUID()));
+	}
+}
@@ -0,0 +1,73 @@
+package hu.trigary.dragonhatchery.core;
+
+import hu.trigary.dragonhatchery.BukkitTestBase;
+import hu.trigary.dragonhatchery.util.RandomSource;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests the {@link OddsSimulation} class.
+ */
+public class OddsSimulationTest extends BukkitTestBase {
+	
+	/**
+	 * Tests that the observed chances match the configured chances,
+	 * that every roll is counted exactly once and that the progress is complete.
+	 */
+	@Test
+	@Timeout(value = 30)
+	void testSimulation() throws IOException {
+		ScenarioLogic logic = loadLogic();
+		long rolls = 1_000_003; //Not a multiple of the chunk size
+		OddsSimulation simulation = new OddsSimulation(logic, rolls);
+		OddsSimulation.Result result = simulation.start(ForkJoinPool.commonPool(),
+				RandomSource.create(RandomSource.XOROSHIRO, 42)).join();
+		
+		Assertions.assertEquals(rolls, simulation.getCompletedRolls());
+		long sum = result.getCancelledCount();
+		for (int i = 0; i < logic.getBlocks().size(); i++) {
+			sum += result.getCount(i);
+			Assertions.assertEquals(result.getExpectedChance(i), result.getObservedChance(i), 0.005);
+		}
+		Assertions.assertEquals(rolls, sum);
+		Assertions.assertEquals(0.58, result.getExpectedCancelChance(), 1e-9);
+		Assertions.assertEquals(0.58, result.getObservedCancelChance(), 0.005);
+		Assertions.assertEquals(0.42 / 11, result.getExpectedChance(0), 1e-9);
+	}
+	
+	/**
+	 * Tests that a cancelled simulation doesn't execute its remaining chunks
+	 * and that its task completes exceptionally.
+	 */
+	@Test
+	@Timeout(value = 30)
+	void testCancel() throws IOException {
+		OddsSimulation simulation = new OddsSimulation(loadLogic(), 1_000_000);
+		simulation.cancel();
+		Assertions.assertThrows(CancellationException.class, () -> simulation.start(
+				ForkJoinPool.commonPool(), RandomSource.create(RandomSource.XOROSHIRO, 42)).join());
+		Assertions.assertEquals(0, simulation.getCompletedRolls());
+	}
+	
+	/**
+	 * Loads the logic whose configuration is simulated.
+	 *
+	 * @return the loaded logic
+	 * @throws IOException if the configuration couldn't be read
+	 */
+	private @NotNull ScenarioLogic loadLogic() throws IOException {
+		InputStream stream = getClass().getResourceAsStream("/logic/stone-and-dirt-blocks.yml");
+		try (InputStreamReader reader = new InputStreamReader(stream)) {
+			return new ScenarioLogic(getPlugin(), YamlConfiguration.loadConfiguration(reader));
+		}
+	}
+}
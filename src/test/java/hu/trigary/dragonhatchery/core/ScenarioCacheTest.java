@@ -0,0 +1,96 @@
+package hu.trigary.dragonhatchery.core;
+
+import org.bukkit.Material;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Tests the {@link ScenarioCache} class.
+ */
+public class ScenarioCacheTest {
+	
+	/**
+	 * Tests that the written definitions are read back unchanged
+	 * if the fingerprint of the configuration matches.
+	 */
+	@Test
+	void testRoundTrip(@TempDir Path directory) throws IOException {
+		ScenarioCache cache = new ScenarioCache(directory.resolve("cache.bin"));
+		Map<EggScenario, ScenarioDefinition> definitions = new EnumMap<>(EggScenario.class);
+		definitions.put(EggScenario.FIRST, createDefinition("first"));
+		cache.write("fingerprint", definitions);
+		
+		Map<EggScenario, ScenarioDefinition> read = cache.read("fingerprint");
+		Assertions.assertNotNull(read);
+		Assertions.assertEquals(1, read.size());
+		ScenarioDefinition definition = read.get(EggScenario.FIRST);
+		Assertions.assertEquals("first", definition.getName());
+		Assertions.assertEquals("section", definition.getFingerprint());
+		Assertions.assertEquals(0.75, definition.getSpawnChance());
+		Assertions.assertEquals(2, definition.getRollCount());
+		Assertions.assertEquals(3, definition.getSize());
+		Assertions.assertEquals("dirt", definition.getKey(1));
+		Assertions.assertEquals(Material.DIRT, definition.getBlockType(1));
+		Assertions.assertEquals("[level=3]", definition.getBlockData(2));
+		Assertions.assertEquals(2.5, definition.getWeight(1));
+	}
+	
+	/**
+	 * Tests that the cache is ignored if it doesn't exist,
+	 * if the configuration has changed or if the cache was deleted.
+	 */
+	@Test
+	void testOutdated(@TempDir Path directory) throws IOException {
+		ScenarioCache cache = new ScenarioCache(directory.resolve("cache.bin"));
+		Assertions.assertNull(cache.read("fingerprint"));
+		
+		Map<EggScenario, ScenarioDefinition> definitions = new EnumMap<>(EggScenario.class);
+		definitions.put(EggScenario.FIRST, createDefinition("first"));
+		cache.write("fingerprint", definitions);
+		Assertions.assertNull(cache.read("other"));
+		
+		cache.delete();
+		Assertions.assertNull(cache.read("fingerprint"));
+	}
+	
+	/**
+	 * Tests that reading a corrupt cache fails instead of returning invalid definitions.
+	 */
+	@Test
+	void testCorrupt(@TempDir Path directory) throws IOException {
+		Path file = directory.resolve("cache.bin");
+		ScenarioCache cache = new ScenarioCache(file);
+		Map<EggScenario, ScenarioDefinition> definitions = new EnumMap<>(EggScenario.class);
+		definitions.put(EggScenario.FIRST, createDefinition("first"));
+		cache.write("fingerprint", definitions);
+		
+		byte[] bytes = Files.readAllBytes(file);
+		byte[] truncated = new byte[bytes.length - 5];
+		System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+		Files.write(file, truncated);
+		Assertions.assertThrows(IOException.class, () -> cache.read("fingerprint"));
+	}
+	
+	/**
+	 * Creates a valid definition with 3 entries.
+	 *
+	 * @param name the name of the scenario
+	 * @return the created definition
+	 */
+	@NotNull
+	private static ScenarioDefinition createDefinition(@NotNull String name) {
+		return new ScenarioDefinition(name, "section", 0.75, 2,
+				new String[]{"stone", "dirt", "cauldron"},
+				new Material[]{Material.STONE, Material.DIRT, Material.CAULDRON},
+				new String[]{"", "", "[level=3]"},
+				new double[]{1, 2.5, 3});
+	}
+}
@@ -0,0 +1,86 @@
+package hu.trigary.dragonhatchery.core;
+
+import hu.trigary.dragonhatchery.util.InvalidConfigException;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Tests the {@link ScenarioDefinition} class.
+ * The validation of the individual values is tested by {@link ScenarioLogicTest}.
+ */
+public class ScenarioDefinitionTest {
+	private final Logger logger = Logger.getAnonymousLogger();
+	
+	/**
+	 * Tests that all errors are reported at once:
+	 * the first one is thrown, the rest are suppressed by it.
+	 */
+	@Test
+	void testAggregatedErrors() {
+		ConfigurationSection config = createConfig(3);
+		config.set("spawn-chance", "invalid");
+		config.set("spawned-block.entry-1.block-type", "does-not-exist");
+		config.set("spawned-block.entry-2.weight", -1);
+		
+		InvalidConfigException e = Assertions.assertThrows(InvalidConfigException.class,
+				() -> ScenarioDefinition.fromConfig(config, logger));
+		Assertions.assertEquals("spawn-chance", e.getLocation());
+		Assertions.assertEquals(Arrays.asList("spawned-block.entry-1.block-type",
+				"spawned-block.entry-2.weight"), Arrays.stream(e.getSuppressed())
+				.map(suppressed -> ((InvalidConfigException) suppressed).getLocation())
+				.collect(Collectors.toList()));
+	}
+	
+	/**
+	 * Tests that huge tables (which are parsed in parallel) are parsed correctly:
+	 * the order of the entries is kept and the errors are reported in order.
+	 */
+	@Test
+	void testHugeTable() {
+		int size = 5000;
+		ScenarioDefinition definition = ScenarioDefinition.fromConfig(createConfig(size), logger);
+		Assertions.assertEquals(size, definition.getSize());
+		for (int i = 0; i < size; i++) {
+			Assertions.assertEquals("entry-" + i, definition.getKey(i));
+			Assertions.assertEquals(Material.STONE, definition.getBlockType(i));
+			Assertions.assertEquals(i + 1, definition.getWeight(i));
+		}
+		
+		ConfigurationSection invalid = createConfig(size);
+		for (int i = 0; i < size; i += 1000) {
+			invalid.set("spawned-block.entry-" + i + ".weight", "invalid");
+		}
+		InvalidConfigException e = Assertions.assertThrows(InvalidConfigException.class,
+				() -> ScenarioDefinition.fromConfig(invalid, logger));
+		Assertions.assertEquals("spawned-block.entry-0.weight", e.getLocation());
+		Assertions.assertEquals(4, e.getSuppressed().length);
+		Assertions.assertEquals("spawned-block.entry-4000.weight",
+				((InvalidConfigException) e.getSuppressed()[3]).getLocation());
+	}
+	
+	/**
+	 * Creates a valid configuration with the specified count of entries.
+	 *
+	 * @param size the count of spawned block entries
+	 * @return the created configuration
+	 */
+	@NotNull
+	private static ConfigurationSection createConfig(int size) {
+		ConfigurationSection config = new YamlConfiguration();
+		config.set("spawn-chance", 0.5);
+		for (int i = 0; i < size; i++) {
+			config.set("spawned-block.entry-" + i + ".block-type", "stone");
+			config.set("spawned-block.entry-" + i + ".block-data", "");
+			config.set("spawned-block.entry-" + i + ".weight", i + 1);
+		}
+		return config;
+	}
+}
@@ -1,6 +1,7 @@
 package hu.trigary.dragonhatchery.core;
 
 import hu.trigary.dragonhatchery.BukkitTestBase;
+import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
@@ -68,6 +69,94 @@ public class ScenarioLogicHolderTest extends BukkitTestBase {
 		}
 	}
 	
+	/**
+	 * Tests that a scenario whose block data is syntactically valid,
+	 * but is rejected by the server, already fails to load.
+	 */
+	@Test
+	void testInvalidBlockData() {
+		Mockito.when(getServer().createBlockData(Material.CAULDRON, "[level=3]"))
+				.thenThrow(new IllegalArgumentException("Unknown property"));
+		FileConfiguration pluginConfig = new YamlConfiguration();
+		pluginConfig.set("scenario." + EggScenario.FIRST.getConfigKey(),
+				loadConfig("block-data.yml"));
+		pluginConfig.set("scenario." + EggScenario.SUBSEQUENT.getConfigKey(),
+				loadConfig("simple.yml"));
+		
+		ScenarioLogicHolder holder = new ScenarioLogicHolder(getPlugin(), pluginConfig);
+		Assertions.assertEquals(1, holder.getLoadedCount());
+		Assertions.assertNull(holder.getLogicFor(EggScenario.FIRST));
+		Assertions.assertNotNull(holder.getLogicFor(EggScenario.SUBSEQUENT));
+	}
+	
+	/**
+	 * Tests that the configuration passed to the constructor is used
+	 * instead of the plugin's current configuration (which is used eg. by asynchronous reloads).
+	 */
+	@Test
+	void testExplicitConfig() {
+		ConfigurationSection validConfig = loadConfig("simple.yml");
+		FileConfiguration pluginConfig = new YamlConfiguration();
+		pluginConfig.set("scenario." + EggScenario.FIRST.getConfigKey(), validConfig);
+		Mockito.when(getPlugin().getConfig()).thenReturn(new YamlConfiguration());
+		
+		ScenarioLogicHolder holder = new ScenarioLogicHolder(getPlugin(), pluginConfig);
+		Assertions.assertNotNull(holder.getLogicFor(EggScenario.FIRST));
+		Assertions.assertNull(holder.getLogicFor(EggScenario.SUBSEQUENT));
+		Assertions.assertEquals(1, holder.getLoadedCount());
+	}
+	
+	/**
+	 * Tests that the logic of the unchanged scenarios is reused
+	 * when the previous instance is specified, while the changed ones are parsed again.
+	 */
+	@Test
+	void testIncrementalRebuild() {
+		FileConfiguration pluginConfig = new YamlConfiguration();
+		for (EggScenario scenario : EggScenario.values()) {
+			pluginConfig.set("scenario." + scenario.getConfigKey(), loadConfig("simple.yml"));
+		}
+		ScenarioLogicHolder previous = new ScenarioLogicHolder(getPlugin(), pluginConfig);
+		
+		FileConfiguration newConfig = new YamlConfiguration();
+		for (EggScenario scenario : EggScenario.values()) {
+			newConfig.set("scenario." + scenario.getConfigKey(), loadConfig("simple.yml"));
+		}
+		newConfig.set("scenario." + EggScenario.FIRST.getConfigKey() + ".spawn-chance", 0.5);
+		ScenarioLogicHolder holder = new ScenarioLogicHolder(getPlugin(), newConfig, previous);
+		
+		Assertions.assertNotSame(previous.getLogicFor(EggScenario.FIRST),
+				holder.getLogicFor(EggScenario.FIRST));
+		Assertions.assertSame(previous.getLogicFor(EggScenario.SUBSEQUENT),
+				holder.getLogicFor(EggScenario.SUBSEQUENT));
+	}
+	
+	/**
+	 * Tests that the logic of the scenarios is only created when it's first requested
+	 * (or when it's pre-warmed) and that it's only created once.
+	 */
+	@Test
+	void testLazyCreation() {
+		FileConfiguration pluginConfig = new YamlConfiguration();
+		for (EggScenario scenario : EggScenario.values()) {
+			pluginConfig.set("scenario." + scenario.getConfigKey(), loadConfig("simple.yml"));
+		}
+		
+		ScenarioLogicHolder holder = new ScenarioLogicHolder(getPlugin(), pluginConfig);
+		Assertions.assertEquals(EggScenario.values().length, holder.getLoadedCount());
+		Assertions.assertTrue(getPlugin().getStatistics().getAll().isEmpty());
+		
+		ScenarioLogic first = holder.getLogicFor(EggScenario.FIRST);
+		Assertions.assertNotNull(first);
+		Assertions.assertSame(first, holder.getLogicFor(EggScenario.FIRST));
+		Assertions.assertEquals(1, getPlugin().getStatistics().getAll().size());
+		
+		holder.prewarm();
+		Assertions.assertEquals(EggScenario.values().length,
+				getPlugin().getStatistics().getAll().size());
+		Assertions.assertSame(first, holder.getLogicFor(EggScenario.FIRST));
+	}
+	
 	/**
 	 * Loads a {@link ScenarioLogic} configuration and returns it.
 	 *
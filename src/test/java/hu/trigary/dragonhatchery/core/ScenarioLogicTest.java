@@ -3,6 +3,8 @@ package hu.trigary.dragonhatchery.core;
 import hu.trigary.dragonhatchery.BukkitTestBase;
 import hu.trigary.dragonhatchery.util.InvalidConfigException;
 import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
 import org.bukkit.block.BlockState;
 import org.bukkit.block.data.BlockData;
 import org.bukkit.boss.DragonBattle;
@@ -107,6 +109,59 @@ public class ScenarioLogicTest extends BukkitTestBase {
 		}
 	}
 	
+	/**
+	 * Tests that {@link ScenarioLogic#handleEggSpawn(DragonBattle, BlockState)}
+	 * rolls distinct blocks when the roll count is greater than 1
+	 * and that {@link ScenarioLogic#placeStackedBlocks(Block)} only places them into air.
+	 */
+	@Test
+	void testHandleEggSpawnMultipleRolls() {
+		ScenarioLogic logic = new ScenarioLogic(getPlugin(), loadConfig("stone-and-dirt-blocks.yml",
+				c -> c.set("roll-count", 2)));
+		
+		BlockState block = Mockito.mock(BlockState.class);
+		ArgumentCaptor<BlockData> captor = ArgumentCaptor.forClass(BlockData.class);
+		Mockito.doNothing().when(block).setBlockData(captor.capture());
+		
+		Block above = Mockito.mock(Block.class);
+		ArgumentCaptor<BlockData> aboveCaptor = ArgumentCaptor.forClass(BlockData.class);
+		Mockito.doNothing().when(above).setBlockData(aboveCaptor.capture(), Mockito.eq(false));
+		Block base = Mockito.mock(Block.class);
+		Mockito.when(base.getRelative(BlockFace.UP, 1)).thenReturn(above);
+		
+		logic.handleEggSpawn(Mockito.mock(DragonBattle.class), block);
+		Mockito.verifyNoInteractions(base);
+		Mockito.when(above.isEmpty()).thenReturn(true);
+		Assertions.assertEquals(1, logic.placeStackedBlocks(base));
+		Assertions.assertEquals(EnumSet.of(Material.STONE, Material.DIRT),
+				EnumSet.of(captor.getValue().getMaterial(), aboveCaptor.getValue().getMaterial()));
+		
+		Mockito.clearInvocations(above);
+		Mockito.when(above.isEmpty()).thenReturn(false);
+		Assertions.assertEquals(0, logic.placeStackedBlocks(base));
+		Mockito.verify(above, Mockito.never())
+				.setBlockData(Mockito.any(), Mockito.anyBoolean());
+	}
+	
+	/**
+	 * Tests that the {@link BlockData} instances are only created
+	 * when they are first needed and that they are cached afterwards.
+	 */
+	@Test
+	void testLazyBlockData() {
+		Mockito.clearInvocations(getServer());
+		ScenarioLogic logic = createLogic("block-data.yml");
+		Mockito.verify(getServer(), Mockito.never())
+				.createBlockData(Mockito.any(), Mockito.anyString());
+		
+		BlockData blockData = logic.getBlockData(0);
+		Assertions.assertEquals("minecraft:cauldron[level=3]", blockData.getAsString());
+		Assertions.assertSame(blockData, logic.getBlockData(0));
+		//The plugin-wide cache might already contain the block
+		Mockito.verify(getServer(), Mockito.atMost(1))
+				.createBlockData(Mockito.any(), Mockito.anyString());
+	}
+	
 	/**
 	 * Tests that the parsing of invalid {@link ScenarioLogic}
 	 * configurations fail (with the correct error).
@@ -195,6 +250,11 @@ public class ScenarioLogicTest extends BukkitTestBase {
 								c -> c.set("spawned-block.stone.block-type", "does-not-exist")),
 						createParseError("spawned-block.stone.block-type")),
 				
+				Arguments.of("block type not a block",
+						loadConfig("simple.yml",
+								c -> c.set("spawned-block.stone.block-type", "diamond")),
+						createParseError("spawned-block.stone.block-type")),
+				
 				Arguments.of("weight missing",
 						loadConfig("simple.yml",
 								c -> c.set("spawned-block.stone.weight", null)),
@@ -205,6 +265,21 @@ public class ScenarioLogicTest extends BukkitTestBase {
 								c -> c.set("spawned-block.stone.weight", "not-a-number")),
 						createParseError("spawned-block.stone.weight")),
 				
+				Arguments.of("roll count not a number",
+						loadConfig("simple.yml",
+								c -> c.set("roll-count", "not-a-number")),
+						createParseError("roll-count")),
+				
+				Arguments.of("roll count below min",
+						loadConfig("simple.yml",
+								c -> c.set("roll-count", 0)),
+						createParseError("roll-count")),
+				
+				Arguments.of("roll count above spawned block count",
+						loadConfig("simple.yml",
+								c -> c.set("roll-count", 2)),
+						createParseError("roll-count")),
+				
 				Arguments.of("weight below min",
 						loadConfig("simple.yml",
 								c -> c.set("spawned-block.stone.weight", 0)),
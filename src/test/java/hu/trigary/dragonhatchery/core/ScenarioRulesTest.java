@@ -0,0 +1,171 @@
+package hu.trigary.dragonhatchery.core;
+
+import hu.trigary.dragonhatchery.BukkitTestBase;
+import org.bukkit.Difficulty;
+import org.bukkit.World;
+import org.bukkit.boss.BossBar;
+import org.bukkit.boss.DragonBattle;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Tests the {@link ScenarioRules} class.
+ */
+public class ScenarioRulesTest extends BukkitTestBase {
+	
+	/**
+	 * Tests that the battle decides the scenario when there are no rules.
+	 */
+	@Test
+	void testNoRules() {
+		ScenarioRules rules = new ScenarioRules();
+		World world = createWorld("world_the_end", Difficulty.NORMAL, 0);
+		Assertions.assertEquals(EggScenario.FIRST,
+				rules.getMatching(world, createBattle(false, 0), 1));
+		Assertions.assertEquals(EggScenario.SUBSEQUENT,
+				rules.getMatching(world, createBattle(true, 0), 2));
+	}
+	
+	/**
+	 * Tests the parsing of the ranges, including the wrapping ones.
+	 */
+	@Test
+	void testParseRange() {
+		Assertions.assertArrayEquals(new long[]{10, 19},
+				ScenarioRules.Dimension.KILLS.parseRange("10..19"));
+		Assertions.assertArrayEquals(new long[]{10, Long.MAX_VALUE},
+				ScenarioRules.Dimension.KILLS.parseRange(" 10.. "));
+		Assertions.assertArrayEquals(new long[]{0, 5},
+				ScenarioRules.Dimension.PLAYERS.parseRange("..5"));
+		Assertions.assertArrayEquals(new long[]{7, 7},
+				ScenarioRules.Dimension.PLAYERS.parseRange("7"));
+		Assertions.assertArrayEquals(new long[]{13000, 1000},
+				ScenarioRules.Dimension.TIME.parseRange("13000..1000"));
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> ScenarioRules.Dimension.KILLS.parseRange("19..10"));
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> ScenarioRules.Dimension.KILLS.parseRange("0"));
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> ScenarioRules.Dimension.TIME.parseRange("24000"));
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> ScenarioRules.Dimension.PLAYERS.parseRange(""));
+	}
+	
+	/**
+	 * Tests that the first matching rule decides the scenario,
+	 * that each condition is taken into account and that invalid rules are skipped.
+	 */
+	@Test
+	void testMatching() {
+		FileConfiguration pluginConfig = new YamlConfiguration();
+		pluginConfig.set("scenario-rules.tenth-kill.scenario", "first");
+		pluginConfig.set("scenario-rules.tenth-kill.kills", "10");
+		pluginConfig.set("scenario-rules.invalid.scenario", "unknown");
+		pluginConfig.set("scenario-rules.crowded-night.scenario", "first");
+		pluginConfig.set("scenario-rules.crowded-night.players", "3..");
+		pluginConfig.set("scenario-rules.crowded-night.time", "13000..1000");
+		pluginConfig.set("scenario-rules.crowded-night.difficulty", List.of("hard"));
+		pluginConfig.set("scenario-rules.team-ends.scenario", "subsequent");
+		pluginConfig.set("scenario-rules.team-ends.worlds", List.of("team_*"));
+		ScenarioRules rules = new ScenarioRules(getPlugin(), pluginConfig);
+		Assertions.assertEquals(3, rules.getRules().size());
+		
+		World teamWorld = createWorld("team_red", Difficulty.HARD, 20000);
+		World otherWorld = createWorld("world_the_end", Difficulty.HARD, 500);
+		rules.addWorld(teamWorld);
+		rules.addWorld(otherWorld);
+		
+		Assertions.assertEquals(EggScenario.FIRST,
+				rules.getMatching(teamWorld, createBattle(true, 0), 10));
+		Assertions.assertEquals(EggScenario.SUBSEQUENT,
+				rules.getMatching(teamWorld, createBattle(false, 0), 1));
+		Assertions.assertEquals(EggScenario.FIRST,
+				rules.getMatching(otherWorld, createBattle(true, 3), 2));
+		Assertions.assertEquals(EggScenario.SUBSEQUENT,
+				rules.getMatching(otherWorld, createBattle(true, 2), 2));
+		
+		World dayWorld = createWorld("world_the_end", Difficulty.HARD, 6000);
+		Assertions.assertEquals(EggScenario.SUBSEQUENT,
+				rules.getMatching(dayWorld, createBattle(true, 3), 2));
+		World easyWorld = createWorld("world_the_end", Difficulty.EASY, 500);
+		Assertions.assertEquals(EggScenario.FIRST,
+				rules.getMatching(easyWorld, createBattle(false, 3), 1));
+		
+		rules.removeWorld(teamWorld);
+		Assertions.assertEquals(EggScenario.FIRST,
+				rules.getMatching(teamWorld, createBattle(false, 0), 1));
+	}
+	
+	/**
+	 * Tests that the players of the battle are only queried
+	 * if a rule which still matches has a condition regarding them.
+	 */
+	@Test
+	void testPlayersQueriedOnlyWhenNeeded() {
+		FileConfiguration pluginConfig = new YamlConfiguration();
+		pluginConfig.set("scenario-rules.tenth-kill.scenario", "first");
+		pluginConfig.set("scenario-rules.tenth-kill.kills", "10");
+		pluginConfig.set("scenario-rules.crowded-night.scenario", "first");
+		pluginConfig.set("scenario-rules.crowded-night.players", "3..");
+		pluginConfig.set("scenario-rules.crowded-night.time", "13000..1000");
+		ScenarioRules rules = new ScenarioRules(getPlugin(), pluginConfig);
+		
+		World dayWorld = createWorld("world_the_end", Difficulty.NORMAL, 6000);
+		DragonBattle battle = createBattle(true, 5);
+		Assertions.assertEquals(EggScenario.FIRST, rules.getMatching(dayWorld, battle, 10));
+		Assertions.assertEquals(EggScenario.SUBSEQUENT, rules.getMatching(dayWorld, battle, 2));
+		Mockito.verify(battle, Mockito.never()).getBossBar();
+		
+		World nightWorld = createWorld("world_the_end", Difficulty.NORMAL, 20000);
+		Assertions.assertEquals(EggScenario.FIRST, rules.getMatching(nightWorld, battle, 2));
+		Mockito.verify(battle).getBossBar();
+	}
+	
+	/**
+	 * Creates a mocked world with a random {@link UUID}.
+	 *
+	 * @param name the name of the world
+	 * @param difficulty the difficulty of the world
+	 * @param time the time of the day in the world
+	 * @return the mocked world
+	 */
+	@Contract("_, _, _ -> new")
+	private @NotNull World createWorld(@NotNull String name,
+			@NotNull Difficulty difficulty, long time) {
+		World world = Mockito.mock(World.class);
+		UUID id = UUID.randomUUID();
+		Mockito.when(world.getName()).thenReturn(name);
+		Mockito.when(world.getUID()).thenReturn(id);
+		Mockito.when(world.getDifficulty()).thenReturn(difficulty);
+		Mockito.when(world.getTime()).thenReturn(time);
+		return world;
+	}
+	
+	/**
+	 * Creates a mocked battle.
+	 *
+	 * @param previouslyKilled whether the dragon has been killed before
+	 * @param players the count of players taking part in the battle
+	 * @return the mocked battle
+	 */
+	@Contract("_, _ -> new")
+	private @NotNull DragonBattle createBattle(boolean previouslyKilled, int players) {
+		BossBar bossBar = Mockito.mock(BossBar.class);
+		Mockito.when(bossBar.getPlayers()).thenReturn(
+				Collections.nCopies(players, Mockito.mock(Player.class)));
+		DragonBattle battle = Mockito.mock(DragonBattle.class);
+		Mockito.when(battle.hasBeenPreviouslyKilled()).thenReturn(previouslyKilled);
+		Mockito.when(battle.getBossBar()).thenReturn(bossBar);
+		return battle;
+	}
+}
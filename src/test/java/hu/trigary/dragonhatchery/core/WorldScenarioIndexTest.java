@@ -0,0 +1,174 @@
+package hu.trigary.dragonhatchery.core;
+
+import hu.trigary.dragonhatchery.BukkitTestBase;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Tests the {@link WorldScenarioIndex} class.
+ */
+public class WorldScenarioIndexTest extends BukkitTestBase {
+	
+	/**
+	 * Tests that the wildcard patterns only treat '*' and '?' specially.
+	 */
+	@Test
+	void testCompilePattern() {
+		Pattern pattern = WorldScenarioIndex.compilePattern("team_*_end?");
+		Assertions.assertTrue(pattern.matcher("team_red_end1").matches());
+		Assertions.assertTrue(pattern.matcher("team__end1").matches());
+		Assertions.assertFalse(pattern.matcher("team_red_end").matches());
+		Assertions.assertFalse(pattern.matcher("xteam_red_end1").matches());
+		
+		Pattern literal = WorldScenarioIndex.compilePattern("a.b(c)*");
+		Assertions.assertTrue(literal.matcher("a.b(c)").matches());
+		Assertions.assertFalse(literal.matcher("axb(c)").matches());
+	}
+	
+	/**
+	 * Tests that exact world names take precedence over patterns,
+	 * that the patterns are matched in order and that other worlds use the default table.
+	 */
+	@Test
+	void testRouting() {
+		FileConfiguration pluginConfig = createConfig();
+		pluginConfig.set("world-tables.wildcard.worlds", List.of("team_*"));
+		pluginConfig.set("world-tables.wildcard.scenario.first", loadConfig("simple.yml"));
+		pluginConfig.set("world-tables.other-wildcard.worlds", List.of("team_?"));
+		pluginConfig.set("world-tables.other-wildcard.scenario.first", loadConfig("simple.yml"));
+		pluginConfig.set("world-tables.exact.worlds", List.of("team_1"));
+		pluginConfig.set("world-tables.exact.scenario.first", loadConfig("simple.yml"));
+		WorldScenarioIndex index = createIndex(pluginConfig, null);
+		Assertions.assertEquals(3, index.getTableCount());
+		
+		World exact = createWorld("team_1");
+		World wildcard = createWorld("team_2");
+		World unlisted = createWorld("world_the_end");
+		World unknown = createWorld("team_3");
+		index.addWorld(exact);
+		index.addWorld(wildcard);
+		index.addWorld(unlisted);
+		
+		ScenarioLogicHolder defaultHolder = index.getDefault();
+		Assertions.assertNotSame(defaultHolder, index.getHolderFor(exact));
+		Assertions.assertNotSame(defaultHolder, index.getHolderFor(wildcard));
+		Assertions.assertNotSame(index.getHolderFor(exact), index.getHolderFor(wildcard));
+		Assertions.assertSame(defaultHolder, index.getHolderFor(unlisted));
+		Assertions.assertSame(defaultHolder, index.getHolderFor(unknown));
+		
+		index.removeWorld(wildcard);
+		Assertions.assertSame(defaultHolder, index.getHolderFor(wildcard));
+	}
+	
+	/**
+	 * Tests that the scenarios missing from a table are inherited from the default table
+	 * and that the tables of the previous instance are reused.
+	 */
+	@Test
+	void testInheritanceAndReuse() {
+		FileConfiguration pluginConfig = createConfig();
+		ConfigurationSection override = loadConfig("simple.yml");
+		override.set("spawn-chance", 0.5);
+		pluginConfig.set("world-tables.table.worlds", List.of("end"));
+		pluginConfig.set("world-tables.table.scenario.first", override);
+		pluginConfig.set("world-tables.empty.worlds", List.of("other_end"));
+		pluginConfig.set("world-tables.invalid.scenario.first", loadConfig("simple.yml"));
+		WorldScenarioIndex previous = createIndex(pluginConfig, null);
+		WorldScenarioIndex index = createIndex(pluginConfig, previous);
+		Assertions.assertEquals(2, index.getTableCount());
+		
+		World world = createWorld("end");
+		World otherWorld = createWorld("other_end");
+		index.addWorld(world);
+		index.addWorld(otherWorld);
+		previous.addWorld(world);
+		
+		ScenarioLogicHolder table = index.getHolderFor(world);
+		ScenarioLogicHolder defaultHolder = index.getDefault();
+		Assertions.assertNotSame(defaultHolder.getLogicFor(EggScenario.FIRST),
+				table.getLogicFor(EggScenario.FIRST));
+		Assertions.assertSame(defaultHolder.getLogicFor(EggScenario.SUBSEQUENT),
+				table.getLogicFor(EggScenario.SUBSEQUENT));
+		Assertions.assertSame(previous.getHolderFor(world).getLogicFor(EggScenario.FIRST),
+				table.getLogicFor(EggScenario.FIRST));
+		
+		ScenarioLogicHolder empty = index.getHolderFor(otherWorld);
+		for (EggScenario scenario : EggScenario.values()) {
+			Assertions.assertSame(defaultHolder.getLogicFor(scenario), empty.getLogicFor(scenario));
+		}
+	}
+	
+	/**
+	 * Creates a plugin configuration in which each scenario is valid.
+	 *
+	 * @return the newly created configuration
+	 */
+	@Contract("-> new")
+	private @NotNull FileConfiguration createConfig() {
+		FileConfiguration pluginConfig = new YamlConfiguration();
+		for (EggScenario scenario : EggScenario.values()) {
+			pluginConfig.set("scenario." + scenario.getConfigKey(), loadConfig("simple.yml"));
+		}
+		return pluginConfig;
+	}
+	
+	/**
+	 * Creates an index (and its default table) from the specified configuration.
+	 *
+	 * @param pluginConfig the configuration of the plugin
+	 * @param previous the instance whose unchanged tables to reuse or null
+	 * @return the newly created index
+	 */
+	@Contract("_, _ -> new")
+	private @NotNull WorldScenarioIndex createIndex(@NotNull FileConfiguration pluginConfig,
+			WorldScenarioIndex previous) {
+		ScenarioLogicHolder defaultHolder = new ScenarioLogicHolder(getPlugin(), pluginConfig,
+				previous == null ? null : previous.getDefault());
+		return new WorldScenarioIndex(getPlugin(), pluginConfig, defaultHolder, previous);
+	}
+	
+	/**
+	 * Creates a mocked world with the specified name and a random {@link UUID}.
+	 *
+	 * @param name the name of the world
+	 * @return the mocked world
+	 */
+	@Contract("_ -> new")
+	private @NotNull World createWorld(@NotNull String name) {
+		World world = Mockito.mock(World.class);
+		UUID id = UUID.randomUUID();
+		Mockito.when(world.getName()).thenReturn(name);
+		Mockito.when(world.getUID()).thenReturn(id);
+		return world;
+	}
+	
+	/**
+	 * Loads a {@link ScenarioLogic} configuration and returns it.
+	 *
+	 * @param filename the path of the configuration to load
+	 * @return the loaded configuration
+	 */
+	@NotNull
+	private ConfigurationSection loadConfig(@NotNull String filename) {
+		InputStream stream = ScenarioLogic.class.getResourceAsStream("/logic/" + filename);
+		try (InputStreamReader reader = new InputStreamReader(stream)) {
+			return YamlConfiguration.loadConfiguration(reader);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package hu.trigary.dragonhatchery.jfr;
+
+import hu.trigary.dragonhatchery.util.WeightedRandomCollection;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Tests the {@link WeightedTableBuildEvent} class
+ * (and the flight recorder events in general).
+ */
+public class WeightedTableBuildEventTest {
+	
+	/**
+	 * Tests that the event is emitted with the correct values while recording
+	 * and that it's not emitted when not recording.
+	 *
+	 * @param directory the directory to save the recording to
+	 * @throws IOException if the recording couldn't be saved or read
+	 */
+	@Test
+	void testEmitted(@TempDir Path directory) throws IOException {
+		new WeightedRandomCollection<>(List.of(1, 2), Function.identity(), i -> i);
+		
+		Path file = directory.resolve("recording.jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable(WeightedTableBuildEvent.class).withoutThreshold();
+			recording.start();
+			new WeightedRandomCollection<>(List.of(1, 2, 3), Function.identity(), i -> i,
+					WeightedRandomCollection.Engine.ALIAS);
+			recording.stop();
+			recording.dump(file);
+		}
+		
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+				.filter(e -> e.getEventType().getName()
+						.equals("hu.trigary.dragonhatchery.WeightedTableBuild"))
+				.collect(Collectors.toList());
+		Assertions.assertEquals(1, events.size());
+		RecordedEvent event = events.get(0);
+		Assertions.assertEquals(3, event.getInt("size"));
+		Assertions.assertEquals(WeightedRandomCollection.Engine.ALIAS.name(),
+				event.getString("engine"));
+		Assertions.assertEquals(6, event.getDouble("weightSum"));
+	}
+}
@@ -0,0 +1,174 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.ErrorManager;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Tests the {@link AsyncLogHandler} class.
+ */
+public class AsyncLogHandlerTest {
+	
+	/**
+	 * Tests that the published records are passed to the sink in order
+	 * and that flushing waits for them.
+	 */
+	@Test
+	@Timeout(10)
+	void testForwarding() {
+		List<String> messages = new CopyOnWriteArrayList<>();
+		AsyncLogHandler handler = new AsyncLogHandler(16, AsyncLogHandler.FullPolicy.DROP,
+				record -> messages.add(record.getMessage()));
+		for (int i = 0; i < 10; i++) {
+			handler.publish(new LogRecord(Level.INFO, "message " + i));
+		}
+		
+		handler.flush();
+		Assertions.assertEquals(10, messages.size());
+		for (int i = 0; i < 10; i++) {
+			Assertions.assertEquals("message " + i, messages.get(i));
+		}
+		
+		handler.close();
+		handler.publish(new LogRecord(Level.INFO, "ignored"));
+		Assertions.assertEquals(10, messages.size());
+	}
+	
+	/**
+	 * Tests that the source of the records is inferred on the logging thread,
+	 * not on the background thread.
+	 */
+	@Test
+	@Timeout(10)
+	void testSourceInference() {
+		List<String> sources = new CopyOnWriteArrayList<>();
+		AsyncLogHandler handler = new AsyncLogHandler(16, AsyncLogHandler.FullPolicy.DROP,
+				record -> sources.add(record.getSourceClassName()
+						+ "#" + record.getSourceMethodName()));
+		Logger logger = Logger.getAnonymousLogger();
+		logger.setUseParentHandlers(false);
+		logger.addHandler(handler);
+		logger.info("message");
+		handler.close();
+		Assertions.assertEquals(List.of(getClass().getName() + "#testSourceInference"), sources);
+	}
+	
+	/**
+	 * Tests that a record published while the handler is being closed is still processed.
+	 */
+	@Test
+	@Timeout(10)
+	void testPublishDuringClose() throws InterruptedException {
+		for (int attempt = 0; attempt < 100; attempt++) {
+			List<String> messages = new CopyOnWriteArrayList<>();
+			AsyncLogHandler handler = new AsyncLogHandler(16, AsyncLogHandler.FullPolicy.DROP,
+					record -> messages.add(record.getMessage()));
+			CountDownLatch start = new CountDownLatch(1);
+			Thread publisher = new Thread(() -> {
+				awaitQuietly(start);
+				handler.publish(new LogRecord(Level.INFO, "message"));
+			});
+			publisher.start();
+			start.countDown();
+			handler.close();
+			publisher.join();
+			//The record is either ignored (published after closing) or processed
+			Assertions.assertTrue(messages.size() <= 1);
+			Assertions.assertEquals(messages.size(), handler.getAcceptedCount());
+		}
+	}
+	
+	/**
+	 * Tests that records are dropped (and the drops are reported)
+	 * when the queue is full and the policy is {@link AsyncLogHandler.FullPolicy#DROP}.
+	 */
+	@Test
+	@Timeout(10)
+	void testDropPolicy() throws InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		List<LogRecord> records = new CopyOnWriteArrayList<>();
+		AsyncLogHandler handler = new AsyncLogHandler(4, AsyncLogHandler.FullPolicy.DROP, record -> {
+			records.add(record);
+			awaitQuietly(release);
+		});
+		
+		//The first record blocks the consumer, the next 4 fill the queue
+		for (int i = 0; i < 10; i++) {
+			handler.publish(new LogRecord(Level.INFO, "message " + i));
+		}
+		Assertions.assertTrue(handler.getDroppedCount() > 0);
+		long dropped = handler.getDroppedCount();
+		release.countDown();
+		handler.close();
+		
+		Assertions.assertEquals(10 - dropped, records.stream()
+				.filter(r -> r.getLevel() == Level.INFO).count());
+		Assertions.assertTrue(records.stream().anyMatch(r -> r.getLevel() == Level.WARNING
+				&& r.getMessage().contains("Dropped " + dropped)));
+	}
+	
+	/**
+	 * Tests that no records are lost when the queue is full
+	 * and the policy is {@link AsyncLogHandler.FullPolicy#BLOCK}.
+	 */
+	@Test
+	@Timeout(10)
+	void testBlockPolicy() {
+		List<String> messages = new CopyOnWriteArrayList<>();
+		AsyncLogHandler handler = new AsyncLogHandler(2, AsyncLogHandler.FullPolicy.BLOCK,
+				record -> messages.add(record.getMessage()));
+		for (int i = 0; i < 1000; i++) {
+			handler.publish(new LogRecord(Level.INFO, "message " + i));
+		}
+		
+		handler.close();
+		Assertions.assertEquals(0, handler.getDroppedCount());
+		Assertions.assertEquals(1000, messages.size());
+		Assertions.assertEquals("message 999", messages.get(999));
+	}
+	
+	/**
+	 * Tests that exceptions thrown by the sink don't stop the processing.
+	 */
+	@Test
+	@Timeout(10)
+	void testSinkFailure() {
+		List<String> messages = new CopyOnWriteArrayList<>();
+		AsyncLogHandler handler = new AsyncLogHandler(16, AsyncLogHandler.FullPolicy.DROP, record -> {
+			if (record.getMessage().equals("fail")) {
+				throw new IllegalStateException("Expected failure");
+			}
+			messages.add(record.getMessage());
+		});
+		handler.setErrorManager(new ErrorManager() {
+			@Override
+			public synchronized void error(String msg, Exception ex, int code) {}
+		});
+		
+		handler.publish(new LogRecord(Level.INFO, "fail"));
+		handler.publish(new LogRecord(Level.INFO, "ok"));
+		handler.close();
+		Assertions.assertEquals(List.of("ok"), messages);
+	}
+	
+	/**
+	 * Waits for the specified latch, ignoring interruptions.
+	 *
+	 * @param latch the latch to wait for
+	 */
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -5,6 +5,8 @@ import org.bukkit.configuration.file.YamlConfiguration;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.function.BiFunction;
 import java.util.function.Function;
@@ -61,6 +63,23 @@ public class ConfigHelperTest {
 						.parseValue(config, "invalid", Integer::parseInt)));
 	}
 	
+	/**
+	 * Tests that {@link ConfigHelper#parseValue(ConfigurationSection, String, Function, Object)}
+	 * returns the default value when a missing key is specified
+	 * and parses the value when a valid key is specified.
+	 */
+	@Test
+	void testParseValueDefault() {
+		ConfigurationSection config = new YamlConfiguration();
+		config.set("key", "42");
+		Assertions.assertEquals(42, ConfigHelper.parseValue(config, "key", Integer::parseInt, 1));
+		Assertions.assertEquals(1, ConfigHelper.parseValue(config, "invalid", Integer::parseInt, 1));
+		Assertions.assertThrows(InvalidConfigException.class,
+				() -> ConfigHelper.parseValue(config, "key", raw -> {
+					throw new IllegalArgumentException();
+				}, 1));
+	}
+	
 	/**
 	 * Tests that {@link ConfigHelper#parseValue(ConfigurationSection, String, Function)}
 	 * fails when the parser returns a null value.
@@ -129,4 +148,71 @@ public class ConfigHelperTest {
 							return Integer.parseInt(raw);
 						})));
 	}
+	
+	/**
+	 * Tests that {@link ConfigHelper#fingerprint(ConfigurationSection)}
+	 * only depends on the content of the section, not on its location,
+	 * and that it changes when a nested value changes.
+	 */
+	@Test
+	void testFingerprint() {
+		ConfigurationSection config = new YamlConfiguration();
+		config.set("first.value", 42);
+		config.set("first.nested.list", Arrays.asList("a", "b"));
+		config.set("second.value", 42);
+		config.set("second.nested.list", Arrays.asList("a", "b"));
+		
+		String first = ConfigHelper.fingerprint(ConfigHelper.getSection(config, "first"));
+		Assertions.assertEquals(first,
+				ConfigHelper.fingerprint(ConfigHelper.getSection(config, "second")));
+		
+		config.set("second.nested.list", Arrays.asList("a", "c"));
+		Assertions.assertNotEquals(first,
+				ConfigHelper.fingerprint(ConfigHelper.getSection(config, "second")));
+	}
+	
+	/**
+	 * Tests that {@link ConfigHelper#removeTopLevelSection(byte[], String)}
+	 * only removes the lines of the section and that it refuses to remove
+	 * sections it can't remove safely.
+	 */
+	@Test
+	void testRemoveTopLevelSection() {
+		String content = "debug-logging: false\n"
+				+ "scenario: # comment\n"
+				+ "  first:\n"
+				+ "    spawn-chance: 1.0\n"
+				+ "\n"
+				+ "# comment\n"
+				+ "  subsequent:\n"
+				+ "    spawn-chance: 0.5\n"
+				+ "scenario-rules:\n"
+				+ "  rule:\n"
+				+ "    scenario: first\n";
+		Assertions.assertEquals("debug-logging: false\n"
+				+ "scenario-rules:\n"
+				+ "  rule:\n"
+				+ "    scenario: first\n", removeSection(content));
+		Assertions.assertEquals("a: 1", removeSection("a: 1\nscenario:\n  b: 2"));
+		Assertions.assertEquals("", removeSection("scenario:\n  b: 2\n"));
+		Assertions.assertEquals("", removeSection("scenario:\n  b: 2"));
+		
+		Assertions.assertNull(removeSection("a: 1"));
+		Assertions.assertNull(removeSection("scenario: {first: {}}"));
+		Assertions.assertNull(removeSection("scenario:\n  a: 1\nscenario:\n  b: 2"));
+		Assertions.assertNull(removeSection("scenario:\n  a: &anchor\n    b: 1\nc: *anchor"));
+	}
+	
+	/**
+	 * Calls {@link ConfigHelper#removeTopLevelSection(byte[], String)}
+	 * with the {@code scenario} key, converting the content from and to text.
+	 *
+	 * @param content the content of the file
+	 * @return the content without the section or null, if the section couldn't be removed
+	 */
+	private static String removeSection(String content) {
+		byte[] result = ConfigHelper.removeTopLevelSection(
+				content.getBytes(StandardCharsets.UTF_8), "scenario");
+		return result == null ? null : new String(result, StandardCharsets.UTF_8);
+	}
 }
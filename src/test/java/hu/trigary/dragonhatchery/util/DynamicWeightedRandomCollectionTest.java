@@ -0,0 +1,155 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Tests the {@link DynamicWeightedRandomCollection} class.
+ */
+public class DynamicWeightedRandomCollectionTest {
+	
+	/**
+	 * Tests whether sampling from an empty collection is indeed disallowed.
+	 */
+	@Test
+	void testSampleEmpty() {
+		var collection = new DynamicWeightedRandomCollection<String>();
+		Assertions.assertThrows(IllegalArgumentException.class, collection::getRandom);
+	}
+	
+	/**
+	 * Tests whether non-positive weights are indeed disallowed.
+	 */
+	@Test
+	void testInvalidWeight() {
+		var collection = new DynamicWeightedRandomCollection<String>();
+		Assertions.assertThrows(IllegalArgumentException.class, () -> collection.add("a", 0));
+		collection.add("a", 1);
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> collection.setWeight(0, -1));
+	}
+	
+	/**
+	 * Tests whether adding entries beyond the initial capacity
+	 * keeps the entries and the weights intact.
+	 */
+	@Test
+	void testAddBeyondCapacity() {
+		var collection = new DynamicWeightedRandomCollection<Integer>();
+		int count = 100;
+		for (int i = 0; i < count; i++) {
+			Assertions.assertEquals(i, collection.add(i, i + 1));
+		}
+		
+		Assertions.assertEquals(count, collection.size());
+		for (int i = 0; i < count; i++) {
+			Assertions.assertEquals(i, collection.get(i));
+			Assertions.assertEquals(i + 1, collection.getWeight(i));
+		}
+		assertProportions(collection);
+	}
+	
+	/**
+	 * Tests whether changing weights updates the distribution.
+	 */
+	@Test
+	void testSetWeight() {
+		var collection = new DynamicWeightedRandomCollection<>(List.of(1.0, 2.0, 3.0),
+				Function.identity(), Double::doubleValue);
+		collection.setWeight(0, 10);
+		collection.setWeight(2, 0.5);
+		Assertions.assertEquals(10, collection.getWeight(0));
+		assertProportions(collection);
+	}
+	
+	/**
+	 * Tests whether removal moves the last entry into the removed entry's place
+	 * and whether the removed entry can no longer be selected.
+	 */
+	@Test
+	void testRemove() {
+		var collection = new DynamicWeightedRandomCollection<>(List.of("a", "b", "c", "d"),
+				Function.identity(), s -> s.charAt(0) - 'a' + 1);
+		Assertions.assertEquals("b", collection.remove(1));
+		Assertions.assertEquals(List.of("a", "d", "c"), List.copyOf(collection.getEntries()));
+		Assertions.assertEquals(4, collection.getWeight(1));
+		
+		Assertions.assertEquals("c", collection.remove(2));
+		Assertions.assertEquals(List.of("a", "d"), List.copyOf(collection.getEntries()));
+		Assertions.assertThrows(IndexOutOfBoundsException.class, () -> collection.get(2));
+		assertProportions(collection);
+	}
+	
+	/**
+	 * Tests whether sampling without replacement never selects removed entries
+	 * and always returns distinct indexes.
+	 */
+	@Test
+	void testSampleDistinct() {
+		var collection = new DynamicWeightedRandomCollection<Integer>();
+		for (int i = 0; i < 50; i++) {
+			collection.add(i, i % 7 + 1);
+		}
+		for (int i = 0; i < 20; i++) {
+			collection.remove(i);
+		}
+		
+		int[] indices = new int[5];
+		for (int i = 0; i < 10_000; i++) {
+			Assertions.assertEquals(5, collection.sampleDistinct(5, indices));
+			Assertions.assertEquals(5, Arrays.stream(indices).distinct().count());
+			for (int index : indices) {
+				Assertions.assertTrue(index < collection.size());
+			}
+		}
+	}
+	
+	/**
+	 * Tests whether sampling without replacement selects distinct indexes
+	 * even if the weights differ by so much that subtracting them causes rounding errors,
+	 * and whether the collection is unaffected by the sampling.
+	 */
+	@Test
+	void testSampleDistinctRoundingErrors() {
+		var collection = new DynamicWeightedRandomCollection<Integer>();
+		collection.add(0, 1e20);
+		collection.add(1, 1);
+		collection.add(2, 1);
+		
+		int[] indices = new int[3];
+		for (int i = 0; i < 1_000; i++) {
+			Assertions.assertEquals(3, collection.sampleDistinct(3, indices));
+			Assertions.assertEquals(3, Arrays.stream(indices).distinct().count());
+		}
+		assertProportions(collection);
+	}
+	
+	/**
+	 * Asserts that the specified collection maps evenly spaced rolls
+	 * to indexes proportionally to the weights.
+	 *
+	 * @param collection the collection to check
+	 */
+	private void assertProportions(@NotNull WeightedRandom<?> collection) {
+		int rollCount = 100_000;
+		double weightSum = 0;
+		for (int i = 0; i < collection.size(); i++) {
+			weightSum += collection.getWeight(i);
+		}
+		
+		int[] histogram = new int[collection.size()];
+		for (int i = 0; i < rollCount; i++) {
+			histogram[collection.getIndex((i + 0.5) / rollCount)]++;
+		}
+		
+		for (int i = 0; i < histogram.length; i++) {
+			Assertions.assertEquals(collection.getWeight(i) / weightSum,
+					(double) histogram[i] / rollCount, 0.001);
+		}
+	}
+}
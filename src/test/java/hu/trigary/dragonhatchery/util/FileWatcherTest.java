@@ -0,0 +1,67 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the {@link FileWatcher} class.
+ */
+public class FileWatcherTest {
+	
+	/**
+	 * Tests that multiple quick modifications of the watched file
+	 * only execute the callback once, after the debounce duration.
+	 */
+	@Test
+	@Timeout(20)
+	void testDebounce(@TempDir Path directory) throws IOException, InterruptedException {
+		Path file = directory.resolve("config.yml");
+		Files.write(file, "initial".getBytes(StandardCharsets.UTF_8));
+		AtomicInteger executions = new AtomicInteger();
+		CountDownLatch executed = new CountDownLatch(1);
+		
+		try (FileWatcher ignored = new FileWatcher(file, 300, () -> {
+			executions.incrementAndGet();
+			executed.countDown();
+		})) {
+			for (int i = 0; i < 5; i++) {
+				Files.write(file, ("value: " + i).getBytes(StandardCharsets.UTF_8));
+				Thread.sleep(20);
+			}
+			Assertions.assertTrue(executed.await(10, TimeUnit.SECONDS));
+			Thread.sleep(600);
+			Assertions.assertEquals(1, executions.get());
+		}
+	}
+	
+	/**
+	 * Tests that modifying other files in the same directory
+	 * doesn't execute the callback and that no callbacks are executed after closing.
+	 */
+	@Test
+	@Timeout(20)
+	void testOtherFilesAndClose(@TempDir Path directory) throws IOException, InterruptedException {
+		Path file = directory.resolve("config.yml");
+		AtomicInteger executions = new AtomicInteger();
+		
+		FileWatcher watcher = new FileWatcher(file, 50, executions::incrementAndGet);
+		Files.write(directory.resolve("other.yml"), "other".getBytes(StandardCharsets.UTF_8));
+		Thread.sleep(500);
+		Assertions.assertEquals(0, executions.get());
+		
+		watcher.close();
+		Files.write(file, "closed".getBytes(StandardCharsets.UTF_8));
+		Thread.sleep(500);
+		Assertions.assertEquals(0, executions.get());
+	}
+}
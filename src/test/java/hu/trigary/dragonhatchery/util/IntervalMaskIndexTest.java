@@ -0,0 +1,92 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests the {@link IntervalMaskIndex} class.
+ */
+public class IntervalMaskIndexTest {
+	
+	/**
+	 * Tests that an index without intervals maps everything to 0 using a single segment.
+	 */
+	@Test
+	void testEmpty() {
+		IntervalMaskIndex index = new IntervalMaskIndex(List.of());
+		Assertions.assertEquals(1, index.getSegmentCount());
+		Assertions.assertEquals(Long.MIN_VALUE, index.getSegmentStart(0));
+		Assertions.assertEquals(Long.MAX_VALUE, index.getSegmentEnd(0));
+		Assertions.assertEquals(0, index.get(0));
+		Assertions.assertEquals(0, index.get(Long.MIN_VALUE));
+		Assertions.assertEquals(0, index.get(Long.MAX_VALUE));
+	}
+	
+	/**
+	 * Tests the boundaries of overlapping and unbounded intervals
+	 * and that neighbouring segments with the same mask are merged.
+	 */
+	@Test
+	void testBoundaries() {
+		IntervalMaskIndex index = new IntervalMaskIndex(List.of(
+				new IntervalMaskIndex.Interval(10, 19, 0),
+				new IntervalMaskIndex.Interval(15, Long.MAX_VALUE, 1),
+				new IntervalMaskIndex.Interval(Long.MIN_VALUE, 4, 63),
+				new IntervalMaskIndex.Interval(5, 9, 63)
+		));
+		Assertions.assertEquals(1L << 63, index.get(Long.MIN_VALUE));
+		Assertions.assertEquals(1L << 63, index.get(9));
+		Assertions.assertEquals(0b01, index.get(10));
+		Assertions.assertEquals(0b01, index.get(14));
+		Assertions.assertEquals(0b11, index.get(15));
+		Assertions.assertEquals(0b11, index.get(19));
+		Assertions.assertEquals(0b10, index.get(20));
+		Assertions.assertEquals(0b10, index.get(Long.MAX_VALUE));
+		Assertions.assertEquals(4, index.getSegmentCount());
+		Assertions.assertEquals(9, index.getSegmentEnd(0));
+		Assertions.assertEquals(10, index.getSegmentStart(1));
+	}
+	
+	/**
+	 * Tests that invalid intervals are rejected.
+	 */
+	@Test
+	void testInvalidInterval() {
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> new IntervalMaskIndex.Interval(5, 4, 0));
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> new IntervalMaskIndex.Interval(0, 0, 64));
+	}
+	
+	/**
+	 * Tests the lookups against a brute-force evaluation of random intervals.
+	 */
+	@Test
+	void testRandomIntervals() {
+		Random random = new Random(42);
+		List<IntervalMaskIndex.Interval> intervals = new ArrayList<>();
+		long[][] raw = new long[100][];
+		for (int i = 0; i < raw.length; i++) {
+			long min = random.nextInt(1000);
+			long max = min + random.nextInt(200);
+			int bit = random.nextInt(Long.SIZE);
+			raw[i] = new long[]{min, max, bit};
+			intervals.add(new IntervalMaskIndex.Interval(min, max, bit));
+		}
+		
+		IntervalMaskIndex index = new IntervalMaskIndex(intervals);
+		for (long value = -5; value < 1300; value++) {
+			long expected = 0;
+			for (long[] interval : raw) {
+				if (interval[0] <= value && value <= interval[1]) {
+					expected |= 1L << interval[2];
+				}
+			}
+			Assertions.assertEquals(expected, index.get(value), "Value: " + value);
+		}
+	}
+}
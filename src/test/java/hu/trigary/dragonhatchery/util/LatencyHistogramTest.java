@@ -0,0 +1,119 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests the {@link LatencyHistogram} class.
+ */
+public class LatencyHistogramTest {
+	
+	/**
+	 * Tests that an empty histogram reports zeros.
+	 */
+	@Test
+	void testEmpty() {
+		LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+		Assertions.assertEquals(0, snapshot.getCount());
+		Assertions.assertEquals(0, snapshot.getMax());
+		Assertions.assertEquals(0, snapshot.getValueAtPercentile(50));
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> snapshot.getValueAtPercentile(101));
+	}
+	
+	/**
+	 * Tests that small values are recorded exactly.
+	 */
+	@Test
+	void testSmallValuesAreExact() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 50; i++) {
+			histogram.record(i);
+		}
+		histogram.record(-5);
+		
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		Assertions.assertEquals(51, snapshot.getCount());
+		Assertions.assertEquals(50, snapshot.getMax());
+		Assertions.assertEquals(0, snapshot.getValueAtPercentile(0));
+		Assertions.assertEquals(25, snapshot.getValueAtPercentile(50));
+		Assertions.assertEquals(50, snapshot.getValueAtPercentile(100));
+	}
+	
+	/**
+	 * Tests that the percentiles of large values are within the relative error bound.
+	 */
+	@Test
+	void testRelativeError() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		List<Long> values = new ArrayList<>();
+		for (long value = 100; value < 100_000_000_000L; value = value * 11 / 10) {
+			histogram.record(value);
+			values.add(value);
+		}
+		
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		Assertions.assertEquals(values.size(), snapshot.getCount());
+		Assertions.assertEquals(values.get(values.size() - 1), snapshot.getMax());
+		for (double percentile : new double[]{1, 25, 50, 90, 99, 99.9}) {
+			long expected = values.get((int) Math.ceil(percentile / 100 * values.size()) - 1);
+			long actual = snapshot.getValueAtPercentile(percentile);
+			Assertions.assertTrue(actual >= expected && actual <= expected * 1.04,
+					"percentile=" + percentile + "; expected=" + expected + "; actual=" + actual);
+		}
+	}
+	
+	/**
+	 * Tests that the extreme values don't break the bucketing.
+	 */
+	@Test
+	void testExtremeValues() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(Long.MAX_VALUE);
+		histogram.record(0);
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		Assertions.assertEquals(Long.MAX_VALUE, snapshot.getMax());
+		Assertions.assertEquals(0, snapshot.getValueAtPercentile(50));
+		Assertions.assertEquals(Long.MAX_VALUE, snapshot.getValueAtPercentile(100));
+	}
+	
+	/**
+	 * Tests that resetting removes all recorded values.
+	 */
+	@Test
+	void testReset() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(1234);
+		histogram.reset();
+		Assertions.assertEquals(0, histogram.snapshot().getCount());
+		Assertions.assertEquals(0, histogram.snapshot().getMax());
+	}
+	
+	/**
+	 * Tests that concurrent recording doesn't lose values.
+	 */
+	@Test
+	void testConcurrentRecording() throws InterruptedException {
+		LatencyHistogram histogram = new LatencyHistogram();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < 10_000; i++) {
+					histogram.record(i);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		Assertions.assertEquals(40_000, snapshot.getCount());
+		Assertions.assertEquals(9_999, snapshot.getMax());
+	}
+}
@@ -0,0 +1,94 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests the {@link MpscArrayQueue} class.
+ */
+public class MpscArrayQueueTest {
+	
+	/**
+	 * Tests that the capacity is rounded up to a power of two
+	 * and that invalid capacities are rejected.
+	 */
+	@Test
+	void testCapacity() {
+		Assertions.assertEquals(1, new MpscArrayQueue<>(1).capacity());
+		Assertions.assertEquals(8, new MpscArrayQueue<>(5).capacity());
+		Assertions.assertEquals(8, new MpscArrayQueue<>(8).capacity());
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new MpscArrayQueue<>(0));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new MpscArrayQueue<>(-1));
+	}
+	
+	/**
+	 * Tests that the elements are polled in insertion order
+	 * and that offering fails when the queue is full.
+	 */
+	@Test
+	void testFifo() {
+		MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(4);
+		Assertions.assertNull(queue.poll());
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < 4; i++) {
+				Assertions.assertTrue(queue.offer(i));
+			}
+			Assertions.assertFalse(queue.offer(4));
+			Assertions.assertEquals(4, queue.size());
+			
+			for (int i = 0; i < 4; i++) {
+				Assertions.assertEquals(i, queue.poll());
+			}
+			Assertions.assertNull(queue.poll());
+			Assertions.assertEquals(0, queue.size());
+		}
+	}
+	
+	/**
+	 * Tests that concurrent producers don't lose elements
+	 * and that each producer's elements are polled in order.
+	 */
+	@Test
+	@Timeout(10)
+	void testConcurrentProducers() throws InterruptedException {
+		int producerCount = 4;
+		int perProducer = 20_000;
+		MpscArrayQueue<long[]> queue = new MpscArrayQueue<>(64);
+		List<Thread> producers = new ArrayList<>();
+		for (int p = 0; p < producerCount; p++) {
+			long producer = p;
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < perProducer; i++) {
+					long[] element = {producer, i};
+					while (!queue.offer(element)) {
+						Thread.yield();
+					}
+				}
+			});
+			producers.add(thread);
+			thread.start();
+		}
+		
+		long[] expected = new long[producerCount];
+		int polled = 0;
+		while (polled < producerCount * perProducer) {
+			long[] element = queue.poll();
+			if (element == null) {
+				Thread.yield();
+				continue;
+			}
+			int producer = (int) element[0];
+			Assertions.assertEquals(expected[producer]++, element[1]);
+			polled++;
+		}
+		
+		for (Thread producer : producers) {
+			producer.join();
+		}
+		Assertions.assertNull(queue.poll());
+	}
+}
@@ -0,0 +1,83 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests the {@link RandomSource} class and its implementations.
+ */
+public class RandomSourceTest {
+	
+	/**
+	 * Tests that seeded instances are reproducible, produce values in the correct range
+	 * and that their split instances produce different values.
+	 *
+	 * @param algorithm the name of the algorithm to test
+	 */
+	@ParameterizedTest
+	@ValueSource(strings = {RandomSource.SPLITTABLE, RandomSource.XOROSHIRO})
+	void testSeeded(String algorithm) {
+		assertSeeded(algorithm);
+	}
+	
+	/**
+	 * Tests that the Java 17 algorithms are supported when running on Java 17 or above.
+	 */
+	@Test
+	@EnabledForJreRange(min = JRE.JAVA_17)
+	void testJdkAlgorithm() {
+		assertSeeded("L64X128MixRandom");
+	}
+	
+	/**
+	 * Tests that unknown algorithms and seeding the thread-local algorithm are rejected.
+	 *
+	 * @param algorithm the name of the invalid algorithm
+	 */
+	@ParameterizedTest
+	@ValueSource(strings = {RandomSource.THREAD_LOCAL, "does-not-exist"})
+	void testInvalidAlgorithm(String algorithm) {
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> RandomSource.create(algorithm, 42));
+	}
+	
+	/**
+	 * Tests that the thread-local instance produces values in the correct range.
+	 */
+	@Test
+	void testThreadLocal() {
+		RandomSource random = RandomSource.threadLocal();
+		for (int i = 0; i < 1000; i++) {
+			double value = random.nextDouble();
+			Assertions.assertTrue(value >= 0 && value < 1);
+		}
+	}
+	
+	/**
+	 * Asserts that seeded instances of the specified algorithm are reproducible,
+	 * produce values in the correct range and that their split instances produce different values.
+	 *
+	 * @param algorithm the name of the algorithm to test
+	 */
+	private void assertSeeded(@NotNull String algorithm) {
+		RandomSource first = RandomSource.create(algorithm, 42);
+		RandomSource second = RandomSource.create(algorithm, 42);
+		double sum = 0;
+		int count = 10_000;
+		for (int i = 0; i < count; i++) {
+			double value = first.nextDouble();
+			Assertions.assertEquals(value, second.nextDouble());
+			Assertions.assertTrue(value >= 0 && value < 1);
+			sum += value;
+		}
+		Assertions.assertEquals(0.5, sum / count, 0.02);
+		
+		RandomSource split = first.split();
+		Assertions.assertNotEquals(first.nextLong(), split.nextLong());
+	}
+}
@@ -0,0 +1,95 @@
+package hu.trigary.dragonhatchery.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests the {@link TraceBuffer} class.
+ */
+public class TraceBufferTest {
+	
+	/**
+	 * Tests that the recorded events are drained in order, with all of their values.
+	 */
+	@Test
+	void testDrain() {
+		TraceBuffer buffer = new TraceBuffer(16);
+		Object subject = new Object();
+		for (int i = 0; i < 10; i++) {
+			buffer.record(i, subject, i * 2L, i / 2.0);
+		}
+		
+		List<Integer> kinds = new ArrayList<>();
+		Assertions.assertEquals(10, buffer.drain((kind, s, longValue, doubleValue) -> {
+			Assertions.assertSame(subject, s);
+			Assertions.assertEquals(kind * 2L, longValue);
+			Assertions.assertEquals(kind / 2.0, doubleValue);
+			kinds.add(kind);
+		}));
+		Assertions.assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), kinds);
+		Assertions.assertEquals(0, buffer.drain((kind, s, longValue, doubleValue) -> {}));
+		Assertions.assertEquals(0, buffer.getDroppedCount());
+	}
+	
+	/**
+	 * Tests that the oldest events are overwritten and counted as dropped
+	 * when the buffer is not drained in time.
+	 */
+	@Test
+	void testOverwrite() {
+		TraceBuffer buffer = new TraceBuffer(8);
+		for (int i = 0; i < 20; i++) {
+			buffer.record(i, null, 0, 0);
+		}
+		
+		List<Integer> kinds = new ArrayList<>();
+		buffer.drain((kind, subject, longValue, doubleValue) -> kinds.add(kind));
+		Assertions.assertEquals(List.of(12, 13, 14, 15, 16, 17, 18, 19), kinds);
+		Assertions.assertEquals(12, buffer.getDroppedCount());
+	}
+	
+	/**
+	 * Tests that concurrent recording and draining doesn't lose or reorder events
+	 * other than the ones counted as dropped.
+	 */
+	@Test
+	@Timeout(value = 30)
+	void testConcurrent() throws InterruptedException {
+		TraceBuffer buffer = new TraceBuffer(64);
+		int count = 1_000_000;
+		Thread producer = new Thread(() -> {
+			for (int i = 0; i < count; i++) {
+				buffer.record(0, null, i, i);
+			}
+		});
+		producer.start();
+		
+		AtomicLong previous = new AtomicLong(-1);
+		long handled = 0;
+		TraceBuffer.Handler handler = (kind, subject, longValue, doubleValue) -> {
+			Assertions.assertEquals((double) longValue, doubleValue);
+			Assertions.assertTrue(longValue > previous.get());
+			previous.set(longValue);
+		};
+		while (producer.isAlive()) {
+			handled += buffer.drain(handler);
+		}
+		handled += buffer.drain(handler);
+		Assertions.assertEquals(count, handled + buffer.getDroppedCount());
+		Assertions.assertEquals(count - 1, previous.get());
+	}
+	
+	/**
+	 * Tests that only powers of two are accepted as capacity.
+	 */
+	@Test
+	void testInvalidCapacity() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new TraceBuffer(0));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new TraceBuffer(12));
+	}
+}
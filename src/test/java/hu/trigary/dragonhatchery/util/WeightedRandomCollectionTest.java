@@ -4,14 +4,20 @@ import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SplittableRandom;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Tests the {@link WeightedRandomCollection} class.
@@ -25,8 +31,8 @@ public class WeightedRandomCollectionTest {
 	@Test
 	void testConstructEmpty() {
 		Assertions.assertThrows(IllegalArgumentException.class,
-				() -> new WeightedRandomCollection<>(List.of(),
-						Function.identity(), Function.identity()));
+				() -> new WeightedRandomCollection<>(List.<Double>of(),
+						Function.identity(), Double::doubleValue));
 	}
 	
 	/**
@@ -37,15 +43,38 @@ public class WeightedRandomCollectionTest {
 	void testGetEntries() {
 		Set<Double> source = generateRandomDoubles();
 		var collection = new WeightedRandomCollection<>(source,
-				Function.identity(), Function.identity());
+				Function.identity(), Double::doubleValue);
 		Assertions.assertEquals(source, new HashSet<>(collection.getEntries()));
 	}
 	
 	/**
-	 * Tests whether {@link WeightedRandomCollection} has the correct distribution.
+	 * Tests whether {@link WeightedRandomCollection#fromArrays(Object[], double[])}
+	 * copies the arrays and rejects mismatching lengths.
 	 */
 	@Test
-	void testGetRandom() {
+	void testFromArrays() {
+		String[] entries = {"a", "b", "c"};
+		double[] weights = {1, 2, 3};
+		var collection = WeightedRandomCollection.fromArrays(entries, weights);
+		entries[0] = "x";
+		weights[0] = 10;
+		Assertions.assertEquals(List.of("a", "b", "c"), List.copyOf(collection.getEntries()));
+		Assertions.assertEquals(1, collection.getWeight(0));
+		Assertions.assertEquals(3, collection.getWeight(2));
+		
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> WeightedRandomCollection.fromArrays(entries, new double[]{1, 2}));
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> WeightedRandomCollection.fromArrays(new String[0], new double[0]));
+	}
+	
+	/**
+	 * Tests whether {@link WeightedRandomCollection} has the correct distribution,
+	 * regardless of the {@link WeightedRandomCollection.Engine} used.
+	 */
+	@ParameterizedTest
+	@EnumSource(WeightedRandomCollection.Engine.class)
+	void testGetRandom(WeightedRandomCollection.Engine engine) {
 		int sampleCount = 1_000_000;
 		double leniency = 0.05;
 		
@@ -53,7 +82,7 @@ public class WeightedRandomCollectionTest {
 		double doubleSum = doubles.stream().mapToDouble(d -> d).sum();
 		
 		var collection = new WeightedRandomCollection<>(doubles,
-				Function.identity(), Function.identity());
+				Function.identity(), Double::doubleValue, engine);
 		
 		Map<Double, Integer> histogram = new HashMap<>();
 		for (int i = 0; i < sampleCount; i++) {
@@ -69,6 +98,140 @@ public class WeightedRandomCollectionTest {
 		});
 	}
 	
+	/**
+	 * Tests whether the construction of a collection
+	 * with a non-positive weight is indeed disallowed.
+	 */
+	@ParameterizedTest
+	@ValueSource(doubles = {0, -1, Double.NaN})
+	void testConstructInvalidWeight(double weight) {
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> new WeightedRandomCollection<>(List.of(1.0, weight),
+						Function.identity(), Double::doubleValue));
+	}
+	
+	/**
+	 * Tests whether each {@link WeightedRandomCollection.Engine} maps
+	 * evenly spaced rolls to indexes proportionally to the weights.
+	 */
+	@ParameterizedTest
+	@EnumSource(WeightedRandomCollection.Engine.class)
+	void testSamplerProportions(WeightedRandomCollection.Engine engine) {
+		int rollCount = 100_000;
+		double[] weights = {1, 2, 3, 0.5, 13.5};
+		double weightSum = 20;
+		IndexSampler sampler = engine.createSampler(weights, weightSum);
+		
+		int[] histogram = new int[weights.length];
+		for (int i = 0; i < rollCount; i++) {
+			histogram[sampler.getIndex((i + 0.5) / rollCount)]++;
+		}
+		
+		for (int i = 0; i < weights.length; i++) {
+			Assertions.assertEquals(weights[i] / weightSum,
+					(double) histogram[i] / rollCount, 0.001);
+		}
+	}
+	
+	/**
+	 * Tests whether bulk sampling only overwrites the requested
+	 * amount of values and rejects invalid counts.
+	 */
+	@Test
+	void testSampleBulk() {
+		var collection = new WeightedRandomCollection<>(List.of(1.0, 2.0),
+				Function.identity(), Double::doubleValue);
+		int[] indices = new int[10];
+		Arrays.fill(indices, -1);
+		collection.sample(RandomSource.of(new SplittableRandom(42)), 5, indices);
+		for (int i = 0; i < indices.length; i++) {
+			Assertions.assertEquals(i >= 5, indices[i] == -1);
+		}
+		
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> collection.sample(11, indices));
+	}
+	
+	/**
+	 * Tests whether parallel index streams have the correct size and distribution.
+	 */
+	@Test
+	void testIndexStreamParallel() {
+		long sampleCount = 1_000_000;
+		double[] weights = {1, 3, 6};
+		var collection = new WeightedRandomCollection<>(Arrays.stream(weights)
+				.boxed().collect(Collectors.toList()), Function.identity(), Double::doubleValue);
+		
+		Map<Integer, Long> histogram = collection.indexStream(sampleCount,
+				RandomSource.create(RandomSource.XOROSHIRO, 42))
+				.parallel()
+				.boxed()
+				.collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+		
+		Assertions.assertEquals(sampleCount, histogram.values().stream()
+				.mapToLong(Long::longValue).sum());
+		for (int i = 0; i < weights.length; i++) {
+			Assertions.assertEquals(weights[i] / 10,
+					(double) histogram.get(i) / sampleCount, 0.01);
+		}
+	}
+	
+	/**
+	 * Tests whether sampling without replacement returns distinct indexes,
+	 * selects every index when requesting more than the size
+	 * and whether the first selected index has the correct distribution.
+	 */
+	@Test
+	void testSampleDistinct() {
+		int sampleCount = 100_000;
+		double[] weights = {1, 3, 6, 0.5, 9.5};
+		var collection = new WeightedRandomCollection<>(Arrays.stream(weights)
+				.boxed().collect(Collectors.toList()), Function.identity(), Double::doubleValue);
+		
+		int[] indices = new int[weights.length + 1];
+		Assertions.assertEquals(weights.length, collection.sampleDistinct(indices.length, indices));
+		Assertions.assertEquals(weights.length, Arrays.stream(indices, 0, weights.length)
+				.distinct().count());
+		
+		int[] firstHistogram = new int[weights.length];
+		for (int i = 0; i < sampleCount; i++) {
+			Assertions.assertEquals(3, collection.sampleDistinct(3, indices));
+			Assertions.assertEquals(3, Arrays.stream(indices, 0, 3).distinct().count());
+			firstHistogram[indices[0]]++;
+		}
+		for (int i = 0; i < weights.length; i++) {
+			Assertions.assertEquals(weights[i] / 20,
+					(double) firstHistogram[i] / sampleCount, 0.01);
+		}
+	}
+	
+	/**
+	 * Tests whether sampling without replacement selects the second index
+	 * proportionally to the weights of the remaining entries.
+	 */
+	@Test
+	void testSampleDistinctConditional() {
+		int sampleCount = 100_000;
+		var collection = new WeightedRandomCollection<>(List.of(1.0, 1.0, 2.0),
+				Function.identity(), Double::doubleValue);
+		
+		int[] indices = new int[2];
+		int firstWasHeavy = 0;
+		int secondIsHeavyAfterLight = 0;
+		for (int i = 0; i < sampleCount; i++) {
+			collection.sampleDistinct(2, indices);
+			if (indices[0] == 2) {
+				firstWasHeavy++;
+			} else if (indices[1] == 2) {
+				secondIsHeavyAfterLight++;
+			}
+		}
+		
+		//P(heavy second | light first) = 2 / 3
+		Assertions.assertEquals(2.0 / 3, (double) secondIsHeavyAfterLight
+				/ (sampleCount - firstWasHeavy), 0.01);
+	}
+	
 	/**
 	 * Generates multiple (more than 1) different {@link Double} values.
 	 *